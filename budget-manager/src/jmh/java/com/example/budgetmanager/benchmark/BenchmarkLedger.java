@@ -0,0 +1,84 @@
+package com.example.budgetmanager.benchmark;
+
+import com.example.budgetmanager.BudgetManagerApplication;
+import com.example.budgetmanager.model.Ledgers;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/* ------------------------------------------------------------------
+Ledger H2 su file usato dai benchmark, con un numero fissato di righe.
+Il database viene popolato solo se il numero di righe non coincide,
+quindi le esecuzioni successive riusano i file in target/jmh.
+Il contesto Spring è quello dell'applicazione, con o senza server web.
+------------------------------------------------------------------ */
+
+public final class BenchmarkLedger {
+
+    // Righe inserite per ogni istruzione durante il popolamento
+    private static final int SEED_CHUNK = 500_000;
+
+    private BenchmarkLedger() {
+    }
+
+    // Avvia il contesto su un ledger di "rows" transazioni (database distinto per ogni nome)
+    public static ConfigurableApplicationContext open(String name, int rows) {
+        return open(name, rows, WebApplicationType.NONE);
+    }
+
+    // Come open(name, rows), con il tipo di applicazione e proprietà aggiuntive ("chiave=valore")
+    public static ConfigurableApplicationContext open(String name, int rows, WebApplicationType web,
+                                                      String... properties) {
+        String url = "jdbc:h2:file:./target/jmh/" + name + "-" + rows + ";LOCK_TIMEOUT=10000";
+        ConfigurableApplicationContext context = start(url, web, properties);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Long.class);
+        if (count != null && count == rows) {
+            return context;
+        }
+
+        seed(jdbcTemplate, rows);
+        context.close();
+        // Al riavvio la sequenza degli id viene riallineata e totali e rollup vengono ricostruiti
+        return start(url, web, properties);
+    }
+
+    private static ConfigurableApplicationContext start(String url, WebApplicationType web, String... properties) {
+        return new SpringApplicationBuilder(BudgetManagerApplication.class)
+                .web(web)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "server.port=0",
+                        // La copia colonnare non serve e raddoppierebbe la memoria con 10M di righe
+                        "budget.analytics.enabled=false")
+                .properties(properties)
+                .run();
+    }
+
+    // Transazioni sintetiche del ledger predefinito generate direttamente da H2: 1 su 5 è un'entrata,
+    // otto categorie e date distribuite sugli ultimi dieci anni
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.execute("DELETE FROM transaction_rollup");
+        jdbcTemplate.execute("DELETE FROM ledger_totals");
+        jdbcTemplate.execute("DELETE FROM transaction");
+        for (long from = 1; from <= rows; from += SEED_CHUNK) {
+            long to = Math.min(rows, from + SEED_CHUNK - 1);
+            jdbcTemplate.update("""
+                    INSERT INTO transaction (id, ledger, amount_cents, category, description, date, type)
+                    SELECT X,
+                           ?,
+                           CASE WHEN MOD(X, 5) = 0 THEN 150000 + MOD(X, 997) * 100 ELSE 100 + MOD(X * 7919, 20000) END,
+                           CASE MOD(X, 8) WHEN 0 THEN 'Food' WHEN 1 THEN 'Rent' WHEN 2 THEN 'Transport'
+                                WHEN 3 THEN 'Utilities' WHEN 4 THEN 'Health' WHEN 5 THEN 'Leisure'
+                                WHEN 6 THEN 'Travel' ELSE 'Other' END,
+                           'Seed ' || X,
+                           DATEADD(DAY, -MOD(X, 3650), DATE '2025-12-31'),
+                           CASE WHEN MOD(X, 5) = 0 THEN 'INCOME' ELSE 'EXPENSE' END
+                    FROM SYSTEM_RANGE(?, ?)
+                    """, Ledgers.DEFAULT, from, to);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.budgetmanager.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/* ------------------------------------------------------------------
+Test di carico delle pagine "/" e "/transactions" con molte connessioni
+contemporanee, con i thread di piattaforma di Tomcat e con i thread
+virtuali (spring.threads.virtual.enabled). Ogni invocazione apre
+"connections" richieste insieme e attende tutte le risposte: il tempo
+riportato è quello dell'intero blocco di richieste.
+------------------------------------------------------------------ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DashboardLoadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"50", "400", "2000"})
+    public int connections;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI home;
+    private URI transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkLedger.open("ledger", 10_000, WebApplicationType.SERVLET,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.max-connections=" + Math.max(8192, connections),
+                "server.tomcat.accept-count=" + connections);
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        home = URI.create(base + "/");
+        transactions = URI.create(base + "/transactions");
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int concurrentPageLoads() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            URI page = i % 2 == 0 ? home : transactions;
+            responses.add(client.sendAsync(HttpRequest.newBuilder(page).GET().build(),
+                    HttpResponse.BodyHandlers.discarding()));
+        }
+        int failed = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() != 200) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + connections + " requests failed");
+        }
+        return connections;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.budgetmanager.benchmark;
+
+import com.example.budgetmanager.config.TransactionTableHttpMessageConverter;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/* ------------------------------------------------------------------
+Formati delle risposte REST sulle liste di transazioni: JSON attuale
+(un oggetto per riga), JSON a colonne e CBOR, con e senza gzip.
+Ogni operazione restituisce la dimensione del payload, che non cambia
+tra le esecuzioni: le dimensioni per formato sono riportate nel README.
+Le liste vengono lette una volta dal ledger da 10k righe.
+------------------------------------------------------------------ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"500", "10000"})
+    public int size;
+
+    @Param({"json", "table", "cbor"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectWriter jsonWriter;
+    private ObjectWriter cborWriter;
+    private TransactionTableHttpMessageConverter tableConverter;
+    private List<Transaction> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (ConfigurableApplicationContext context = BenchmarkLedger.open("ledger", 10_000)) {
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            jsonWriter = objectMapper.writer();
+            cborWriter = objectMapper.copyWith(new CBORFactory()).writer();
+            tableConverter = new TransactionTableHttpMessageConverter(objectMapper);
+            transactions = context.getBean(TransactionRepository.class).findDatedPage(Ledgers.DEFAULT,
+                    PageRequest.ofSize(size));
+        }
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 64);
+        OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes;
+        switch (format) {
+            case "json" -> jsonWriter.writeValue(out, transactions);
+            case "table" -> tableConverter.write(transactions, out);
+            case "cbor" -> cborWriter.writeValue(out, transactions);
+            default -> throw new IllegalStateException("Unknown format: " + format);
+        }
+        out.close();
+        return bytes.size();
+    }
+}
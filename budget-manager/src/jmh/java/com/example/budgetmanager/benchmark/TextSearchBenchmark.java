@@ -0,0 +1,76 @@
+package com.example.budgetmanager.benchmark;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.search.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/* ------------------------------------------------------------------
+Ricerca testuale sull'indice invertito, senza database: l'indice viene
+riempito con transazioni sintetiche (esercenti e categorie da elenchi
+fissi, più un numero d'ordine che rende unica ogni descrizione).
+Misura una parola rara, una frequente, un prefisso e due parole.
+------------------------------------------------------------------ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TextSearchBenchmark {
+
+    private static final String[] MERCHANTS = {"Amazon", "Esselunga", "Coop", "Trenitalia", "Netflix", "Spotify",
+            "Ikea", "Zara", "Decathlon", "Autogrill", "Eni", "Mediaworld", "Feltrinelli", "Carrefour", "Lidl"};
+    private static final String[] CATEGORIES = {"Food", "Transport", "Shopping", "Entertainment", "Home", "Health"};
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    private InvertedIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new InvertedIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        List<Transaction> batch = new ArrayList<>(10_000);
+        for (long id = 1; id <= rows; id++) {
+            Transaction transaction = new Transaction(1 + random.nextInt(100_000),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    MERCHANTS[random.nextInt(MERCHANTS.length)] + " order " + id,
+                    LocalDate.of(2024, 1, 1), Transaction.TransactionType.EXPENSE);
+            transaction.setId(id);
+            batch.add(transaction);
+            if (batch.size() == 10_000) {
+                index.addAll(batch);
+                batch.clear();
+            }
+        }
+        index.addAll(batch);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result rareWord() {
+        return index.search("order 777777", 0, 20);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result frequentWord() {
+        return index.search("netflix", 0, 20);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result prefix() {
+        return index.search("feltr", 0, 20);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result twoWords() {
+        return index.search("amazon shopping", 0, 20);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.budgetmanager.benchmark;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionPage;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* ------------------------------------------------------------------
+Letture: lista completa, prima pagina e query di aggregazione, sia
+direttamente sul repository sia attraverso il service (totali
+incrementali e cache delle aggregazioni).
+Con 10M di righe getAllTransactions richiede un heap di diversi GB.
+------------------------------------------------------------------ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TransactionQueryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkLedger.open("ledger", rows);
+        transactionService = context.getBean(TransactionService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactions() {
+        return transactionService.getAllTransactions();
+    }
+
+    @Benchmark
+    public TransactionPage getFirstPage() {
+        return transactionService.getTransactionsPage(null, TransactionService.DEFAULT_PAGE_SIZE);
+    }
+
+    // Query di aggregazione senza cache
+    @Benchmark
+    public LedgerSummary getTotalsQuery() {
+        return transactionRepository.getTotals(Ledgers.DEFAULT);
+    }
+
+    @Benchmark
+    public List<CategoryTotal> getExpenseCategorySummaryQuery() {
+        return transactionRepository.getExpenseCategorySummary(Ledgers.DEFAULT);
+    }
+
+    // Stesse letture attraverso il service, come nelle pagine "/" e "/transactions"
+    @Benchmark
+    public LedgerSummary getLedgerSummary() {
+        return transactionService.getLedgerSummary();
+    }
+
+    @Benchmark
+    public Map<String, Long> getExpenseCategorySummary() {
+        return transactionService.getExpenseCategorySummary();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.budgetmanager.benchmark;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* ------------------------------------------------------------------
+Serializzazione JSON di liste di transazioni con l'ObjectMapper
+configurato da Spring (lo stesso usato dai controller REST).
+Le liste vengono lette una volta dal ledger da 10k righe.
+------------------------------------------------------------------ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionSerializationBenchmark {
+
+    @Param({"50", "500", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Transaction> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (ConfigurableApplicationContext context = BenchmarkLedger.open("ledger", 10_000)) {
+            objectMapper = context.getBean(ObjectMapper.class);
+            transactions = context.getBean(TransactionRepository.class).findDatedPage(Ledgers.DEFAULT,
+                    PageRequest.ofSize(size));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeTransactions() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+}
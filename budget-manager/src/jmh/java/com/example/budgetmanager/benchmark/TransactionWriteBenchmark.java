@@ -0,0 +1,77 @@
+package com.example.budgetmanager.benchmark;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.RollupService;
+import com.example.budgetmanager.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* ------------------------------------------------------------------
+Scritture: una transazione per chiamata contro un blocco salvato con
+addTransactions (tempo riportato per singola transazione).
+Alla fine le righe aggiunte vengono eliminate e i dati derivati
+ricostruiti, così il ledger resta quello popolato.
+------------------------------------------------------------------ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TransactionWriteBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkLedger.open("ledger", rows);
+        transactionService = context.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // Gli id popolati vanno da 1 a rows, quelli assegnati dalla sequenza sono successivi
+        context.getBean(JdbcTemplate.class).update("DELETE FROM transaction WHERE id > ?", rows);
+        context.getBean(LedgerTotalsService.class).rebuild();
+        context.getBean(RollupService.class).rebuild();
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction addTransaction() {
+        return transactionService.addTransaction(next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Transaction> addTransactionsBatch() {
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(next());
+        }
+        return transactionService.addTransactions(batch);
+    }
+
+    private Transaction next() {
+        long n = sequence++;
+        boolean income = n % 5 == 0;
+        return new Transaction(100 + n % 20_000, income ? "Salary" : "Food", "Benchmark " + n,
+                LocalDate.of(2025, 1, 1).plusDays(n % 365),
+                income ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE);
+    }
+}
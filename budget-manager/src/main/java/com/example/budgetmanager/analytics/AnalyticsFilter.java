@@ -0,0 +1,24 @@
+package com.example.budgetmanager.analytics;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Filtro delle interrogazioni analitiche. I campi null non filtrano;
+con un filtro sulle date le transazioni senza data sono escluse.
+------------------------------------------------------------------ */
+
+public record AnalyticsFilter(LocalDate from, LocalDate to, Transaction.TransactionType type, String category) {
+
+    public static final AnalyticsFilter NONE = new AnalyticsFilter(null, null, null, null);
+
+    public AnalyticsFilter {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("The start date must not be after the end date.");
+        }
+        if (category != null && category.isBlank()) {
+            category = null;
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package com.example.budgetmanager.analytics;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* ------------------------------------------------------------------
+Copia in memoria del registro organizzata per colonne di primitivi:
+giorni epoch per la data, centesimi per l'importo, codici di
+dizionario per la categoria e bitset per il tipo e per le righe vive.
+Le aggregazioni scorrono i bitset a parole da 64 righe, non allocano
+nulla per riga e si dividono tra i core con il fork-join.
+Le scritture prendono il lock in scrittura, le interrogazioni quello
+in lettura per tutta la durata del calcolo parallelo.
+------------------------------------------------------------------ */
+
+public final class ColumnarLedger {
+
+    // Numero massimo di combinazioni delle dimensioni in un'aggregazione (chiavi di gruppo int)
+    public static final int MAX_GROUPS = 1 << 20;
+
+    // Limite di k nelle interrogazioni top-K (ogni foglia tiene un heap di k righe)
+    public static final int MAX_TOP = 10_000;
+
+    static final long NO_DATE = Long.MIN_VALUE;
+    static final int NO_CATEGORY = -1;
+    static final int NO_MONTH = Integer.MIN_VALUE;
+
+    private static final int TYPE_NONE = 0;
+    private static final int TYPE_INCOME = 1;
+    private static final int TYPE_EXPENSE = 2;
+
+    // Filtro categoria assente / categoria mai vista (nessuna riga può corrispondere)
+    private static final int ANY_CATEGORY = -2;
+    private static final int UNKNOWN_CATEGORY = -3;
+
+    // Dimensione minima di una foglia del fork-join, in parole da 64 righe
+    private static final int LEAF_WORDS = 1024;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ForkJoinPool pool;
+
+    private long[] ids;
+    private long[] epochDays;
+    private long[] cents;
+    private int[] categories;
+    private int[] months;
+    private long[] live;
+    private long[] income;
+    private long[] expense;
+
+    // Righe occupate (vive o eliminate) e righe eliminate in attesa di compattazione
+    private int rows;
+    private int deleted;
+    private int minMonth = Integer.MAX_VALUE;
+    private int maxMonth = Integer.MIN_VALUE;
+
+    private LongIntHashMap rowById = new LongIntHashMap(INITIAL_CAPACITY);
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    public ColumnarLedger() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ColumnarLedger(ForkJoinPool pool) {
+        this.pool = pool;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /* --------------------------- Scritture --------------------------- */
+
+    // Inserisce o sostituisce le transazioni indicate (quelle senza id vengono ignorate)
+    public void addAll(Collection<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions) {
+                upsert(transaction);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.remove(id);
+            if (row == LongIntHashMap.MISSING) {
+                return false;
+            }
+            clearBit(live, row);
+            clearBit(income, row);
+            clearBit(expense, row);
+            deleted++;
+            // Oltre un quarto di righe morte le scansioni perdono troppo: si compatta
+            if (deleted * 4L > rows) {
+                compact();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(Transaction transaction) {
+        if (transaction.getId() == null) {
+            return;
+        }
+        long id = transaction.getId();
+        int row = rowById.get(id);
+        if (row == LongIntHashMap.MISSING) {
+            if (rows == ids.length) {
+                grow(ids.length * 2);
+            }
+            row = rows++;
+            rowById.put(id, row);
+        }
+
+        LocalDate date = transaction.getDate();
+        ids[row] = id;
+        epochDays[row] = date == null ? NO_DATE : date.toEpochDay();
+        cents[row] = transaction.getAmountCents();
+        categories[row] = encodeCategory(transaction.getCategory());
+        if (date == null) {
+            months[row] = NO_MONTH;
+        } else {
+            int month = date.getYear() * 12 + date.getMonthValue() - 1;
+            months[row] = month;
+            minMonth = Math.min(minMonth, month);
+            maxMonth = Math.max(maxMonth, month);
+        }
+
+        setBit(live, row);
+        clearBit(income, row);
+        clearBit(expense, row);
+        if (transaction.getType() == Transaction.TransactionType.INCOME) {
+            setBit(income, row);
+        } else if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+            setBit(expense, row);
+        }
+    }
+
+    private int encodeCategory(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer code = categoryCodes.get(category);
+        if (code == null) {
+            code = categoryNames.size();
+            categoryCodes.put(category, code);
+            categoryNames.add(category);
+        }
+        return code;
+    }
+
+    // Sposta le righe vive in testa e ricostruisce l'indice per id
+    private void compact() {
+        int liveRows = rows - deleted;
+        LongIntHashMap compacted = new LongIntHashMap(Math.max(INITIAL_CAPACITY, liveRows));
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!testBit(live, row)) {
+                continue;
+            }
+            boolean isIncome = testBit(income, row);
+            boolean isExpense = testBit(expense, row);
+            clearBit(live, row);
+            clearBit(income, row);
+            clearBit(expense, row);
+
+            ids[target] = ids[row];
+            epochDays[target] = epochDays[row];
+            cents[target] = cents[row];
+            categories[target] = categories[row];
+            months[target] = months[row];
+            setBit(live, target);
+            if (isIncome) {
+                setBit(income, target);
+            }
+            if (isExpense) {
+                setBit(expense, target);
+            }
+            compacted.put(ids[target], target);
+            target++;
+        }
+        rows = target;
+        deleted = 0;
+        rowById = compacted;
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        epochDays = new long[capacity];
+        cents = new long[capacity];
+        categories = new int[capacity];
+        months = new int[capacity];
+        live = new long[words(capacity)];
+        income = new long[words(capacity)];
+        expense = new long[words(capacity)];
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        months = Arrays.copyOf(months, capacity);
+        live = Arrays.copyOf(live, words(capacity));
+        income = Arrays.copyOf(income, words(capacity));
+        expense = Arrays.copyOf(expense, words(capacity));
+    }
+
+    /* ------------------------- Interrogazioni ------------------------- */
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(rows - deleted, deleted, ids.length, categoryNames.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Totale in centesimi e numero di transazioni per ogni combinazione delle dimensioni richieste
+    public List<GroupResult> groupBy(EnumSet<GroupBy> dimensions, AnalyticsFilter filter) {
+        lock.readLock().lock();
+        try {
+            Query query = compile(filter);
+            int categoryCard = dimensions.contains(GroupBy.CATEGORY) ? categoryNames.size() + 1 : 1;
+            int typeCard = dimensions.contains(GroupBy.TYPE) ? 3 : 1;
+            int monthCard = dimensions.contains(GroupBy.MONTH) && minMonth <= maxMonth
+                    ? maxMonth - minMonth + 2 : 1;
+            long groups = (long) categoryCard * typeCard * monthCard;
+            if (groups > MAX_GROUPS) {
+                throw new IllegalArgumentException("Too many groups for an in-memory aggregation: " + groups);
+            }
+            if (query == null) {
+                return List.of();
+            }
+
+            GroupTotals totals = pool.invoke(new GroupScan(query, 0, usedWords(), leafWords(),
+                    typeCard, monthCard, dimensions.contains(GroupBy.CATEGORY)));
+
+            List<GroupResult> results = new ArrayList<>(totals.size);
+            for (int key : totals.sortedKeys()) {
+                int slot = totals.slot(key);
+                int rest = key;
+                int monthSlot = rest % monthCard;
+                rest /= monthCard;
+                int typeSlot = rest % typeCard;
+                int categorySlot = rest / typeCard;
+                results.add(new GroupResult(
+                        categoryCard > 1 && categorySlot > 0 ? categoryNames.get(categorySlot - 1) : null,
+                        typeCard > 1 ? decodeType(typeSlot) : null,
+                        monthCard > 1 && monthSlot > 0 ? decodeMonth(minMonth + monthSlot - 1) : null,
+                        totals.cents[slot], totals.counts[slot]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Percentili (0-100, metodo nearest-rank) degli importi in centesimi; array vuoto se nessuna riga corrisponde
+    public long[] percentiles(double[] percentiles, AnalyticsFilter filter) {
+        for (double p : percentiles) {
+            if (!(p >= 0 && p <= 100)) {
+                throw new IllegalArgumentException("Percentiles must be between 0 and 100.");
+            }
+        }
+        long[] values;
+        lock.readLock().lock();
+        try {
+            Query query = compile(filter);
+            if (query == null) {
+                return new long[0];
+            }
+            List<long[]> chunks = pool.invoke(new CollectScan(query, 0, usedWords(), leafWords()));
+            values = new long[chunks.stream().mapToInt(chunk -> chunk.length).sum()];
+            int offset = 0;
+            for (long[] chunk : chunks) {
+                System.arraycopy(chunk, 0, values, offset, chunk.length);
+                offset += chunk.length;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (values.length == 0) {
+            return new long[0];
+        }
+
+        // L'ordinamento lavora su una copia: il lock non serve più
+        Arrays.parallelSort(values);
+        long[] result = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100.0 * values.length);
+            result[i] = values[Math.max(0, rank - 1)];
+        }
+        return result;
+    }
+
+    // Le k transazioni con l'importo più alto, in ordine decrescente
+    public List<RankedTransaction> top(int k, AnalyticsFilter filter) {
+        if (k <= 0 || k > MAX_TOP) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_TOP + ".");
+        }
+        lock.readLock().lock();
+        try {
+            Query query = compile(filter);
+            if (query == null) {
+                return List.of();
+            }
+            TopK top = pool.invoke(new TopScan(query, 0, usedWords(), leafWords(), k));
+
+            // Svuotando il min-heap si ottiene l'ordine crescente: si riempie la lista dal fondo
+            RankedTransaction[] ranked = new RankedTransaction[top.size];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                int row = top.poll();
+                ranked[i] = new RankedTransaction(ids[row],
+                        epochDays[row] == NO_DATE ? null : LocalDate.ofEpochDay(epochDays[row]),
+                        cents[row],
+                        categories[row] == NO_CATEGORY ? null : categoryNames.get(categories[row]),
+                        decodeType(typeOf(row)));
+            }
+            return List.of(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Traduce il filtro in primitivi; null se nessuna riga può corrispondere
+    private Query compile(AnalyticsFilter filter) {
+        int category = ANY_CATEGORY;
+        if (filter.category() != null) {
+            Integer code = categoryCodes.get(filter.category());
+            category = code == null ? UNKNOWN_CATEGORY : code;
+        }
+        if (category == UNKNOWN_CATEGORY) {
+            return null;
+        }
+        int type = filter.type() == null ? TYPE_NONE
+                : filter.type() == Transaction.TransactionType.INCOME ? TYPE_INCOME : TYPE_EXPENSE;
+        boolean dated = filter.from() != null || filter.to() != null;
+        return new Query(
+                filter.from() == null ? Long.MIN_VALUE + 1 : filter.from().toEpochDay(),
+                filter.to() == null ? Long.MAX_VALUE : filter.to().toEpochDay(),
+                dated, type, category);
+    }
+
+    private int usedWords() {
+        return words(rows);
+    }
+
+    // Foglie abbastanza grandi da ammortizzare gli array per foglia, abbastanza da occupare tutti i core
+    private int leafWords() {
+        return Math.max(LEAF_WORDS, usedWords() / (pool.getParallelism() * 4));
+    }
+
+    // Parola di righe candidate: vive e del tipo richiesto
+    private long candidates(int word, Query query) {
+        long bits = live[word];
+        if (query.type == TYPE_INCOME) {
+            bits &= income[word];
+        } else if (query.type == TYPE_EXPENSE) {
+            bits &= expense[word];
+        }
+        return bits;
+    }
+
+    private boolean matches(int row, Query query) {
+        if (query.category != ANY_CATEGORY && categories[row] != query.category) {
+            return false;
+        }
+        if (query.dated) {
+            long day = epochDays[row];
+            return day != NO_DATE && day >= query.fromDay && day <= query.toDay;
+        }
+        return true;
+    }
+
+    private int typeOf(int row) {
+        return testBit(income, row) ? TYPE_INCOME : testBit(expense, row) ? TYPE_EXPENSE : TYPE_NONE;
+    }
+
+    private static Transaction.TransactionType decodeType(int type) {
+        return switch (type) {
+            case TYPE_INCOME -> Transaction.TransactionType.INCOME;
+            case TYPE_EXPENSE -> Transaction.TransactionType.EXPENSE;
+            default -> null;
+        };
+    }
+
+    private static YearMonth decodeMonth(int month) {
+        return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static boolean testBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    /* --------------------------- Fork-join --------------------------- */
+
+    private record Query(long fromDay, long toDay, boolean dated, int type, int category) {
+    }
+
+    // Scansione di un intervallo di parole [fromWord, toWord), divisa a metà finché supera la foglia
+    private abstract class Scan<R> extends RecursiveTask<R> {
+
+        final Query query;
+        final int fromWord;
+        final int toWord;
+        final int leafWords;
+
+        Scan(Query query, int fromWord, int toWord, int leafWords) {
+            this.query = query;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+            this.leafWords = leafWords;
+        }
+
+        @Override
+        protected R compute() {
+            if (toWord - fromWord <= leafWords) {
+                return leaf();
+            }
+            int middle = (fromWord + toWord) >>> 1;
+            Scan<R> left = split(fromWord, middle);
+            Scan<R> right = split(middle, toWord);
+            left.fork();
+            R rightResult = right.compute();
+            return combine(left.join(), rightResult);
+        }
+
+        abstract R leaf();
+
+        abstract Scan<R> split(int from, int to);
+
+        abstract R combine(R left, R right);
+    }
+
+    // Foglia che visita una riga alla volta le righe che corrispondono, accumulandole nel risultato
+    private abstract class RowScan<R> extends Scan<R> {
+
+        RowScan(Query query, int fromWord, int toWord, int leafWords) {
+            super(query, fromWord, toWord, leafWords);
+        }
+
+        @Override
+        R leaf() {
+            R result = empty();
+            for (int word = fromWord; word < toWord; word++) {
+                long bits = candidates(word, query);
+                while (bits != 0) {
+                    int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (matches(row, query)) {
+                        accept(result, row);
+                    }
+                }
+            }
+            return result;
+        }
+
+        abstract R empty();
+
+        abstract void accept(R result, int row);
+    }
+
+    // Totali e conteggi per chiave di gruppo, solo per i gruppi presenti nella foglia
+    private final class GroupScan extends RowScan<GroupTotals> {
+
+        private final int typeCard;
+        private final int monthCard;
+        private final boolean byCategory;
+
+        GroupScan(Query query, int fromWord, int toWord, int leafWords,
+                  int typeCard, int monthCard, boolean byCategory) {
+            super(query, fromWord, toWord, leafWords);
+            this.typeCard = typeCard;
+            this.monthCard = monthCard;
+            this.byCategory = byCategory;
+        }
+
+        @Override
+        Scan<GroupTotals> split(int from, int to) {
+            return new GroupScan(query, from, to, leafWords, typeCard, monthCard, byCategory);
+        }
+
+        @Override
+        GroupTotals empty() {
+            return new GroupTotals();
+        }
+
+        @Override
+        void accept(GroupTotals totals, int row) {
+            int key = byCategory ? categories[row] + 1 : 0;
+            if (typeCard > 1) {
+                key = key * typeCard + typeOf(row);
+            }
+            if (monthCard > 1) {
+                key = key * monthCard + (months[row] == NO_MONTH ? 0 : months[row] - minMonth + 1);
+            }
+            totals.add(key, cents[row], 1);
+        }
+
+        // Il più piccolo confluisce nel più grande
+        @Override
+        GroupTotals combine(GroupTotals left, GroupTotals right) {
+            GroupTotals into = left.size >= right.size ? left : right;
+            into.addAll(into == left ? right : left);
+            return into;
+        }
+    }
+
+    // Centesimi e transazioni per chiave di gruppo: LongIntHashMap dà la posizione della chiave negli array
+    // paralleli, che crescono con i gruppi effettivamente visti e non con il prodotto delle cardinalità
+    private static final class GroupTotals {
+
+        private static final int INITIAL_GROUPS = 16;
+
+        private final LongIntHashMap slots = new LongIntHashMap(INITIAL_GROUPS);
+        int[] keys = new int[INITIAL_GROUPS];
+        long[] cents = new long[INITIAL_GROUPS];
+        long[] counts = new long[INITIAL_GROUPS];
+        int size;
+
+        void add(int key, long amount, long count) {
+            int slot = slots.get(key);
+            if (slot == LongIntHashMap.MISSING) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    cents = Arrays.copyOf(cents, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                slot = size++;
+                keys[slot] = key;
+                slots.put(key, slot);
+            }
+            cents[slot] += amount;
+            counts[slot] += count;
+        }
+
+        void addAll(GroupTotals other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.keys[i], other.cents[i], other.counts[i]);
+            }
+        }
+
+        // Posizione della chiave negli array paralleli
+        int slot(int key) {
+            return slots.get(key);
+        }
+
+        int[] sortedKeys() {
+            int[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    // Raccoglie gli importi delle righe che corrispondono (per i percentili): un array esatto per foglia,
+    // concatenati una sola volta alla fine
+    private final class CollectScan extends Scan<List<long[]>> {
+
+        CollectScan(Query query, int fromWord, int toWord, int leafWords) {
+            super(query, fromWord, toWord, leafWords);
+        }
+
+        @Override
+        Scan<List<long[]>> split(int from, int to) {
+            return new CollectScan(query, from, to, leafWords);
+        }
+
+        // Due passate sulla foglia: conteggio, poi copia nell'array della dimensione giusta
+        @Override
+        List<long[]> leaf() {
+            int count = 0;
+            for (int word = fromWord; word < toWord; word++) {
+                long bits = candidates(word, query);
+                while (bits != 0) {
+                    int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (matches(row, query)) {
+                        count++;
+                    }
+                }
+            }
+            long[] values = new long[count];
+            int size = 0;
+            for (int word = fromWord; word < toWord && size < count; word++) {
+                long bits = candidates(word, query);
+                while (bits != 0) {
+                    int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (matches(row, query)) {
+                        values[size++] = cents[row];
+                    }
+                }
+            }
+            List<long[]> chunks = new ArrayList<>();
+            chunks.add(values);
+            return chunks;
+        }
+
+        @Override
+        List<long[]> combine(List<long[]> left, List<long[]> right) {
+            left.addAll(right);
+            return left;
+        }
+    }
+
+    // Min-heap delle k righe con l'importo più alto
+    private final class TopScan extends RowScan<TopK> {
+
+        private final int k;
+
+        TopScan(Query query, int fromWord, int toWord, int leafWords, int k) {
+            super(query, fromWord, toWord, leafWords);
+            this.k = k;
+        }
+
+        @Override
+        Scan<TopK> split(int from, int to) {
+            return new TopScan(query, from, to, leafWords, k);
+        }
+
+        @Override
+        TopK empty() {
+            return new TopK(k);
+        }
+
+        @Override
+        void accept(TopK top, int row) {
+            top.offer(row);
+        }
+
+        @Override
+        TopK combine(TopK left, TopK right) {
+            for (int i = 0; i < right.size; i++) {
+                left.offer(right.rows[i]);
+            }
+            return left;
+        }
+    }
+
+    private final class TopK {
+
+        final int[] rows;
+        int size;
+
+        TopK(int k) {
+            rows = new int[k];
+        }
+
+        void offer(int row) {
+            if (size < rows.length) {
+                rows[size] = row;
+                siftUp(size++);
+            } else if (less(rows[0], row)) {
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        int poll() {
+            int head = rows[0];
+            rows[0] = rows[--size];
+            siftDown(0);
+            return head;
+        }
+
+        // Ordine per importo, a parità di importo per id (il più recente prima)
+        private boolean less(int a, int b) {
+            return cents[a] != cents[b] ? cents[a] < cents[b] : ids[a] < ids[b];
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!less(rows[index], rows[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && less(rows[left], rows[smallest])) {
+                    smallest = left;
+                }
+                if (right < size && less(rows[right], rows[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int tmp = rows[a];
+            rows[a] = rows[b];
+            rows[b] = tmp;
+        }
+    }
+
+    public record Stats(int rows, int deletedRows, int capacity, int categories) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.budgetmanager.analytics;
+
+/* ------------------------------------------------------------------
+Dimensioni di raggruppamento supportate dal motore analitico.
+------------------------------------------------------------------ */
+
+public enum GroupBy {
+    CATEGORY, TYPE, MONTH
+}
@@ -0,0 +1,14 @@
+package com.example.budgetmanager.analytics;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.time.YearMonth;
+
+/* ------------------------------------------------------------------
+Riga del risultato di un raggruppamento: le dimensioni non richieste
+sono null, gli importi sono in centesimi.
+------------------------------------------------------------------ */
+
+public record GroupResult(String category, Transaction.TransactionType type, YearMonth month,
+                          long totalCents, long count) {
+}
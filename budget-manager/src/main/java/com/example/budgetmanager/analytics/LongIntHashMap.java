@@ -0,0 +1,111 @@
+package com.example.budgetmanager.analytics;
+
+import java.util.Arrays;
+
+/* ------------------------------------------------------------------
+Mappa long -> int a indirizzamento aperto, senza boxing.
+Usata per passare dall'id di una transazione alla sua riga nelle
+colonne (protetta dal lock di ColumnarLedger) e, nei raggruppamenti,
+dalla chiave di gruppo alla posizione dei suoi totali (una mappa per
+foglia del fork-join). Non è thread-safe.
+------------------------------------------------------------------ */
+
+final class LongIntHashMap {
+
+    static final int MISSING = -1;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long REMOVED = Long.MIN_VALUE + 1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int used;
+
+    LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if ((used + 1) * 4L >= keys.length * 3L) {
+            resize(size * 4 >= keys.length ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int firstRemoved = -1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                values[slot] = value;
+                return;
+            }
+            if (current == REMOVED && firstRemoved < 0) {
+                firstRemoved = slot;
+            }
+            if (current == EMPTY) {
+                int target = firstRemoved >= 0 ? firstRemoved : slot;
+                if (target == slot) {
+                    used++;
+                }
+                keys[target] = key;
+                values[target] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    int remove(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                keys[slot] = REMOVED;
+                size--;
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldKeys[i] != REMOVED) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.budgetmanager.analytics;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Transazione restituita dalle interrogazioni top-K (importo in centesimi).
+------------------------------------------------------------------ */
+
+public record RankedTransaction(long id, LocalDate date, long amountCents, String category,
+                                Transaction.TransactionType type) {
+}
@@ -0,0 +1,220 @@
+package com.example.budgetmanager.archive;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.Transaction.TransactionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/* ------------------------------------------------------------------
+Formato compatto dei segmenti d'archivio (un ledger, un anno).
+Le righe sono ordinate per (data, id) e scritte per colonne, così
+valori simili stanno vicini e GZIP li comprime meglio:
+ versione (byte), numero di righe n (varint);
+ dizionario delle categorie: numero di voci e stringhe;
+ giorni: primo giorno epoch, poi differenza dal precedente (varint);
+ id: zigzag della differenza dal precedente (varint);
+ importi in centesimi (varint, sempre positivi);
+ tipi (byte, 0 se assente);
+ categorie: posizione nel dizionario (varint);
+ descrizioni: stringhe;
+ chiavi di deduplicazione: stringhe (dalla versione 2).
+Le stringhe sono lunghezza + 1 (varint, 0 se null) e byte UTF-8.
+Tutte le righe di un segmento hanno una data: le transazioni senza
+data non vengono mai archiviate. I segmenti della versione 1, senza
+chiavi, restano leggibili.
+------------------------------------------------------------------ */
+
+public final class SegmentCodec {
+
+    static final byte VERSION = 2;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private SegmentCodec() {
+    }
+
+    public static byte[] encode(List<Transaction> transactions) {
+        List<Transaction> rows = new ArrayList<>(transactions);
+        rows.sort(Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, 64 * 1024))) {
+            out.writeByte(VERSION);
+            writeVarLong(out, rows.size());
+
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> categories = new ArrayList<>();
+            for (Transaction row : rows) {
+                if (row.getCategory() != null && !dictionary.containsKey(row.getCategory())) {
+                    dictionary.put(row.getCategory(), categories.size() + 1);
+                    categories.add(row.getCategory());
+                }
+            }
+            writeVarLong(out, categories.size());
+            for (String category : categories) {
+                writeString(out, category);
+            }
+
+            long previousDay = 0;
+            for (Transaction row : rows) {
+                long day = row.getDate().toEpochDay();
+                writeVarLong(out, zigzag(day - previousDay));
+                previousDay = day;
+            }
+            long previousId = 0;
+            for (Transaction row : rows) {
+                writeVarLong(out, zigzag(row.getId() - previousId));
+                previousId = row.getId();
+            }
+            for (Transaction row : rows) {
+                writeVarLong(out, row.getAmountCents());
+            }
+            for (Transaction row : rows) {
+                out.writeByte(row.getType() == null ? 0 : row.getType().ordinal() + 1);
+            }
+            // 0 indica una categoria assente
+            for (Transaction row : rows) {
+                writeVarLong(out, row.getCategory() == null ? 0 : dictionary.get(row.getCategory()));
+            }
+            for (Transaction row : rows) {
+                writeString(out, row.getDescription());
+            }
+            for (Transaction row : rows) {
+                writeString(out, row.getDedupKey());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Righe del segmento nell'ordine (data, id), tutte nel ledger indicato
+    public static List<Transaction> decode(byte[] data, String ledger) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            int version = in.readByte();
+            if (version != VERSION && version != 1) {
+                throw new IllegalStateException("Unsupported archive segment version " + version);
+            }
+            int count = (int) readVarLong(in);
+            String[] categories = new String[(int) readVarLong(in) + 1];
+            for (int i = 1; i < categories.length; i++) {
+                categories[i] = readString(in);
+            }
+
+            long[] days = new long[count];
+            long day = 0;
+            for (int i = 0; i < count; i++) {
+                day += unzigzag(readVarLong(in));
+                days[i] = day;
+            }
+            long[] ids = new long[count];
+            long id = 0;
+            for (int i = 0; i < count; i++) {
+                id += unzigzag(readVarLong(in));
+                ids[i] = id;
+            }
+            long[] amounts = new long[count];
+            for (int i = 0; i < count; i++) {
+                amounts[i] = readVarLong(in);
+            }
+            byte[] types = new byte[count];
+            in.readFully(types);
+            int[] categoryIndexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                categoryIndexes[i] = (int) readVarLong(in);
+            }
+
+            List<Transaction> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                // I setter rifiutano i campi null: si impostano solo i valori presenti
+                Transaction row = new Transaction();
+                row.setId(ids[i]);
+                row.setLedger(ledger);
+                row.setAmountCents(amounts[i]);
+                row.setDate(LocalDate.ofEpochDay(days[i]));
+                row.setType(types[i] == 0 ? null : TYPES[types[i] - 1]);
+                if (categories[categoryIndexes[i]] != null) {
+                    row.setCategory(categories[categoryIndexes[i]]);
+                }
+                row.setDescription(readString(in));
+                rows.add(row);
+            }
+            if (version >= 2) {
+                for (Transaction row : rows) {
+                    row.setDedupKey(readString(in));
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable archive segment", e);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.budgetmanager.balance;
+
+import com.example.budgetmanager.model.BalancePoint;
+import com.example.budgetmanager.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* ------------------------------------------------------------------
+Indice del saldo nel tempo: albero di Fenwick (binary indexed tree)
+sugli importi netti per giorno (entrate positive, spese negative).
+Lo slot i corrisponde al giorno epoch firstDay + i; tree[k] contiene
+la somma degli slot (k - lowbit(k), k]. Aggiungere una transazione,
+anche con data passata, e leggere il saldo a una data costano
+O(log giorni), qualunque sia il numero di transazioni.
+La capacità è sempre una potenza di due: verso destra l'albero si
+estende raddoppiando (il nodo della nuova radice vale quanto la
+vecchia radice, gli altri sono vuoti), verso sinistra si ricostruisce
+in O(giorni) con un intervallo doppio, quindi il costo è ammortizzato.
+Le transazioni senza data non hanno una posizione nel tempo e non
+fanno parte del saldo.
+------------------------------------------------------------------ */
+
+public class BalanceIndex {
+
+    // Capacità iniziale (in giorni) e massima (circa 700 anni)
+    static final int INITIAL_DAYS = 1 << 10;
+    static final int MAX_DAYS = 1 << 18;
+
+    public record Stats(LocalDate firstDate, LocalDate lastDate, long transactions, int capacityDays,
+                        long skipped) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 1-based, tree.length - 1 = capacità (0 finché l'indice è vuoto)
+    private long[] tree = new long[1];
+    private long firstDay;
+    // Giorni estremi delle transazioni indicizzate (non si restringono dopo un'eliminazione)
+    private long minDay = Long.MAX_VALUE;
+    private long maxDay = Long.MIN_VALUE;
+    private long transactions;
+    // Transazioni con date fuori dall'intervallo massimo, ignorate
+    private long skipped;
+
+    public void addAll(Collection<Transaction> added) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : added) {
+                apply(transaction, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            apply(transaction, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Saldo alla fine del giorno indicato
+    public long balanceAt(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            return prefix(date.toEpochDay());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Saldo a fine giornata ogni step giorni da from, più l'ultimo punto su to; al massimo maxPoints punti
+    public List<BalancePoint> series(LocalDate from, LocalDate to, int maxPoints) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end date must not be before the start date.");
+        }
+        if (maxPoints < 2) {
+            throw new IllegalArgumentException("A series needs at least 2 points.");
+        }
+        long days = to.toEpochDay() - from.toEpochDay();
+        long step = Math.max(1, (days + maxPoints - 2) / (maxPoints - 1));
+        List<BalancePoint> points = new ArrayList<>((int) Math.min(maxPoints, days + 1));
+        lock.readLock().lock();
+        try {
+            for (long day = from.toEpochDay(); day < to.toEpochDay(); day += step) {
+                points.add(new BalancePoint(LocalDate.ofEpochDay(day), prefix(day)));
+            }
+            points.add(new BalancePoint(to, prefix(to.toEpochDay())));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return points;
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(minDay == Long.MAX_VALUE ? null : LocalDate.ofEpochDay(minDay),
+                    maxDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(maxDay), transactions, capacity(),
+                    skipped);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        if (transaction.getDate() == null || transaction.getType() == null) {
+            return;
+        }
+        long day = transaction.getDate().toEpochDay();
+        // Un'eliminazione non allarga l'intervallo: fuori intervallo la transazione era stata ignorata
+        if (sign > 0 ? !ensureCovered(day) : !covered(day)) {
+            skipped += sign;
+            return;
+        }
+        long cents = transaction.getType() == Transaction.TransactionType.INCOME
+                ? transaction.getAmountCents() : -transaction.getAmountCents();
+        for (int k = (int) (day - firstDay) + 1; k < tree.length; k += k & -k) {
+            tree[k] += sign * cents;
+        }
+        transactions += sign;
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+    }
+
+    // Somma degli slot fino al giorno incluso
+    private long prefix(long day) {
+        int capacity = capacity();
+        if (capacity == 0 || day < firstDay) {
+            return 0;
+        }
+        if (day - firstDay >= capacity) {
+            return tree[capacity];
+        }
+        long sum = 0;
+        for (int k = (int) (day - firstDay) + 1; k > 0; k -= k & -k) {
+            sum += tree[k];
+        }
+        return sum;
+    }
+
+    private int capacity() {
+        return tree.length - 1;
+    }
+
+    private boolean covered(long day) {
+        return day >= firstDay && day - firstDay < capacity();
+    }
+
+    // Allarga l'intervallo fino a comprendere il giorno; false se servirebbe più di MAX_DAYS
+    private boolean ensureCovered(long day) {
+        int capacity = capacity();
+        if (capacity == 0) {
+            tree = new long[INITIAL_DAYS + 1];
+            firstDay = day - INITIAL_DAYS / 2;
+            return true;
+        }
+        if (covered(day)) {
+            return true;
+        }
+        long lastDay = Math.max(day, firstDay + capacity - 1);
+        long startDay = Math.min(day, firstDay);
+        if (lastDay - startDay >= MAX_DAYS) {
+            return false;
+        }
+        int grown = capacity;
+        while (grown < lastDay - startDay + 1) {
+            grown *= 2;
+        }
+        if (day >= firstDay) {
+            growRight(grown);
+        } else {
+            growLeft(grown);
+        }
+        return true;
+    }
+
+    // Stesso primo giorno: la nuova radice di ogni raddoppio copre tutto il vecchio albero
+    private void growRight(int grown) {
+        long[] next = Arrays.copyOf(tree, grown + 1);
+        for (int size = capacity(); size < grown; size *= 2) {
+            next[size * 2] = next[size];
+        }
+        tree = next;
+    }
+
+    // Stesso ultimo giorno: gli importi per giorno vengono spostati a destra e l'albero ricostruito
+    private void growLeft(int grown) {
+        int capacity = capacity();
+        long[] values = tree.clone();
+        for (int k = capacity; k > 0; k--) {
+            int parent = k + (k & -k);
+            if (parent <= capacity) {
+                values[parent] -= values[k];
+            }
+        }
+        int shift = grown - capacity;
+        long[] next = new long[grown + 1];
+        System.arraycopy(values, 1, next, 1 + shift, capacity);
+        for (int k = 1; k <= grown; k++) {
+            int parent = k + (k & -k);
+            if (parent <= grown) {
+                next[parent] += next[k];
+            }
+        }
+        tree = next;
+        firstDay -= shift;
+    }
+}
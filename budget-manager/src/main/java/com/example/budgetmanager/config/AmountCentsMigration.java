@@ -0,0 +1,73 @@
+package com.example.budgetmanager.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Migrazione degli importi da DOUBLE (colonna amount) a centesimi BIGINT
+(colonna amount_cents) nei database creati dalle versioni precedenti.
+Viene eseguita prima che Hibernate aggiorni lo schema, così la colonna
+nuova viene riempita con i valori esistenti invece che con zero.
+I totali e i rollup sono dati derivati: le tabelle in virgola mobile
+vengono eliminate e ricostruite all'avvio dai rispettivi servizi.
+Ogni passo controlla lo schema: rieseguirla dopo un'interruzione è sicuro.
+Gli importi con più di due decimali non hanno un valore esatto in
+centesimi: se ce ne sono la migrazione si ferma prima di modificare lo
+schema ed elenca le righe da correggere, l'avvio fallisce.
+------------------------------------------------------------------ */
+
+@Component
+public class AmountCentsMigration extends SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(AmountCentsMigration.class);
+
+    // Righe elencate nel messaggio d'errore (il log le riporta tutte)
+    private static final int REPORTED_ROWS = 20;
+
+    public AmountCentsMigration(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (hasColumn("TRANSACTION", "AMOUNT")) {
+            migrateTransactionAmounts();
+        }
+        if (hasColumn("LEDGER_TOTALS", "TOTAL_REVENUE")) {
+            log.info("Dropping floating-point ledger_totals, it will be rebuilt in cents");
+            jdbcTemplate.execute("DROP TABLE ledger_totals");
+        }
+        if (hasColumn("TRANSACTION_ROLLUP", "TOTAL")) {
+            log.info("Dropping floating-point transaction_rollup, it will be rebuilt in cents");
+            jdbcTemplate.execute("DROP TABLE transaction_rollup");
+        }
+    }
+
+    private void migrateTransactionAmounts() {
+        // Importi con più di due decimali (non dovrebbero esistere: il form accetta step 0.01)
+        List<String> inexact = jdbcTemplate.query("SELECT id, amount FROM transaction "
+                        + "WHERE amount IS NOT NULL AND ABS(amount * 100 - ROUND(amount * 100)) > 0.000001 ORDER BY id",
+                (row, index) -> row.getLong("id") + "=" + row.getBigDecimal("amount").toPlainString());
+        if (!inexact.isEmpty()) {
+            inexact.forEach(row -> log.error("Transaction amount with more than two decimals: {}", row));
+            String listed = String.join(", ", inexact.subList(0, Math.min(inexact.size(), REPORTED_ROWS)));
+            throw new IllegalStateException(String.format("%d transaction amounts have more than two decimals and "
+                    + "cannot be stored in cents (id=amount: %s%s). Fix them in the transaction table and restart.",
+                    inexact.size(), listed, inexact.size() > REPORTED_ROWS ? ", ..." : ""));
+        }
+
+        if (!hasColumn("TRANSACTION", "AMOUNT_CENTS")) {
+            jdbcTemplate.execute("ALTER TABLE transaction ADD COLUMN amount_cents BIGINT DEFAULT 0 NOT NULL");
+        }
+        // ROUND corregge solo la rappresentazione binaria del double (12.34 * 100 = 1233.9999999999998)
+        int migrated = jdbcTemplate.update("UPDATE transaction SET amount_cents = CAST(ROUND(amount * 100) AS BIGINT) "
+                + "WHERE amount IS NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE transaction DROP COLUMN amount");
+        log.info("Migrated {} transaction amounts to cents", migrated);
+    }
+}
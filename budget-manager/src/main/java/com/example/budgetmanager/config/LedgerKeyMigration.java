@@ -0,0 +1,60 @@
+package com.example.budgetmanager.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Migrazione ai ledger dei database creati dalle versioni precedenti.
+Le righe esistenti (transazioni, budget, transazioni ricorrenti)
+finiscono nel ledger predefinito; gli indici senza ledger vengono
+eliminati e Hibernate crea quelli nuovi. Totali e rollup sono dati
+derivati: le tabelle senza ledger vengono eliminate e ricostruite
+all'avvio dai rispettivi servizi.
+Come AmountCentsMigration gira prima dell'aggiornamento dello schema
+e ogni passo controlla lo schema, quindi si può rieseguire.
+------------------------------------------------------------------ */
+
+@Component
+public class LedgerKeyMigration extends SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerKeyMigration.class);
+
+    private static final String DEFAULT_LEDGER_COLUMN = "ledger VARCHAR(64) DEFAULT 'default' NOT NULL";
+
+    private static final List<String> UNSCOPED_INDEXES = List.of("idx_transaction_date_id",
+            "idx_transaction_type_date", "idx_transaction_category_date", "idx_transaction_amount");
+
+    public LedgerKeyMigration(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (hasColumn("TRANSACTION", "ID") && !hasColumn("TRANSACTION", "LEDGER")) {
+            log.info("Moving existing transactions to the default ledger");
+            jdbcTemplate.execute("ALTER TABLE transaction ADD COLUMN " + DEFAULT_LEDGER_COLUMN);
+        }
+        UNSCOPED_INDEXES.forEach(index -> jdbcTemplate.execute("DROP INDEX IF EXISTS " + index));
+
+        if (hasColumn("LEDGER_TOTALS", "ID")) {
+            log.info("Dropping single-ledger ledger_totals, it will be rebuilt per ledger");
+            jdbcTemplate.execute("DROP TABLE ledger_totals");
+        }
+        if (hasColumn("TRANSACTION_ROLLUP", "GRANULARITY") && !hasColumn("TRANSACTION_ROLLUP", "LEDGER")) {
+            log.info("Dropping single-ledger transaction_rollup, it will be rebuilt per ledger");
+            jdbcTemplate.execute("DROP TABLE transaction_rollup");
+        }
+        if (hasColumn("BUDGET", "ID") && !hasColumn("BUDGET", "LEDGER")) {
+            jdbcTemplate.execute("ALTER TABLE budget ADD COLUMN " + DEFAULT_LEDGER_COLUMN);
+            jdbcTemplate.execute("ALTER TABLE budget DROP CONSTRAINT IF EXISTS uk_budget_category_period");
+        }
+        if (hasColumn("RECURRING_TRANSACTION", "ID") && !hasColumn("RECURRING_TRANSACTION", "LEDGER")) {
+            jdbcTemplate.execute("ALTER TABLE recurring_transaction ADD COLUMN " + DEFAULT_LEDGER_COLUMN);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.budgetmanager.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/* ------------------------------------------------------------------
+Strumentazione: @Timed sui service e conteggio delle istruzioni SQL
+per richiesta, compresi i task che la richiesta affida all'executor
+dell'applicazione. I tempi degli endpoint (http.server.requests) sono già
+raccolti da Actuator; le metriche sono esposte su /actuator/prometheus.
+------------------------------------------------------------------ */
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public WebMvcConfigurer statementCountConfigurer(MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new StatementCountInterceptor(meterRegistry));
+            }
+        };
+    }
+
+    // Applicato da Spring Boot all'executor dell'applicazione (AsyncTransactionService)
+    @Bean
+    public TaskDecorator statementCountTaskDecorator() {
+        return StatementCounter::propagate;
+    }
+}
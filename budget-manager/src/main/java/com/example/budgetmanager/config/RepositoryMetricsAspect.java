@@ -0,0 +1,110 @@
+package com.example.budgetmanager.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/* ------------------------------------------------------------------
+Tempi e righe restituite per ogni metodo dei repository Spring Data
+(budget.repository.calls e budget.repository.rows, con i tag
+repository e method). Per i metodi che restituiscono uno Stream le
+righe vengono contate mentre lo stream viene consumato e registrate
+alla sua chiusura.
+------------------------------------------------------------------ */
+
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    // Nome del repository dell'applicazione implementato da ogni classe proxy
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of("repository", repositoryName(joinPoint.getThis()),
+                "method", joinPoint.getSignature().getName());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            return countRows(result, tags);
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("budget.repository.calls")
+                    .description("Spring Data repository method calls")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private Object countRows(Object result, Tags tags) {
+        if (result instanceof Stream<?> stream) {
+            AtomicLong rows = new AtomicLong();
+            return stream.peek(row -> rows.incrementAndGet()).onClose(() -> recordRows(tags, rows.get()));
+        }
+        recordRows(tags, rows(result));
+        return result;
+    }
+
+    private void recordRows(Tags tags, long rows) {
+        DistributionSummary.builder("budget.repository.rows")
+                .description("Rows returned by Spring Data repository method calls")
+                .baseUnit("rows")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    // Righe restituite: dimensione delle collezioni e delle pagine, 0/1 per i risultati singoli
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0L;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1L : 0L;
+        }
+        return 1L;
+    }
+
+    private String repositoryName(Object proxy) {
+        return repositoryNames.computeIfAbsent(proxy.getClass(), type -> {
+            for (Class<?> repository : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+                if (repository.getPackageName().startsWith("com.example.budgetmanager")) {
+                    return repository.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.budgetmanager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Formati delle risposte REST scelti con l'header Accept:
+- application/json (predefinito, anche con Accept generico);
+- application/cbor: lo stesso contenuto in CBOR (RFC 8949), binario,
+  con l'ObjectMapper dell'applicazione (date ISO, stessi campi);
+- application/vnd.budget.table+json: liste di transazioni a colonne
+  (vedi TransactionTableHttpMessageConverter).
+La compressione gzip delle risposte è configurata con
+server.compression.* in application.properties.
+------------------------------------------------------------------ */
+
+@Configuration
+public class ResponseFormatConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    public ResponseFormatConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Quello predefinito usa un ObjectMapper con la configurazione di Jackson, non quella di Spring Boot
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory())));
+        // Prima del convertitore JSON, che accetta anche i tipi application/*+json
+        converters.add(0, new TransactionTableHttpMessageConverter(objectMapper));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.budgetmanager.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/* ------------------------------------------------------------------
+Abilita i job pianificati (ad esempio la ricostruzione dei rollup).
+------------------------------------------------------------------ */
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,37 @@
+package com.example.budgetmanager.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/* ------------------------------------------------------------------
+Base delle migrazioni dei database creati dalle versioni precedenti
+(AmountCentsMigration, LedgerKeyMigration). Le sottoclassi sono bean
+che migrano in @PostConstruct: l'EntityManagerFactory dipende da tutte,
+quindi girano prima che Hibernate aggiorni lo schema.
+------------------------------------------------------------------ */
+
+abstract class SchemaMigration {
+
+    protected final JdbcTemplate jdbcTemplate;
+
+    protected SchemaMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Nomi in maiuscolo, come in INFORMATION_SCHEMA
+    protected boolean hasColumn(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ? AND COLUMN_NAME = ?", Integer.class, table, column);
+        return count != null && count > 0;
+    }
+
+    // Fa partire le migrazioni prima della creazione dell'EntityManagerFactory (e quindi di ddl-auto)
+    @Component
+    static class EntityManagerFactoryDependsOn extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOn() {
+            super(SchemaMigration.class);
+        }
+    }
+}
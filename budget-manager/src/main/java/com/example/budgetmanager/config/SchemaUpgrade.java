@@ -0,0 +1,49 @@
+package com.example.budgetmanager.config;
+
+import com.example.budgetmanager.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/* ------------------------------------------------------------------
+Adeguamenti dello schema che ddl-auto=update non sa fare da solo.
+Viene eseguito dopo che Hibernate ha aggiornato lo schema e prima che
+l'applicazione inizi a scrivere.
+------------------------------------------------------------------ */
+
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaUpgrade {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaUpgrade.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaUpgrade(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void upgrade() {
+        alignTransactionSequence();
+    }
+
+    // I database creati con GenerationType.IDENTITY contengono già degli id: la sequenza
+    // (creata da Hibernate partendo da 1) viene spostata oltre l'id massimo.
+    // Con l'ottimizzatore pooled gli id assegnati sono (valore - allocationSize, valore],
+    // quindi la sequenza deve ripartire da max(id) + allocationSize
+    private void alignTransactionSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transaction", Long.class);
+        Long nextValue = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TRANSACTION_SEQ'",
+                Long.class);
+        long restartWith = maxId + Transaction.ID_ALLOCATION_SIZE;
+        if (nextValue != null && nextValue < restartWith) {
+            log.info("Restarting transaction_seq at {} (max id {})", restartWith, maxId);
+            jdbcTemplate.execute("ALTER SEQUENCE transaction_seq RESTART WITH " + restartWith);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.budgetmanager.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/* ------------------------------------------------------------------
+Conta le istruzioni SQL preparate da Hibernate sul thread corrente.
+Registrato con hibernate.session_factory.statement_inspector; il
+conteggio è attivo solo tra start() e stop() (una richiesta HTTP),
+così query N+1 e aggregazioni ripetute diventano visibili.
+I task passati all'executor dell'applicazione (le letture parallele
+della dashboard) contano nel contatore del thread che li crea: vedi
+propagate, registrato come TaskDecorator in MetricsConfig.
+------------------------------------------------------------------ */
+
+public class StatementCounter implements StatementInspector {
+
+    // Condiviso tra il thread della richiesta e i task che avvia, che possono contare in parallelo
+    private static final ThreadLocal<LongAdder> COUNT = new ThreadLocal<>();
+
+    // Inizia a contare sul thread corrente
+    public static void start() {
+        COUNT.set(new LongAdder());
+    }
+
+    // Smette di contare e restituisce il numero di istruzioni preparate
+    public static long stop() {
+        LongAdder count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0L : count.sum();
+    }
+
+    // Il task conta nel contatore attivo sul thread che lo crea (invariato se non ce n'è uno)
+    public static Runnable propagate(Runnable task) {
+        LongAdder count = COUNT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            LongAdder previous = COUNT.get();
+            COUNT.set(count);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    COUNT.remove();
+                } else {
+                    COUNT.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public String inspect(String sql) {
+        LongAdder count = COUNT.get();
+        if (count != null) {
+            count.increment();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.budgetmanager.config;
+
+import com.example.budgetmanager.model.Transaction;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.function.Function;
+
+/* ------------------------------------------------------------------
+Layout a colonne per le liste di transazioni, richiesto con
+Accept: application/vnd.budget.table+json. Invece di un oggetto per
+riga con i nomi dei campi ripetuti, un array per campo:
+  {"count":2,"id":[1,2],"ledger":["default","default"],
+   "date":["2024-03-01","2024-03-02"],"amountCents":[1250,300],...}
+I campi sono quelli del JSON normale, tranne l'importo decimale che
+si ricava da amountCents. La scrittura usa direttamente il generatore JSON,
+senza la serializzazione per riflessione di ogni transazione.
+Solo in scrittura, e solo su richiesta esplicita: con Accept generico o
+application/json risponde il convertitore JSON.
+------------------------------------------------------------------ */
+
+public class TransactionTableHttpMessageConverter extends AbstractGenericHttpMessageConverter<Collection<?>> {
+
+    public static final String TABLE_JSON_VALUE = "application/vnd.budget.table+json";
+    public static final MediaType TABLE_JSON = MediaType.parseMediaType(TABLE_JSON_VALUE);
+
+    private final JsonFactory jsonFactory;
+
+    public TransactionTableHttpMessageConverter(ObjectMapper objectMapper) {
+        super(TABLE_JSON);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    // Scrive le transazioni a colonne sullo stream (senza chiuderlo)
+    public void write(Collection<? extends Transaction> transactions, OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("count", transactions.size());
+            generator.writeArrayFieldStart("id");
+            for (Transaction transaction : transactions) {
+                if (transaction.getId() == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(transaction.getId());
+                }
+            }
+            generator.writeEndArray();
+            writeColumn(generator, "ledger", transactions, Transaction::getLedger);
+            writeColumn(generator, "date", transactions,
+                    transaction -> transaction.getDate() == null ? null : transaction.getDate().toString());
+            generator.writeArrayFieldStart("amountCents");
+            for (Transaction transaction : transactions) {
+                generator.writeNumber(transaction.getAmountCents());
+            }
+            generator.writeEndArray();
+            writeColumn(generator, "category", transactions, Transaction::getCategory);
+            writeColumn(generator, "description", transactions, Transaction::getDescription);
+            writeColumn(generator, "type", transactions,
+                    transaction -> transaction.getType() == null ? null : transaction.getType().name());
+            generator.writeEndObject();
+        }
+    }
+
+    // Solo Collection di Transaction, e solo per il tipo richiesto esplicitamente
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (mediaType == null || !TABLE_JSON.equalsTypeAndSubtype(mediaType)) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type != null ? type : clazz);
+        return Collection.class.isAssignableFrom(resolved.toClass())
+                && Transaction.class.isAssignableFrom(resolved.asCollection().getGeneric(0).toClass());
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Collection<?> transactions, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        write((Collection<? extends Transaction>) transactions, outputMessage.getBody());
+    }
+
+    @Override
+    public Collection<?> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("The table layout is only available for responses", inputMessage);
+    }
+
+    @Override
+    protected Collection<?> readInternal(Class<? extends Collection<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("The table layout is only available for responses", inputMessage);
+    }
+
+    private static void writeColumn(JsonGenerator generator, String name, Collection<? extends Transaction> transactions,
+                                    Function<Transaction, String> value) throws IOException {
+        generator.writeArrayFieldStart(name);
+        for (Transaction transaction : transactions) {
+            generator.writeString(value.apply(transaction));
+        }
+        generator.writeEndArray();
+    }
+}
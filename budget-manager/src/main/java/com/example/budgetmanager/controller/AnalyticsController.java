@@ -0,0 +1,93 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.analytics.AnalyticsFilter;
+import com.example.budgetmanager.analytics.ColumnarLedger;
+import com.example.budgetmanager.analytics.GroupBy;
+import com.example.budgetmanager.analytics.GroupResult;
+import com.example.budgetmanager.analytics.RankedTransaction;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.service.AnalyticsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/* ------------------------------------------------------------------
+Controller per le interrogazioni analitiche ad hoc sul ledger in
+memoria. Gli importi sono in centesimi. Senza ledger nel percorso si
+interroga quello predefinito.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/analytics", "/api/ledgers/{ledger}/analytics"})
+@ConditionalOnExpression("${budget.analytics.enabled:false} and '${budget.storage:jpa}' == 'jpa'")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // Raggruppamento per una o più dimensioni (es. ?by=category,month)
+    @GetMapping("/group")
+    public ResponseEntity<List<GroupResult>> groupBy(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(defaultValue = "CATEGORY") List<GroupBy> by,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) String category) {
+        return ResponseEntity.ok(analyticsService.groupBy(Ledgers.of(ledger), EnumSet.copyOf(by),
+                new AnalyticsFilter(from, to, type, category)));
+    }
+
+    // Percentili degli importi (es. ?p=50,90,99)
+    @GetMapping("/percentiles")
+    public ResponseEntity<Map<Double, Long>> percentiles(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(defaultValue = "50,90,99") List<Double> p,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) String category) {
+        return ResponseEntity.ok(analyticsService.percentiles(Ledgers.of(ledger), p,
+                new AnalyticsFilter(from, to, type, category)));
+    }
+
+    // Le k transazioni con l'importo più alto
+    @GetMapping("/top")
+    public ResponseEntity<List<RankedTransaction>> top(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) String category) {
+        return ResponseEntity.ok(analyticsService.top(Ledgers.of(ledger), k,
+                new AnalyticsFilter(from, to, type, category)));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ColumnarLedger.Stats> stats(@PathVariable(required = false) String ledger) {
+        return ResponseEntity.ok(analyticsService.stats(Ledgers.of(ledger)));
+    }
+
+    // Ricarica dal database i ledger in memoria (tutti)
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Integer>> reload() {
+        return ResponseEntity.ok(Map.of("rows", analyticsService.reload()));
+    }
+
+    // Filtro, parametri o ledger non validi
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
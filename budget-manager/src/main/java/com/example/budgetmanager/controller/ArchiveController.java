@@ -0,0 +1,62 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.ArchiveReport;
+import com.example.budgetmanager.model.ArchiveSegment;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.service.ArchiveService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Controller per l'archivio degli anni vecchi del ledger (quello
+predefinito senza ledger nel percorso). Elenca i segmenti con i loro
+aggregati e restituisce a pagine le transazioni archiviate di un anno,
+decodificate su richiesta. /run archivia subito gli anni più vecchi di
+budget.archive.keep-years (di tutti i ledger).
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/archive", "/api/ledgers/{ledger}/archive"})
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class ArchiveController {
+
+    private final ArchiveService archiveService;
+
+    public ArchiveController(ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    // Segmenti del ledger, dall'anno più recente
+    @GetMapping
+    public ResponseEntity<List<ArchiveSegment>> getSegments(@PathVariable(required = false) String ledger) {
+        return ResponseEntity.ok(archiveService.getSegments(Ledgers.of(ledger)));
+    }
+
+    // Transazioni archiviate di un anno (404 se l'anno non è archiviato)
+    @GetMapping("/{year}")
+    public ResponseEntity<List<Transaction>> getTransactions(
+            @PathVariable(required = false) String ledger,
+            @PathVariable int year,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + ArchiveService.DEFAULT_PAGE_SIZE) int size) {
+        return archiveService.getTransactions(Ledgers.of(ledger), year, page, size)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Archivia subito gli anni vecchi
+    @PostMapping("/run")
+    public ResponseEntity<ArchiveReport> run() {
+        return ResponseEntity.ok(archiveService.archive());
+    }
+
+    // Ledger non valido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.balance.BalanceIndex;
+import com.example.budgetmanager.model.BalancePoint;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.service.BalanceService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Controller per il saldo nel tempo del ledger (quello predefinito senza
+ledger nel percorso), servito dall'indice in memoria senza query.
+Le date sono ISO (2024-03-31); senza data si usa la data odierna.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/balance", "/api/ledgers/{ledger}/balance"})
+@ConditionalOnProperty(name = "budget.balance.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceController {
+
+    private final BalanceService balanceService;
+
+    public BalanceController(BalanceService balanceService) {
+        this.balanceService = balanceService;
+    }
+
+    // Saldo alla fine del giorno indicato
+    @GetMapping
+    public ResponseEntity<BalancePoint> getBalance(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(balanceService.balanceAt(Ledgers.of(ledger), date != null ? date : LocalDate.now()));
+    }
+
+    // Serie del saldo da from (default: prima transazione) a to, al massimo points punti a passo costante
+    @GetMapping("/series")
+    public ResponseEntity<List<BalancePoint>> getSeries(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "" + BalanceService.DEFAULT_POINTS) int points) {
+        return ResponseEntity.ok(balanceService.series(Ledgers.of(ledger), from, to != null ? to : LocalDate.now(),
+                points));
+    }
+
+    // Intervallo coperto e numero di transazioni indicizzate
+    @GetMapping("/stats")
+    public ResponseEntity<BalanceIndex.Stats> getStats(@PathVariable(required = false) String ledger) {
+        return ResponseEntity.ok(balanceService.stats(Ledgers.of(ledger)));
+    }
+
+    // Intervallo di date o numero di punti non validi, ledger non valido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.Budget;
+import com.example.budgetmanager.model.BudgetAlert;
+import com.example.budgetmanager.model.BudgetStatus;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.service.BudgetService;
+import com.example.budgetmanager.service.LedgerVersion;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Controller per i budget di spesa per categoria e periodo.
+Lo stato viene letto dai contatori in memoria, senza query.
+Senza ledger nel percorso si opera sul ledger predefinito.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/budgets", "/api/ledgers/{ledger}/budgets"})
+public class BudgetController {
+
+    private final BudgetService budgetService;
+
+    // La dashboard mostra i budget: una modifica deve invalidarne l'ETag
+    private final LedgerVersion ledgerVersion;
+
+    public BudgetController(BudgetService budgetService, LedgerVersion ledgerVersion) {
+        this.budgetService = budgetService;
+        this.ledgerVersion = ledgerVersion;
+    }
+
+    // Stato di tutti i budget nel periodo corrente
+    @GetMapping
+    public ResponseEntity<List<BudgetStatus>> getStatuses(@PathVariable(required = false) String ledger) {
+        return ResponseEntity.ok(budgetService.getStatuses(Ledgers.of(ledger)));
+    }
+
+    // Crea un budget, o aggiorna limite e soglia di quello esistente per la stessa categoria e periodo.
+    // Il limite si può indicare in decimale (limit) o in centesimi (limitCents)
+    @PostMapping
+    public ResponseEntity<?> saveBudget(@PathVariable(required = false) String ledger, @RequestBody Budget budget) {
+        if (budget.getCategory() == null || budget.getPeriod() == null || budget.getLimitCents() == 0) {
+            return ResponseEntity.badRequest().body("Error: category, period and limit are mandatory.");
+        }
+        budget.setLedger(Ledgers.of(ledger));
+        BudgetStatus status = budgetService.saveBudget(budget);
+        ledgerVersion.touch();
+        return ResponseEntity.ok(status);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteBudget(@PathVariable(required = false) String ledger, @PathVariable Long id) {
+        if (!budgetService.deleteBudget(Ledgers.of(ledger), id)) {
+            return ResponseEntity.notFound().build();
+        }
+        ledgerVersion.touch();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Allerte più recenti (soglia raggiunta o limite superato) di tutti i ledger, dalla più recente
+    @GetMapping("/alerts")
+    public ResponseEntity<List<BudgetAlert>> getAlerts() {
+        return ResponseEntity.ok(budgetService.getRecentAlerts());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
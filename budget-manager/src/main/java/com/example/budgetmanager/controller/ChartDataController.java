@@ -0,0 +1,54 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.CategoryChart;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.service.LedgerVersion;
+import com.example.budgetmanager.service.TransactionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Map;
+
+/* ------------------------------------------------------------------
+Dati JSON dei grafici delle pagine, caricati dal browser dopo la
+pagina invece di essere inseriti nel rendering del template.
+Come le altre letture del ledger hanno ETag e Cache-Control: no-cache,
+quindi il browser li tiene in cache e li rivalida con un 304 finché
+non c'è una scrittura.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/charts", "/api/ledgers/{ledger}/charts"})
+public class ChartDataController {
+
+    private final TransactionService transactionService;
+    private final LedgerVersion ledgerVersion;
+
+    public ChartDataController(TransactionService transactionService, LedgerVersion ledgerVersion) {
+        this.transactionService = transactionService;
+        this.ledgerVersion = ledgerVersion;
+    }
+
+    // Spese per categoria (grafico a torta della pagina delle transazioni)
+    @GetMapping("/expenses-by-category")
+    public ResponseEntity<CategoryChart> getExpensesByCategory(@PathVariable(required = false) String ledger,
+                                                               WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, ledgerVersion)) {
+            return null;
+        }
+        // Dalla categoria con la spesa più alta
+        List<Map.Entry<String, Long>> entries = transactionService.getExpenseCategorySummary(Ledgers.of(ledger))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+        return ResponseEntity.ok(new CategoryChart(entries.stream().map(Map.Entry::getKey).toList(),
+                entries.stream().map(Map.Entry::getValue).toList()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.service.LedgerVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/* ------------------------------------------------------------------
+Richieste condizionali sulle letture del ledger.
+Imposta ETag, Last-Modified e Cache-Control: no-cache (il client deve
+sempre rivalidare) e indica se si può rispondere 304: in quel caso
+l'handler restituisce null senza interrogare il database.
+------------------------------------------------------------------ */
+
+final class ConditionalGet {
+
+    private static final String NO_CACHE = CacheControl.noCache().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    static boolean notModified(WebRequest request, LedgerVersion ledgerVersion) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+            }
+        }
+        return request.checkNotModified(ledgerVersion.etag(), ledgerVersion.lastModified());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.LedgerTotalsCheck;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.service.AggregateCache;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.TransactionService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Controller per i totali del ledger mantenuti in modo incrementale.
+Espone la lettura dei totali, il controllo di consistenza e la
+ricostruzione da zero (per il recupero dopo interventi manuali sul DB),
+oltre ai contatori della cache delle aggregazioni.
+Con l'archivio su journal i totali sono già mantenuti dall'archivio:
+controllo e ricostruzione non sono disponibili (404).
+I totali si leggono per ledger (/api/ledgers/{ledger}/...); i percorsi
+sotto /api/ledger riguardano il ledger predefinito.
+------------------------------------------------------------------ */
+
+@RestController
+public class LedgerController {
+
+    // Assente con l'archivio su journal (budget.storage=journal)
+    private final LedgerTotalsService ledgerTotalsService;
+    private final TransactionService transactionService;
+    private final AggregateCache aggregateCache;
+
+    public LedgerController(ObjectProvider<LedgerTotalsService> ledgerTotalsService,
+                            TransactionService transactionService,
+                            AggregateCache aggregateCache) {
+        this.ledgerTotalsService = ledgerTotalsService.getIfAvailable();
+        this.transactionService = transactionService;
+        this.aggregateCache = aggregateCache;
+    }
+
+    // Ledger che contengono almeno una transazione, in ordine alfabetico
+    @GetMapping("/api/ledgers")
+    public ResponseEntity<List<String>> getLedgers() {
+        return ResponseEntity.ok(transactionService.getLedgers());
+    }
+
+    // Totali correnti (entrate, spese, saldo)
+    @GetMapping({"/api/ledger/totals", "/api/ledgers/{ledger}/totals"})
+    public ResponseEntity<LedgerSummary> getTotals(@PathVariable(required = false) String ledger) {
+        return ResponseEntity.ok(transactionService.getLedgerSummary(Ledgers.of(ledger)));
+    }
+
+    // Controllo di consistenza: 200 se i totali coincidono, 409 altrimenti
+    @GetMapping({"/api/ledger/totals/check", "/api/ledgers/{ledger}/totals/check"})
+    public ResponseEntity<LedgerTotalsCheck> checkTotals(@PathVariable(required = false) String ledger) {
+        if (ledgerTotalsService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        LedgerTotalsCheck check = ledgerTotalsService.check(Ledgers.of(ledger));
+        return check.consistent() ? ResponseEntity.ok(check) : ResponseEntity.status(409).body(check);
+    }
+
+    // Ricostruzione dei totali da zero
+    @PostMapping({"/api/ledger/totals/rebuild", "/api/ledgers/{ledger}/totals/rebuild"})
+    public ResponseEntity<LedgerSummary> rebuildTotals(@PathVariable(required = false) String ledger) {
+        if (ledgerTotalsService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ledgerTotalsService.rebuild(Ledgers.of(ledger)));
+    }
+
+    // Contatori della cache delle aggregazioni (hit, miss, evizioni, scadenze, invalidazioni)
+    @GetMapping("/api/ledger/cache")
+    public ResponseEntity<AggregateCache.Stats> getCacheStats() {
+        return ResponseEntity.ok(aggregateCache.stats());
+    }
+
+    // Svuota la cache (le letture successive interrogano di nuovo il database)
+    @DeleteMapping("/api/ledger/cache")
+    public ResponseEntity<Void> clearCache() {
+        aggregateCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Nome di ledger non valido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.RecurringTransaction;
+import com.example.budgetmanager.service.RecurringTransactionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/* ------------------------------------------------------------------
+Controller per le transazioni ricorrenti (modelli con calendario).
+Le occorrenze vengono generate dal job pianificato; /run forza un
+controllo immediato (di tutti i ledger). Senza ledger nel percorso
+si opera sul ledger predefinito.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/recurring", "/api/ledgers/{ledger}/recurring"})
+@ConditionalOnExpression("${budget.recurring.enabled:true} and '${budget.storage:jpa}' == 'jpa'")
+public class RecurringTransactionController {
+
+    private final RecurringTransactionService recurringService;
+
+    public RecurringTransactionController(RecurringTransactionService recurringService) {
+        this.recurringService = recurringService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RecurringTransaction>> getRecurring(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + RecurringTransactionService.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(recurringService.getPage(Ledgers.of(ledger), page, size));
+    }
+
+    // Crea un modello; le occorrenze con data passata vengono generate al prossimo controllo
+    @PostMapping
+    public ResponseEntity<?> addRecurring(@PathVariable(required = false) String ledger,
+                                          @RequestBody RecurringTransaction template) {
+        if (template.getAmountCents() == 0 || template.getType() == null || template.getCategory() == null) {
+            return ResponseEntity.badRequest().body("Error: amount, type and category are mandatory.");
+        }
+        template.setLedger(Ledgers.of(ledger));
+        return ResponseEntity.status(HttpStatus.CREATED).body(recurringService.create(template));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRecurring(@PathVariable(required = false) String ledger,
+                                                @PathVariable Long id) {
+        return recurringService.delete(Ledgers.of(ledger), id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    // Genera subito le occorrenze in scadenza
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Integer>> run() {
+        return ResponseEntity.ok(Map.of("generated", recurringService.materializeDue()));
+    }
+
+    // Calendario non valido o date incoerenti
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.RollupGranularity;
+import com.example.budgetmanager.model.RollupPoint;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.service.RollupService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/* ------------------------------------------------------------------
+Controller per i report basati sui rollup materializzati.
+Le risposte si calcolano sui bucket pre-aggregati, senza scansionare
+le transazioni. Senza ledger nel percorso si legge quello predefinito.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/rollups", "/api/ledgers/{ledger}/rollups"})
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class RollupController {
+
+    private final RollupService rollupService;
+
+    public RollupController(RollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    // Totali per categoria e tipo in un intervallo di date qualsiasi
+    @GetMapping("/summary")
+    public ResponseEntity<List<CategoryTotal>> getSummary(
+            @PathVariable(required = false) String ledger,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Transaction.TransactionType type) {
+        return ResponseEntity.ok(rollupService.summarize(Ledgers.of(ledger), from, to, type));
+    }
+
+    // Serie temporale per giorno, settimana o mese (per categoria oppure sommata per tipo)
+    @GetMapping("/series")
+    public ResponseEntity<List<RollupPoint>> getSeries(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(defaultValue = "MONTH") RollupGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "true") boolean byCategory) {
+        return ResponseEntity.ok(rollupService.series(Ledgers.of(ledger), granularity, from, to, type, category,
+                byCategory));
+    }
+
+    // Ricostruzione dei rollup da zero (di tutti i ledger, uno alla volta). Mentre un ledger viene ricostruito
+    // le sue scritture restano in attesa: con un ledger molto grande possono superare il timeout del lock
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuild() {
+        return ResponseEntity.ok(Map.of("buckets", rollupService.rebuild()));
+    }
+
+    // Intervallo di date o ledger non valido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
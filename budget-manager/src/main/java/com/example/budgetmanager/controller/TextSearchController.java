@@ -0,0 +1,49 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.TextSearchResult;
+import com.example.budgetmanager.search.InvertedIndex;
+import com.example.budgetmanager.service.TextSearchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/* ------------------------------------------------------------------
+Controller per la ricerca testuale nelle transazioni (descrizione e
+categoria), servita dall'indice invertito in memoria del ledger
+(quello predefinito senza ledger nel percorso).
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/transactions", "/api/ledgers/{ledger}/transactions"})
+@ConditionalOnProperty(name = "budget.search.enabled", havingValue = "true", matchIfMissing = true)
+public class TextSearchController {
+
+    private final TextSearchService textSearchService;
+
+    public TextSearchController(TextSearchService textSearchService) {
+        this.textSearchService = textSearchService;
+    }
+
+    // Transazioni che contengono tutte le parole di q (anche come prefisso), dalla più rilevante
+    @GetMapping("/search")
+    public ResponseEntity<TextSearchResult> search(
+            @PathVariable(required = false) String ledger,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + TextSearchService.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(textSearchService.search(Ledgers.of(ledger), q, page, size));
+    }
+
+    // Dimensione dell'indice (transazioni, termini, posting)
+    @GetMapping("/search/stats")
+    public ResponseEntity<InvertedIndex.Stats> getStats(@PathVariable(required = false) String ledger) {
+        return ResponseEntity.ok(textSearchService.stats(Ledgers.of(ledger)));
+    }
+
+    // Query senza parole, pagina fuori intervallo o ledger non valido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -1,56 +1,170 @@
 package com.example.budgetmanager.controller;
 
+import com.example.budgetmanager.dedup.DedupKeys;
+import com.example.budgetmanager.model.DedupStats;
+import com.example.budgetmanager.model.IngestResult;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Money;
 import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.model.TransactionPage;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.service.IngestQueueFullException;
+import com.example.budgetmanager.service.LedgerVersion;
+import com.example.budgetmanager.service.TransactionDeduplicator;
+import com.example.budgetmanager.service.TransactionIngestQueue;
 import com.example.budgetmanager.service.TransactionService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /* ------------------------------------------------------------------
 Controller per gestire le richieste API relative alle transazioni
 In disuso dopo l'implementazione del frontend.
+Ogni endpoint è disponibile anche sotto /api/ledgers/{ledger}: senza
+ledger nel percorso si usa il ledger predefinito.
 ------------------------------------------------------------------ */
 
 
 @RestController
-@RequestMapping("/api/transactions")
+@RequestMapping({"/api/transactions", "/api/ledgers/{ledger}/transactions"})
 public class TransactionController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     // Servizio che gestisce la logica delle transazioni
     private final TransactionService transactionService;
 
-    public TransactionController(TransactionService transactionService) {
+    // Versione del ledger per le GET condizionali (ETag / If-None-Match)
+    private final LedgerVersion ledgerVersion;
+
+    // Coda di ingestione asincrona (null: ogni POST salva e conferma subito)
+    private final TransactionIngestQueue ingestQueue;
+
+    // Deduplicazione delle POST ripetute (null con l'archivio journal)
+    private final TransactionDeduplicator deduplicator;
+
+    public TransactionController(TransactionService transactionService, LedgerVersion ledgerVersion,
+                                 ObjectProvider<TransactionIngestQueue> ingestQueue,
+                                 ObjectProvider<TransactionDeduplicator> deduplicator) {
         this.transactionService = transactionService;
+        this.ledgerVersion = ledgerVersion;
+        this.ingestQueue = ingestQueue.getIfAvailable();
+        this.deduplicator = deduplicator.getIfAvailable();
     }
 
     // Endpoint per creare una nuova transazione
-    // Assicura la validazione dell'input verificando che l'importo e il tipo siano presenti
+    // Assicura la validazione dell'input verificando che l'importo e il tipo siano presenti.
+    // Con l'ingestione asincrona la risposta è 202 appena la transazione è in coda; con durable=true
+    // si attende il commit del gruppo (201, oppure 202 se la conferma non arriva entro ack-timeout).
+    // Il ledger è quello del percorso, un eventuale campo ledger nel corpo viene ignorato, e così l'id:
+    // la POST crea sempre una riga nuova, non sovrascrive quella con lo stesso id (anche di un altro ledger).
+    // Con l'header Idempotency-Key (o dedup=true, che confronta data, importo, categoria, descrizione e tipo)
+    // una richiesta ripetuta non crea una seconda riga: la risposta è 200 con la transazione già salvata
     @PostMapping
-    public ResponseEntity<?> addTransaction(@RequestBody Transaction transaction) {
-        if (transaction.getAmount() == null || transaction.getType() == null) {
+    public ResponseEntity<?> addTransaction(@PathVariable(required = false) String ledger,
+                                            @RequestBody Transaction transaction,
+                                            @RequestParam(defaultValue = "false") boolean durable,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                            @RequestParam(defaultValue = "false") boolean dedup) {
+        if (transaction.getAmountCents() == 0 || transaction.getType() == null) {
             return ResponseEntity.badRequest().body("Error: amount and type are mandatory.");
         }
+        transaction.setId(null);
+        transaction.setLedger(Ledgers.of(ledger));
+        transaction.setDedupKey(DedupKeys.of(transaction, idempotencyKey, dedup));
+        if (transaction.getDedupKey() != null && deduplicator == null) {
+            throw new IllegalArgumentException("Deduplication is not available with the journal storage.");
+        }
+        if (ingestQueue != null) {
+            CompletableFuture<IngestResult> queued = ingestQueue.enqueue(transaction);
+            IngestResult result = durable ? ingestQueue.awaitDurable(queued) : null;
+            return result != null ? created(result) : ResponseEntity.accepted().build();
+        }
+        if (transaction.getDedupKey() != null) {
+            return created(deduplicator.add(transaction));
+        }
         Transaction savedTransaction = transactionService.addTransaction(transaction);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedTransaction);
     }
 
-    // Ottenere tutte le transazioni
+    // Statistiche del filtro di deduplicazione (404 con l'archivio journal)
+    @GetMapping("/dedup/stats")
+    public ResponseEntity<DedupStats> getDedupStats() {
+        return deduplicator == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(deduplicator.stats());
+    }
+
+    // 201 per una riga nuova, 200 con la riga esistente per un duplicato
+    private static ResponseEntity<Transaction> created(IngestResult result) {
+        return ResponseEntity.status(result.duplicate() ? HttpStatus.OK : HttpStatus.CREATED)
+                .body(result.transaction());
+    }
+
+    // Ottenere le transazioni, una pagina alla volta (paginazione keyset)
+    // Il cursore della pagina successiva viene restituito negli header Link e X-Next-Cursor.
+    // Se il ledger non è cambiato dall'ETag inviato dal client la risposta è 304, senza query
     @GetMapping
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
-        List<Transaction> transactions = transactionService.getAllTransactions();
-        if (transactions.isEmpty()) {
+    public ResponseEntity<List<Transaction>> getAllTransactions(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TransactionService.DEFAULT_PAGE_SIZE) int size,
+            WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, ledgerVersion)) {
+            return null;
+        }
+        TransactionPage page = transactionService.getTransactionsPage(Ledgers.of(ledger), cursor, size);
+        if (page.items().isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        
-        return ResponseEntity.ok(transactions);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.nextCursor())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    // Ricerca filtrata: intervallo di date, categoria, tipo e intervallo di importo (tutti facoltativi).
+    // Restituisce una pagina di risultati e, con la prima pagina, gli aggregati di tutte le transazioni trovate
+    @GetMapping("/query")
+    public ResponseEntity<TransactionSearchResult> queryTransactions(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TransactionService.DEFAULT_PAGE_SIZE) int size,
+            WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, ledgerVersion)) {
+            return null;
+        }
+        TransactionFilter filter = new TransactionFilter(from, to, category, type,
+                minAmount == null ? null : Money.toCents(minAmount),
+                maxAmount == null ? null : Money.toCents(maxAmount));
+        return ResponseEntity.ok(transactionService.search(Ledgers.of(ledger), filter, cursor, size));
     }
 
-    // Eliminare una transazione per ID
+    // Eliminare una transazione per ID (404 se appartiene a un altro ledger)
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTransaction(@PathVariable Long id) {
-        if (transactionService.deleteTransaction(id)) {
+    public ResponseEntity<?> deleteTransaction(@PathVariable(required = false) String ledger, @PathVariable Long id) {
+        if (transactionService.deleteTransaction(Ledgers.of(ledger), id)) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
@@ -59,8 +173,12 @@ public class TransactionController {
 
     // Ottenere una transazione per ID 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTransactionById(@PathVariable Long id) {
-        return transactionService.getTransactionById(id)
+    public ResponseEntity<?> getTransactionById(@PathVariable(required = false) String ledger,
+                                                @PathVariable Long id, WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, ledgerVersion)) {
+            return null;
+        }
+        return transactionService.getTransactionById(Ledgers.of(ledger), id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -71,4 +189,12 @@ public class TransactionController {
     public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
         return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
     }
+
+    // Coda di ingestione piena: il client riprova dopo un secondo
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<String> handleQueueFull(IngestQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Error: " + ex.getMessage());
+    }
 }
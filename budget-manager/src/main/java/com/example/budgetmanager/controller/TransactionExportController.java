@@ -0,0 +1,127 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.service.TransactionExportService;
+import com.example.budgetmanager.service.TransactionFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/* ------------------------------------------------------------------
+Controller per l'export delle transazioni in streaming.
+La risposta viene scritta riga per riga mentre si legge dal database,
+opzionalmente compressa con gzip o deflate al livello
+budget.export.compression-level (da 1, più veloce, a 9, più compatto).
+Senza ledger nel percorso si esporta il ledger predefinito.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/transactions", "/api/ledgers/{ledger}/transactions"})
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class TransactionExportController {
+
+    // Codifica della risposta, scelta da gzip o da Accept-Encoding
+    private enum Encoding {
+        IDENTITY, GZIP, DEFLATE
+    }
+
+    private final TransactionExportService transactionExportService;
+    private final int compressionLevel;
+
+    public TransactionExportController(TransactionExportService transactionExportService,
+                                       @Value("${budget.export.compression-level:6}") int compressionLevel) {
+        if (compressionLevel < 1 || compressionLevel > 9) {
+            throw new IllegalArgumentException("budget.export.compression-level must be between 1 and 9: "
+                    + compressionLevel);
+        }
+        this.transactionExportService = transactionExportService;
+        this.compressionLevel = compressionLevel;
+    }
+
+    // Export con filtri opzionali su intervallo di date e categoria (format=csv, ndjson o cbor).
+    // La compressione gzip si attiva con gzip=true oppure con Accept-Encoding: gzip; deflate solo con
+    // Accept-Encoding: deflate senza gzip. gzip=false la disattiva
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String scope = Ledgers.of(ledger);
+        TransactionFormat resolved = TransactionFormat.resolve(format, null);
+        TransactionFilter filter = new TransactionFilter(from, to, category);
+        Encoding encoding = encoding(gzip, acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            if (encoding == Encoding.IDENTITY) {
+                transactionExportService.export(scope, resolved, filter, out);
+                out.flush();
+                return;
+            }
+            // Per gzip il livello si imposta sul Deflater interno, prima di comprimere qualcosa
+            Deflater deflater = encoding == Encoding.DEFLATE ? new Deflater(compressionLevel) : null;
+            try {
+                DeflaterOutputStream target = encoding == Encoding.GZIP
+                        ? new GZIPOutputStream(out, 8192) {
+                            {
+                                def.setLevel(compressionLevel);
+                            }
+                        }
+                        : new DeflaterOutputStream(out, deflater, 8192);
+                transactionExportService.export(scope, resolved, filter, target);
+                target.finish();
+                target.flush();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        };
+
+        String filename = "transactions." + resolved.name().toLowerCase(Locale.ROOT)
+                + (encoding == Encoding.GZIP ? ".gz" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(resolved.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoding != Encoding.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding.name().toLowerCase(Locale.ROOT));
+        }
+        return response.body(body);
+    }
+
+    // gzip esplicito prevale sull'header; tra le codifiche accettate gzip prima di deflate
+    private static Encoding encoding(Boolean gzip, String acceptEncoding) {
+        if (gzip != null) {
+            return gzip ? Encoding.GZIP : Encoding.IDENTITY;
+        }
+        String accepted = acceptEncoding == null ? "" : acceptEncoding.toLowerCase(Locale.ROOT);
+        if (accepted.contains("gzip")) {
+            return Encoding.GZIP;
+        }
+        return accepted.contains("deflate") ? Encoding.DEFLATE : Encoding.IDENTITY;
+    }
+
+    // Formato non supportato, intervallo di date o ledger non validi
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
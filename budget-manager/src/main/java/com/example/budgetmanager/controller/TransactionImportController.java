@@ -0,0 +1,54 @@
+package com.example.budgetmanager.controller;
+
+import com.example.budgetmanager.model.ImportReport;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.service.TransactionFormat;
+import com.example.budgetmanager.service.TransactionImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/* ------------------------------------------------------------------
+Controller per l'import massivo delle transazioni.
+Accetta CSV (text/csv) o NDJSON (application/x-ndjson) in streaming e
+restituisce il resoconto con gli errori per riga e il throughput.
+Senza ledger nel percorso si importa nel ledger predefinito.
+Con dedup=true le righe già presenti (stesso contenuto) non vengono
+importate di nuovo; le righe con una chiave di idempotenza sono sempre
+deduplicate per chiave.
+------------------------------------------------------------------ */
+
+@RestController
+@RequestMapping({"/api/transactions", "/api/ledgers/{ledger}/transactions"})
+public class TransactionImportController {
+
+    private final TransactionImportService transactionImportService;
+
+    public TransactionImportController(TransactionImportService transactionImportService) {
+        this.transactionImportService = transactionImportService;
+    }
+
+    // Import da file: il formato è dato dal parametro "format" oppure dal Content-Type
+    @PostMapping("/import")
+    public ResponseEntity<ImportReport> importTransactions(
+            @PathVariable(required = false) String ledger,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean dedup,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+        TransactionFormat resolved = TransactionFormat.resolve(format,
+                contentType == null ? null : MediaType.parseMediaType(contentType));
+        return ResponseEntity.ok(transactionImportService.importTransactions(Ledgers.of(ledger), body, resolved,
+                dedup));
+    }
+
+    // Formato non supportato, intestazione CSV o ledger non validi
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.budgetmanager.controller;
 
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Money;
 import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionPage;
+import com.example.budgetmanager.service.AsyncTransactionService;
+import com.example.budgetmanager.service.BudgetService;
+import com.example.budgetmanager.service.LedgerVersion;
+import com.example.budgetmanager.service.TransactionIngestQueue;
 import com.example.budgetmanager.service.TransactionService;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.thymeleaf.context.LazyContextVariable;
 
 /* ------------------------------------------------------------------
 Controller per gestire le richieste relative alle view
@@ -20,41 +31,85 @@ fornisce i dati necessari per visualizzare le informazioni
 @RequestMapping("/")
 public class TransactionsViewController {
 
+    // Numero di transazioni mostrate nella dashboard
+    private static final int LATEST_TRANSACTIONS = 10;
+
     private final TransactionService transactionService;
+    private final AsyncTransactionService asyncTransactionService;
+
+    // Versione del ledger: le pagine non cambiano finché non c'è una scrittura
+    private final LedgerVersion ledgerVersion;
+
+    // Coda di ingestione asincrona (null: salvataggio sincrono)
+    private final TransactionIngestQueue ingestQueue;
 
-    public TransactionsViewController(TransactionService transactionService) {
+    // Stato dei budget, dai contatori in memoria
+    private final BudgetService budgetService;
+
+    public TransactionsViewController(TransactionService transactionService,
+                                      AsyncTransactionService asyncTransactionService,
+                                      LedgerVersion ledgerVersion,
+                                      ObjectProvider<TransactionIngestQueue> ingestQueue,
+                                      BudgetService budgetService) {
         this.transactionService = transactionService;
+        this.asyncTransactionService = asyncTransactionService;
+        this.ledgerVersion = ledgerVersion;
+        this.ingestQueue = ingestQueue.getIfAvailable();
+        this.budgetService = budgetService;
     }
 
     @GetMapping
-    public String homePage(Model model) {
-        List<Transaction> transactions = transactionService.getAllTransactions();
-
-        // Attributi per la view
-        model.addAttribute("balance", transactionService.getBalance());
-        model.addAttribute("totalRevenue", transactionService.getTotalRevenue());
-        model.addAttribute("totalExpenses", transactionService.getTotalExpenses());
-        List<Transaction> latestTransactions = transactions.subList(0, Math.min(transactions.size(), 10));
+    public String homePage(WebRequest webRequest, Model model) {
+        // 304 se il client ha già la versione corrente (nessuna query, nessun rendering)
+        if (ConditionalGet.notModified(webRequest, ledgerVersion)) {
+            return null;
+        }
+
+        // Totali e ultime transazioni (sull'indice per data) letti in parallelo
+        CompletableFuture<LedgerSummary> summaryFuture = asyncTransactionService.getLedgerSummary();
+        CompletableFuture<List<Transaction>> latestFuture =
+                asyncTransactionService.getLatestTransactions(LATEST_TRANSACTIONS);
+        LedgerSummary summary = AsyncTransactionService.await(summaryFuture);
+        List<Transaction> latestTransactions = AsyncTransactionService.await(latestFuture);
+
+        // Attributi per la view (importi decimali, convertiti dai centesimi)
+        model.addAttribute("balance", Money.toDecimal(summary.balanceCents()));
+        model.addAttribute("totalRevenue", Money.toDecimal(summary.totalRevenueCents()));
+        model.addAttribute("totalExpenses", Money.toDecimal(summary.totalExpensesCents()));
         model.addAttribute("latestTransactions", latestTransactions.size()>0 ? latestTransactions : null);
+        model.addAttribute("budgets", budgetService.getStatuses());
 
         // Pagina iniziale
         return "index";
     }
 
+    // Solo la pagina della tabella viene letta durante il rendering: i dati del grafico arrivano
+    // da ChartDataController dopo il caricamento della pagina.
+    // La pagina è una variabile lazy: Thymeleaf scrive l'intestazione sulla risposta mentre elabora il
+    // template (produce-partial-output-while-processing) e legge le righe solo quando arriva alla tabella
     @GetMapping("/transactions")
-    public String transactionsPage(Model model) {
-        
-        // Dati per la tabella
-        model.addAttribute("transactions", transactionService.getAllTransactions());
-
-        // Dati per il grafico a torta (distribuzione per categoria solo delle spese)
-        Map<String, Double> categoryData = transactionService.getExpenseCategorySummary();
-        model.addAttribute("categories", categoryData.keySet());
-        model.addAttribute("categoryAmounts", categoryData.values());
-
-        // Dati per il saldo
-        model.addAttribute("balance", transactionService.getBalance());
-        
+    public String transactionsPage(@RequestParam(required = false) String cursor,
+                                   @RequestParam(defaultValue = "" + TransactionService.DEFAULT_PAGE_SIZE) int size,
+                                   WebRequest webRequest, Model model) {
+        if (ConditionalGet.notModified(webRequest, ledgerVersion)) {
+            return null;
+        }
+
+        // Un cursore non valido viene rifiutato prima che qualcosa sia scritto sulla risposta
+        if (cursor != null && !cursor.isBlank()) {
+            TransactionCursor.decode(cursor);
+        }
+
+        // Dati per la tabella (una pagina alla volta)
+        model.addAttribute("page", new LazyContextVariable<TransactionPage>() {
+            @Override
+            protected TransactionPage loadValue() {
+                return transactionService.getTransactionsPage(cursor, size);
+            }
+        });
+        model.addAttribute("pageSize", size);
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
+
         // Pagina per visualizzare le transazioni
         return "view_transactions";
     }
@@ -68,7 +123,14 @@ public class TransactionsViewController {
 
     @PostMapping("/transactions/add")
     public String addTransaction(@ModelAttribute Transaction transaction) {
-        transactionService.addTransaction(transaction);
+        // Un parametro id nel form non deve trasformare l'inserimento in una modifica di un'altra riga
+        transaction.setId(null);
+        if (ingestQueue != null) {
+            // Si attende il commit del gruppo, così la pagina successiva mostra già la nuova transazione
+            ingestQueue.awaitDurable(ingestQueue.submit(transaction));
+        } else {
+            transactionService.addTransaction(transaction);
+        }
 
         // Redirect alla pagina delle transazioni (uso redirect per evitare di aggiungere la stessa transazione più volte)
         return "redirect:/transactions";
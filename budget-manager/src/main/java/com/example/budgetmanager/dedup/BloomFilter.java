@@ -0,0 +1,139 @@
+package com.example.budgetmanager.dedup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* ------------------------------------------------------------------
+Filtro di Bloom espandibile sulle chiavi di deduplicazione.
+mightContain false garantisce che la chiave non è mai stata aggiunta;
+true può essere un falso positivo, con probabilità attorno a
+falsePositiveRate. Ogni chiave imposta k bit scelti con il double
+hashing (h1 + i * h2) da un hash a 64 bit.
+Quando lo strato corrente raggiunge la capacità se ne aggiunge uno di
+capacità doppia e probabilità dimezzata: la probabilità complessiva
+resta sotto 2 * falsePositiveRate qualunque sia il numero di chiavi.
+Le chiavi non si rimuovono: una chiave eliminata resta un falso
+positivo fino alla prossima ricostruzione.
+------------------------------------------------------------------ */
+
+public class BloomFilter {
+
+    // keys non conta le chiavi che il filtro dava già per presenti (anche per un falso positivo)
+    public record Stats(long keys, int layers, long bits, int hashes) {
+    }
+
+    // Uno strato: bit impostati e numero di chiavi aggiunte
+    private static final class Layer {
+        final long[] words;
+        final long bits;
+        final int hashes;
+        final long capacity;
+        long keys;
+
+        Layer(long capacity, double falsePositiveRate) {
+            long optimal = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new long[(int) Math.max(1, (optimal + 63) / 64)];
+            this.bits = words.length * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        boolean contains(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            keys++;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Layer> layers = new ArrayList<>();
+    private final double falsePositiveRate;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected keys must be positive and the false positive rate in (0, 1)");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        layers.add(new Layer(expectedKeys, falsePositiveRate / 2));
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        lock.readLock().lock();
+        try {
+            for (Layer layer : layers) {
+                if (layer.contains(h1, h2)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Aggiunge la chiave (una chiave già presente non occupa altro spazio)
+    public void add(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        lock.writeLock().lock();
+        try {
+            for (Layer layer : layers) {
+                if (layer.contains(h1, h2)) {
+                    return;
+                }
+            }
+            Layer current = layers.get(layers.size() - 1);
+            if (current.keys >= current.capacity) {
+                current = new Layer(current.capacity * 2, falsePositiveRate / (2L << layers.size()));
+                layers.add(current);
+            }
+            current.add(h1, h2);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(layers.stream().mapToLong(layer -> layer.keys).sum(), layers.size(),
+                    layers.stream().mapToLong(layer -> layer.bits).sum(), layers.get(0).hashes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // FNV-1a a 64 bit sui caratteri, poi rimescolato (finalizzatore di MurmurHash3)
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE1A2C22BL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
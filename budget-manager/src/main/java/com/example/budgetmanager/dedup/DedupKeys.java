@@ -0,0 +1,74 @@
+package com.example.budgetmanager.dedup;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/* ------------------------------------------------------------------
+Chiavi di deduplicazione salvate in Transaction.dedupKey.
+Una chiave di idempotenza fornita dal client diventa "key:<chiave>";
+senza chiave, la deduplicazione per contenuto usa "sha256:<hash>" di
+data, importo, categoria, descrizione e tipo. Le due forme non possono
+coincidere, e la chiave del client ha la precedenza: due richieste con
+chiavi diverse creano due righe anche se hanno lo stesso contenuto.
+------------------------------------------------------------------ */
+
+public final class DedupKeys {
+
+    public static final int MAX_CLIENT_KEY_LENGTH = 100;
+
+    // ASCII stampabile senza spazi (come gli header HTTP che la trasportano)
+    private static final Pattern VALID = Pattern.compile("[\\x21-\\x7E]{1," + MAX_CLIENT_KEY_LENGTH + "}");
+
+    private DedupKeys() {
+    }
+
+    // Chiave di una transazione; null se non è richiesta nessuna deduplicazione
+    public static String of(Transaction transaction, String clientKey, boolean byContent) {
+        if (clientKey != null && !clientKey.isEmpty()) {
+            return "key:" + validate(clientKey);
+        }
+        return byContent ? contentKey(transaction) : null;
+    }
+
+    public static String validate(String clientKey) {
+        if (!VALID.matcher(clientKey).matches()) {
+            throw new IllegalArgumentException("Invalid idempotency key (printable ASCII without spaces, at most "
+                    + MAX_CLIENT_KEY_LENGTH + " characters).");
+        }
+        return clientKey;
+    }
+
+    // Hash del contenuto; i campi nulli sono distinti da quelli vuoti
+    public static String contentKey(Transaction transaction) {
+        StringBuilder content = new StringBuilder()
+                .append(transaction.getDate()).append('|')
+                .append(transaction.getAmountCents()).append('|');
+        appendField(content, transaction.getCategory());
+        appendField(content, transaction.getDescription());
+        appendField(content, transaction.getType() == null ? null : transaction.getType().name());
+        byte[] hash = sha256().digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        return "sha256:" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    // Lunghezza prima del valore: nessun separatore nel testo può spostare un campo nel successivo
+    private static void appendField(StringBuilder content, String value) {
+        if (value == null) {
+            content.append("-|");
+        } else {
+            content.append(value.length()).append(':').append(value).append('|');
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
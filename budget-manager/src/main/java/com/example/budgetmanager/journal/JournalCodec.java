@@ -0,0 +1,219 @@
+package com.example.budgetmanager.journal;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.Transaction.TransactionType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/* ------------------------------------------------------------------
+Formato binario dei record del journal e degli snapshot.
+Ogni record è [lunghezza int][CRC32C int][payload]: una lunghezza zero
+indica la fine dei dati, un CRC errato un record scritto a metà.
+Payload: operazione (byte), numero di sequenza (long), poi
+ - LEDGER_ADD: numero di transazioni (int) e per ciascuna id, importo
+   in centesimi, giorno epoch (Long.MIN_VALUE se senza data), tipo
+   (byte, 0 se assente), ledger, categoria e descrizione (lunghezza
+   int, -1 se null, e byte UTF-8);
+ - ADD: come LEDGER_ADD senza il ledger. Scritto dalle versioni
+   precedenti ai ledger: le transazioni vanno nel ledger predefinito;
+ - DELETE: id della transazione eliminata.
+Un blocco di transazioni è un unico record: dopo un crash viene
+ripristinato per intero oppure per niente.
+------------------------------------------------------------------ */
+
+final class JournalCodec {
+
+    static final int HEADER_BYTES = 8;
+
+    static final byte ADD = 1;
+    static final byte DELETE = 2;
+    static final byte LEDGER_ADD = 3;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    // Record decodificato: added per ADD (anche per i record LEDGER_ADD), deletedId per DELETE
+    record Entry(byte op, long seq, List<Transaction> added, long deletedId) {
+    }
+
+    private JournalCodec() {
+    }
+
+    static byte[] add(long seq, List<Transaction> transactions) {
+        List<byte[][]> strings = new ArrayList<>(transactions.size());
+        int size = 1 + 8 + 4;
+        for (Transaction transaction : transactions) {
+            byte[][] text = {utf8(transaction.getLedger()), utf8(transaction.getCategory()),
+                    utf8(transaction.getDescription())};
+            strings.add(text);
+            size += 8 + 8 + 8 + 1 + 4 + length(text[0]) + 4 + length(text[1]) + 4 + length(text[2]);
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.put(LEDGER_ADD).putLong(seq).putInt(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            payload.putLong(transaction.getId())
+                    .putLong(transaction.getAmountCents())
+                    .putLong(transaction.getDate() == null ? NO_DATE : transaction.getDate().toEpochDay())
+                    .put(transaction.getType() == null ? 0 : (byte) (transaction.getType().ordinal() + 1));
+            putString(payload, strings.get(i)[0]);
+            putString(payload, strings.get(i)[1]);
+            putString(payload, strings.get(i)[2]);
+        }
+        return frame(payload.array());
+    }
+
+    static byte[] delete(long seq, long id) {
+        return frame(ByteBuffer.allocate(1 + 8 + 8).put(DELETE).putLong(seq).putLong(id).array());
+    }
+
+    // Legge il record alla posizione corrente e la sposta dopo il record.
+    // Restituisce null (posizione invariata) a fine dati o se il record è incompleto o corrotto
+    static Entry read(ByteBuffer buffer) {
+        int start = buffer.position();
+        ByteBuffer payload = readFrame(buffer);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            byte op = payload.get();
+            long seq = payload.getLong();
+            Entry entry;
+            if (op == ADD || op == LEDGER_ADD) {
+                int count = payload.getInt();
+                if (count < 0) {
+                    throw new IllegalArgumentException("Negative count");
+                }
+                List<Transaction> added = new ArrayList<>(Math.min(count, payload.remaining()));
+                for (int i = 0; i < count; i++) {
+                    added.add(readTransaction(payload, op == LEDGER_ADD));
+                }
+                entry = new Entry(ADD, seq, added, 0L);
+            } else if (op == DELETE) {
+                entry = new Entry(op, seq, List.of(), payload.getLong());
+            } else {
+                throw new IllegalArgumentException("Unknown operation " + op);
+            }
+            if (payload.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes");
+            }
+            return entry;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // CRC corretto ma contenuto non valido: trattato come la fine dei dati
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    // Aggiunge lunghezza e CRC al payload
+    static byte[] frame(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .array();
+    }
+
+    // Payload del record alla posizione corrente (null se assente o non valido)
+    static ByteBuffer readFrame(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(start + HEADER_BYTES, length);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return null;
+        }
+        buffer.position(start + HEADER_BYTES + length);
+        return payload;
+    }
+
+    // Copia indipendente di una transazione (senza passare dai setter che validano)
+    static Transaction copy(Transaction source) {
+        Transaction copy = new Transaction();
+        copy.setId(source.getId());
+        restore(copy, source.getLedger(), source.getAmountCents(), source.getCategory(), source.getDescription(),
+                source.getDate(), source.getType());
+        return copy;
+    }
+
+    private static Transaction readTransaction(ByteBuffer payload, boolean withLedger) {
+        Transaction transaction = new Transaction();
+        transaction.setId(payload.getLong());
+        long amountCents = payload.getLong();
+        long epochDay = payload.getLong();
+        int type = payload.get();
+        if (type < 0 || type > TYPES.length) {
+            throw new IllegalArgumentException("Unknown type " + type);
+        }
+        String ledger = withLedger ? getString(payload) : Ledgers.DEFAULT;
+        String category = getString(payload);
+        String description = getString(payload);
+        restore(transaction, ledger, amountCents, category, description,
+                epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay), type == 0 ? null : TYPES[type - 1]);
+        return transaction;
+    }
+
+    // I setter rifiutano importi zero e campi null: si impostano solo i valori presenti.
+    // Un ledger non valido (record non scritto da questa classe) fa scartare il record come corrotto
+    private static void restore(Transaction transaction, String ledger, long amountCents, String category,
+                                String description, LocalDate date, TransactionType type) {
+        transaction.setLedger(ledger);
+        if (amountCents != 0) {
+            transaction.setAmountCents(amountCents);
+        }
+        if (category != null) {
+            transaction.setCategory(category);
+        }
+        if (date != null) {
+            transaction.setDate(date);
+        }
+        transaction.setDescription(description);
+        transaction.setType(type);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,641 @@
+package com.example.budgetmanager.journal;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.Transaction.TransactionType;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.repository.LedgerStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/* ------------------------------------------------------------------
+Archivio delle transazioni su journal binario append-only
+(budget.storage=journal), alternativo al database.
+Ogni aggiunta o eliminazione è un record accodato al segmento attivo,
+un file mappato in memoria; pieno il segmento se ne apre un altro.
+Le letture usano lo stato in memoria: mappa per id e, per ogni ledger,
+una partizione con l'insieme ordinato delle sue transazioni, i totali e
+le somme per categoria aggiornati a ogni record. Le letture di un ledger
+costano in funzione delle sole transazioni di quel ledger.
+Le partizioni sono protette da lock per ledger (LedgerLocks): scritture
+su ledger diversi procedono in parallelo e si serializzano solo per
+l'accodamento del record; la sincronizzazione su disco avviene fuori
+dal lock del journal.
+Ogni snapshot-every record lo stato viene salvato in uno snapshot
+compatto (in background) e i segmenti che copre vengono eliminati.
+All'avvio si carica l'ultimo snapshot valido e si rileggono i record
+successivi; la rilettura si ferma al primo record incompleto o
+corrotto (crash durante una scrittura) e il journal viene troncato lì.
+Con fsync=true ogni scrittura è forzata su disco prima di rispondere.
+------------------------------------------------------------------ */
+
+@Component
+@ConditionalOnProperty(name = "budget.storage", havingValue = "journal")
+public class JournalLedgerStore implements LedgerStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalLedgerStore.class);
+
+    // Ordinamento del ledger: data decrescente (senza data in fondo), a parità di data id crescente
+    private static final Comparator<Transaction> LEDGER_ORDER = Comparator
+            .comparing(Transaction::getDate, Comparator.nullsLast(Comparator.<LocalDate>reverseOrder()))
+            .thenComparing(Transaction::getId);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int snapshotEvery;
+    private final boolean fsync;
+
+    // Lock per ledger: protegge la partizione. Uno scrittore lo tiene dall'accodamento all'applicazione
+    // del record, quindi chi tiene tutte le strisce vede lo stato esattamente fino all'ultimo record
+    private final LedgerLocks ledgerLocks = new LedgerLocks(LOCK_STRIPES);
+    // Lock del journal: segmenti, sequenza, id e contatore degli snapshot (sempre dopo i lock dei ledger)
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final ExecutorService snapshotExecutor;
+
+    // Stato in memoria: copie private, mai modificate dopo l'inserimento (condivisibili con gli snapshot).
+    // La mappa per id è condivisa fra i ledger; ogni voce è modificata solo con il lock del suo ledger
+    private final Map<Long, Transaction> byId = new ConcurrentHashMap<>();
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    // Segmenti in ordine di sequenza, l'ultimo è quello attivo
+    private final List<JournalSegment> segments = new ArrayList<>();
+    private long nextSeq;
+    private long nextId = 1L;
+    private long recordsSinceSnapshot;
+    private CompletableFuture<Void> pendingSnapshot = CompletableFuture.completedFuture(null);
+
+    @Autowired
+    public JournalLedgerStore(@Value("${budget.journal.dir:./data/journal}") Path dir,
+                              @Value("${budget.journal.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${budget.journal.snapshot-every:100000}") int snapshotEvery,
+                              @Value("${budget.journal.fsync:true}") boolean fsync) {
+        this(dir, Math.toIntExact(segmentSize.toBytes()), snapshotEvery, fsync);
+    }
+
+    // Apre il journal nella cartella indicata e ricostruisce lo stato (snapshot-every 0: nessuno snapshot)
+    public JournalLedgerStore(Path dir, int segmentSize, int snapshotEvery, boolean fsync) {
+        if (segmentSize < JournalCodec.HEADER_BYTES || snapshotEvery < 0) {
+            throw new IllegalArgumentException("Invalid journal segment size or snapshot interval");
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.snapshotEvery = snapshotEvery;
+        this.fsync = fsync;
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            recover();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Cannot open journal in " + dir, e);
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        return saveAll(List.of(transaction)).get(0);
+    }
+
+    // Un solo record per l'intero blocco; come con JPA, gli id vengono assegnati anche agli oggetti ricevuti
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        List<Transaction> copies = new ArrayList<>(transactions.size());
+        Set<String> ledgers = new LinkedHashSet<>();
+        for (Transaction transaction : transactions) {
+            Transaction copy = JournalCodec.copy(transaction);
+            copies.add(copy);
+            ledgers.add(copy.getLedger());
+        }
+
+        boolean snapshotDue;
+        try (LedgerLocks.Held ignored = ledgerLocks.write(ledgers)) {
+            JournalSegment written;
+            journalLock.lock();
+            try {
+                for (Transaction copy : copies) {
+                    // Un id già presente nello stesso ledger sostituisce la transazione, altrimenti se ne assegna
+                    // uno nuovo (gli altri ledger non sono bloccati: le loro transazioni non si toccano)
+                    Transaction existing = copy.getId() == null ? null : byId.get(copy.getId());
+                    if (existing == null || !existing.getLedger().equals(copy.getLedger())) {
+                        copy.setId(nextId++);
+                    }
+                }
+                written = append(JournalCodec.add(nextSeq, copies));
+                snapshotDue = afterAppend();
+            } finally {
+                journalLock.unlock();
+            }
+            force(written);
+            copies.forEach(this::applyAdd);
+        }
+        for (int i = 0; i < transactions.size(); i++) {
+            transactions.get(i).setId(copies.get(i).getId());
+        }
+        if (snapshotDue) {
+            snapshotIfDue();
+        }
+        return transactions;
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        return Optional.ofNullable(byId.get(id)).map(JournalCodec::copy);
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Transaction transaction = byId.get(id);
+            if (transaction != null) {
+                found.add(JournalCodec.copy(transaction));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void delete(Transaction transaction) {
+        Transaction stored = transaction.getId() == null ? null : byId.get(transaction.getId());
+        if (stored == null) {
+            return;
+        }
+        boolean snapshotDue;
+        try (LedgerLocks.Held ignored = ledgerLocks.write(List.of(stored.getLedger()))) {
+            // Eliminata nel frattempo da un altro scrittore
+            if (!byId.containsKey(stored.getId())) {
+                return;
+            }
+            JournalSegment written;
+            journalLock.lock();
+            try {
+                written = append(JournalCodec.delete(nextSeq, stored.getId()));
+                snapshotDue = afterAppend();
+            } finally {
+                journalLock.unlock();
+            }
+            force(written);
+            applyDelete(stored.getId());
+        }
+        if (snapshotDue) {
+            snapshotIfDue();
+        }
+    }
+
+    @Override
+    public List<String> findLedgers() {
+        List<String> ledgers = new ArrayList<>();
+        partitions.forEach((ledger, partition) -> {
+            if (read(ledger, () -> !partition.ordered.isEmpty())) {
+                ledgers.add(ledger);
+            }
+        });
+        ledgers.sort(null);
+        return ledgers;
+    }
+
+    @Override
+    public List<Transaction> findAllOrdered(String ledger) {
+        return read(ledger, () -> partition(ledger).ordered.stream().map(JournalCodec::copy).toList());
+    }
+
+    @Override
+    public List<Transaction> findPage(String ledger, TransactionCursor after, int limit) {
+        return read(ledger, () -> partition(ledger).from(after).limit(limit).map(JournalCodec::copy).toList());
+    }
+
+    // Scansione in ordine dal cursore: nessun indice secondario, il costo cresce con le transazioni scartate
+    @Override
+    public List<Transaction> search(String ledger, TransactionFilter filter, TransactionCursor after, int limit) {
+        return read(ledger, () -> partition(ledger).from(after).filter(transaction -> matches(filter, transaction))
+                .limit(limit).map(JournalCodec::copy).toList());
+    }
+
+    @Override
+    public FilteredTotals getFilteredTotals(String ledger, TransactionFilter filter) {
+        return read(ledger, () -> {
+            long count = 0L;
+            long revenue = 0L;
+            long expenses = 0L;
+            for (Transaction transaction : partition(ledger).ordered) {
+                if (matches(filter, transaction)) {
+                    count++;
+                    if (transaction.getType() == TransactionType.INCOME) {
+                        revenue += transaction.getAmountCents();
+                    } else if (transaction.getType() == TransactionType.EXPENSE) {
+                        expenses += transaction.getAmountCents();
+                    }
+                }
+            }
+            return new FilteredTotals(count, revenue, expenses);
+        });
+    }
+
+    @Override
+    public LedgerSummary getTotals(String ledger) {
+        return read(ledger, () -> {
+            Partition partition = partition(ledger);
+            return new LedgerSummary(partition.totalRevenueCents, partition.totalExpensesCents);
+        });
+    }
+
+    @Override
+    public long getTotalRevenueCents(String ledger) {
+        return getTotals(ledger).totalRevenueCents();
+    }
+
+    @Override
+    public long getTotalExpensesCents(String ledger) {
+        return getTotals(ledger).totalExpensesCents();
+    }
+
+    @Override
+    public List<CategoryTotal> getExpenseCategorySummary(String ledger) {
+        return read(ledger, () -> {
+            Map<String, long[]> expensesByCategory = partition(ledger).expensesByCategory;
+            List<CategoryTotal> summary = new ArrayList<>(expensesByCategory.size());
+            expensesByCategory.forEach((category, sums) ->
+                    summary.add(new CategoryTotal(category, TransactionType.EXPENSE, sums[0], sums[1])));
+            return summary;
+        });
+    }
+
+    // Scrive subito uno snapshot dello stato corrente e attende che sia su disco
+    public void snapshot() {
+        CompletableFuture<Void> snapshot;
+        try (LedgerLocks.Held ignored = ledgerLocks.writeAll()) {
+            journalLock.lock();
+            try {
+                snapshot = startSnapshot();
+            } finally {
+                journalLock.unlock();
+            }
+        }
+        snapshot.join();
+    }
+
+    // Attende lo snapshot in corso e chiude i segmenti (i dati sono già tutti nel journal)
+    @PreDestroy
+    @Override
+    public void close() {
+        snapshotExecutor.shutdown();
+        try {
+            if (!snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Journal snapshot still running on close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try (LedgerLocks.Held ignored = ledgerLocks.writeAll()) {
+            journalLock.lock();
+            try {
+                for (JournalSegment segment : segments) {
+                    segment.force();
+                    segment.close();
+                }
+                segments.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                journalLock.unlock();
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> snapshotFiles = new ArrayList<>();
+        List<Path> segmentFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(JournalSnapshot.TEMP_SUFFIX)) {
+                    // Snapshot interrotto da un crash
+                    Files.delete(file);
+                } else if (JournalSnapshot.seqOf(file) >= 0) {
+                    snapshotFiles.add(file);
+                } else if (JournalSegment.firstSeqOf(file) >= 0) {
+                    segmentFiles.add(file);
+                }
+            }
+        }
+        snapshotFiles.sort(Comparator.comparingLong(JournalSnapshot::seqOf).reversed());
+        segmentFiles.sort(Comparator.comparingLong(JournalSegment::firstSeqOf));
+
+        // Ultimo snapshot leggibile
+        long snapshotSeq = 0L;
+        for (Path file : snapshotFiles) {
+            try {
+                JournalSnapshot snapshot = JournalSnapshot.read(file);
+                snapshot.transactions().forEach(this::applyAdd);
+                nextId = Math.max(nextId, snapshot.nextId());
+                snapshotSeq = snapshot.seq();
+                break;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable journal snapshot {}: {}", file, e.getMessage());
+            }
+        }
+
+        // Record successivi allo snapshot, in ordine di sequenza senza buchi
+        long[] expected = {snapshotSeq + 1};
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            long firstSeq = JournalSegment.firstSeqOf(segmentFiles.get(i));
+            boolean covered = i + 1 < segmentFiles.size()
+                    && JournalSegment.firstSeqOf(segmentFiles.get(i + 1)) <= expected[0];
+            if (covered) {
+                // Eliminazione interrotta dopo uno snapshot
+                Files.delete(segmentFiles.get(i));
+                continue;
+            }
+            if (firstSeq > expected[0]) {
+                throw new IOException("Journal records " + expected[0] + " to " + (firstSeq - 1) + " are missing");
+            }
+            JournalSegment segment = JournalSegment.open(dir, firstSeq, segmentSize);
+            segments.add(segment);
+            boolean clean = segment.replay(entry -> {
+                if (entry.seq() < expected[0]) {
+                    return true; // già nello snapshot
+                }
+                if (entry.seq() != expected[0]) {
+                    return false;
+                }
+                apply(entry);
+                expected[0]++;
+                return true;
+            });
+            if (!clean) {
+                log.warn("Journal segment {} ends with an incomplete or corrupt record, truncated after record {}",
+                        segment.path(), expected[0] - 1);
+                // Dopo un record perso i segmenti successivi non sono più consecutivi
+                for (Path later : segmentFiles.subList(i + 1, segmentFiles.size())) {
+                    log.warn("Discarding journal segment {}", later);
+                    Files.delete(later);
+                }
+                break;
+            }
+        }
+
+        nextSeq = expected[0];
+        if (segments.isEmpty()) {
+            segments.add(JournalSegment.open(dir, nextSeq, segmentSize));
+        }
+        recordsSinceSnapshot = nextSeq - 1 - snapshotSeq;
+        log.info("Journal opened in {}: {} transactions, {} records replayed after snapshot {}",
+                dir, byId.size(), recordsSinceSnapshot, snapshotSeq);
+    }
+
+    // Rilettura di un record durante il recupero
+    private void apply(JournalCodec.Entry entry) {
+        if (entry.op() == JournalCodec.ADD) {
+            for (Transaction transaction : entry.added()) {
+                applyAdd(transaction);
+                nextId = Math.max(nextId, transaction.getId() + 1);
+            }
+        } else {
+            applyDelete(entry.deletedId());
+        }
+    }
+
+    // Con il lock del ledger della transazione (durante il recupero non serve: c'è un solo thread).
+    // Un id già presente appartiene sempre allo stesso ledger (vedi saveAll)
+    private void applyAdd(Transaction transaction) {
+        applyDelete(transaction.getId());
+        byId.put(transaction.getId(), transaction);
+        Partition partition = partitions.computeIfAbsent(transaction.getLedger(), ledger -> new Partition());
+        partition.ordered.add(transaction);
+        partition.updateTotals(transaction, 1);
+    }
+
+    private void applyDelete(long id) {
+        Transaction removed = byId.remove(id);
+        if (removed != null) {
+            Partition partition = partitions.get(removed.getLedger());
+            partition.ordered.remove(removed);
+            partition.updateTotals(removed, -1);
+        }
+    }
+
+    // Partizione del ledger, vuota se il ledger non ha mai avuto transazioni (con il lock del ledger)
+    private Partition partition(String ledger) {
+        return partitions.getOrDefault(ledger, Partition.EMPTY);
+    }
+
+    // Lettura con il lock di lettura del ledger
+    private <T> T read(String ledger, Supplier<T> reader) {
+        Lock lock = ledgerLocks.read(ledger);
+        lock.lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Con il lock del journal: accoda un record al segmento attivo, aprendone uno nuovo se non c'è spazio.
+    // Restituisce il segmento scritto, da sincronizzare su disco con force
+    private JournalSegment append(byte[] record) {
+        try {
+            JournalSegment active = segments.get(segments.size() - 1);
+            if (!active.append(record)) {
+                active.force();
+                active = JournalSegment.open(dir, nextSeq, Math.max(segmentSize, record.length));
+                segments.add(active);
+                active.append(record);
+            }
+            nextSeq++;
+            return active;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to journal in " + dir, e);
+        }
+    }
+
+    // Fuori dal lock del journal: intanto gli scrittori degli altri ledger possono accodare i loro record
+    // (un force copre anche i record accodati prima nello stesso segmento)
+    private void force(JournalSegment segment) {
+        if (fsync) {
+            segment.force();
+        }
+    }
+
+    // Con il lock del journal: true se è ora di scrivere uno snapshot
+    private boolean afterAppend() {
+        recordsSinceSnapshot++;
+        return snapshotEvery > 0 && recordsSinceSnapshot >= snapshotEvery && pendingSnapshot.isDone();
+    }
+
+    // Senza lock: lo snapshot richiede i lock di tutti i ledger, che uno scrittore non può chiedere
+    // mentre tiene già quelli dei propri (l'ordine di acquisizione non sarebbe rispettato)
+    private void snapshotIfDue() {
+        try (LedgerLocks.Held ignored = ledgerLocks.writeAll()) {
+            journalLock.lock();
+            try {
+                // Un altro scrittore potrebbe averlo già avviato
+                if (snapshotEvery > 0 && recordsSinceSnapshot >= snapshotEvery && pendingSnapshot.isDone()) {
+                    startSnapshot();
+                }
+            } finally {
+                journalLock.unlock();
+            }
+        }
+    }
+
+    // Con i lock di tutti i ledger e del journal: chiude il segmento attivo e scrive lo snapshot in background
+    private CompletableFuture<Void> startSnapshot() {
+        long seq = nextSeq - 1;
+        List<Transaction> transactions = new ArrayList<>(byId.size());
+        partitions.values().forEach(partition -> transactions.addAll(partition.ordered));
+        long snapshotNextId = nextId;
+        try {
+            JournalSegment active = segments.get(segments.size() - 1);
+            if (!active.isEmpty()) {
+                active.force();
+                segments.add(JournalSegment.open(dir, nextSeq, segmentSize));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll journal segment in " + dir, e);
+        }
+        recordsSinceSnapshot = 0L;
+
+        CompletableFuture<Void> previous = pendingSnapshot;
+        pendingSnapshot = previous.handle((ignored, error) -> null)
+                .thenRunAsync(() -> writeSnapshot(new JournalSnapshot(seq, snapshotNextId, transactions)),
+                        snapshotExecutor);
+        return pendingSnapshot;
+    }
+
+    // Fuori dal lock: scrive lo snapshot, poi elimina i segmenti e gli snapshot che copre
+    private void writeSnapshot(JournalSnapshot snapshot) {
+        try {
+            snapshot.write(dir);
+            List<JournalSegment> covered = new ArrayList<>();
+            journalLock.lock();
+            try {
+                while (segments.size() > 1 && segments.get(1).firstSeq() <= snapshot.seq() + 1) {
+                    covered.add(segments.remove(0));
+                }
+            } finally {
+                journalLock.unlock();
+            }
+            for (JournalSegment segment : covered) {
+                segment.delete();
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    long seq = JournalSnapshot.seqOf(file);
+                    if (seq >= 0 && seq < snapshot.seq()) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            log.debug("Journal snapshot {} written ({} transactions)", snapshot.seq(), snapshot.transactions().size());
+        } catch (IOException e) {
+            // I segmenti restano: alla riapertura si rilegge dal penultimo snapshot
+            log.error("Cannot write journal snapshot {}", snapshot.seq(), e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean matches(TransactionFilter filter, Transaction transaction) {
+        if (filter.type() != null && filter.type() != transaction.getType()) {
+            return false;
+        }
+        if (filter.category() != null && !filter.category().equals(transaction.getCategory())) {
+            return false;
+        }
+        if (filter.hasDateRange() && transaction.getDate() == null) {
+            return false;
+        }
+        if (filter.from() != null && transaction.getDate().isBefore(filter.from())) {
+            return false;
+        }
+        if (filter.to() != null && transaction.getDate().isAfter(filter.to())) {
+            return false;
+        }
+        if (filter.minCents() != null && transaction.getAmountCents() < filter.minCents()) {
+            return false;
+        }
+        return filter.maxCents() == null || transaction.getAmountCents() <= filter.maxCents();
+    }
+
+    // Transazioni di un ledger, con totali e somme delle spese per categoria
+    private static final class Partition {
+
+        static final Partition EMPTY = new Partition();
+
+        final NavigableSet<Transaction> ordered = new TreeSet<>(LEDGER_ORDER);
+        final Map<String, long[]> expensesByCategory = new HashMap<>(); // categoria -> {centesimi, numero}
+        long totalRevenueCents;
+        long totalExpensesCents;
+
+        // Transazioni in ordine dopo il cursore (null: dall'inizio)
+        Stream<Transaction> from(TransactionCursor after) {
+            if (after == null) {
+                return ordered.stream();
+            }
+            Transaction position = new Transaction();
+            position.setId(after.id());
+            if (after.date() != null) {
+                position.setDate(after.date());
+            }
+            return ordered.tailSet(position, false).stream();
+        }
+
+        void updateTotals(Transaction transaction, int sign) {
+            long cents = sign * transaction.getAmountCents();
+            if (transaction.getType() == TransactionType.INCOME) {
+                totalRevenueCents += cents;
+            } else if (transaction.getType() == TransactionType.EXPENSE) {
+                totalExpensesCents += cents;
+                long[] sums = expensesByCategory.computeIfAbsent(transaction.getCategory(), category -> new long[2]);
+                sums[0] += cents;
+                sums[1] += sign;
+                if (sums[1] == 0) {
+                    expensesByCategory.remove(transaction.getCategory());
+                }
+            }
+        }
+    }
+}
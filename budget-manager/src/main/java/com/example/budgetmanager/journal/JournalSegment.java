@@ -0,0 +1,139 @@
+package com.example.budgetmanager.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+/* ------------------------------------------------------------------
+File di segmento del journal, mappato in memoria con dimensione fissa
+(il file viene preallocato a zeri). Il nome contiene il numero di
+sequenza del primo record: segment-<seq>.log.
+Le scritture avvengono solo in coda: prima il CRC e il payload, per
+ultima la lunghezza, così un record interrotto a metà non risulta mai
+completo. La durabilità su disco richiede force().
+------------------------------------------------------------------ */
+
+final class JournalSegment implements Closeable {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private final Path path;
+    private final long firstSeq;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Posizione del prossimo record
+    private int writePosition;
+
+    private JournalSegment(Path path, long firstSeq, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSeq = firstSeq;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    // Apre (o crea) il segmento: un file più corto di size viene esteso, uno più lungo mappato per intero
+    static JournalSegment open(Path dir, long firstSeq, int size) throws IOException {
+        Path path = dir.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long length = Math.max(size, channel.size());
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Journal segment too large: " + path);
+            }
+            return new JournalSegment(path, firstSeq, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Numero di sequenza del primo record dal nome del file (-1 se non è un segmento)
+    static long firstSeqOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    long firstSeq() {
+        return firstSeq;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    boolean isEmpty() {
+        return writePosition == 0;
+    }
+
+    // Rilegge i record dall'inizio finché sono validi e accettati, poi posiziona lì le scritture.
+    // Restituisce false se i dati terminano con un record incompleto, corrotto o rifiutato:
+    // la coda viene azzerata (troncamento) per non confonderla con record futuri
+    boolean replay(Predicate<JournalCodec.Entry> accept) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        while (true) {
+            int start = view.position();
+            JournalCodec.Entry entry = JournalCodec.read(view);
+            if (entry == null || !accept.test(entry)) {
+                writePosition = start;
+                break;
+            }
+        }
+        boolean clean = buffer.capacity() - writePosition < JournalCodec.HEADER_BYTES
+                || buffer.getInt(writePosition) == 0;
+        if (!clean) {
+            truncate();
+        }
+        return clean;
+    }
+
+    // Accoda un record; false se non c'è abbastanza spazio nel segmento
+    boolean append(byte[] record) {
+        if (buffer.capacity() - writePosition < record.length) {
+            return false;
+        }
+        buffer.put(writePosition + 4, record, 4, record.length - 4);
+        buffer.put(writePosition, record, 0, 4);
+        writePosition += record.length;
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    // Chiude il segmento ed elimina il file (segmento già coperto da uno snapshot o scartato)
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void truncate() {
+        for (int position = writePosition; position < buffer.capacity(); position += ZEROS.length) {
+            buffer.put(position, ZEROS, 0, Math.min(ZEROS.length, buffer.capacity() - position));
+        }
+        buffer.force();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.budgetmanager.journal;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Snapshot compatto del ledger: tutte le transazioni presenti fino al
+record seq, senza le operazioni intermedie. Nome: snapshot-<seq>.snap.
+Contenuto: un record di intestazione (magic, versione, seq, prossimo
+id, numero di transazioni) seguito da record ADD a blocchi, con lo
+stesso formato e CRC dei segmenti.
+Viene scritto su un file temporaneo, sincronizzato su disco e
+rinominato in modo atomico: un crash durante la scrittura lascia solo
+un .tmp, ignorato ed eliminato alla riapertura.
+------------------------------------------------------------------ */
+
+record JournalSnapshot(long seq, long nextId, List<Transaction> transactions) {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x424D4A53;
+    private static final int VERSION = 1;
+    private static final int HEADER_PAYLOAD_BYTES = 4 + 4 + 8 + 8 + 8;
+    private static final int CHUNK = 1024;
+
+    static Path path(Path dir, long seq) {
+        return dir.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+    }
+
+    // Numero di sequenza dal nome del file (-1 se non è uno snapshot)
+    static long seqOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    void write(Path dir) throws IOException {
+        Path target = path(dir, seq);
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            out.write(JournalCodec.frame(ByteBuffer.allocate(HEADER_PAYLOAD_BYTES)
+                    .putInt(MAGIC).putInt(VERSION).putLong(seq).putLong(nextId).putLong(transactions.size())
+                    .array()));
+            for (int from = 0; from < transactions.size(); from += CHUNK) {
+                out.write(JournalCodec.add(seq, transactions.subList(from, Math.min(from + CHUNK, transactions.size()))));
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static JournalSnapshot read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer header = JournalCodec.readFrame(buffer);
+        if (header == null || header.remaining() != HEADER_PAYLOAD_BYTES
+                || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Invalid snapshot header: " + path);
+        }
+        long seq = header.getLong();
+        long nextId = header.getLong();
+        long count = header.getLong();
+        if (seq != seqOf(path) || count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Invalid snapshot header: " + path);
+        }
+
+        List<Transaction> transactions = new ArrayList<>((int) count);
+        while (transactions.size() < count) {
+            JournalCodec.Entry entry = JournalCodec.read(buffer);
+            if (entry == null || entry.op() != JournalCodec.ADD || entry.seq() != seq) {
+                throw new IOException("Truncated or corrupt snapshot: " + path);
+            }
+            transactions.addAll(entry.added());
+        }
+        if (transactions.size() != count || buffer.hasRemaining()) {
+            throw new IOException("Corrupt snapshot: " + path);
+        }
+        return new JournalSnapshot(seq, nextId, transactions);
+    }
+}
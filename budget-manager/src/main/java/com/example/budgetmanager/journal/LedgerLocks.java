@@ -0,0 +1,80 @@
+package com.example.budgetmanager.journal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* ------------------------------------------------------------------
+Lock read/write per ledger, a strisce: ogni ledger usa il lock della
+striscia data dal suo hash, così il numero di lock resta fisso qualunque
+sia il numero di ledger. Ledger diversi possono condividere una striscia
+(solo contesa, mai errori).
+Più strisce vengono sempre acquisite in ordine di indice: due scrittori
+che bloccano insiemi diversi di ledger non possono bloccarsi a vicenda.
+------------------------------------------------------------------ */
+
+final class LedgerLocks {
+
+    private final ReentrantReadWriteLock[] stripes;
+
+    LedgerLocks(int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        stripes = new ReentrantReadWriteLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    // Lock di lettura del ledger (da acquisire e rilasciare come un Lock qualsiasi)
+    Lock read(String ledger) {
+        return stripes[stripeOf(ledger)].readLock();
+    }
+
+    // Lock di scrittura dei ledger indicati, acquisiti in ordine e rilasciati da close()
+    Held write(Collection<String> ledgers) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String ledger : ledgers) {
+            indexes.add(stripeOf(ledger));
+        }
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks.add(stripes[index].writeLock());
+        }
+        return Held.acquire(locks);
+    }
+
+    // Lock di scrittura di tutte le strisce: nessun ledger può essere letto o modificato fino a close()
+    Held writeAll() {
+        List<Lock> locks = new ArrayList<>(stripes.length);
+        for (ReentrantReadWriteLock stripe : stripes) {
+            locks.add(stripe.writeLock());
+        }
+        return Held.acquire(locks);
+    }
+
+    private int stripeOf(String ledger) {
+        int hash = ledger.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    // Lock acquisiti, rilasciati in ordine inverso
+    record Held(List<Lock> locks) implements AutoCloseable {
+
+        private static Held acquire(List<Lock> locks) {
+            locks.forEach(Lock::lock);
+            return new Held(locks);
+        }
+
+        @Override
+        public void close() {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.budgetmanager.model;
+
+/* ------------------------------------------------------------------
+Resoconto di un'archiviazione: segmenti scritti (nuovi o estesi) e
+transazioni spostate dalla tabella delle transazioni.
+------------------------------------------------------------------ */
+
+public record ArchiveReport(int segments, long transactions, long elapsedMillis) {
+}
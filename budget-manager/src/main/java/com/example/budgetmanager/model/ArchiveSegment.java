@@ -0,0 +1,122 @@
+package com.example.budgetmanager.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* ------------------------------------------------------------------
+Segmento d'archivio: le transazioni di un anno di un ledger spostate
+fuori dalla tabella delle transazioni. Contiene gli aggregati
+precalcolati (conteggio, entrate, spese, spese per categoria), usati
+dai totali senza leggere le righe; le righe compresse stanno in
+ArchiveSegmentData e vengono decodificate solo su richiesta.
+I segmenti sono in sola lettura: una nuova archiviazione dello stesso
+anno li riscrive per intero.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "archive_segment", uniqueConstraints = @UniqueConstraint(name = "uk_archive_segment_ledger_year",
+        columnNames = {"ledger", "archive_year"}))
+public class ArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = Ledgers.MAX_LENGTH)
+    private String ledger;
+
+    @Column(name = "archive_year", nullable = false)
+    private int year;
+
+    private long transactionCount;
+    private long totalRevenueCents;
+    private long totalExpensesCents;
+
+    // Pochi valori per segmento, letti con il segmento
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "archive_segment_expense", joinColumns = @JoinColumn(name = "segment_id"))
+    @MapKeyColumn(name = "category")
+    @Column(name = "total_cents", nullable = false)
+    private Map<String, Long> expensesByCategory = new HashMap<>();
+
+    // Dimensione delle righe compresse, in byte
+    private int compressedBytes;
+
+    private Instant archivedAt;
+
+    // Costruttore di default
+    public ArchiveSegment() {
+    }
+
+    public ArchiveSegment(String ledger, int year) {
+        this.ledger = ledger;
+        this.year = year;
+    }
+
+    // Ricalcola gli aggregati dalle righe del segmento (tutte quelle dell'anno, anche già archiviate)
+    public void summarize(List<Transaction> transactions) {
+        transactionCount = transactions.size();
+        totalRevenueCents = 0;
+        totalExpensesCents = 0;
+        expensesByCategory.clear();
+        for (Transaction transaction : transactions) {
+            if (transaction.getType() == Transaction.TransactionType.INCOME) {
+                totalRevenueCents += transaction.getAmountCents();
+            } else if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+                totalExpensesCents += transaction.getAmountCents();
+                if (transaction.getCategory() != null) {
+                    expensesByCategory.merge(transaction.getCategory(), transaction.getAmountCents(), Long::sum);
+                }
+            }
+        }
+    }
+
+    // Getter e setter
+    public Long getId() {
+        return id;
+    }
+
+    public String getLedger() {
+        return ledger;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public long getTotalRevenueCents() {
+        return totalRevenueCents;
+    }
+
+    public long getTotalExpensesCents() {
+        return totalExpensesCents;
+    }
+
+    public Map<String, Long> getExpensesByCategory() {
+        return expensesByCategory;
+    }
+
+    public int getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public void setCompressedBytes(int compressedBytes) {
+        this.compressedBytes = compressedBytes;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(Instant archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
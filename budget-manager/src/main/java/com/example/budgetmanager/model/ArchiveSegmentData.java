@@ -0,0 +1,44 @@
+package com.example.budgetmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+/* ------------------------------------------------------------------
+Righe compresse di un segmento d'archivio (formato in
+archive.SegmentCodec), in una tabella separata: elencare i segmenti e
+leggerne gli aggregati non carica mai i dati.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "archive_segment_data")
+public class ArchiveSegmentData {
+
+    // Stesso id del segmento
+    @Id
+    private Long segmentId;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    // Costruttore di default
+    public ArchiveSegmentData() {
+    }
+
+    public ArchiveSegmentData(Long segmentId, byte[] data) {
+        this.segmentId = segmentId;
+        this.data = data;
+    }
+
+    // Getter
+    public Long getSegmentId() {
+        return segmentId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
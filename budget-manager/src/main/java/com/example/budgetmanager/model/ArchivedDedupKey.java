@@ -0,0 +1,59 @@
+package com.example.budgetmanager.model;
+
+import jakarta.persistence.*;
+
+/* ------------------------------------------------------------------
+Chiave di deduplicazione di una riga archiviata. Quando una riga esce
+dalla tabella delle transazioni la sua chiave non è più coperta dal
+loro indice unico: resta qui, con l'anno del segmento che contiene la
+riga, e TransactionDeduplicator la cerca come quelle delle righe non
+archiviate. Le righe dei segmenti scritti prima di questa tabella non
+hanno chiavi.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "archived_dedup_key", uniqueConstraints = @UniqueConstraint(name = "uk_archived_dedup_key_ledger_key",
+        columnNames = {"ledger", "dedup_key"}))
+public class ArchivedDedupKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = Ledgers.MAX_LENGTH)
+    private String ledger;
+
+    @Column(name = "dedup_key", nullable = false, length = Transaction.DEDUP_KEY_LENGTH)
+    private String dedupKey;
+
+    // Anno del segmento (ArchiveSegment.year) con la riga
+    @Column(name = "archive_year", nullable = false)
+    private int year;
+
+    // Costruttore di default
+    public ArchivedDedupKey() {
+    }
+
+    public ArchivedDedupKey(String ledger, String dedupKey, int year) {
+        this.ledger = ledger;
+        this.dedupKey = dedupKey;
+        this.year = year;
+    }
+
+    // Getter
+    public Long getId() {
+        return id;
+    }
+
+    public String getLedger() {
+        return ledger;
+    }
+
+    public String getDedupKey() {
+        return dedupKey;
+    }
+
+    public int getYear() {
+        return year;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.budgetmanager.model;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Saldo del ledger (entrate meno spese, in centesimi) alla fine di un
+giorno, considerando le sole transazioni con data.
+------------------------------------------------------------------ */
+
+public record BalancePoint(LocalDate date, long balanceCents) {
+}
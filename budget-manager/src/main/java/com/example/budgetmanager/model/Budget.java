@@ -0,0 +1,126 @@
+package com.example.budgetmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/* ------------------------------------------------------------------
+Limite di spesa per una categoria in un periodo (settimana, mese o
+anno). Superata la soglia di allerta (percentuale del limite) il budget
+passa in WARNING, oltre il limite in EXCEEDED.
+Un solo budget per categoria e periodo in ogni ledger: la spesa che
+conta è solo quella del ledger del budget.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "budget", uniqueConstraints = @UniqueConstraint(name = "uk_budget_ledger_category_period",
+        columnNames = {"ledger", "category", "period"}))
+public class Budget {
+
+    public static final int DEFAULT_ALERT_PERCENT = 80;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = Ledgers.MAX_LENGTH)
+    private String ledger = Ledgers.DEFAULT;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private BudgetPeriod period;
+
+    // Limite in centesimi, come gli importi delle transazioni
+    @Column(name = "limit_cents", nullable = false)
+    private long limitCents;
+
+    @Column(name = "alert_percent", nullable = false)
+    private int alertPercent = DEFAULT_ALERT_PERCENT;
+
+    // Costruttore di default
+    public Budget() {
+    }
+
+    // Costruttore con validazione
+    public Budget(String category, BudgetPeriod period, long limitCents, int alertPercent) {
+        setCategory(category);
+        setPeriod(period);
+        setLimitCents(limitCents);
+        setAlertPercent(alertPercent);
+    }
+
+    // Getter e setter
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(String ledger) {
+        this.ledger = Ledgers.of(ledger);
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        if (category == null || category.isBlank()) {
+            throw new IllegalArgumentException("The category must be defined.");
+        }
+        this.category = category;
+    }
+
+    public BudgetPeriod getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(BudgetPeriod period) {
+        if (period == null) {
+            throw new IllegalArgumentException("The period must be defined.");
+        }
+        this.period = period;
+    }
+
+    public long getLimitCents() {
+        return limitCents;
+    }
+
+    public void setLimitCents(long limitCents) {
+        if (limitCents <= 0) {
+            throw new IllegalArgumentException("The limit must be a positive number bigger than 0");
+        }
+        this.limitCents = limitCents;
+    }
+
+    // Limite decimale: in JSON è accettato in ingresso in alternativa a limitCents, ma non viene serializzato
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    public BigDecimal getLimit() {
+        return Money.toDecimal(limitCents);
+    }
+
+    public void setLimit(BigDecimal limit) {
+        setLimitCents(Money.toCents(limit));
+    }
+
+    public int getAlertPercent() {
+        return alertPercent;
+    }
+
+    public void setAlertPercent(int alertPercent) {
+        if (alertPercent < 1 || alertPercent > 100) {
+            throw new IllegalArgumentException("The alert threshold must be between 1 and 100 percent.");
+        }
+        this.alertPercent = alertPercent;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.budgetmanager.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Allerta generata quando una scrittura porta un budget a un livello
+più alto (soglia di allerta raggiunta o limite superato).
+------------------------------------------------------------------ */
+
+public record BudgetAlert(long budgetId, String ledger, String category, BudgetPeriod period, LocalDate periodStart,
+                          BudgetStatus.Level level, long spentCents, long limitCents, Instant raisedAt) {
+}
@@ -0,0 +1,40 @@
+package com.example.budgetmanager.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/* ------------------------------------------------------------------
+Periodo a cui si applica il limite di un budget: ogni periodo è
+identificato dal suo primo giorno (le settimane iniziano di lunedì,
+come da ISO 8601, come nei rollup).
+------------------------------------------------------------------ */
+
+public enum BudgetPeriod {
+
+    WEEK, MONTH, YEAR;
+
+    // Primo giorno del periodo che contiene la data
+    public LocalDate start(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    // Ultimo giorno del periodo che inizia in start
+    public LocalDate end(LocalDate start) {
+        LocalDate next = switch (this) {
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+            case YEAR -> start.plusYears(1);
+        };
+        return next.minusDays(1);
+    }
+
+    // Primo giorno del periodo più lontano, tra tutti i tipi, che contiene la data
+    public static LocalDate earliestStart(LocalDate date) {
+        return WEEK.start(YEAR.start(date));
+    }
+}
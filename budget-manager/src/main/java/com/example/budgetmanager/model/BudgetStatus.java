@@ -0,0 +1,33 @@
+package com.example.budgetmanager.model;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Stato di un budget nel periodo corrente: speso, residuo (negativo se
+il limite è superato), percentuale usata e livello.
+------------------------------------------------------------------ */
+
+public record BudgetStatus(long budgetId, String ledger, String category, BudgetPeriod period, LocalDate periodStart,
+                           LocalDate periodEnd, long limitCents, long spentCents, long remainingCents,
+                           int percentUsed, Level level) {
+
+    public enum Level {
+        OK, WARNING, EXCEEDED;
+
+        // Livello raggiunto con la spesa indicata
+        public static Level of(long spentCents, long limitCents, int alertPercent) {
+            if (spentCents > limitCents) {
+                return EXCEEDED;
+            }
+            return spentCents * 100 >= limitCents * alertPercent ? WARNING : OK;
+        }
+    }
+
+    public static BudgetStatus of(Budget budget, LocalDate periodStart, long spentCents) {
+        long limitCents = budget.getLimitCents();
+        return new BudgetStatus(budget.getId(), budget.getLedger(), budget.getCategory(), budget.getPeriod(), periodStart,
+                budget.getPeriod().end(periodStart), limitCents, spentCents, limitCents - spentCents,
+                (int) Math.min(Integer.MAX_VALUE, Math.max(0L, spentCents) * 100 / limitCents),
+                Level.of(spentCents, limitCents, budget.getAlertPercent()));
+    }
+}
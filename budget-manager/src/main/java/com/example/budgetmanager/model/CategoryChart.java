@@ -0,0 +1,11 @@
+package com.example.budgetmanager.model;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Dati di un grafico per categoria: etichette e importi in centesimi,
+nello stesso ordine (pronti per i dataset di Chart.js).
+------------------------------------------------------------------ */
+
+public record CategoryChart(List<String> categories, List<Long> amountsCents) {
+}
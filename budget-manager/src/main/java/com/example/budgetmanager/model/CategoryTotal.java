@@ -0,0 +1,9 @@
+package com.example.budgetmanager.model;
+
+/* ------------------------------------------------------------------
+Totale in centesimi e numero di transazioni per categoria e tipo
+in un intervallo.
+------------------------------------------------------------------ */
+
+public record CategoryTotal(String category, Transaction.TransactionType type, long totalCents, long count) {
+}
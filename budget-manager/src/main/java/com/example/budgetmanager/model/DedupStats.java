@@ -0,0 +1,17 @@
+package com.example.budgetmanager.model;
+
+/* ------------------------------------------------------------------
+Statistiche della deduplicazione dall'avvio: chiavi nel filtro di
+Bloom (strati e bit occupati), chiavi controllate, chiavi verificate
+sul database perché il filtro non le escludeva, duplicati trovati e
+falsi positivi del filtro (verificate ma non presenti).
+------------------------------------------------------------------ */
+
+public record DedupStats(long keys,
+                         int layers,
+                         long bits,
+                         long checks,
+                         long lookups,
+                         long duplicates,
+                         long falsePositives) {
+}
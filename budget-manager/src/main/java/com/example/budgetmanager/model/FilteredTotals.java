@@ -0,0 +1,16 @@
+package com.example.budgetmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/* ------------------------------------------------------------------
+Aggregati delle transazioni che soddisfano un filtro: numero di
+transazioni, totale entrate, totale spese e saldo, in centesimi.
+------------------------------------------------------------------ */
+
+public record FilteredTotals(long count, long totalRevenueCents, long totalExpensesCents) {
+
+    @JsonProperty("balanceCents")
+    public long balanceCents() {
+        return totalRevenueCents - totalExpensesCents;
+    }
+}
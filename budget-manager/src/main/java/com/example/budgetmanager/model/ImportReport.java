@@ -0,0 +1,25 @@
+package com.example.budgetmanager.model;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Resoconto di un import massivo: righe importate, scartate e già
+presenti (duplicati di righe salvate o del file stesso), errori per
+riga (al massimo i primi ImportReport.MAX_ERRORS) e throughput.
+------------------------------------------------------------------ */
+
+public record ImportReport(long imported,
+                           long rejected,
+                           long duplicates,
+                           List<RowError> errors,
+                           boolean errorsTruncated,
+                           long elapsedMillis,
+                           double rowsPerSecond) {
+
+    // Numero massimo di errori riportati nel resoconto
+    public static final int MAX_ERRORS = 100;
+
+    // Errore su una singola riga del file (line parte da 1, intestazione CSV inclusa)
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.budgetmanager.model;
+
+/* ------------------------------------------------------------------
+Esito dell'ingestione di una transazione con deduplicazione: la riga
+appena salvata, oppure (duplicate) quella già presente con la stessa
+chiave di idempotenza o lo stesso contenuto.
+------------------------------------------------------------------ */
+
+public record IngestResult(Transaction transaction, boolean duplicate) {
+}
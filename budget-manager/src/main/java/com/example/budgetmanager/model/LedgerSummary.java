@@ -0,0 +1,18 @@
+package com.example.budgetmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/* ------------------------------------------------------------------
+Riepilogo del ledger: totale entrate, totale spese e saldo, in centesimi.
+Calcolato con un'unica query invece di tre aggregazioni separate.
+------------------------------------------------------------------ */
+
+public record LedgerSummary(long totalRevenueCents, long totalExpensesCents) {
+
+    public static final LedgerSummary ZERO = new LedgerSummary(0L, 0L);
+
+    @JsonProperty("balanceCents")
+    public long balanceCents() {
+        return totalRevenueCents - totalExpensesCents;
+    }
+}
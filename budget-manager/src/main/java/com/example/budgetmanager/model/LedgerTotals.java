@@ -0,0 +1,64 @@
+package com.example.budgetmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/* ------------------------------------------------------------------
+Riga di riepilogo con i totali correnti di un ledger.
+Viene aggiornata in modo incrementale nella stessa transazione di ogni
+inserimento/eliminazione, così il saldo non richiede una scansione
+della tabella delle transazioni.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "ledger_totals")
+public class LedgerTotals {
+
+    // Una riga per ledger: le scritture su ledger diversi non si contendono la stessa riga
+    @Id
+    @Column(length = Ledgers.MAX_LENGTH)
+    private String ledger;
+
+    private long totalRevenueCents;
+    private long totalExpensesCents;
+    private long transactionCount;
+
+    // Costruttore di default
+    public LedgerTotals() {
+    }
+
+    public LedgerTotals(String ledger) {
+        this.ledger = ledger;
+    }
+
+    // Getter e setter
+    public String getLedger() {
+        return ledger;
+    }
+
+    public long getTotalRevenueCents() {
+        return totalRevenueCents;
+    }
+
+    public void setTotalRevenueCents(long totalRevenueCents) {
+        this.totalRevenueCents = totalRevenueCents;
+    }
+
+    public long getTotalExpensesCents() {
+        return totalExpensesCents;
+    }
+
+    public void setTotalExpensesCents(long totalExpensesCents) {
+        this.totalExpensesCents = totalExpensesCents;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.budgetmanager.model;
+
+/* ------------------------------------------------------------------
+Esito del controllo di consistenza dei totali incrementali:
+confronta i totali in memoria, quelli salvati nella riga di riepilogo
+e quelli ricalcolati da zero sulla tabella delle transazioni.
+------------------------------------------------------------------ */
+
+public record LedgerTotalsCheck(LedgerSummary inMemory,
+                                LedgerSummary persisted,
+                                LedgerSummary recomputed,
+                                long persistedCount,
+                                long recomputedCount,
+                                boolean consistent) {
+}
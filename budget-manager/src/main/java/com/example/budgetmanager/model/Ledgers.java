@@ -0,0 +1,33 @@
+package com.example.budgetmanager.model;
+
+import java.util.regex.Pattern;
+
+/* ------------------------------------------------------------------
+Chiavi dei ledger: ogni transazione appartiene a un ledger e tutte le
+letture e gli aggregati sono limitati a un ledger. Le API senza ledger
+nel percorso usano il ledger predefinito.
+------------------------------------------------------------------ */
+
+public final class Ledgers {
+
+    public static final String DEFAULT = "default";
+
+    public static final int MAX_LENGTH = 64;
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0," + (MAX_LENGTH - 1) + "}");
+
+    private Ledgers() {
+    }
+
+    // Chiave validata; null o vuota indica il ledger predefinito
+    public static String of(String ledger) {
+        if (ledger == null || ledger.isBlank()) {
+            return DEFAULT;
+        }
+        if (!VALID.matcher(ledger).matches()) {
+            throw new IllegalArgumentException("Invalid ledger: " + ledger
+                    + " (letters, digits, '.', '_' and '-', at most " + MAX_LENGTH + " characters).");
+        }
+        return ledger;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.budgetmanager.model;
+
+import java.math.BigDecimal;
+
+/* ------------------------------------------------------------------
+Conversioni tra importi in centesimi (long) e importi decimali.
+Il modello e le aggregazioni lavorano solo in centesimi; i decimali
+compaiono ai bordi: form, viste, CSV.
+------------------------------------------------------------------ */
+
+public final class Money {
+
+    private static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    // Importo decimale -> centesimi. Più di due decimali non sono rappresentabili senza perdita
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("The amount must be defined.");
+        }
+        if (amount.stripTrailingZeros().scale() > SCALE) {
+            throw new IllegalArgumentException("The amount must have at most two decimal places: " + amount);
+        }
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("The amount is out of range: " + amount);
+        }
+    }
+
+    // Testo come "12.5" o "-3.20" -> centesimi
+    public static long parseCents(String amount) {
+        if (amount == null || amount.isBlank()) {
+            throw new IllegalArgumentException("The amount must be defined.");
+        }
+        try {
+            return toCents(new BigDecimal(amount.trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    // Centesimi -> "123.45" senza passare da BigDecimal (usato dall'export riga per riga)
+    public static StringBuilder append(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+        }
+        // Math.abs(Long.MIN_VALUE) è negativo: le cifre si ricavano con divisione e resto sul valore con segno
+        long units = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        out.append(units).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+}
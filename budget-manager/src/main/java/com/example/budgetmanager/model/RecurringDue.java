@@ -0,0 +1,11 @@
+package com.example.budgetmanager.model;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Prossima occorrenza di una transazione ricorrente (id e data), letta
+all'avvio per riempire la coda delle scadenze.
+------------------------------------------------------------------ */
+
+public record RecurringDue(long id, LocalDate nextDate) {
+}
@@ -0,0 +1,190 @@
+package com.example.budgetmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Modello di transazione ricorrente (stipendio, affitto, abbonamenti):
+importo, categoria, descrizione e tipo delle transazioni da generare,
+calendario (vedi recurring.Schedule) e intervallo di validità; le
+occorrenze vengono inserite nel ledger del modello.
+nextDate è la prossima occorrenza ancora da generare (null quando il
+calendario è finito): viene avanzata nella stessa transazione che
+inserisce le occorrenze, quindi ogni data è generata una sola volta.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "recurring_transaction", indexes = {
+        @Index(name = "idx_recurring_next_date", columnList = "next_date")
+})
+public class RecurringTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Lock ottimistico: una modifica concorrente annulla la generazione invece di duplicarla
+    @Version
+    private long version;
+
+    @Column(nullable = false, length = Ledgers.MAX_LENGTH)
+    private String ledger = Ledgers.DEFAULT;
+
+    @Column(name = "amount_cents", nullable = false)
+    private long amountCents;
+
+    @Column(nullable = false)
+    private String category;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Transaction.TransactionType type;
+
+    @Column(nullable = false)
+    private String schedule;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    // Ultimo giorno possibile (null: nessuna scadenza)
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(name = "next_date")
+    private LocalDate nextDate;
+
+    // Costruttore di default
+    public RecurringTransaction() {
+    }
+
+    // Costruttore con validazione
+    public RecurringTransaction(long amountCents, String category, String description,
+                                Transaction.TransactionType type, String schedule, LocalDate startDate) {
+        setAmountCents(amountCents);
+        setCategory(category);
+        setDescription(description);
+        setType(type);
+        setSchedule(schedule);
+        setStartDate(startDate);
+    }
+
+    // Occorrenza da inserire nel ledger per la data indicata
+    public Transaction occurrence(LocalDate date) {
+        Transaction transaction = new Transaction(amountCents, category, description, date, type);
+        transaction.setLedger(ledger);
+        return transaction;
+    }
+
+    // Getter e setter
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(String ledger) {
+        this.ledger = Ledgers.of(ledger);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        if (amountCents == 0) {
+            throw new IllegalArgumentException("The amount must be a positive number bigger than 0");
+        }
+        this.amountCents = amountCents;
+    }
+
+    // Importo decimale: in JSON è accettato in ingresso in alternativa ad amountCents, ma non viene serializzato
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    public BigDecimal getAmount() {
+        return Money.toDecimal(amountCents);
+    }
+
+    public void setAmount(BigDecimal amount) {
+        setAmountCents(Money.toCents(amount));
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        if (category == null) {
+            throw new IllegalArgumentException("The category must be defined.");
+        }
+        this.category = category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Transaction.TransactionType getType() {
+        return type;
+    }
+
+    public void setType(Transaction.TransactionType type) {
+        this.type = type;
+    }
+
+    public String getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(String schedule) {
+        this.schedule = schedule;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    // Calcolata dal servizio: in JSON viene solo serializzata
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public LocalDate getNextDate() {
+        return nextDate;
+    }
+
+    public void setNextDate(LocalDate nextDate) {
+        this.nextDate = nextDate;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.budgetmanager.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/* ------------------------------------------------------------------
+Granularità dei rollup: ogni bucket è identificato dal suo primo giorno
+(le settimane iniziano di lunedì, come da ISO 8601).
+------------------------------------------------------------------ */
+
+public enum RollupGranularity {
+
+    DAY, WEEK, MONTH;
+
+    // Primo giorno del bucket che contiene la data
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.budgetmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/* ------------------------------------------------------------------
+Chiave di un rollup: (ledger, granularità, inizio del bucket,
+categoria, tipo).
+Le transazioni senza categoria finiscono nella categoria vuota.
+------------------------------------------------------------------ */
+
+@Embeddable
+public class RollupKey implements Serializable {
+
+    // Categoria usata per le transazioni senza categoria
+    public static final String NO_CATEGORY = "";
+
+    @Column(length = Ledgers.MAX_LENGTH)
+    private String ledger;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start")
+    private LocalDate bucketStart;
+
+    private String category;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Transaction.TransactionType type;
+
+    // Costruttore di default
+    public RollupKey() {
+    }
+
+    public RollupKey(String ledger, RollupGranularity granularity, LocalDate bucketStart, String category,
+                     Transaction.TransactionType type) {
+        this.ledger = ledger;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.category = category == null ? NO_CATEGORY : category;
+        this.type = type;
+    }
+
+    // Chiave del bucket che contiene la transazione
+    public static RollupKey of(RollupGranularity granularity, Transaction transaction) {
+        return new RollupKey(transaction.getLedger(), granularity, granularity.bucketStart(transaction.getDate()),
+                transaction.getCategory(), transaction.getType());
+    }
+
+    // Getter
+    public String getLedger() {
+        return ledger;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Transaction.TransactionType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RollupKey other)) {
+            return false;
+        }
+        return Objects.equals(ledger, other.ledger)
+                && granularity == other.granularity
+                && Objects.equals(bucketStart, other.bucketStart)
+                && Objects.equals(category, other.category)
+                && type == other.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ledger, granularity, bucketStart, category, type);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.budgetmanager.model;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Punto di una serie temporale di rollup (totale in centesimi).
+category è null quando la serie è aggregata su tutte le categorie.
+------------------------------------------------------------------ */
+
+public record RollupPoint(LocalDate bucketStart, String category, Transaction.TransactionType type,
+                          long totalCents, long count) {
+}
@@ -0,0 +1,14 @@
+package com.example.budgetmanager.model;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Risultato della ricerca testuale: una pagina di transazioni in ordine
+di rilevanza e il numero totale di corrispondenze. Con truncated una
+parola era il prefisso di troppi termini: total è un minimo e alcune
+corrispondenze mancano (vedi search.InvertedIndex).
+------------------------------------------------------------------ */
+
+public record TextSearchResult(String query, long total, boolean truncated, int page, int size,
+                               List<Transaction> items) {
+}
@@ -1,17 +1,44 @@
 package com.example.budgetmanager.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        // Tutti gli indici iniziano con il ledger: il costo di ogni lettura dipende solo dal suo ledger
+        // Indice per la paginazione keyset (data decrescente, id crescente)
+        @Index(name = "idx_transaction_ledger_date_id", columnList = "ledger, date DESC, id"),
+        // Indici per la ricerca filtrata (tipo o categoria con intervallo di date, intervallo di importo)
+        @Index(name = "idx_transaction_ledger_type_date", columnList = "ledger, type, date"),
+        @Index(name = "idx_transaction_ledger_category_date", columnList = "ledger, category, date"),
+        @Index(name = "idx_transaction_ledger_amount", columnList = "ledger, amount_cents"),
+        // Chiave di deduplicazione unica per ledger (più righe senza chiave sono ammesse)
+        @Index(name = "uk_transaction_ledger_dedup_key", columnList = "ledger, dedup_key", unique = true)
+})
 public class Transaction {
 
 
+    // Sequenza con allocazione a blocchi: permette a Hibernate di raggruppare gli INSERT in batch JDBC
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    public static final int DEDUP_KEY_LENGTH = 128;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    private Double amount;
+    // Ledger di appartenenza (vedi Ledgers)
+    @Column(nullable = false, length = Ledgers.MAX_LENGTH)
+    private String ledger = Ledgers.DEFAULT;
+
+    // Importo in centesimi: somme esatte e nessun boxing nelle aggregazioni
+    @Column(name = "amount_cents", nullable = false)
+    private long amountCents;
+
     private String category;
     private String description;
     private LocalDate date;
@@ -19,16 +46,21 @@ public class Transaction {
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
+    // Chiave di idempotenza o hash del contenuto (vedi DedupKeys), null per le righe senza deduplicazione
+    @JsonIgnore
+    @Column(name = "dedup_key", length = DEDUP_KEY_LENGTH)
+    private String dedupKey;
+
     // Costruttore di default
     public Transaction() {
     }
 
     // Costruttore con validazione
-    public Transaction(Double amount, String category, String description, LocalDate date, TransactionType type) {
-        validateAmount(amount);
+    public Transaction(long amountCents, String category, String description, LocalDate date, TransactionType type) {
+        validateAmount(amountCents);
         validateCategory(category);
         validateDate(date);
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.category = category;
         this.description = description;
         this.date = date;
@@ -44,13 +76,31 @@ public class Transaction {
         this.id = id;
     }
 
-    public Double getAmount() {
-        return amount;
+    public String getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(String ledger) {
+        this.ledger = Ledgers.of(ledger);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        validateAmount(amountCents);
+        this.amountCents = amountCents;
+    }
+
+    // Importo decimale per le viste e il binding del form. In JSON è accettato in ingresso in
+    // alternativa ad amountCents e serializzato accanto a questo, ricavato dai centesimi
+    public BigDecimal getAmount() {
+        return Money.toDecimal(amountCents);
     }
 
-    public void setAmount(Double amount) {
-        validateAmount(amount); 
-        this.amount = amount;
+    public void setAmount(BigDecimal amount) {
+        setAmountCents(Money.toCents(amount));
     }
 
     public String getCategory() {
@@ -87,9 +137,17 @@ public class Transaction {
         this.type = type;
     }
 
+    public String getDedupKey() {
+        return dedupKey;
+    }
+
+    public void setDedupKey(String dedupKey) {
+        this.dedupKey = dedupKey;
+    }
+
     // Metodi di validazione
-    private void validateAmount(Double amount) {
-        if (amount == 0 || amount == null) {
+    private void validateAmount(long amountCents) {
+        if (amountCents == 0) {
             throw new IllegalArgumentException("The amount must be a positive number bigger than 0");
         }
     }
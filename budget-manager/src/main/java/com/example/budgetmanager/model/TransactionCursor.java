@@ -0,0 +1,40 @@
+package com.example.budgetmanager.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/* ------------------------------------------------------------------
+Posizione (date, id) usata per la paginazione keyset delle transazioni.
+L'ordinamento del ledger è: data decrescente (transazioni senza data
+in fondo), a parità di data id crescente.
+Il cursore viaggia verso i client come stringa opaca in Base64.
+------------------------------------------------------------------ */
+
+public record TransactionCursor(LocalDate date, long id) {
+
+    private static final String NO_DATE = "-";
+
+    // Cursore che punta subito dopo la transazione indicata
+    public static TransactionCursor after(Transaction transaction) {
+        return new TransactionCursor(transaction.getDate(), transaction.getId());
+    }
+
+    public String encode() {
+        String raw = (date == null ? NO_DATE : date.toString()) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            String datePart = raw.substring(0, separator);
+            LocalDate date = NO_DATE.equals(datePart) ? null : LocalDate.parse(datePart);
+            return new TransactionCursor(date, Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.budgetmanager.model;
+
+import java.time.LocalDate;
+
+/* ------------------------------------------------------------------
+Filtro sulle transazioni: intervallo di date (estremi inclusi),
+categoria, tipo e intervallo di importo in centesimi (estremi inclusi).
+I campi null non filtrano.
+------------------------------------------------------------------ */
+
+public record TransactionFilter(LocalDate from, LocalDate to, String category,
+                                Transaction.TransactionType type, Long minCents, Long maxCents) {
+
+    public static final TransactionFilter NONE = new TransactionFilter(null, null, null);
+
+    public TransactionFilter {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("The start date must not be after the end date.");
+        }
+        if (minCents != null && maxCents != null && minCents > maxCents) {
+            throw new IllegalArgumentException("The minimum amount must not be greater than the maximum amount.");
+        }
+        if (category != null && category.isBlank()) {
+            category = null;
+        }
+    }
+
+    // Solo date e categoria (export)
+    public TransactionFilter(LocalDate from, LocalDate to, String category) {
+        this(from, to, category, null, null, null);
+    }
+
+    // Le transazioni senza data non rientrano in nessun intervallo di date
+    public boolean hasDateRange() {
+        return from != null || to != null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.budgetmanager.model;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Una pagina di transazioni ottenuta con la paginazione keyset.
+nextCursor è null quando non ci sono altre pagine.
+------------------------------------------------------------------ */
+
+public record TransactionPage(List<Transaction> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.budgetmanager.model;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/* ------------------------------------------------------------------
+Aggregato materializzato: somma e numero delle transazioni di un
+bucket temporale di un ledger per categoria e tipo.
+Mantenuto in modo incrementale a ogni scrittura da RollupService.
+------------------------------------------------------------------ */
+
+@Entity
+@Table(name = "transaction_rollup", indexes = {
+        @Index(name = "idx_rollup_ledger_granularity_bucket", columnList = "ledger, granularity, bucket_start")
+})
+public class TransactionRollup {
+
+    @EmbeddedId
+    private RollupKey key;
+
+    private long totalCents;
+    private long count;
+
+    // Costruttore di default
+    public TransactionRollup() {
+    }
+
+    public TransactionRollup(RollupKey key, long totalCents, long count) {
+        this.key = key;
+        this.totalCents = totalCents;
+        this.count = count;
+    }
+
+    // Getter
+    public RollupKey getKey() {
+        return key;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.budgetmanager.model;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Risultato di una ricerca filtrata: una pagina di transazioni (keyset,
+stesso ordinamento del ledger) e gli aggregati di tutte le transazioni
+che soddisfano il filtro. Gli aggregati sono calcolati solo per la
+prima pagina (null per le successive); nextCursor è null quando non ci
+sono altre pagine.
+------------------------------------------------------------------ */
+
+public record TransactionSearchResult(List<Transaction> items, String nextCursor, FilteredTotals totals) {
+}
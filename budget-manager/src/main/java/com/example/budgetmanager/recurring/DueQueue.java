@@ -0,0 +1,95 @@
+package com.example.budgetmanager.recurring;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/* ------------------------------------------------------------------
+Coda a priorità delle transazioni ricorrenti per data della prossima
+occorrenza. Ogni voce è un long (giorno nei bit alti, id nei 40 bit
+bassi) in un min-heap su array: 8 byte per modello, estrazione in
+O(log n) e controllo del prossimo in scadenza in O(1), senza scansioni.
+Il giorno è contato da MIN_DATE, non dal 1970: le voci restano
+positive e ordinate anche per le date precedenti (da MIN_DATE a
+MAX_DATE, circa undicimila anni prima e dopo il 1970).
+Le voci non vengono mai aggiornate: chi cambia la data ne aggiunge una
+nuova e chi estrae verifica la data corrente del modello.
+------------------------------------------------------------------ */
+
+public final class DueQueue {
+
+    private static final int ID_BITS = 40;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final long DAY_RANGE = 1L << (Long.SIZE - 1 - ID_BITS);
+    private static final long MIN_EPOCH_DAY = -DAY_RANGE / 2;
+
+    // Date accettate da add
+    public static final LocalDate MIN_DATE = LocalDate.ofEpochDay(MIN_EPOCH_DAY);
+    public static final LocalDate MAX_DATE = LocalDate.ofEpochDay(MIN_EPOCH_DAY + DAY_RANGE - 1);
+
+    private long[] heap = new long[16];
+    private int size;
+
+    // Vero se una voce con questa data può entrare nella coda
+    public static boolean accepts(LocalDate date) {
+        return !date.isBefore(MIN_DATE) && !date.isAfter(MAX_DATE);
+    }
+
+    public synchronized void add(long id, LocalDate date) {
+        if (id <= 0 || id > ID_MASK || !accepts(date)) {
+            throw new IllegalArgumentException("Cannot schedule " + id + " on " + date);
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        // Risale finché il padre è più grande
+        long entry = (date.toEpochDay() - MIN_EPOCH_DAY) << ID_BITS | id;
+        int i = size++;
+        while (i > 0 && heap[(i - 1) / 2] > entry) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = entry;
+    }
+
+    // Estrae l'id della prima voce con data non successiva a today; -1 se nessuna è in scadenza
+    public synchronized long pollDue(LocalDate today) {
+        if (size == 0 || day(heap[0]) > today.toEpochDay()) {
+            return -1;
+        }
+        long id = heap[0] & ID_MASK;
+        long last = heap[--size];
+        // Scende scambiando con il figlio più piccolo
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return id;
+    }
+
+    // Data della prima voce (null se la coda è vuota)
+    public synchronized LocalDate peekDate() {
+        return size == 0 ? null : LocalDate.ofEpochDay(day(heap[0]));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        size = 0;
+    }
+
+    // Giorno epoch di una voce
+    private static long day(long entry) {
+        return (entry >>> ID_BITS) + MIN_EPOCH_DAY;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.budgetmanager.recurring;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/* ------------------------------------------------------------------
+Calendario di una transazione ricorrente, nella sintassi cron limitata
+ai campi della data: "giorno-del-mese mese giorno-della-settimana".
+Esempi: "27 * *" (il 27 di ogni mese), "L * *" (l'ultimo giorno del
+mese), "* * MON" (ogni lunedì), "1 1 *" (ogni primo gennaio).
+Sono accettate anche le macro @daily, @weekly, @monthly, @yearly.
+Le transazioni hanno solo la data: ore e minuti non esistono.
+------------------------------------------------------------------ */
+
+public final class Schedule {
+
+    private static final Set<String> MACROS = Set.of("@daily", "@midnight", "@weekly", "@monthly", "@yearly",
+            "@annually");
+
+    private final String expression;
+    private final CronExpression cron;
+
+    private Schedule(String expression, CronExpression cron) {
+        this.expression = expression;
+        this.cron = cron;
+    }
+
+    public static Schedule parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("The schedule must be defined.");
+        }
+        String trimmed = expression.trim();
+        String cron;
+        if (trimmed.startsWith("@")) {
+            if (!MACROS.contains(trimmed.toLowerCase())) {
+                throw new IllegalArgumentException("Unsupported schedule: " + trimmed);
+            }
+            cron = trimmed.toLowerCase();
+        } else {
+            if (trimmed.split("\\s+").length != 3) {
+                throw new IllegalArgumentException("The schedule must have three fields (day of month, month, "
+                        + "day of week): " + trimmed);
+            }
+            cron = "0 0 0 " + trimmed;
+        }
+        try {
+            return new Schedule(trimmed, CronExpression.parse(cron));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid schedule: " + trimmed, ex);
+        }
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    // Prima data del calendario dal giorno indicato (compreso); null se non ce ne sono più
+    public LocalDate firstOnOrAfter(LocalDate date) {
+        return nextAfter(date.minusDays(1));
+    }
+
+    // Prima data del calendario dopo il giorno indicato; null se non ce ne sono più
+    public LocalDate nextAfter(LocalDate date) {
+        LocalDateTime next = cron.next(date.atStartOfDay());
+        return next != null ? next.toLocalDate() : null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.ArchiveSegmentData;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ArchiveSegmentDataRepository extends JpaRepository<ArchiveSegmentData, Long> {
+}
@@ -0,0 +1,26 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.ArchiveSegment;
+import com.example.budgetmanager.model.LedgerSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+
+    Optional<ArchiveSegment> findByLedgerAndYear(String ledger, int year);
+
+    List<ArchiveSegment> findByLedgerOrderByYearDesc(String ledger);
+
+    // Entrate e spese archiviate di un ledger, dagli aggregati dei segmenti
+    @Query("SELECT new com.example.budgetmanager.model.LedgerSummary("
+            + "COALESCE(SUM(s.totalRevenueCents), 0L), COALESCE(SUM(s.totalExpensesCents), 0L)) "
+            + "FROM ArchiveSegment s WHERE s.ledger = :ledger")
+    LedgerSummary getTotals(@Param("ledger") String ledger);
+
+    @Query("SELECT COALESCE(SUM(s.transactionCount), 0L) FROM ArchiveSegment s WHERE s.ledger = :ledger")
+    long countTransactions(@Param("ledger") String ledger);
+}
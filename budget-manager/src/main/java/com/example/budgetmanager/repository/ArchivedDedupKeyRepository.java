@@ -0,0 +1,27 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.ArchivedDedupKey;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+public interface ArchivedDedupKeyRepository extends JpaRepository<ArchivedDedupKey, Long> {
+
+    // Chiavi archiviate di un ledger fra quelle indicate (indice unico ledger, dedup_key)
+    List<ArchivedDedupKey> findByLedgerAndDedupKeyIn(String ledger, Collection<String> dedupKeys);
+
+    // Chiavi archiviate di tutti i ledger come "ledger:chiave", come TransactionRepository.streamDedupKeys
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT CONCAT(k.ledger, ':', k.dedupKey) FROM ArchivedDedupKey k")
+    Stream<String> streamDedupKeys();
+}
@@ -0,0 +1,14 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.Budget;
+import com.example.budgetmanager.model.BudgetPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BudgetRepository extends JpaRepository<Budget, Long> {
+
+    Optional<Budget> findByLedgerAndCategoryAndPeriod(String ledger, String category, BudgetPeriod period);
+}
@@ -0,0 +1,144 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionFilter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/* ------------------------------------------------------------------
+Archivio predefinito: le transazioni stanno nel database e vengono
+lette con le query keyset e di aggregazione di TransactionRepository.
+Non è un bean: TransactionService lo crea sul repository quando non
+è configurato un altro LedgerStore.
+------------------------------------------------------------------ */
+
+public class JpaLedgerStore implements LedgerStore {
+
+    // Ordinamento del ledger per la ricerca filtrata: prima le transazioni con data, poi quelle senza
+    private static final Sort DATED_ORDER = Sort.by(Sort.Order.desc("date"), Sort.Order.asc("id"));
+    private static final Sort UNDATED_ORDER = Sort.by(Sort.Order.asc("id"));
+
+    private final TransactionRepository transactionRepository;
+
+    public JpaLedgerStore(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        return transactionRepository.save(transaction);
+    }
+
+    // INSERT raggruppati in batch JDBC
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+        return saved;
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        return transactionRepository.findById(id);
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        return transactionRepository.findAllById(ids);
+    }
+
+    @Override
+    public void delete(Transaction transaction) {
+        transactionRepository.delete(transaction);
+    }
+
+    @Override
+    public List<String> findLedgers() {
+        return transactionRepository.findLedgers();
+    }
+
+    @Override
+    public List<Transaction> findAllOrdered(String ledger) {
+        return transactionRepository.findAllOrdered(ledger);
+    }
+
+    @Override
+    public List<Transaction> findPage(String ledger, TransactionCursor after, int limit) {
+        List<Transaction> items = new ArrayList<>(limit);
+        long undatedAfterId = 0L;
+        if (after == null) {
+            items.addAll(transactionRepository.findDatedPage(ledger, PageRequest.ofSize(limit)));
+        } else if (after.date() != null) {
+            items.addAll(transactionRepository.findDatedPageAfter(ledger, after.date(), after.id(),
+                    PageRequest.ofSize(limit)));
+        } else {
+            undatedAfterId = after.id();
+        }
+
+        // Le transazioni senza data chiudono l'ordinamento
+        if (items.size() < limit) {
+            items.addAll(transactionRepository.findUndatedPageAfter(ledger, undatedAfterId,
+                    PageRequest.ofSize(limit - items.size())));
+        }
+        return items;
+    }
+
+    @Override
+    public List<Transaction> search(String ledger, TransactionFilter filter, TransactionCursor after, int limit) {
+        Specification<Transaction> matching = TransactionSpecifications.matching(ledger, filter);
+
+        List<Transaction> items = new ArrayList<>(limit);
+        long undatedAfterId = 0L;
+        if (after == null || after.date() != null) {
+            items.addAll(findFirst(matching.and(TransactionSpecifications.datedAfter(after)), DATED_ORDER, limit));
+        } else {
+            undatedAfterId = after.id();
+        }
+
+        // Con un intervallo di date le transazioni senza data sono comunque escluse
+        if (items.size() < limit && !filter.hasDateRange()) {
+            items.addAll(findFirst(matching.and(TransactionSpecifications.undatedAfter(undatedAfterId)), UNDATED_ORDER,
+                    limit - items.size()));
+        }
+        return items;
+    }
+
+    private List<Transaction> findFirst(Specification<Transaction> specification, Sort order, int limit) {
+        return transactionRepository.findBy(specification, query -> query.sortBy(order).limit(limit).all());
+    }
+
+    @Override
+    public FilteredTotals getFilteredTotals(String ledger, TransactionFilter filter) {
+        return transactionRepository.getFilteredTotals(TransactionSpecifications.matching(ledger, filter));
+    }
+
+    @Override
+    public LedgerSummary getTotals(String ledger) {
+        return transactionRepository.getTotals(ledger);
+    }
+
+    @Override
+    public long getTotalRevenueCents(String ledger) {
+        return transactionRepository.getTotalRevenueCents(ledger);
+    }
+
+    @Override
+    public long getTotalExpensesCents(String ledger) {
+        return transactionRepository.getTotalExpensesCents(ledger);
+    }
+
+    @Override
+    public List<CategoryTotal> getExpenseCategorySummary(String ledger) {
+        return transactionRepository.getExpenseCategorySummary(ledger);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionFilter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/* ------------------------------------------------------------------
+Archivio delle transazioni usato da TransactionService.
+Implementazioni: JpaLedgerStore (database, predefinita) e
+JournalLedgerStore (journal binario append-only, budget.storage=journal).
+Le letture sono limitate a un ledger (Transaction.getLedger) e costano
+in funzione delle sue sole transazioni; gli id sono unici fra tutti i
+ledger. Tutte le liste seguono l'ordinamento del ledger: data
+decrescente (transazioni senza data in fondo), a parità di data id
+crescente.
+------------------------------------------------------------------ */
+
+public interface LedgerStore {
+
+    // Salva una transazione assegnando l'id se assente
+    Transaction save(Transaction transaction);
+
+    // Salva un blocco di transazioni con un'unica scrittura
+    List<Transaction> saveAll(List<Transaction> transactions);
+
+    Optional<Transaction> findById(Long id);
+
+    // Transazioni con gli id indicati, in ordine qualsiasi (gli id assenti vengono ignorati)
+    List<Transaction> findAllById(Collection<Long> ids);
+
+    void delete(Transaction transaction);
+
+    // Nomi dei ledger con almeno una transazione, in ordine alfabetico
+    List<String> findLedgers();
+
+    // Intero ledger in ordine
+    List<Transaction> findAllOrdered(String ledger);
+
+    // Fino a limit transazioni dopo il cursore (null: dall'inizio del ledger)
+    List<Transaction> findPage(String ledger, TransactionCursor after, int limit);
+
+    // Come findPage, limitato alle transazioni che soddisfano il filtro
+    List<Transaction> search(String ledger, TransactionFilter filter, TransactionCursor after, int limit);
+
+    // Numero e somme delle transazioni che soddisfano il filtro
+    FilteredTotals getFilteredTotals(String ledger, TransactionFilter filter);
+
+    LedgerSummary getTotals(String ledger);
+
+    long getTotalRevenueCents(String ledger);
+
+    long getTotalExpensesCents(String ledger);
+
+    // Somme delle spese per categoria
+    List<CategoryTotal> getExpenseCategorySummary(String ledger);
+}
@@ -0,0 +1,34 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.LedgerTotals;
+
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LedgerTotalsRepository extends JpaRepository<LedgerTotals, String> {
+    // Applica una variazione ai totali con un UPDATE atomico sulla riga di riepilogo del ledger
+    @Modifying
+    @Query("UPDATE LedgerTotals l SET l.totalRevenueCents = l.totalRevenueCents + :revenue, "
+            + "l.totalExpensesCents = l.totalExpensesCents + :expenses, "
+            + "l.transactionCount = l.transactionCount + :count WHERE l.ledger = :ledger")
+    int applyDelta(@Param("ledger") String ledger, @Param("revenue") long revenue,
+                   @Param("expenses") long expenses, @Param("count") long count);
+
+    // Crea la riga di riepilogo se manca; 0 se esiste già
+    @Modifying
+    @Query("INSERT INTO LedgerTotals (ledger, totalRevenueCents, totalExpensesCents, transactionCount) "
+            + "VALUES (:ledger, :revenue, :expenses, :count) ON CONFLICT DO NOTHING")
+    int insertIfAbsent(@Param("ledger") String ledger, @Param("revenue") long revenue,
+                       @Param("expenses") long expenses, @Param("count") long count);
+
+    // Legge la riga di riepilogo bloccandola fino alla fine della transazione (usato dalla ricostruzione)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LedgerTotals l WHERE l.ledger = :ledger")
+    Optional<LedgerTotals> lockById(@Param("ledger") String ledger);
+}
@@ -0,0 +1,21 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.RecurringDue;
+import com.example.budgetmanager.model.RecurringTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RecurringTransactionRepository extends JpaRepository<RecurringTransaction, Long> {
+
+    // Solo id e data dei modelli con occorrenze ancora da generare
+    @Query("SELECT new com.example.budgetmanager.model.RecurringDue(r.id, r.nextDate) "
+            + "FROM RecurringTransaction r WHERE r.nextDate IS NOT NULL")
+    List<RecurringDue> findPending();
+
+    List<RecurringTransaction> findByLedger(String ledger, Pageable pageable);
+}
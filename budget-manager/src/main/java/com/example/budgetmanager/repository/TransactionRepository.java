@@ -1,22 +1,107 @@
 package com.example.budgetmanager.repository;
 
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.LedgerSummary;
 import com.example.budgetmanager.model.Transaction;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    // Query per ottenere il totale delle entrate
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.type = 'INCOME'")
-    Double getTotalRevenue();
+// Le ricerche filtrate usano le Specification (TransactionSpecifications) e il frammento TransactionSearchRepository.
+// Tutte le query sono limitate a un ledger: gli indici iniziano con la colonna ledger
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>,
+        TransactionSearchRepository {
+    // Query per ottenere il totale delle entrate (in centesimi)
+    @Query("SELECT COALESCE(SUM(t.amountCents), 0L) FROM Transaction t WHERE t.ledger = :ledger AND t.type = 'INCOME'")
+    long getTotalRevenueCents(@Param("ledger") String ledger);
 
-    // Query per ottenere il totale delle spese
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.type = 'EXPENSE'")
-    Double getTotalExpenses();
+    // Query per ottenere il totale delle spese (in centesimi)
+    @Query("SELECT COALESCE(SUM(t.amountCents), 0L) FROM Transaction t WHERE t.ledger = :ledger AND t.type = 'EXPENSE'")
+    long getTotalExpensesCents(@Param("ledger") String ledger);
 
     // Query per ottenere un riepilogo per categoria delle spese
-    @Query("SELECT t.category, SUM(t.amount) FROM Transaction t WHERE t.type = 'EXPENSE' GROUP BY t.category")
-    List<Object[]> getExpenseCategorySummary();
-}
\ No newline at end of file
+    @Query("SELECT new com.example.budgetmanager.model.CategoryTotal(t.category, t.type, SUM(t.amountCents), COUNT(t)) "
+            + "FROM Transaction t WHERE t.ledger = :ledger AND t.type = 'EXPENSE' GROUP BY t.category, t.type")
+    List<CategoryTotal> getExpenseCategorySummary(@Param("ledger") String ledger);
+
+    // Entrate e spese calcolate in un solo passaggio sulla tabella (zero se la tabella è vuota)
+    @Query("SELECT new com.example.budgetmanager.model.LedgerSummary("
+            + "COALESCE(SUM(CASE WHEN t.type = 'INCOME' THEN t.amountCents ELSE 0L END), 0L), "
+            + "COALESCE(SUM(CASE WHEN t.type = 'EXPENSE' THEN t.amountCents ELSE 0L END), 0L)) "
+            + "FROM Transaction t WHERE t.ledger = :ledger")
+    LedgerSummary getTotals(@Param("ledger") String ledger);
+
+    // Tutte le transazioni già ordinate dal database (data decrescente, senza data in fondo)
+    @Query("SELECT t FROM Transaction t WHERE t.ledger = :ledger ORDER BY t.date DESC NULLS LAST, t.id ASC")
+    List<Transaction> findAllOrdered(@Param("ledger") String ledger);
+
+    // Paginazione keyset: prima pagina delle transazioni con data
+    @Query("SELECT t FROM Transaction t WHERE t.ledger = :ledger AND t.date IS NOT NULL "
+            + "ORDER BY t.date DESC, t.id ASC")
+    List<Transaction> findDatedPage(@Param("ledger") String ledger, Pageable limit);
+
+    // Paginazione keyset: transazioni con data successive al cursore (date, id).
+    // La condizione t.date <= :date permette ad H2 di partire direttamente dalla posizione nell'indice
+    @Query("SELECT t FROM Transaction t WHERE t.ledger = :ledger AND t.date <= :date "
+            + "AND (t.date < :date OR t.id > :id) ORDER BY t.date DESC, t.id ASC")
+    List<Transaction> findDatedPageAfter(@Param("ledger") String ledger, @Param("date") LocalDate date,
+                                         @Param("id") Long id, Pageable limit);
+
+    // Paginazione keyset: transazioni senza data, in coda all'ordinamento
+    @Query("SELECT t FROM Transaction t WHERE t.ledger = :ledger AND t.date IS NULL AND t.id > :id "
+            + "ORDER BY t.id ASC")
+    List<Transaction> findUndatedPageAfter(@Param("ledger") String ledger, @Param("id") Long id, Pageable limit);
+
+    long countByLedger(String ledger);
+
+    // Anni con transazioni anteriori alla data indicata (legge solo l'indice ledger, date, id)
+    @Query("SELECT DISTINCT EXTRACT(YEAR FROM t.date) FROM Transaction t WHERE t.ledger = :ledger "
+            + "AND t.date < :before")
+    List<Integer> findYearsBefore(@Param("ledger") String ledger, @Param("before") LocalDate before);
+
+    // Transazioni di un intervallo di date, da spostare in un segmento d'archivio (indice ledger, date, id)
+    @Query("SELECT t FROM Transaction t WHERE t.ledger = :ledger AND t.date >= :from AND t.date <= :to")
+    List<Transaction> findForArchive(@Param("ledger") String ledger, @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to);
+
+    // Transazioni di un ledger con le chiavi di deduplicazione indicate (indice unico ledger, dedup_key)
+    List<Transaction> findByLedgerAndDedupKeyIn(String ledger, Collection<String> dedupKeys);
+
+    // Chiavi di deduplicazione di tutti i ledger come "ledger:chiave", per ricostruire il filtro all'avvio
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT CONCAT(t.ledger, ':', t.dedupKey) FROM Transaction t WHERE t.dedupKey IS NOT NULL")
+    Stream<String> streamDedupKeys();
+
+    // Nomi dei ledger che contengono almeno una transazione
+    @Query("SELECT DISTINCT t.ledger FROM Transaction t ORDER BY t.ledger")
+    List<String> findLedgers();
+
+    // Cursore forward-only per l'export: le righe vengono lette dal database man mano che si scrive la risposta.
+    // L'ordinamento per id segue la chiave primaria e non richiede di ordinare il risultato.
+    // Con ledger null vengono lette le transazioni di tutti i ledger (ricostruzione degli aggregati)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM Transaction t WHERE (:ledger IS NULL OR t.ledger = :ledger) "
+            + "AND (:from IS NULL OR t.date >= :from) "
+            + "AND (:to IS NULL OR t.date <= :to) "
+            + "AND (:category IS NULL OR t.category = :category) ORDER BY t.id")
+    Stream<Transaction> streamFiltered(@Param("ledger") String ledger, @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to, @Param("category") String category);
+}
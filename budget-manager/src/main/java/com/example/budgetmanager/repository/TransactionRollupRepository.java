@@ -0,0 +1,82 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.RollupGranularity;
+import com.example.budgetmanager.model.RollupKey;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionRollup;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, RollupKey> {
+    // Applica una variazione a un bucket esistente (0 righe aggiornate se il bucket non esiste ancora)
+    @Modifying
+    @Query("UPDATE TransactionRollup r SET r.totalCents = r.totalCents + :totalCents, r.count = r.count + :count "
+            + "WHERE r.key.ledger = :ledger AND r.key.granularity = :granularity "
+            + "AND r.key.bucketStart = :bucketStart AND r.key.category = :category AND r.key.type = :type")
+    int increment(@Param("ledger") String ledger, @Param("granularity") RollupGranularity granularity,
+                  @Param("bucketStart") LocalDate bucketStart,
+                  @Param("category") String category, @Param("type") Transaction.TransactionType type,
+                  @Param("totalCents") long totalCents, @Param("count") long count);
+
+    // Totali per categoria e tipo sui bucket di una granularità compresi nell'intervallo
+    @Query("SELECT r.key.category AS category, r.key.type AS type, SUM(r.totalCents) AS totalCents, "
+            + "SUM(r.count) AS transactions FROM TransactionRollup r WHERE r.key.ledger = :ledger "
+            + "AND r.key.granularity = :granularity AND r.key.bucketStart >= :from AND r.key.bucketStart <= :to "
+            + "GROUP BY r.key.category, r.key.type HAVING SUM(r.count) > 0")
+    List<TotalView> sumByCategory(@Param("ledger") String ledger,
+                                  @Param("granularity") RollupGranularity granularity,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Serie temporale per categoria e tipo
+    @Query("SELECT r.key.bucketStart AS bucketStart, r.key.category AS category, r.key.type AS type, "
+            + "r.totalCents AS totalCents, r.count AS transactions FROM TransactionRollup r "
+            + "WHERE r.key.ledger = :ledger AND r.key.granularity = :granularity "
+            + "AND r.key.bucketStart >= :from AND r.key.bucketStart <= :to "
+            + "AND (:type IS NULL OR r.key.type = :type) AND (:category IS NULL OR r.key.category = :category) "
+            + "AND r.count > 0 ORDER BY r.key.bucketStart, r.key.category, r.key.type")
+    List<TotalView> seriesByCategory(@Param("ledger") String ledger,
+                                     @Param("granularity") RollupGranularity granularity,
+                                     @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                     @Param("type") Transaction.TransactionType type,
+                                     @Param("category") String category);
+
+    // Serie temporale per tipo, sommando tutte le categorie (ad esempio entrate/spese per settimana)
+    @Query("SELECT r.key.bucketStart AS bucketStart, r.key.type AS type, SUM(r.totalCents) AS totalCents, "
+            + "SUM(r.count) AS transactions FROM TransactionRollup r "
+            + "WHERE r.key.ledger = :ledger AND r.key.granularity = :granularity "
+            + "AND r.key.bucketStart >= :from AND r.key.bucketStart <= :to "
+            + "AND (:type IS NULL OR r.key.type = :type) "
+            + "GROUP BY r.key.bucketStart, r.key.type HAVING SUM(r.count) > 0 ORDER BY r.key.bucketStart, r.key.type")
+    List<TotalView> seriesByType(@Param("ledger") String ledger,
+                                 @Param("granularity") RollupGranularity granularity,
+                                 @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                 @Param("type") Transaction.TransactionType type);
+
+    // Elimina i bucket di un ledger (usato dalla ricostruzione)
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.key.ledger = :ledger")
+    int deleteLedger(@Param("ledger") String ledger);
+
+    // Ledger con almeno un bucket
+    @Query("SELECT DISTINCT r.key.ledger FROM TransactionRollup r")
+    List<String> findLedgers();
+
+    // Proiezione per le query di aggregazione (i campi non selezionati restano null)
+    interface TotalView {
+        LocalDate getBucketStart();
+
+        String getCategory();
+
+        Transaction.TransactionType getType();
+
+        Long getTotalCents();
+
+        Long getTransactions();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+/* ------------------------------------------------------------------
+Query di TransactionRepository costruite con la Criteria API.
+------------------------------------------------------------------ */
+
+public interface TransactionSearchRepository {
+
+    // Numero di transazioni, entrate e spese che soddisfano la specification, in una sola query
+    FilteredTotals getFilteredTotals(Specification<Transaction> specification);
+}
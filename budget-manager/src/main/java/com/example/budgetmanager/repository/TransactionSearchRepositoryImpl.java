@@ -0,0 +1,42 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+// Implementazione del frammento TransactionSearchRepository (trovata da Spring Data per il suffisso Impl)
+class TransactionSearchRepositoryImpl implements TransactionSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public FilteredTotals getFilteredTotals(Specification<Transaction> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FilteredTotals> query = cb.createQuery(FilteredTotals.class);
+        Root<Transaction> root = query.from(Transaction.class);
+
+        Expression<Long> amount = root.get("amountCents");
+        Expression<Long> revenue = cb.<Long>selectCase()
+                .when(cb.equal(root.get("type"), Transaction.TransactionType.INCOME), amount)
+                .otherwise(0L);
+        Expression<Long> expenses = cb.<Long>selectCase()
+                .when(cb.equal(root.get("type"), Transaction.TransactionType.EXPENSE), amount)
+                .otherwise(0L);
+        query.select(cb.construct(FilteredTotals.class,
+                cb.count(root), cb.coalesce(cb.sum(revenue), 0L), cb.coalesce(cb.sum(expenses), 0L)));
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
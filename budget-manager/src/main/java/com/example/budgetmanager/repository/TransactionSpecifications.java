@@ -0,0 +1,69 @@
+package com.example.budgetmanager.repository;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Condizioni dinamiche (JPA Specification) per la ricerca filtrata.
+Vengono aggiunti solo i predicati dei campi valorizzati, così ogni
+combinazione di filtri produce una query che H2 può risolvere con
+l'indice composito più adatto: (ledger, type, date),
+(ledger, category, date) oppure (ledger, amount_cents).
+------------------------------------------------------------------ */
+
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> matching(String ledger, TransactionFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("ledger"), ledger));
+            if (filter.type() != null) {
+                predicates.add(cb.equal(root.get("type"), filter.type()));
+            }
+            if (filter.category() != null) {
+                predicates.add(cb.equal(root.get("category"), filter.category()));
+            }
+            if (filter.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDate>get("date"), filter.from()));
+            }
+            if (filter.to() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<LocalDate>get("date"), filter.to()));
+            }
+            if (filter.minCents() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<Long>get("amountCents"), filter.minCents()));
+            }
+            if (filter.maxCents() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<Long>get("amountCents"), filter.maxCents()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Transazioni con data dopo il cursore (null: dalla prima), come in findDatedPageAfter
+    public static Specification<Transaction> datedAfter(TransactionCursor after) {
+        return (root, query, cb) -> {
+            if (after == null) {
+                return cb.isNotNull(root.get("date"));
+            }
+            return cb.and(
+                    cb.lessThanOrEqualTo(root.<LocalDate>get("date"), after.date()),
+                    cb.or(cb.lessThan(root.<LocalDate>get("date"), after.date()),
+                            cb.greaterThan(root.<Long>get("id"), after.id())));
+        };
+    }
+
+    // Transazioni senza data con id successivo a quello indicato
+    public static Specification<Transaction> undatedAfter(long id) {
+        return (root, query, cb) -> cb.and(cb.isNull(root.get("date")), cb.greaterThan(root.<Long>get("id"), id));
+    }
+}
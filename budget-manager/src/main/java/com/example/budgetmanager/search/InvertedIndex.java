@@ -0,0 +1,360 @@
+package com.example.budgetmanager.search;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* ------------------------------------------------------------------
+Indice invertito in memoria su descrizione e categoria delle
+transazioni: termine -> PostingList degli id che lo contengono.
+I termini sono in una mappa ordinata, così ogni parola della query
+vale anche come prefisso ("amaz" trova "amazon").
+Una transazione corrisponde se contiene tutte le parole della query.
+Punteggio: per ogni parola il miglior termine trovato, pesato con
+l'idf del termine (i termini rari contano di più), il campo (categoria
+più della descrizione) e il tipo di corrispondenza (esatta più del
+prefisso). A parità di punteggio prima le transazioni più recenti.
+La parola con meno candidati fissa l'insieme di partenza, le altre
+vengono solo verificate con una ricerca binaria nelle posting list.
+Un prefisso si espande al più su MAX_EXPANSIONS termini, i più corti
+(il termine esatto per primo): oltre quel limite le transazioni che
+contengono solo termini più lunghi non vengono trovate, e il
+risultato lo segnala con truncated.
+------------------------------------------------------------------ */
+
+public class InvertedIndex {
+
+    // Termini considerati al massimo per ogni prefisso (i più corti, a parità di lunghezza in ordine alfabetico)
+    static final int MAX_EXPANSIONS = 128;
+
+    private static final Comparator<String> SHORTEST_FIRST =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float PREFIX_WEIGHT = 0.5f;
+
+    // Risultato di una ricerca: numero totale di corrispondenze e id della pagina richiesta, in ordine di rilevanza.
+    // truncated: almeno un prefisso aveva più di MAX_EXPANSIONS termini, total è solo un minimo
+    public record Result(long total, List<Long> ids, boolean truncated) {
+    }
+
+    public record Stats(long documents, int terms, long postings) {
+    }
+
+    // Termine della query espanso su un termine dell'indice
+    private record Expansion(PostingList postings, float weight) {
+    }
+
+    // Espansioni di una parola della query, e se ne sono rimaste fuori
+    private record Expanded(List<Expansion> expansions, boolean truncated) {
+    }
+
+    private final NavigableMap<String, PostingList> terms = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long documents;
+    private long postings;
+
+    // Indicizza le transazioni (già presenti: nessun effetto)
+    public void addAll(Collection<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions) {
+                Map<String, Byte> fields = fieldsOf(transaction);
+                if (fields.isEmpty()) {
+                    continue;
+                }
+                long id = transaction.getId();
+                if (!contains(fields, id)) {
+                    documents++;
+                }
+                fields.forEach((term, field) -> {
+                    if (terms.computeIfAbsent(term, t -> new PostingList()).add(id, field)) {
+                        postings++;
+                    }
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rimuove una transazione indicizzata (assente: nessun effetto)
+    public void remove(Transaction transaction) {
+        Map<String, Byte> fields = fieldsOf(transaction);
+        if (fields.isEmpty()) {
+            return;
+        }
+        long id = transaction.getId();
+        lock.writeLock().lock();
+        try {
+            if (contains(fields, id)) {
+                documents--;
+            }
+            for (String term : fields.keySet()) {
+                PostingList list = terms.get(term);
+                if (list != null && list.remove(id)) {
+                    postings--;
+                    if (list.size() == 0) {
+                        terms.remove(term);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Restituisce le corrispondenze da offset a offset + limit
+    public Result search(String query, int offset, int limit) {
+        Set<String> words = Tokenizer.tokenize(query);
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("The search query must contain at least one word.");
+        }
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("Invalid page.");
+        }
+
+        lock.readLock().lock();
+        try {
+            List<List<Expansion>> expanded = new ArrayList<>(words.size());
+            boolean truncated = false;
+            for (String word : words) {
+                Expanded expansions = expand(word);
+                if (expansions.expansions().isEmpty()) {
+                    return new Result(0, List.of(), false);
+                }
+                expanded.add(expansions.expansions());
+                truncated |= expansions.truncated();
+            }
+            expanded.sort(Comparator.comparingLong(InvertedIndex::candidates));
+
+            // Candidati dalla parola più selettiva, poi verifica delle altre
+            Candidates candidates = merge(expanded.get(0));
+            for (List<Expansion> expansions : expanded.subList(1, expanded.size())) {
+                candidates.retain(expansions);
+            }
+            return new Result(candidates.size, candidates.top(offset, limit), truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(documents, terms.size(), postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Termini che iniziano con la parola. L'ordine alfabetico non mette prima i più corti ("amazement" precede
+    // "amazon"): si tiene un max-heap dei MAX_EXPANSIONS più corti. Il termine esatto è il più corto di tutti
+    private Expanded expand(String word) {
+        NavigableMap<String, PostingList> matching = terms.subMap(word, true, word + Character.MAX_VALUE, false);
+        PriorityQueue<String> shortest = new PriorityQueue<>(MAX_EXPANSIONS + 1, SHORTEST_FIRST.reversed());
+        boolean truncated = false;
+        for (String term : matching.keySet()) {
+            shortest.add(term);
+            if (shortest.size() > MAX_EXPANSIONS) {
+                shortest.poll();
+                truncated = true;
+            }
+        }
+        List<Expansion> expansions = new ArrayList<>(shortest.size());
+        for (String term : shortest) {
+            PostingList postings = matching.get(term);
+            float idf = (float) Math.log(1.0 + (double) documents / postings.size());
+            expansions.add(new Expansion(postings, term.equals(word) ? idf : idf * PREFIX_WEIGHT));
+        }
+        return new Expanded(expansions, truncated);
+    }
+
+    private static long candidates(List<Expansion> expansions) {
+        long total = 0L;
+        for (Expansion expansion : expansions) {
+            total += expansion.postings().size();
+        }
+        return total;
+    }
+
+    // Unione ordinata per id delle posting list di una parola, con il miglior punteggio per id
+    private static Candidates merge(List<Expansion> expansions) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, candidates(expansions));
+        Candidates merged = new Candidates(capacity);
+        if (expansions.size() == 1) {
+            Expansion expansion = expansions.get(0);
+            for (int position = 0; position < expansion.postings().size(); position++) {
+                merged.addOrMax(expansion.postings().id(position), score(expansion, position));
+            }
+            return merged;
+        }
+        int[] cursors = new int[expansions.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, expansions.size()),
+                Comparator.comparingLong(list -> expansions.get(list).postings().id(cursors[list])));
+        for (int list = 0; list < expansions.size(); list++) {
+            heads.add(list);
+        }
+        while (!heads.isEmpty()) {
+            int list = heads.poll();
+            Expansion expansion = expansions.get(list);
+            int position = cursors[list];
+            merged.addOrMax(expansion.postings().id(position), score(expansion, position));
+            if (++cursors[list] < expansion.postings().size()) {
+                heads.add(list);
+            }
+        }
+        return merged;
+    }
+
+    private static float score(Expansion expansion, int position) {
+        byte fields = expansion.postings().fields(position);
+        float weight = ((fields & PostingList.CATEGORY) != 0 ? CATEGORY_WEIGHT : 0f)
+                + ((fields & PostingList.DESCRIPTION) != 0 ? DESCRIPTION_WEIGHT : 0f);
+        return expansion.weight() * weight;
+    }
+
+    // La transazione è già indicizzata se compare nella posting list di uno dei suoi termini
+    private boolean contains(Map<String, Byte> fields, long id) {
+        PostingList list = terms.get(fields.keySet().iterator().next());
+        return list != null && list.indexOf(id) >= 0;
+    }
+
+    private static Map<String, Byte> fieldsOf(Transaction transaction) {
+        Map<String, Byte> fields = new LinkedHashMap<>();
+        if (transaction.getId() == null) {
+            return fields;
+        }
+        for (String term : Tokenizer.tokenize(transaction.getDescription())) {
+            fields.merge(term, PostingList.DESCRIPTION, (a, b) -> (byte) (a | b));
+        }
+        for (String term : Tokenizer.tokenize(transaction.getCategory())) {
+            fields.merge(term, PostingList.CATEGORY, (a, b) -> (byte) (a | b));
+        }
+        return fields;
+    }
+
+    // Candidati in ordine di id con il punteggio accumulato, in array paralleli
+    private static final class Candidates {
+
+        private long[] ids;
+        private float[] scores;
+        private int size;
+
+        Candidates(int capacity) {
+            ids = new long[capacity];
+            scores = new float[capacity];
+        }
+
+        void addOrMax(long id, float score) {
+            if (size > 0 && ids[size - 1] == id) {
+                scores[size - 1] = Math.max(scores[size - 1], score);
+            } else {
+                ids[size] = id;
+                scores[size] = score;
+                size++;
+            }
+        }
+
+        // Tiene solo i candidati che contengono anche questa parola, sommando il suo punteggio
+        void retain(List<Expansion> expansions) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                float best = 0f;
+                for (Expansion expansion : expansions) {
+                    int position = expansion.postings().indexOf(ids[i]);
+                    if (position >= 0) {
+                        best = Math.max(best, score(expansion, position));
+                    }
+                }
+                if (best > 0f) {
+                    ids[kept] = ids[i];
+                    scores[kept] = scores[i] + best;
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        // Pagina dei migliori candidati: min-heap di indici con i primi offset + limit, senza ordinare tutto
+        List<Long> top(int offset, int limit) {
+            int k = (int) Math.min(size, (long) offset + limit);
+            if (offset >= k) {
+                return List.of();
+            }
+            int[] heap = new int[k];
+            int heapSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (heapSize < k) {
+                    heap[heapSize] = i;
+                    siftUp(heap, heapSize++);
+                } else if (ranksAbove(i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, k);
+                }
+            }
+            // Estraendo dal min-heap la pagina si riempie dal fondo
+            Long[] ordered = new Long[k];
+            for (int end = k - 1; end >= 0; end--) {
+                ordered[end] = ids[heap[0]];
+                heap[0] = heap[end];
+                siftDown(heap, end);
+            }
+            return Arrays.asList(ordered).subList(offset, k);
+        }
+
+        // Punteggio più alto, a parità di punteggio id più alto (transazione più recente)
+        private boolean ranksAbove(int a, int b) {
+            return scores[a] != scores[b] ? scores[a] > scores[b] : ids[a] > ids[b];
+        }
+
+        private void siftUp(int[] heap, int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!ranksAbove(heap[parent], heap[position])) {
+                    return;
+                }
+                swap(heap, parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int heapSize) {
+            int position = 0;
+            while (true) {
+                int lowest = position;
+                int left = 2 * position + 1;
+                int right = left + 1;
+                if (left < heapSize && ranksAbove(heap[lowest], heap[left])) {
+                    lowest = left;
+                }
+                if (right < heapSize && ranksAbove(heap[lowest], heap[right])) {
+                    lowest = right;
+                }
+                if (lowest == position) {
+                    return;
+                }
+                swap(heap, position, lowest);
+                position = lowest;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.budgetmanager.search;
+
+import java.util.Arrays;
+
+/* ------------------------------------------------------------------
+Lista delle transazioni che contengono un termine: id in ordine
+crescente in un array di long, con accanto i campi in cui compare il
+termine (bit DESCRIPTION / CATEGORY). Nessun oggetto per posting.
+Gli id arrivano quasi sempre in ordine (sequenza): l'aggiunta in coda è
+O(1), le altre modifiche spostano la parte successiva dell'array.
+Non è thread-safe: la protegge il lock di InvertedIndex.
+------------------------------------------------------------------ */
+
+final class PostingList {
+
+    static final byte DESCRIPTION = 1;
+    static final byte CATEGORY = 2;
+
+    private long[] ids = new long[2];
+    private byte[] fields = new byte[2];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long id(int index) {
+        return ids[index];
+    }
+
+    byte fields(int index) {
+        return fields[index];
+    }
+
+    // Posizione dell'id, oppure negativa se assente (come Arrays.binarySearch)
+    int indexOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    // Aggiunge l'id; false se era già presente con gli stessi campi
+    boolean add(long id, byte field) {
+        int index = size == 0 || id > ids[size - 1] ? -size - 1 : indexOf(id);
+        if (index >= 0) {
+            byte merged = (byte) (fields[index] | field);
+            boolean changed = merged != fields[index];
+            fields[index] = merged;
+            return changed;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            int capacity = size + (size >> 1) + 1;
+            ids = Arrays.copyOf(ids, capacity);
+            fields = Arrays.copyOf(fields, capacity);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        System.arraycopy(fields, insertAt, fields, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        fields[insertAt] = field;
+        size++;
+        return true;
+    }
+
+    boolean remove(long id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(fields, index + 1, fields, index, size - index - 1);
+        size--;
+        return true;
+    }
+}
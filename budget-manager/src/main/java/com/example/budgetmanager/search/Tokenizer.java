@@ -0,0 +1,38 @@
+package com.example.budgetmanager.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/* ------------------------------------------------------------------
+Suddivisione del testo in termini per l'indice: minuscole, accenti
+rimossi ("Caffè" -> "caffe"), separatori tutto ciò che non è lettera o
+cifra. La stessa funzione si applica ai testi indicizzati e alle query.
+------------------------------------------------------------------ */
+
+public final class Tokenizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Tokenizer() {
+    }
+
+    // Termini distinti nell'ordine in cui compaiono (vuoto per testo null o senza parole)
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        for (String term : SEPARATORS.split(normalized)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
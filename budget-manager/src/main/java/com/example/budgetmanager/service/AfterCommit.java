@@ -0,0 +1,29 @@
+package com.example.budgetmanager.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/* ------------------------------------------------------------------
+Esegue un'azione solo dopo il commit della transazione corrente,
+oppure subito se non c'è una transazione attiva.
+Serve per aggiornare le strutture in memoria solo con dati confermati.
+------------------------------------------------------------------ */
+
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
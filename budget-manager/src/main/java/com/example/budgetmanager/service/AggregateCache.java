@@ -0,0 +1,199 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.Transaction.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/* ------------------------------------------------------------------
+Cache read-through dei risultati delle query di aggregazione.
+Limitata in numero di voci (LRU) e in durata (TTL). Ogni voce dichiara
+da quale ledger, tipo e categoria di transazioni dipende: una scrittura
+invalida, dopo il commit, solo le voci che coinvolgono il ledger, la
+categoria e il tipo modificati.
+Un contatore di generazione evita di salvare un valore letto prima di
+un'invalidazione concorrente.
+------------------------------------------------------------------ */
+
+@Service
+@Order(AggregateCache.ORDER)
+public class AggregateCache implements LedgerWriteListener {
+
+    // Solo invalidazioni in memoria dopo il commit: l'ordine rispetto agli altri componenti non conta
+    public static final int ORDER = RollupService.ORDER + 20;
+
+    // Voce della cache: ledger/type/category null indicano che il valore dipende da tutti i ledger/tipi/categorie
+    public record Key(String name, String ledger, TransactionType type, String category) {
+
+        public Key {
+            Objects.requireNonNull(name, "name");
+        }
+
+        public Key(String name, TransactionType type, String category) {
+            this(name, null, type, category);
+        }
+
+        // La stessa voce calcolata su un solo ledger
+        public Key forLedger(String ledger) {
+            return new Key(name, ledger, type, category);
+        }
+
+        boolean affectedBy(String changedLedger, TransactionType changedType, String changedCategory) {
+            return (ledger == null || ledger.equals(changedLedger))
+                    && (type == null || type == changedType)
+                    && (category == null || category.equals(changedCategory));
+        }
+    }
+
+    // Contatori esposti per il monitoraggio
+    public record Stats(long hits, long misses, long evictions, long expirations, long invalidations,
+                        int size, int maxSize, long ttlMillis) {
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    // Ledger, tipo e categoria toccati da una scrittura
+    private record Change(String ledger, TransactionType type, String category) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // LinkedHashMap in ordine di accesso: la prima voce è la meno usata di recente
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    @Autowired
+    public AggregateCache(@Value("${budget.cache.aggregates.max-size:256}") int maxSize,
+                          @Value("${budget.cache.aggregates.ttl:5m}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    // Orologio esplicito (in nanosecondi) per i test
+    public AggregateCache(int maxSize, Duration ttl, LongSupplier clock) {
+        if (maxSize < 0 || ttl.isNegative()) {
+            throw new IllegalArgumentException("Cache size and TTL must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // Restituisce il valore in cache oppure lo calcola con il loader (fuori dal lock) e lo memorizza
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        if (maxSize == 0 || ttlNanos == 0) {
+            synchronized (this) {
+                misses++;
+            }
+            return loader.get();
+        }
+
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (clock.getAsLong() - entry.expiresAt() < 0) {
+                    hits++;
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            startGeneration = generation;
+        }
+
+        T value = loader.get();
+
+        synchronized (this) {
+            // Una scrittura è stata confermata durante il calcolo: il valore potrebbe essere già vecchio
+            if (generation == startGeneration) {
+                entries.put(key, new Entry(value, clock.getAsLong() + ttlNanos));
+                evictOverflow();
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        Set<Change> changes = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            changes.add(new Change(transaction.getLedger(), transaction.getType(), transaction.getCategory()));
+        }
+        AfterCommit.run(() -> invalidate(changes));
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        Set<Change> changes = Set.of(new Change(transaction.getLedger(), transaction.getType(),
+                transaction.getCategory()));
+        AfterCommit.run(() -> invalidate(changes));
+    }
+
+    // I totali non cambiano, ma una lettura concorrente può aver sommato tabella e archivio a metà del passaggio
+    @Override
+    public void onArchived(String ledger, List<Transaction> transactions) {
+        onAdded(transactions);
+    }
+
+    // Rimuove tutte le voci (per esempio dopo interventi manuali sul DB)
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, expirations, invalidations,
+                entries.size(), maxSize, Duration.ofNanos(ttlNanos).toMillis());
+    }
+
+    private synchronized void invalidate(Collection<Change> changes) {
+        generation++;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            for (Change change : changes) {
+                if (key.affectedBy(change.ledger(), change.type(), change.category())) {
+                    keys.remove();
+                    invalidations++;
+                    break;
+                }
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.analytics.AnalyticsFilter;
+import com.example.budgetmanager.analytics.ColumnarLedger;
+import com.example.budgetmanager.analytics.GroupBy;
+import com.example.budgetmanager.analytics.GroupResult;
+import com.example.budgetmanager.analytics.RankedTransaction;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/* ------------------------------------------------------------------
+Motore analitico in memoria (opzionale, budget.analytics.enabled).
+Carica ogni ledger in un proprio ColumnarLedger all'avvio (anni
+archiviati compresi) e lo tiene allineato dopo ogni commit;
+raggruppamenti, percentili e top-K non passano dal database e
+scansionano solo le righe del ledger richiesto.
+Il ricaricamento non blocca le scritture: legge in una mappa nuova,
+mentre le modifiche confermate nel frattempo vanno sia nella mappa in
+uso sia in un registro; prima di sostituire la mappa il registro viene
+riapplicato a quella nuova. Inserimento e rimozione sono idempotenti,
+quindi una modifica già vista dalla lettura non cambia niente.
+------------------------------------------------------------------ */
+
+@Service
+@Order(AnalyticsService.ORDER)
+@ConditionalOnExpression("${budget.analytics.enabled:false} and '${budget.storage:jpa}' == 'jpa'")
+public class AnalyticsService implements LedgerWriteListener {
+
+    public static final int ORDER = RollupService.ORDER + 10;
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
+    // Righe lette dal database prima di passarle al ledger colonnare
+    private static final int LOAD_BATCH = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final ArchiveService archiveService;
+    private final TransactionTemplate readOnlyTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Un ledger colonnare per ledger, creato alla prima transazione; sostituito per intero a ogni ricaricamento
+    private volatile Map<String, ColumnarLedger> ledgers = new ConcurrentHashMap<>();
+
+    // Modifiche confermate durante un ricaricamento, da riapplicare alla mappa nuova (null se nessun ricaricamento
+    // è in corso). Protetto da changes insieme al passaggio da una mappa all'altra
+    private final Object changes = new Object();
+    private List<Consumer<Map<String, ColumnarLedger>>> pending;
+
+    public AnalyticsService(TransactionRepository transactionRepository,
+                            ArchiveService archiveService,
+                            PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.archiveService = archiveService;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void load() {
+        long start = System.nanoTime();
+        int rows = reload();
+        log.info("Analytics ledger loaded: {} transactions in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Ricarica il ledger dal database senza bloccare le scritture. Il registro parte prima della lettura:
+    // una modifica non ancora visibile alla lettura viene comunque riapplicata alla mappa nuova
+    public synchronized int reload() {
+        synchronized (changes) {
+            pending = new ArrayList<>();
+        }
+        Map<String, ColumnarLedger> loaded = new ConcurrentHashMap<>();
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                List<Transaction> batch = new ArrayList<>(LOAD_BATCH);
+                try (Stream<Transaction> transactions = transactionRepository.streamFiltered(null, null, null, null)) {
+                    transactions.forEach(transaction -> {
+                        batch.add(transaction);
+                        entityManager.detach(transaction);
+                        if (batch.size() == LOAD_BATCH) {
+                            addAll(loaded, batch);
+                            batch.clear();
+                        }
+                    });
+                }
+                addAll(loaded, batch);
+            });
+            archiveService.forEachArchived(null, archived -> addAll(loaded, archived));
+            synchronized (changes) {
+                pending.forEach(change -> change.accept(loaded));
+                ledgers = loaded;
+            }
+        } finally {
+            // Dopo un errore resta la mappa in uso, che ha ricevuto tutte le modifiche
+            synchronized (changes) {
+                pending = null;
+            }
+        }
+        return loaded.values().stream().mapToInt(ledger -> ledger.stats().rows()).sum();
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        List<Transaction> added = List.copyOf(transactions);
+        AfterCommit.run(() -> apply(target -> addAll(target, added)));
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        if (transaction.getId() == null) {
+            return;
+        }
+        long id = transaction.getId();
+        String ledger = transaction.getLedger();
+        AfterCommit.run(() -> apply(target -> {
+            ColumnarLedger columns = target.get(ledger);
+            if (columns != null) {
+                columns.remove(id);
+            }
+        }));
+    }
+
+    public List<GroupResult> groupBy(String ledger, EnumSet<GroupBy> dimensions, AnalyticsFilter filter) {
+        if (dimensions.isEmpty()) {
+            throw new IllegalArgumentException("At least one grouping dimension is required.");
+        }
+        return columns(ledger).groupBy(dimensions, filter);
+    }
+
+    // Percentili richiesti -> importo in centesimi (vuoto se nessuna transazione corrisponde)
+    public Map<Double, Long> percentiles(String ledger, List<Double> percentiles, AnalyticsFilter filter) {
+        double[] requested = percentiles.stream().mapToDouble(Double::doubleValue).toArray();
+        long[] values = columns(ledger).percentiles(requested, filter);
+        Map<Double, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            result.put(requested[i], values[i]);
+        }
+        return result;
+    }
+
+    public List<RankedTransaction> top(String ledger, int k, AnalyticsFilter filter) {
+        return columns(ledger).top(k, filter);
+    }
+
+    public ColumnarLedger.Stats stats(String ledger) {
+        return columns(ledger).stats();
+    }
+
+    // Ledger colonnare del ledger indicato (uno vuoto se non ha transazioni)
+    private ColumnarLedger columns(String ledger) {
+        ColumnarLedger columns = ledgers.get(Ledgers.of(ledger));
+        return columns != null ? columns : new ColumnarLedger();
+    }
+
+    // Applica una modifica confermata alla mappa in uso e, durante un ricaricamento, la registra per quella nuova
+    private void apply(Consumer<Map<String, ColumnarLedger>> change) {
+        synchronized (changes) {
+            change.accept(ledgers);
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    private static void addAll(Map<String, ColumnarLedger> target, List<Transaction> transactions) {
+        transactions.stream()
+                .collect(Collectors.groupingBy(Transaction::getLedger))
+                .forEach((ledger, group) -> target.computeIfAbsent(ledger, key -> new ColumnarLedger()).addAll(group));
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.archive.SegmentCodec;
+import com.example.budgetmanager.model.ArchiveReport;
+import com.example.budgetmanager.model.ArchiveSegment;
+import com.example.budgetmanager.model.ArchiveSegmentData;
+import com.example.budgetmanager.model.ArchivedDedupKey;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.ArchiveSegmentDataRepository;
+import com.example.budgetmanager.repository.ArchiveSegmentRepository;
+import com.example.budgetmanager.repository.ArchivedDedupKeyRepository;
+import com.example.budgetmanager.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/* ------------------------------------------------------------------
+Archivio delle transazioni vecchie (dati caldi e freddi).
+Le transazioni degli anni precedenti agli ultimi keep-years (anno
+corrente compreso) vengono spostate, per ledger e anno, in un segmento
+compresso in sola lettura con aggregati precalcolati: la tabella delle
+transazioni e i suoi indici contengono solo gli anni recenti.
+Saldo, totali e riepilogo per categoria sommano gli aggregati dei
+segmenti (in memoria per ledger, ricaricati dopo ogni archiviazione);
+rollup, analisi e saldo nel tempo leggono anche le righe archiviate.
+Liste, ricerche, ricerca testuale ed export riguardano solo le righe
+non archiviate; quelle di un anno archiviato si leggono su richiesta
+decodificando il suo segmento.
+Ogni anno di un ledger viene archiviato in una transazione che blocca
+le scritture sul ledger (riga dei totali): le righe copiate nel
+segmento sono esattamente quelle eliminate. Le transazioni retrodatate
+in un anno già archiviato restano nella tabella fino all'archiviazione
+successiva, che riscrive il segmento includendole.
+Le chiavi di deduplicazione delle righe archiviate passano nella
+tabella archived_dedup_key (con il loro indice unico), così
+TransactionDeduplicator riconosce anche i duplicati di anni archiviati.
+------------------------------------------------------------------ */
+
+@Service
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class ArchiveService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Id eliminati con una sola istruzione DELETE, chiavi cercate con una sola query IN
+    private static final int DELETE_BATCH = 1_000;
+    private static final int KEY_BATCH = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+
+    // Aggregati degli anni archiviati di un ledger
+    public record Summary(long transactions, long revenueCents, long expensesCents,
+                          Map<String, Long> expensesByCategory) {
+
+        public static final Summary EMPTY = new Summary(0L, 0L, 0L, Map.of());
+
+        static Summary of(ArchiveSegment segment) {
+            return new Summary(segment.getTransactionCount(), segment.getTotalRevenueCents(),
+                    segment.getTotalExpensesCents(), Map.copyOf(segment.getExpensesByCategory()));
+        }
+
+        Summary plus(Summary other) {
+            Map<String, Long> categories = new HashMap<>(expensesByCategory);
+            other.expensesByCategory.forEach((category, cents) -> categories.merge(category, cents, Long::sum));
+            return new Summary(transactions + other.transactions, revenueCents + other.revenueCents,
+                    expensesCents + other.expensesCents, Map.copyOf(categories));
+        }
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final ArchiveSegmentRepository segmentRepository;
+    private final ArchiveSegmentDataRepository dataRepository;
+    private final ArchivedDedupKeyRepository keyRepository;
+    private final LedgerTotalsService ledgerTotalsService;
+    // Risolti a ogni archiviazione: tra loro ci sono componenti che dipendono da TransactionService
+    private final ObjectProvider<LedgerWriteListener> writeListeners;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int keepYears;
+    private final Clock clock;
+
+    // Riepiloghi per ledger, sostituiti per intero dopo ogni archiviazione
+    private volatile Map<String, Summary> summaries = Map.of();
+
+    @Autowired
+    public ArchiveService(TransactionRepository transactionRepository,
+                          ArchiveSegmentRepository segmentRepository,
+                          ArchiveSegmentDataRepository dataRepository,
+                          ArchivedDedupKeyRepository keyRepository,
+                          LedgerTotalsService ledgerTotalsService,
+                          PlatformTransactionManager transactionManager,
+                          ObjectProvider<LedgerWriteListener> writeListeners,
+                          @Value("${budget.archive.keep-years:2}") int keepYears) {
+        this(transactionRepository, segmentRepository, dataRepository, keyRepository, ledgerTotalsService,
+                transactionManager, writeListeners, keepYears, Clock.systemDefaultZone());
+    }
+
+    public ArchiveService(TransactionRepository transactionRepository,
+                          ArchiveSegmentRepository segmentRepository,
+                          ArchiveSegmentDataRepository dataRepository,
+                          ArchivedDedupKeyRepository keyRepository,
+                          LedgerTotalsService ledgerTotalsService,
+                          PlatformTransactionManager transactionManager,
+                          ObjectProvider<LedgerWriteListener> writeListeners,
+                          int keepYears,
+                          Clock clock) {
+        // L'anno corrente resta sempre nella tabella (e con lui il periodo seguito dai budget)
+        if (keepYears < 1) {
+            throw new IllegalArgumentException("budget.archive.keep-years must be at least 1: " + keepYears);
+        }
+        this.transactionRepository = transactionRepository;
+        this.segmentRepository = segmentRepository;
+        this.dataRepository = dataRepository;
+        this.keyRepository = keyRepository;
+        this.ledgerTotalsService = ledgerTotalsService;
+        this.writeListeners = writeListeners;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.keepYears = keepYears;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    void load() {
+        reloadSummaries();
+    }
+
+    // Primo anno che resta nella tabella delle transazioni
+    public int firstHotYear() {
+        return LocalDate.now(clock).getYear() - keepYears + 1;
+    }
+
+    // Archivia gli anni vecchi di tutti i ledger, un anno per transazione
+    public synchronized ArchiveReport archive() {
+        long start = System.nanoTime();
+        LocalDate firstHotDay = LocalDate.of(firstHotYear(), 1, 1);
+        int segments = 0;
+        long moved = 0;
+        for (String ledger : transactionRepository.findLedgers()) {
+            List<Integer> years = new ArrayList<>(transactionRepository.findYearsBefore(ledger, firstHotDay));
+            years.sort(null);
+            for (int year : years) {
+                Integer archived = transactionTemplate.execute(status -> archiveYear(ledger, year));
+                if (archived != null && archived > 0) {
+                    segments++;
+                    moved += archived;
+                }
+            }
+        }
+        return new ArchiveReport(segments, moved, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Archiviazione pianificata (espressione cron in budget.archive.cron, "-" la disabilita)
+    @Scheduled(cron = "${budget.archive.cron:-}")
+    void scheduledArchive() {
+        ArchiveReport report = archive();
+        log.info("Scheduled archiving completed: {} transactions in {} segments ({} ms)",
+                report.transactions(), report.segments(), report.elapsedMillis());
+    }
+
+    // Aggregati degli anni archiviati di un ledger (vuoti se non ne ha)
+    public Summary summary(String ledger) {
+        return summaries.getOrDefault(ledger, Summary.EMPTY);
+    }
+
+    // Ledger con almeno un segmento
+    public Set<String> getLedgers() {
+        return summaries.keySet();
+    }
+
+    public boolean isEmpty() {
+        return summaries.isEmpty();
+    }
+
+    // Segmenti di un ledger, dal più recente (solo aggregati, senza le righe)
+    public List<ArchiveSegment> getSegments(String ledger) {
+        return segmentRepository.findByLedgerOrderByYearDesc(ledger);
+    }
+
+    // Pagina (da 0) delle transazioni archiviate di un anno, nell'ordine delle liste (data decrescente, poi id).
+    // Vuoto se l'anno del ledger non è archiviato
+    public Optional<List<Transaction>> getTransactions(String ledger, int year, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long offset = (long) Math.max(0, page) * limit;
+        return readOnlyTemplate.execute(status -> segmentRepository.findByLedgerAndYear(ledger, year)
+                .map(segment -> read(segment).stream()
+                        .sorted(Comparator.comparing(Transaction::getDate).reversed()
+                                .thenComparing(Transaction::getId))
+                        .skip(offset)
+                        .limit(limit)
+                        .toList()));
+    }
+
+    // Righe archiviate di un ledger con le chiavi di deduplicazione indicate, per chiave (decodifica solo
+    // i segmenti che ne contengono almeno una)
+    public Map<String, Transaction> findByDedupKeys(String ledger, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        return readOnlyTemplate.execute(status -> {
+            List<String> list = List.copyOf(keys);
+            Map<Integer, Set<String>> byYear = new TreeMap<>();
+            for (int from = 0; from < list.size(); from += KEY_BATCH) {
+                List<String> chunk = list.subList(from, Math.min(list.size(), from + KEY_BATCH));
+                for (ArchivedDedupKey key : keyRepository.findByLedgerAndDedupKeyIn(ledger, chunk)) {
+                    byYear.computeIfAbsent(key.getYear(), year -> new HashSet<>()).add(key.getDedupKey());
+                }
+            }
+            Map<String, Transaction> found = new HashMap<>();
+            byYear.forEach((year, wanted) -> segmentRepository.findByLedgerAndYear(ledger, year)
+                    .ifPresent(segment -> read(segment).stream()
+                            .filter(row -> row.getDedupKey() != null && wanted.contains(row.getDedupKey()))
+                            .forEach(row -> found.put(row.getDedupKey(), row))));
+            return found;
+        });
+    }
+
+    // Passa al consumer le righe di ogni segmento (di un ledger, o di tutti con ledger null), un segmento alla volta
+    public void forEachArchived(String ledger, Consumer<List<Transaction>> consumer) {
+        List<ArchiveSegment> segments = ledger == null ? segmentRepository.findAll() : getSegments(ledger);
+        for (ArchiveSegment segment : segments) {
+            consumer.accept(readOnlyTemplate.execute(status -> read(segment)));
+        }
+    }
+
+    private int archiveYear(String ledger, int year) {
+        // Le scritture sul ledger attendono il commit: nessuna riga può cambiare tra lettura ed eliminazione
+        ledgerTotalsService.lockLedger(ledger);
+        List<Transaction> rows = transactionRepository.findForArchive(ledger, LocalDate.of(year, 1, 1),
+                LocalDate.of(year, 12, 31));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // Un anno già archiviato viene riscritto con le righe arrivate nel frattempo
+        ArchiveSegment segment = segmentRepository.findByLedgerAndYear(ledger, year)
+                .orElseGet(() -> new ArchiveSegment(ledger, year));
+        List<Transaction> all = new ArrayList<>(rows);
+        if (segment.getId() != null) {
+            all.addAll(read(segment));
+        }
+        byte[] data = SegmentCodec.encode(all);
+        segment.summarize(all);
+        segment.setCompressedBytes(data.length);
+        segment.setArchivedAt(clock.instant());
+        segment = segmentRepository.saveAndFlush(segment);
+        dataRepository.save(new ArchiveSegmentData(segment.getId(), data));
+        saveDedupKeys(ledger, year, rows);
+
+        List<Long> ids = rows.stream().map(Transaction::getId).toList();
+        for (int from = 0; from < ids.size(); from += DELETE_BATCH) {
+            transactionRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(ids.size(), from + DELETE_BATCH)));
+        }
+
+        // Riepiloghi aggiornati prima che gli altri componenti vedano le righe uscire dalla tabella
+        AfterCommit.run(this::reloadSummaries);
+        writeListeners.orderedStream().forEach(listener -> listener.onArchived(ledger, rows));
+        log.debug("Archived {} transactions of ledger {} for {}", rows.size(), ledger, year);
+        return rows.size();
+    }
+
+    // Le chiavi delle righe già nel segmento sono state salvate dall'archiviazione precedente; una chiave già
+    // archiviata (duplicato salvato prima che l'archivio conservasse le chiavi) non viene ripetuta
+    private void saveDedupKeys(String ledger, int year, List<Transaction> rows) {
+        List<String> keys = rows.stream().map(Transaction::getDedupKey).filter(Objects::nonNull).toList();
+        List<ArchivedDedupKey> fresh = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += KEY_BATCH) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + KEY_BATCH));
+            Set<String> stored = new HashSet<>();
+            keyRepository.findByLedgerAndDedupKeyIn(ledger, chunk).forEach(key -> stored.add(key.getDedupKey()));
+            chunk.stream().filter(key -> !stored.contains(key))
+                    .forEach(key -> fresh.add(new ArchivedDedupKey(ledger, key, year)));
+        }
+        keyRepository.saveAll(fresh);
+    }
+
+    private List<Transaction> read(ArchiveSegment segment) {
+        ArchiveSegmentData data = dataRepository.findById(segment.getId())
+                .orElseThrow(() -> new IllegalStateException("Missing data of archive segment " + segment.getId()));
+        return SegmentCodec.decode(data.getData(), segment.getLedger());
+    }
+
+    private void reloadSummaries() {
+        Map<String, Summary> loaded = new HashMap<>();
+        for (ArchiveSegment segment : segmentRepository.findAll()) {
+            loaded.merge(segment.getLedger(), Summary.of(segment), Summary::plus);
+        }
+        summaries = Map.copyOf(loaded);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionPage;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/* ------------------------------------------------------------------
+Varianti asincrone delle letture di TransactionService, per eseguire
+in parallelo le query indipendenti di una stessa pagina.
+Usa l'executor dell'applicazione: con spring.threads.virtual.enabled
+ogni chiamata gira su un thread virtuale, altrimenti sul pool di
+thread configurato da spring.task.execution.*.
+------------------------------------------------------------------ */
+
+@Service
+public class AsyncTransactionService {
+
+    private final TransactionService transactionService;
+    private final Executor executor;
+
+    public AsyncTransactionService(TransactionService transactionService,
+                                   @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                   Executor executor) {
+        this.transactionService = transactionService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<LedgerSummary> getLedgerSummary() {
+        return supply(transactionService::getLedgerSummary);
+    }
+
+    public CompletableFuture<Long> getBalanceCents() {
+        return supply(transactionService::getBalanceCents);
+    }
+
+    public CompletableFuture<List<Transaction>> getLatestTransactions(int n) {
+        return supply(() -> transactionService.getLatestTransactions(n));
+    }
+
+    public CompletableFuture<TransactionPage> getTransactionsPage(String cursor, int size) {
+        return supply(() -> transactionService.getTransactionsPage(cursor, size));
+    }
+
+    public CompletableFuture<Map<String, Long>> getExpenseCategorySummary() {
+        return supply(transactionService::getExpenseCategorySummary);
+    }
+
+    // Attende il risultato; le eccezioni del service vengono rilanciate così come sono
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+}
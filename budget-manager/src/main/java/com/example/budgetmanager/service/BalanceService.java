@@ -0,0 +1,117 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.balance.BalanceIndex;
+import com.example.budgetmanager.model.BalancePoint;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/* ------------------------------------------------------------------
+Saldo nel tempo (budget.balance.enabled): per ogni ledger un albero di
+Fenwick sugli importi netti per giorno (vedi balance.BalanceIndex).
+Costruito all'avvio leggendo il ledger a pagine keyset e i suoi anni
+archiviati, prima che il server accetti richieste, e aggiornato dopo ogni commit: il saldo a una
+data e ogni punto di una serie costano O(log giorni).
+------------------------------------------------------------------ */
+
+@Service
+@Order(BalanceService.ORDER)
+@ConditionalOnProperty(name = "budget.balance.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceService implements LedgerWriteListener, SmartInitializingSingleton {
+
+    // Prima di LedgerVersion: una nuova versione del ledger non viene mai servita con il saldo vecchio
+    public static final int ORDER = AggregateCache.ORDER + 5;
+
+    public static final int DEFAULT_POINTS = 100;
+    public static final int MAX_POINTS = 2_000;
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceService.class);
+
+    // Risolto in modo differito: TransactionService riceve questo componente tra i suoi writeListeners
+    private final ObjectProvider<TransactionService> transactionService;
+    // Presente solo con l'archivio su database
+    private final ObjectProvider<ArchiveService> archiveService;
+    private final Map<String, BalanceIndex> indexes = new ConcurrentHashMap<>();
+
+    public BalanceService(ObjectProvider<TransactionService> transactionService,
+                          ObjectProvider<ArchiveService> archiveService) {
+        this.transactionService = transactionService;
+        this.archiveService = archiveService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        TransactionService transactions = transactionService.getObject();
+        ArchiveService archive = archiveService.getIfAvailable();
+        long count = 0;
+        for (String ledger : transactions.getLedgers()) {
+            BalanceIndex index = index(ledger);
+            if (archive != null) {
+                archive.forEachArchived(ledger, index::addAll);
+            }
+            String cursor = null;
+            do {
+                TransactionPage page = transactions.getTransactionsPage(ledger, cursor,
+                        TransactionService.MAX_PAGE_SIZE);
+                index.addAll(page.items());
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            count += index.stats().transactions();
+        }
+        log.info("Balance indexes built: {} ledgers, {} dated transactions in {} ms", indexes.size(), count,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        Map<String, List<Transaction>> added = transactions.stream()
+                .collect(Collectors.groupingBy(Transaction::getLedger));
+        AfterCommit.run(() -> added.forEach((ledger, group) -> index(ledger).addAll(group)));
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        AfterCommit.run(() -> index(transaction.getLedger()).remove(transaction));
+    }
+
+    // Saldo del ledger alla fine del giorno indicato
+    public BalancePoint balanceAt(String ledger, LocalDate date) {
+        return new BalancePoint(date, index(Ledgers.of(ledger)).balanceAt(date));
+    }
+
+    // Serie del saldo da from a to, ricampionata su al massimo points punti.
+    // Senza from si parte dalla prima transazione con data del ledger
+    public List<BalancePoint> series(String ledger, LocalDate from, LocalDate to, int points) {
+        if (points < 2 || points > MAX_POINTS) {
+            throw new IllegalArgumentException("The number of points must be between 2 and " + MAX_POINTS + ".");
+        }
+        BalanceIndex index = index(Ledgers.of(ledger));
+        LocalDate start = from != null ? from : index.stats().firstDate();
+        if (start == null) {
+            return List.of();
+        }
+        return index.series(start, to, points);
+    }
+
+    public BalanceIndex.Stats stats(String ledger) {
+        return index(Ledgers.of(ledger)).stats();
+    }
+
+    private BalanceIndex index(String ledger) {
+        return indexes.computeIfAbsent(ledger, key -> new BalanceIndex());
+    }
+}
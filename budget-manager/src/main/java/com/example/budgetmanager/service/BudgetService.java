@@ -0,0 +1,247 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.Budget;
+import com.example.budgetmanager.model.BudgetAlert;
+import com.example.budgetmanager.model.BudgetPeriod;
+import com.example.budgetmanager.model.BudgetStatus;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.repository.BudgetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+/* ------------------------------------------------------------------
+Limiti di spesa per categoria e periodo, valutati a ogni scrittura.
+Per ogni ledger, categoria e tipo di periodo si tiene in memoria un
+contatore della spesa, indicizzato dal primo giorno del periodo: dopo
+il commit ogni aggiunta o eliminazione aggiorna tre contatori e
+confronta il livello dei budget della categoria prima e dopo, quindi
+il costo per scrittura è costante e lo stato dei budget non richiede
+query di aggregazione.
+I contatori vengono ricostruiti all'avvio dalle spese a partire dal
+primo periodo dell'anno corrente; le scritture datate prima di quel
+giorno non riguardano nessun periodo attivo e vengono ignorate.
+------------------------------------------------------------------ */
+
+@Service
+@Order(BudgetService.ORDER)
+public class BudgetService implements LedgerWriteListener, SmartInitializingSingleton {
+
+    // Dopo i totali del ledger, indipendente dalle altre strutture in memoria
+    public static final int ORDER = LedgerTotalsService.ORDER + 5;
+
+    public static final int MAX_ALERTS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetService.class);
+
+    private record SpendKey(String ledger, String category, BudgetPeriod period, LocalDate start) {
+    }
+
+    private record CategoryKey(String ledger, String category) {
+
+        static CategoryKey of(Transaction transaction) {
+            return new CategoryKey(transaction.getLedger(), transaction.getCategory());
+        }
+
+        static CategoryKey of(Budget budget) {
+            return new CategoryKey(budget.getLedger(), budget.getCategory());
+        }
+    }
+
+    private final BudgetRepository budgetRepository;
+    // Risolto in modo differito: TransactionService riceve questo componente tra i suoi writeListeners
+    private final Supplier<TransactionService> transactionService;
+    private final Clock clock;
+
+    // Stato protetto dal monitor del servizio
+    private final Map<SpendKey, Long> spent = new HashMap<>();
+    private final Map<CategoryKey, List<Budget>> budgetsByCategory = new HashMap<>();
+    private final Deque<BudgetAlert> alerts = new ArrayDeque<>();
+    private LocalDate trackedSince;
+
+    @Autowired
+    public BudgetService(BudgetRepository budgetRepository, ObjectProvider<TransactionService> transactionService) {
+        this(budgetRepository, transactionService::getObject, Clock.systemDefaultZone());
+    }
+
+    public BudgetService(BudgetRepository budgetRepository, Supplier<TransactionService> transactionService,
+                         Clock clock) {
+        this.budgetRepository = budgetRepository;
+        this.transactionService = transactionService;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // Ricarica i budget e ricalcola i contatori dalle spese di ogni ledger a pagine keyset (indice su tipo e data)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        budgetsByCategory.clear();
+        budgetRepository.findAll().forEach(this::putBudget);
+
+        spent.clear();
+        trackedSince = BudgetPeriod.earliestStart(LocalDate.now(clock));
+        TransactionFilter expenses = new TransactionFilter(trackedSince, null, null,
+                Transaction.TransactionType.EXPENSE, null, null);
+        TransactionService transactions = transactionService.get();
+        long count = 0;
+        for (String ledger : transactions.getLedgers()) {
+            String cursor = null;
+            do {
+                TransactionSearchResult page = transactions.search(ledger, expenses, cursor,
+                        TransactionService.MAX_PAGE_SIZE);
+                for (Transaction transaction : page.items()) {
+                    addSpent(transaction, transaction.getAmountCents());
+                }
+                count += page.items().size();
+                cursor = page.nextCursor();
+            } while (cursor != null);
+        }
+        log.info("Budget counters rebuilt from {} expenses since {} in {} ms", count, trackedSince,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        List<Transaction> added = List.copyOf(transactions);
+        AfterCommit.run(() -> apply(added, 1));
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        AfterCommit.run(() -> apply(List.of(transaction), -1));
+    }
+
+    private synchronized void apply(List<Transaction> transactions, int sign) {
+        for (Transaction transaction : transactions) {
+            if (!tracked(transaction)) {
+                continue;
+            }
+            List<Budget> budgets = budgetsByCategory.getOrDefault(CategoryKey.of(transaction), List.of());
+            BudgetStatus.Level[] before = new BudgetStatus.Level[budgets.size()];
+            for (int i = 0; i < before.length; i++) {
+                before[i] = statusOf(budgets.get(i), transaction.getDate()).level();
+            }
+            addSpent(transaction, sign * transaction.getAmountCents());
+            for (int i = 0; i < before.length; i++) {
+                BudgetStatus after = statusOf(budgets.get(i), transaction.getDate());
+                if (after.level().compareTo(before[i]) > 0) {
+                    raise(after);
+                }
+            }
+        }
+    }
+
+    private boolean tracked(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.EXPENSE && transaction.getDate() != null
+                && trackedSince != null && !transaction.getDate().isBefore(trackedSince);
+    }
+
+    private void addSpent(Transaction transaction, long cents) {
+        for (BudgetPeriod period : BudgetPeriod.values()) {
+            SpendKey key = new SpendKey(transaction.getLedger(), transaction.getCategory(), period,
+                    period.start(transaction.getDate()));
+            spent.merge(key, cents, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    private void raise(BudgetStatus status) {
+        BudgetAlert alert = new BudgetAlert(status.budgetId(), status.ledger(), status.category(), status.period(),
+                status.periodStart(), status.level(), status.spentCents(), status.limitCents(), clock.instant());
+        log.warn("Budget {}/{} {} for {} starting {}: spent {} of {} cents", status.ledger(), status.category(),
+                status.level(), status.period(), status.periodStart(), status.spentCents(), status.limitCents());
+        if (alerts.size() == MAX_ALERTS) {
+            alerts.removeLast();
+        }
+        alerts.addFirst(alert);
+    }
+
+    // Stato del budget nel periodo che contiene la data
+    private BudgetStatus statusOf(Budget budget, LocalDate date) {
+        LocalDate periodStart = budget.getPeriod().start(date);
+        long cents = spent.getOrDefault(
+                new SpendKey(budget.getLedger(), budget.getCategory(), budget.getPeriod(), periodStart), 0L);
+        return BudgetStatus.of(budget, periodStart, cents);
+    }
+
+    // Stato dei budget del ledger predefinito
+    public List<BudgetStatus> getStatuses() {
+        return getStatuses(Ledgers.DEFAULT);
+    }
+
+    // Stato di tutti i budget del ledger nel periodo corrente, per categoria e periodo
+    public synchronized List<BudgetStatus> getStatuses(String ledger) {
+        LocalDate today = LocalDate.now(clock);
+        return budgetsByCategory.entrySet().stream()
+                .filter(entry -> entry.getKey().ledger().equals(ledger))
+                .flatMap(entry -> entry.getValue().stream())
+                .map(budget -> statusOf(budget, today))
+                .sorted(Comparator.comparing(BudgetStatus::category).thenComparing(BudgetStatus::period))
+                .toList();
+    }
+
+    // Allerte più recenti per prime, di tutti i ledger
+    public synchronized List<BudgetAlert> getRecentAlerts() {
+        return List.copyOf(alerts);
+    }
+
+    // Crea il budget o, se esiste già nello stesso ledger per la stessa categoria e periodo, ne aggiorna
+    // limite e soglia
+    public synchronized BudgetStatus saveBudget(Budget budget) {
+        Budget target = budgetRepository.findByLedgerAndCategoryAndPeriod(budget.getLedger(), budget.getCategory(),
+                        budget.getPeriod())
+                .orElseGet(() -> {
+                    Budget created = new Budget(budget.getCategory(), budget.getPeriod(), budget.getLimitCents(),
+                            budget.getAlertPercent());
+                    created.setLedger(budget.getLedger());
+                    return created;
+                });
+        target.setLimitCents(budget.getLimitCents());
+        target.setAlertPercent(budget.getAlertPercent());
+        Budget saved = budgetRepository.save(target);
+        removeBudget(saved.getId());
+        putBudget(saved);
+        return statusOf(saved, LocalDate.now(clock));
+    }
+
+    // Elimina il budget solo se appartiene al ledger indicato
+    public synchronized boolean deleteBudget(String ledger, Long id) {
+        if (budgetRepository.findById(id).filter(budget -> budget.getLedger().equals(ledger)).isEmpty()) {
+            return false;
+        }
+        return deleteBudget(id);
+    }
+
+    public synchronized boolean deleteBudget(Long id) {
+        if (!budgetRepository.existsById(id)) {
+            return false;
+        }
+        budgetRepository.deleteById(id);
+        removeBudget(id);
+        return true;
+    }
+
+    private void putBudget(Budget budget) {
+        budgetsByCategory.computeIfAbsent(CategoryKey.of(budget), key -> new ArrayList<>()).add(budget);
+    }
+
+    private void removeBudget(Long id) {
+        budgetsByCategory.values().forEach(budgets -> budgets.removeIf(budget -> budget.getId().equals(id)));
+        budgetsByCategory.values().removeIf(List::isEmpty);
+    }
+}
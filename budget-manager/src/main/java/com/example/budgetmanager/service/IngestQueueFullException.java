@@ -0,0 +1,13 @@
+package com.example.budgetmanager.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Coda di ingestione piena: il client deve riprovare più tardi (429)
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class IngestQueueFullException extends RuntimeException {
+
+    public IngestQueueFullException(int capacity) {
+        super("Ingestion queue is full (" + capacity + " pending transactions), retry later.");
+    }
+}
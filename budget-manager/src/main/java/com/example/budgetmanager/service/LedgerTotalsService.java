@@ -0,0 +1,259 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.LedgerTotals;
+import com.example.budgetmanager.model.LedgerTotalsCheck;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.ArchiveSegmentRepository;
+import com.example.budgetmanager.repository.LedgerTotalsRepository;
+import com.example.budgetmanager.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* ------------------------------------------------------------------
+Totali dei ledger mantenuti in modo incrementale.
+Ogni scrittura aggiorna la riga persistita di LedgerTotals del proprio
+ledger nella stessa transazione e, dopo il commit, l'accumulatore in
+memoria: la lettura del saldo costa O(1). Le scritture su ledger
+diversi aggiornano righe diverse e non si serializzano a vicenda.
+È presente un percorso di ricostruzione da zero (per il recupero) e un
+controllo di consistenza, entrambi limitati a un ledger.
+I totali comprendono gli anni archiviati: l'archiviazione sposta le
+righe senza cambiarli, il ricalcolo somma gli aggregati dei segmenti.
+------------------------------------------------------------------ */
+
+@Service
+@Order(LedgerTotalsService.ORDER)
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class LedgerTotalsService implements LedgerWriteListener {
+
+    // Primo componente aggiornato: l'UPDATE sulla riga di riepilogo serializza le scritture sullo stesso ledger
+    public static final int ORDER = 0;
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerTotalsService.class);
+
+    private final LedgerTotalsRepository ledgerTotalsRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchiveSegmentRepository archiveSegmentRepository;
+    private final TransactionTemplate newTransaction;
+
+    // Stato in memoria per ledger: ogni terna è sostituita atomicamente, i lettori la vedono sempre coerente
+    private final Map<String, Totals> current = new ConcurrentHashMap<>();
+
+    public LedgerTotalsService(LedgerTotalsRepository ledgerTotalsRepository,
+                               TransactionRepository transactionRepository,
+                               ArchiveSegmentRepository archiveSegmentRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.ledgerTotalsRepository = ledgerTotalsRepository;
+        this.transactionRepository = transactionRepository;
+        this.archiveSegmentRepository = archiveSegmentRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // All'avvio carica le righe di riepilogo e ricostruisce quelle dei ledger che non ne hanno una
+    @PostConstruct
+    void load() {
+        for (LedgerTotals row : ledgerTotalsRepository.findAll()) {
+            current.put(row.getLedger(), Totals.of(row));
+        }
+        for (String ledger : transactionRepository.findLedgers()) {
+            if (!current.containsKey(ledger)) {
+                log.info("Totals row of ledger {} not found, rebuilding from transactions", ledger);
+                createRow(ledger);
+            }
+        }
+    }
+
+    // Totali correnti del ledger predefinito
+    public LedgerSummary current() {
+        return current(Ledgers.DEFAULT);
+    }
+
+    // Totali correnti di un ledger (O(1), nessuna query; zero per un ledger senza transazioni)
+    public LedgerSummary current(String ledger) {
+        return current.getOrDefault(ledger, Totals.ZERO).toSummary();
+    }
+
+    // Registra nuove transazioni con un solo aggiornamento della riga di riepilogo per ledger.
+    // I ledger vengono aggiornati in ordine di nome, così due blocchi misti non si bloccano a vicenda
+    @Override
+    @Transactional
+    public void onAdded(List<Transaction> transactions) {
+        Map<String, Totals> deltas = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            deltas.merge(transaction.getLedger(), Totals.of(transaction), Totals::plus);
+        }
+        deltas.forEach(this::applyDelta);
+    }
+
+    // Registra l'eliminazione di una transazione
+    @Override
+    @Transactional
+    public void onDeleted(Transaction transaction) {
+        applyDelta(transaction.getLedger(), Totals.of(transaction).negate());
+    }
+
+    // Blocca fino al commit la riga di riepilogo di un ledger (creandola se manca): le scritture concorrenti sul
+    // ledger restano in attesa. Usato dalle ricostruzioni di altri dati derivati e dall'archiviazione
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockLedger(String ledger) {
+        lockRow(ledger);
+    }
+
+    // Ricostruisce da zero i totali del ledger predefinito
+    @Transactional
+    public LedgerSummary rebuild() {
+        return rebuild(Ledgers.DEFAULT);
+    }
+
+    // Ricostruisce da zero i totali di un ledger dalla tabella delle transazioni e dai segmenti d'archivio
+    @Transactional
+    public LedgerSummary rebuild(String ledger) {
+        return rebuildInTransaction(ledger);
+    }
+
+    // Controllo di consistenza del ledger predefinito
+    @Transactional(readOnly = true)
+    public LedgerTotalsCheck check() {
+        return check(Ledgers.DEFAULT);
+    }
+
+    // Confronta memoria, riga persistita e ricalcolo completo di un ledger
+    @Transactional(readOnly = true)
+    public LedgerTotalsCheck check(String ledger) {
+        Totals inMemory = current.getOrDefault(ledger, Totals.ZERO);
+        Totals persisted = ledgerTotalsRepository.findById(ledger)
+                .map(Totals::of)
+                .orElse(Totals.ZERO);
+        Totals recomputed = recompute(ledger);
+
+        boolean consistent = inMemory.equals(persisted) && persisted.equals(recomputed);
+        if (!consistent) {
+            log.warn("Totals of ledger {} are inconsistent: memory={}, persisted={}, recomputed={}",
+                    ledger, inMemory, persisted, recomputed);
+        }
+        return new LedgerTotalsCheck(inMemory.toSummary(), persisted.toSummary(), recomputed.toSummary(),
+                persisted.count(), recomputed.count(), consistent);
+    }
+
+    private void applyDelta(String ledger, Totals delta) {
+        int updated = ledgerTotalsRepository.applyDelta(ledger, delta.revenue(), delta.expenses(), delta.count());
+        if (updated == 0) {
+            // Primo inserimento nel ledger o riga cancellata a mano: la si crea, poi si applica la variazione
+            createRow(ledger);
+            updated = ledgerTotalsRepository.applyDelta(ledger, delta.revenue(), delta.expenses(), delta.count());
+            if (updated == 0) {
+                throw new IllegalStateException("Totals row of ledger " + ledger + " could not be created");
+            }
+        }
+        AfterCommit.run(() -> current.merge(ledger, delta, Totals::plus));
+    }
+
+    // Crea la riga di riepilogo mancante con i totali già confermati, in una transazione propria: le righe
+    // non ancora confermate della transazione chiamante arrivano con la sua variazione. Se due scritture
+    // concorrenti la creano insieme, l'inserimento della seconda fallisce fuori dalla sua transazione e
+    // la seconda aggiorna la riga della prima
+    private void createRow(String ledger) {
+        try {
+            Totals committed = newTransaction.execute(status -> {
+                Totals recomputed = recompute(ledger);
+                int inserted = ledgerTotalsRepository.insertIfAbsent(ledger, recomputed.revenue(),
+                        recomputed.expenses(), recomputed.count());
+                return inserted == 0 ? Totals.ZERO : recomputed;
+            });
+            // Senza riga nessuna variazione è arrivata in memoria (la riga non va cancellata con l'applicazione
+            // attiva): i totali confermati si sommano a quelle che arrivano nel frattempo
+            current.merge(ledger, committed, Totals::plus);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Totals row of ledger {} created concurrently: {}", ledger, e.getMessage());
+        }
+    }
+
+    private LedgerSummary rebuildInTransaction(String ledger) {
+        // Il lock sulla riga di riepilogo blocca le scritture concorrenti sul ledger fino al commit
+        LedgerTotals row = lockRow(ledger);
+        Totals persisted = Totals.of(row);
+        Totals recomputed = recompute(ledger);
+        row.setTotalRevenueCents(recomputed.revenue());
+        row.setTotalExpensesCents(recomputed.expenses());
+        row.setTransactionCount(recomputed.count());
+        ledgerTotalsRepository.saveAndFlush(row);
+
+        // La memoria cambia solo dopo il commit, come per le variazioni. Con il lock la riga letta comprende
+        // tutte le variazioni confermate: si aggiunge la correzione, che non dipende dall'ordine in cui le
+        // variazioni delle scritture in attesa arrivano in memoria
+        Totals correction = recomputed.plus(persisted.negate());
+        AfterCommit.run(() -> current.merge(ledger, correction, Totals::plus));
+        return recomputed.toSummary();
+    }
+
+    // Senza riga il lock non tratterrebbe niente: una scrittura concorrente la creerebbe e passerebbe
+    private LedgerTotals lockRow(String ledger) {
+        Optional<LedgerTotals> locked = ledgerTotalsRepository.lockById(ledger);
+        if (locked.isEmpty()) {
+            createRow(ledger);
+            locked = ledgerTotalsRepository.lockById(ledger);
+        }
+        return locked.orElseThrow();
+    }
+
+    // Righe della tabella più aggregati dei segmenti d'archivio
+    private Totals recompute(String ledger) {
+        LedgerSummary totals = transactionRepository.getTotals(ledger);
+        LedgerSummary archived = archiveSegmentRepository.getTotals(ledger);
+        return new Totals(totals.totalRevenueCents() + archived.totalRevenueCents(),
+                totals.totalExpensesCents() + archived.totalExpensesCents(),
+                transactionRepository.countByLedger(ledger) + archiveSegmentRepository.countTransactions(ledger));
+    }
+
+    // Terna immutabile (entrate e spese in centesimi, numero di transazioni)
+    private record Totals(long revenue, long expenses, long count) {
+
+        static final Totals ZERO = new Totals(0L, 0L, 0L);
+
+        static Totals of(LedgerTotals row) {
+            return new Totals(row.getTotalRevenueCents(), row.getTotalExpensesCents(), row.getTransactionCount());
+        }
+
+        static Totals of(Transaction transaction) {
+            long amount = transaction.getAmountCents();
+            if (transaction.getType() == Transaction.TransactionType.INCOME) {
+                return new Totals(amount, 0L, 1L);
+            }
+            if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+                return new Totals(0L, amount, 1L);
+            }
+            return new Totals(0L, 0L, 1L);
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(revenue + other.revenue, expenses + other.expenses, count + other.count);
+        }
+
+        Totals negate() {
+            return new Totals(-revenue, -expenses, -count);
+        }
+
+        LedgerSummary toSummary() {
+            return new LedgerSummary(revenue, expenses);
+        }
+    }
+}
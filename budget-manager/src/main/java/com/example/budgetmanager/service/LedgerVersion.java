@@ -0,0 +1,79 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.Transaction;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* ------------------------------------------------------------------
+Versione del ledger, incrementata dopo il commit di ogni scrittura.
+Usata per le richieste condizionali (ETag / Last-Modified): finché la
+versione non cambia le letture possono rispondere 304 senza
+interrogare il database.
+L'ETag include l'istante di avvio, così i valori emessi prima di un
+riavvio (e di eventuali modifiche fatte nel frattempo) non sono validi.
+------------------------------------------------------------------ */
+
+@Component
+@Order(LedgerVersion.ORDER)
+public class LedgerVersion implements LedgerWriteListener {
+
+    // Dopo gli altri componenti in memoria: chi rilegge dopo la nuova versione vede già i dati aggiornati
+    public static final int ORDER = AggregateCache.ORDER + 10;
+
+    // Versione e istante dell'ultima scrittura, letti sempre insieme
+    private record State(long version, long lastModified) {
+    }
+
+    private final String epoch;
+    private final AtomicReference<State> state;
+
+    public LedgerVersion() {
+        long startedAt = System.currentTimeMillis();
+        this.epoch = Long.toString(startedAt, 36);
+        this.state = new AtomicReference<>(new State(0L, startedAt));
+    }
+
+    public long current() {
+        return state.get().version();
+    }
+
+    // ETag debole della versione corrente (già tra virgolette): la stessa versione può essere servita
+    // in formati e codifiche diverse, e Tomcat non comprime le risposte con un ETag forte
+    public String etag() {
+        return "W/\"" + epoch + "-" + state.get().version() + "\"";
+    }
+
+    // Istante dell'ultima scrittura confermata (o dell'avvio), in millisecondi
+    public long lastModified() {
+        return state.get().lastModified();
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        AfterCommit.run(this::increment);
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        AfterCommit.run(this::increment);
+    }
+
+    // Le righe archiviate spariscono dalle pagine
+    @Override
+    public void onArchived(String ledger, List<Transaction> transactions) {
+        AfterCommit.run(this::increment);
+    }
+
+    // Nuova versione per modifiche che cambiano le pagine senza scrivere nel ledger (budget)
+    public void touch() {
+        increment();
+    }
+
+    private void increment() {
+        long now = System.currentTimeMillis();
+        state.updateAndGet(current -> new State(current.version() + 1, Math.max(now, current.lastModified())));
+    }
+}
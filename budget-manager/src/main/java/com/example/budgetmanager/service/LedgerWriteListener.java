@@ -0,0 +1,26 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.Transaction;
+
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Componente aggiornato da TransactionService a ogni scrittura.
+I metodi vengono chiamati dentro la transazione della scrittura:
+gli aggiornamenti persistiti fanno parte dello stesso commit, quelli in
+memoria vanno applicati con AfterCommit.
+------------------------------------------------------------------ */
+
+public interface LedgerWriteListener {
+
+    // Transazioni appena salvate (già con id)
+    void onAdded(List<Transaction> transactions);
+
+    // Transazione appena eliminata
+    void onDeleted(Transaction transaction);
+
+    // Transazioni di un ledger spostate in un segmento d'archivio: escono dalla tabella ma restano nei totali.
+    // Interessa solo chi lavora sulle righe della tabella (ricerca, cache, versione delle pagine)
+    default void onArchived(String ledger, List<Transaction> transactions) {
+    }
+}
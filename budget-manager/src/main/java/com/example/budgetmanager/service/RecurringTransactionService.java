@@ -0,0 +1,205 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.RecurringDue;
+import com.example.budgetmanager.model.RecurringTransaction;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.recurring.DueQueue;
+import com.example.budgetmanager.recurring.Schedule;
+import com.example.budgetmanager.repository.RecurringTransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Generazione delle transazioni ricorrenti.
+Le date delle prossime occorrenze stanno in una coda a priorità in
+memoria, riempita all'avvio: a ogni controllo si estraggono solo i
+modelli in scadenza, senza scansioni della tabella.
+Ogni modello in scadenza viene generato in una transazione: tutte le
+occorrenze arretrate (fino a oggi) vengono inserite con un solo
+saveAll a batch JDBC e nextDate viene avanzata nella stessa
+transazione, con lock ottimistico. Un riavvio riparte quindi dalla
+prima data non generata, senza duplicati.
+Solo con l'archivio su database: con il journal l'inserimento delle
+occorrenze e l'avanzamento di nextDate non sarebbero atomici.
+------------------------------------------------------------------ */
+
+@Service
+@ConditionalOnExpression("${budget.recurring.enabled:true} and '${budget.storage:jpa}' == 'jpa'")
+public class RecurringTransactionService implements SmartInitializingSingleton {
+
+    // Occorrenze massime per transazione: un arretrato più lungo viene generato in più blocchi
+    public static final int MAX_BATCH = 5_000;
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(RecurringTransactionService.class);
+
+    private record Generated(int count, LocalDate nextDate) {
+    }
+
+    private final RecurringTransactionRepository recurringRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final DueQueue dueQueue = new DueQueue();
+
+    @Autowired
+    public RecurringTransactionService(RecurringTransactionRepository recurringRepository,
+                                       TransactionService transactionService,
+                                       PlatformTransactionManager transactionManager) {
+        this(recurringRepository, transactionService, transactionManager, Clock.systemDefaultZone());
+    }
+
+    public RecurringTransactionService(RecurringTransactionRepository recurringRepository,
+                                       TransactionService transactionService,
+                                       PlatformTransactionManager transactionManager,
+                                       Clock clock) {
+        this.recurringRepository = recurringRepository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    // Riempie la coda prima che partano i job pianificati (il primo controllo recupera gli arretrati)
+    @Override
+    public void afterSingletonsInstantiated() {
+        dueQueue.clear();
+        List<RecurringDue> pending = recurringRepository.findPending();
+        for (RecurringDue due : pending) {
+            // Un modello con una data fuori dalla coda non deve impedire l'avvio: resta nella tabella e si segnala
+            try {
+                dueQueue.add(due.id(), due.nextDate());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Recurring transaction {} cannot be scheduled on {}, skipped", due.id(), due.nextDate());
+            }
+        }
+        log.info("Recurring transactions scheduled: {}, first due on {}", dueQueue.size(), dueQueue.peekDate());
+    }
+
+    @Scheduled(fixedDelayString = "${budget.recurring.check-interval:1m}")
+    public void scheduledRun() {
+        int generated = materializeDue();
+        if (generated > 0) {
+            log.info("Recurring transactions generated: {}", generated);
+        }
+    }
+
+    // Genera tutte le occorrenze con data fino a oggi; restituisce quante transazioni sono state inserite
+    public synchronized int materializeDue() {
+        LocalDate today = LocalDate.now(clock);
+        int generated = 0;
+        List<Long> failed = new ArrayList<>();
+        long id;
+        while ((id = dueQueue.pollDue(today)) > 0) {
+            long templateId = id;
+            try {
+                Generated result = transactionTemplate.execute(status -> materialize(templateId, today));
+                generated += result.count();
+                if (result.nextDate() != null) {
+                    dueQueue.add(templateId, result.nextDate());
+                }
+            } catch (OptimisticLockingFailureException ex) {
+                // Modificato o eliminato nel frattempo: chi l'ha modificato ha già rimesso in coda la nuova data
+                log.warn("Recurring transaction {} changed during generation, skipped", templateId);
+            } catch (RuntimeException ex) {
+                // Nessuna occorrenza inserita (rollback): si riprova al prossimo controllo
+                log.error("Recurring transaction {} could not be generated", templateId, ex);
+                failed.add(templateId);
+            }
+        }
+        failed.forEach(templateId -> dueQueue.add(templateId, today));
+        return generated;
+    }
+
+    private Generated materialize(long id, LocalDate today) {
+        RecurringTransaction template = recurringRepository.findById(id).orElse(null);
+        // Voce superata (modello eliminato o data già avanzata): la voce valida è già in coda
+        if (template == null || template.getNextDate() == null || template.getNextDate().isAfter(today)) {
+            return new Generated(0, null);
+        }
+        Schedule schedule = Schedule.parse(template.getSchedule());
+        List<Transaction> occurrences = new ArrayList<>();
+        LocalDate date = template.getNextDate();
+        while (date != null && !date.isAfter(today) && occurrences.size() < MAX_BATCH) {
+            occurrences.add(template.occurrence(date));
+            date = within(template, schedule.nextAfter(date));
+        }
+        transactionService.addTransactions(occurrences);
+        template.setNextDate(date);
+        recurringRepository.saveAndFlush(template);
+        return new Generated(occurrences.size(), date);
+    }
+
+    // Crea un modello: la prima occorrenza è la prima data del calendario da startDate (oggi se assente)
+    public RecurringTransaction create(RecurringTransaction template) {
+        Schedule schedule = Schedule.parse(template.getSchedule());
+        if (template.getStartDate() == null) {
+            template.setStartDate(LocalDate.now(clock));
+        }
+        if (template.getEndDate() != null && template.getEndDate().isBefore(template.getStartDate())) {
+            throw new IllegalArgumentException("The end date must not be before the start date.");
+        }
+        template.setId(null);
+        template.setSchedule(schedule.expression());
+        // Controllato prima del salvataggio: un modello salvato ma non in coda non verrebbe mai generato
+        if (!DueQueue.accepts(template.getStartDate())) {
+            throw new IllegalArgumentException("The start date must be between " + DueQueue.MIN_DATE + " and "
+                    + DueQueue.MAX_DATE + ".");
+        }
+        template.setNextDate(within(template, schedule.firstOnOrAfter(template.getStartDate())));
+        if (template.getNextDate() != null && !DueQueue.accepts(template.getNextDate())) {
+            throw new IllegalArgumentException("The schedule has no date before " + DueQueue.MAX_DATE + ".");
+        }
+        RecurringTransaction saved = recurringRepository.save(template);
+        if (saved.getNextDate() != null) {
+            dueQueue.add(saved.getId(), saved.getNextDate());
+        }
+        return saved;
+    }
+
+    // Elimina il modello solo se appartiene al ledger indicato
+    public boolean delete(String ledger, Long id) {
+        if (recurringRepository.findById(id).filter(template -> template.getLedger().equals(ledger)).isEmpty()) {
+            return false;
+        }
+        return delete(id);
+    }
+
+    // Le voci in coda di un modello eliminato vengono scartate quando arrivano in scadenza
+    public boolean delete(Long id) {
+        if (!recurringRepository.existsById(id)) {
+            return false;
+        }
+        recurringRepository.deleteById(id);
+        return true;
+    }
+
+    public List<RecurringTransaction> getPage(String ledger, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return recurringRepository.findByLedger(ledger, PageRequest.of(Math.max(0, page), limit, Sort.by("id")));
+    }
+
+    public int pendingCount() {
+        return dueQueue.size();
+    }
+
+    private static LocalDate within(RecurringTransaction template, LocalDate date) {
+        return date == null || (template.getEndDate() != null && date.isAfter(template.getEndDate())) ? null : date;
+    }
+}
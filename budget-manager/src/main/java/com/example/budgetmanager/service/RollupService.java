@@ -0,0 +1,276 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.RollupGranularity;
+import com.example.budgetmanager.model.RollupKey;
+import com.example.budgetmanager.model.RollupPoint;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionRollup;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.repository.TransactionRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/* ------------------------------------------------------------------
+Rollup materializzati per ledger e per giorno, settimana e mese.
+Ogni scrittura aggiorna i bucket coinvolti nella stessa transazione;
+le interrogazioni su intervalli arbitrari combinano bucket mensili e
+giornalieri invece di scansionare le transazioni.
+I bucket comprendono gli anni archiviati: l'archiviazione non li tocca
+e la ricostruzione legge anche le righe dei segmenti.
+La ricostruzione procede un ledger alla volta, ognuno in una propria
+transazione: le scritture su un ledger attendono solo la fine della
+sua ricostruzione, quelle sugli altri ledger proseguono.
+Le transazioni senza data non rientrano in nessun bucket.
+------------------------------------------------------------------ */
+
+@Service
+@Order(RollupService.ORDER)
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class RollupService implements LedgerWriteListener {
+
+    // Aggiornato dopo i totali: le scritture sullo stesso ledger sono già serializzate dal lock sulla sua riga
+    // di riepilogo, quindi l'inserimento di un bucket nuovo non può andare in conflitto con un'altra scrittura
+    public static final int ORDER = LedgerTotalsService.ORDER + 10;
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    // Ogni quante righe svuotare il contesto di persistenza durante la ricostruzione
+    private static final int REBUILD_FLUSH_EVERY = 1000;
+
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerTotalsService ledgerTotalsService;
+    private final ArchiveService archiveService;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RollupService(TransactionRollupRepository rollupRepository,
+                         TransactionRepository transactionRepository,
+                         LedgerTotalsService ledgerTotalsService,
+                         ArchiveService archiveService,
+                         PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerTotalsService = ledgerTotalsService;
+        this.archiveService = archiveService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Al primo avvio con transazioni già presenti i rollup vengono costruiti da zero
+    @PostConstruct
+    void load() {
+        if (rollupRepository.count() == 0 && (transactionRepository.count() > 0 || !archiveService.isEmpty())) {
+            log.info("Rollup tables are empty, building them from transactions");
+            rebuild();
+        }
+    }
+
+    @Override
+    @Transactional
+    public void onAdded(List<Transaction> transactions) {
+        Map<RollupKey, Delta> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            accumulate(deltas, transaction, 1);
+        }
+        apply(deltas);
+    }
+
+    @Override
+    @Transactional
+    public void onDeleted(Transaction transaction) {
+        Map<RollupKey, Delta> deltas = new LinkedHashMap<>();
+        accumulate(deltas, transaction, -1);
+        apply(deltas);
+    }
+
+    // Totali del ledger predefinito
+    @Transactional(readOnly = true)
+    public List<CategoryTotal> summarize(LocalDate from, LocalDate to, Transaction.TransactionType type) {
+        return summarize(Ledgers.DEFAULT, from, to, type);
+    }
+
+    // Totali per categoria e tipo di un ledger nell'intervallo [from, to].
+    // L'intervallo viene scomposto in giorni iniziali, mesi interi e giorni finali: al massimo tre query
+    @Transactional(readOnly = true)
+    public List<CategoryTotal> summarize(String ledger, LocalDate from, LocalDate to,
+                                         Transaction.TransactionType type) {
+        validateRange(from, to);
+        Map<String, CategoryTotal> merged = new LinkedHashMap<>();
+        LocalDate cursor = from;
+
+        // Giorni prima del primo mese intero
+        if (cursor.getDayOfMonth() != 1) {
+            LocalDate headEnd = min(to, cursor.with(TemporalAdjusters.lastDayOfMonth()));
+            merge(merged, rollupRepository.sumByCategory(ledger, RollupGranularity.DAY, cursor, headEnd), type);
+            cursor = headEnd.plusDays(1);
+        }
+
+        // Mesi interamente compresi nell'intervallo
+        LocalDate lastFullMonth = to.equals(to.with(TemporalAdjusters.lastDayOfMonth()))
+                ? to.withDayOfMonth(1)
+                : to.withDayOfMonth(1).minusMonths(1);
+        if (!cursor.isAfter(to) && !lastFullMonth.isBefore(cursor)) {
+            merge(merged, rollupRepository.sumByCategory(ledger, RollupGranularity.MONTH, cursor,
+                    lastFullMonth), type);
+            cursor = lastFullMonth.plusMonths(1);
+        }
+
+        // Giorni rimanenti
+        if (!cursor.isAfter(to)) {
+            merge(merged, rollupRepository.sumByCategory(ledger, RollupGranularity.DAY, cursor, to), type);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    // Serie temporale del ledger predefinito
+    @Transactional(readOnly = true)
+    public List<RollupPoint> series(RollupGranularity granularity, LocalDate from, LocalDate to,
+                                    Transaction.TransactionType type, String category, boolean byCategory) {
+        return series(Ledgers.DEFAULT, granularity, from, to, type, category, byCategory);
+    }
+
+    // Serie temporale dei bucket di un ledger che intersecano [from, to], per categoria o sommata per tipo
+    @Transactional(readOnly = true)
+    public List<RollupPoint> series(String ledger, RollupGranularity granularity, LocalDate from, LocalDate to,
+                                    Transaction.TransactionType type, String category, boolean byCategory) {
+        validateRange(from, to);
+        LocalDate firstBucket = granularity.bucketStart(from);
+        List<TransactionRollupRepository.TotalView> rows = byCategory || category != null
+                ? rollupRepository.seriesByCategory(ledger, granularity, firstBucket, to, type,
+                        category == null || category.isBlank() ? null : category)
+                : rollupRepository.seriesByType(ledger, granularity, firstBucket, to, type);
+        return rows.stream()
+                .map(row -> new RollupPoint(row.getBucketStart(), row.getCategory(), row.getType(),
+                        row.getTotalCents(), row.getTransactions()))
+                .toList();
+    }
+
+    // Ricostruzione da zero di tutti i ledger, uno per transazione (pianificabile con budget.rollups.rebuild-cron).
+    // Restituisce il numero di bucket
+    public long rebuild() {
+        // Anche i ledger rimasti solo con bucket (transazioni eliminate) vengono ricostruiti, cioè svuotati
+        TreeSet<String> ledgers = new TreeSet<>(transactionRepository.findLedgers());
+        ledgers.addAll(archiveService.getLedgers());
+        ledgers.addAll(rollupRepository.findLedgers());
+        long buckets = 0;
+        for (String ledger : ledgers) {
+            Integer rebuilt = transactionTemplate.execute(status -> rebuildInTransaction(ledger));
+            buckets += rebuilt == null ? 0 : rebuilt;
+        }
+        return buckets;
+    }
+
+    @Scheduled(cron = "${budget.rollups.rebuild-cron:-}")
+    void scheduledRebuild() {
+        log.info("Scheduled rollup rebuild completed: {} buckets", rebuild());
+    }
+
+    private int rebuildInTransaction(String ledger) {
+        // Le scritture sul ledger restano in attesa fino al commit della sua ricostruzione
+        ledgerTotalsService.lockLedger(ledger);
+        rollupRepository.deleteLedger(ledger);
+
+        Map<RollupKey, Delta> deltas = new HashMap<>();
+        try (Stream<Transaction> transactions = transactionRepository.streamFiltered(ledger, null, null, null)) {
+            transactions.forEach(transaction -> {
+                accumulate(deltas, transaction, 1);
+                entityManager.detach(transaction);
+            });
+        }
+        archiveService.forEachArchived(ledger, archived -> archived.forEach(
+                transaction -> accumulate(deltas, transaction, 1)));
+
+        int pending = 0;
+        for (Map.Entry<RollupKey, Delta> entry : deltas.entrySet()) {
+            entityManager.persist(new TransactionRollup(entry.getKey(), entry.getValue().total, entry.getValue().count));
+            if (++pending % REBUILD_FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return deltas.size();
+    }
+
+    private static void accumulate(Map<RollupKey, Delta> deltas, Transaction transaction, int sign) {
+        if (transaction.getDate() == null || transaction.getType() == null) {
+            return;
+        }
+        long amount = transaction.getAmountCents();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Delta delta = deltas.computeIfAbsent(RollupKey.of(granularity, transaction), key -> new Delta());
+            delta.total += sign * amount;
+            delta.count += sign;
+        }
+    }
+
+    // Aggiorna i bucket esistenti e crea quelli nuovi
+    private void apply(Map<RollupKey, Delta> deltas) {
+        for (Map.Entry<RollupKey, Delta> entry : deltas.entrySet()) {
+            RollupKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            int updated = rollupRepository.increment(key.getLedger(), key.getGranularity(), key.getBucketStart(),
+                    key.getCategory(), key.getType(), delta.total, delta.count);
+            if (updated == 0) {
+                entityManager.persist(new TransactionRollup(key, delta.total, delta.count));
+            }
+        }
+    }
+
+    private static void merge(Map<String, CategoryTotal> merged, List<TransactionRollupRepository.TotalView> rows,
+                              Transaction.TransactionType type) {
+        for (TransactionRollupRepository.TotalView row : rows) {
+            if (type != null && row.getType() != type) {
+                continue;
+            }
+            merged.merge(row.getCategory() + "|" + row.getType(),
+                    new CategoryTotal(row.getCategory(), row.getType(), row.getTotalCents(), row.getTransactions()),
+                    (a, b) -> new CategoryTotal(a.category(), a.type(), a.totalCents() + b.totalCents(),
+                            a.count() + b.count()));
+        }
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both start and end dates must be defined.");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("The start date must not be after the end date.");
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    // Variazione accumulata per un bucket
+    private static final class Delta {
+        long total;
+        long count;
+    }
+}
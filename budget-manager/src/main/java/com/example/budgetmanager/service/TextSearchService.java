@@ -0,0 +1,115 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.TextSearchResult;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionPage;
+import com.example.budgetmanager.search.InvertedIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/* ------------------------------------------------------------------
+Ricerca testuale su descrizione e categoria (budget.search.enabled).
+Ogni ledger ha il proprio indice invertito, costruito all'avvio prima
+che il server accetti richieste leggendo il ledger a pagine keyset
+(memoria costante, qualunque archivio sia configurato); dopo ogni
+commit viene aggiornato con le transazioni aggiunte o eliminate.
+------------------------------------------------------------------ */
+
+@Service
+@Order(TextSearchService.ORDER)
+@ConditionalOnProperty(name = "budget.search.enabled", havingValue = "true", matchIfMissing = true)
+public class TextSearchService implements LedgerWriteListener, SmartInitializingSingleton {
+
+    // Prima di LedgerVersion: una nuova versione del ledger non viene mai servita con l'indice vecchio
+    public static final int ORDER = AggregateCache.ORDER + 5;
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Le pagine oltre questa posizione non vengono servite (la selezione dei migliori resta limitata)
+    public static final int MAX_RESULTS = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(TextSearchService.class);
+
+    // Risolto in modo differito: TransactionService riceve questo componente tra i suoi writeListeners
+    private final ObjectProvider<TransactionService> transactionService;
+    private final Map<String, InvertedIndex> indexes = new ConcurrentHashMap<>();
+
+    public TextSearchService(ObjectProvider<TransactionService> transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        TransactionService transactions = transactionService.getObject();
+        long documents = 0;
+        for (String ledger : transactions.getLedgers()) {
+            InvertedIndex index = index(ledger);
+            String cursor = null;
+            do {
+                TransactionPage page = transactions.getTransactionsPage(ledger, cursor,
+                        TransactionService.MAX_PAGE_SIZE);
+                index.addAll(page.items());
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            documents += index.stats().documents();
+        }
+        log.info("Search indexes built: {} ledgers, {} transactions in {} ms", indexes.size(), documents,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        Map<String, List<Transaction>> added = transactions.stream()
+                .collect(Collectors.groupingBy(Transaction::getLedger));
+        AfterCommit.run(() -> added.forEach((ledger, group) -> index(ledger).addAll(group)));
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        AfterCommit.run(() -> index(transaction.getLedger()).remove(transaction));
+    }
+
+    // Le righe archiviate escono dall'indice: la ricerca restituisce solo transazioni ancora leggibili per id
+    @Override
+    public void onArchived(String ledger, List<Transaction> transactions) {
+        List<Transaction> archived = List.copyOf(transactions);
+        AfterCommit.run(() -> archived.forEach(index(ledger)::remove));
+    }
+
+    // Ricerca nel ledger predefinito
+    public TextSearchResult search(String query, int page, int size) {
+        return search(Ledgers.DEFAULT, query, page, size);
+    }
+
+    // Pagina (da 0) delle transazioni del ledger che contengono tutte le parole della query, anche come prefisso
+    public TextSearchResult search(String ledger, String query, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (page < 0 || (long) page * limit >= MAX_RESULTS) {
+            throw new IllegalArgumentException("The page must be between 0 and " + (MAX_RESULTS / limit - 1) + ".");
+        }
+        InvertedIndex.Result result = index(Ledgers.of(ledger)).search(query, page * limit, limit);
+        return new TextSearchResult(query, result.total(), result.truncated(), page, limit,
+                transactionService.getObject().getTransactionsById(result.ids()));
+    }
+
+    public InvertedIndex.Stats stats(String ledger) {
+        return index(Ledgers.of(ledger)).stats();
+    }
+
+    private InvertedIndex index(String ledger) {
+        return indexes.computeIfAbsent(ledger, key -> new InvertedIndex());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.budgetmanager.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* ------------------------------------------------------------------
+Formato CSV delle transazioni usato da import ed export.
+Intestazione: date,amount,category,description,type
+I campi possono essere racchiusi tra virgolette (RFC 4180), ma un
+record deve stare su una sola riga.
+------------------------------------------------------------------ */
+
+public final class TransactionCsv {
+
+    public static final String HEADER = "date,amount,category,description,type";
+
+    private TransactionCsv() {
+    }
+
+    // Divide una riga CSV nei suoi campi
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Aggiunge un campo alla riga, tra virgolette solo se necessario
+    public static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.dedup.BloomFilter;
+import com.example.budgetmanager.model.DedupStats;
+import com.example.budgetmanager.model.IngestResult;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.ArchivedDedupKeyRepository;
+import com.example.budgetmanager.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/* ------------------------------------------------------------------
+Ingestione idempotente: le transazioni con una chiave di
+deduplicazione (Transaction.dedupKey, vedi dedup.DedupKeys) già
+presente nel loro ledger non vengono salvate di nuovo, e il chiamante
+riceve la riga esistente.
+Un filtro di Bloom in memoria con le chiavi di tutti i ledger esclude
+senza query le chiavi nuove; solo quelle che il filtro non esclude
+(duplicati veri o falsi positivi) vengono cercate sul database, a
+blocchi per ledger. L'indice unico (ledger, dedup_key) resta la
+garanzia: se due richieste con la stessa chiave si sovrappongono, la
+seconda fallisce al commit e viene ripetuta una volta cercando ogni
+chiave sul database, così risponde con la riga salvata dalla prima.
+Le chiavi delle righe archiviate (ArchivedDedupKey) fanno parte del
+filtro e delle ricerche come le altre: la riga esistente restituita è
+quella letta dal segmento del suo anno.
+Va chiamato fuori da una transazione (il nuovo tentativo ne apre una).
+Le chiavi delle righe eliminate restano nel filtro fino al riavvio:
+costano solo una query in più.
+------------------------------------------------------------------ */
+
+@Service
+@Order(TransactionDeduplicator.ORDER)
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class TransactionDeduplicator implements LedgerWriteListener, SmartInitializingSingleton {
+
+    public static final int ORDER = AggregateCache.ORDER + 5;
+
+    // Chiavi cercate con una sola query IN
+    private static final int LOOKUP_BATCH = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionDeduplicator.class);
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedDedupKeyRepository archivedKeyRepository;
+    // Assente in alcune configurazioni di test: senza archivio non ci sono chiavi archiviate
+    private final ObjectProvider<ArchiveService> archive;
+    // Risolto in modo differito: TransactionService riceve questo componente tra i suoi writeListeners
+    private final ObjectProvider<TransactionService> transactionService;
+    private final TransactionTemplate readOnlyTemplate;
+    private final BloomFilter filter;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public TransactionDeduplicator(TransactionRepository transactionRepository,
+                                   ArchivedDedupKeyRepository archivedKeyRepository,
+                                   ObjectProvider<ArchiveService> archive,
+                                   ObjectProvider<TransactionService> transactionService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${budget.dedup.expected-keys:1000000}") long expectedKeys,
+                                   @Value("${budget.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.transactionRepository = transactionRepository;
+        this.archivedKeyRepository = archivedKeyRepository;
+        this.archive = archive;
+        this.transactionService = transactionService;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.filter = new BloomFilter(expectedKeys, falsePositiveRate);
+    }
+
+    // Il filtro viene riempito con le chiavi già salvate prima di accettare richieste
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<String> keys = transactionRepository.streamDedupKeys()) {
+                keys.forEach(filter::add);
+            }
+            try (Stream<String> keys = archivedKeyRepository.streamDedupKeys()) {
+                keys.forEach(filter::add);
+            }
+        });
+        BloomFilter.Stats stats = filter.stats();
+        log.info("Deduplication filter built: {} keys, {} KiB in {} ms", stats.keys(), stats.bits() / 8 / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Salva la transazione se la sua chiave non è già presente nel ledger
+    public IngestResult add(Transaction transaction) {
+        return addAll(List.of(transaction)).get(0);
+    }
+
+    // Salva in un'unica transazione le righe nuove del blocco; gli esiti seguono l'ordine delle transazioni.
+    // Le righe senza chiave vengono sempre salvate, quelle con la stessa chiave di una riga precedente
+    // del blocco sono duplicati di quella
+    public List<IngestResult> addAll(List<Transaction> transactions) {
+        try {
+            return ingest(transactions, false);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Duplicate key saved concurrently, checking every key: {}", e.getMessage());
+            // Gli id assegnati prima del rollback non esistono nel database
+            transactions.forEach(transaction -> transaction.setId(null));
+            return ingest(transactions, true);
+        }
+    }
+
+    public DedupStats stats() {
+        BloomFilter.Stats stats = filter.stats();
+        return new DedupStats(stats.keys(), stats.layers(), stats.bits(), checks.sum(), lookups.sum(),
+                duplicates.sum(), falsePositives.sum());
+    }
+
+    @Override
+    public void onAdded(List<Transaction> transactions) {
+        List<String> keys = transactions.stream()
+                .filter(transaction -> transaction.getDedupKey() != null)
+                .map(transaction -> entry(transaction.getLedger(), transaction.getDedupKey()))
+                .toList();
+        if (!keys.isEmpty()) {
+            AfterCommit.run(() -> keys.forEach(filter::add));
+        }
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+    }
+
+    // checkAll: cerca sul database anche le chiavi escluse dal filtro (nuovo tentativo dopo un conflitto)
+    private List<IngestResult> ingest(List<Transaction> transactions, boolean checkAll) {
+        // Prima riga del blocco con ogni chiave, e chiavi da cercare per ledger
+        Map<String, Integer> first = new HashMap<>();
+        Map<String, Set<String>> candidates = new HashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction.getDedupKey() == null) {
+                continue;
+            }
+            checks.increment();
+            String entry = entry(transaction.getLedger(), transaction.getDedupKey());
+            if (first.putIfAbsent(entry, i) == null && (checkAll || filter.mightContain(entry))) {
+                candidates.computeIfAbsent(transaction.getLedger(), ledger -> new LinkedHashSet<>())
+                        .add(transaction.getDedupKey());
+            }
+        }
+        Map<String, Transaction> existing = lookup(candidates, checkAll);
+
+        // Righe da salvare; per le altre la riga esistente o la prima del blocco con la stessa chiave
+        List<Transaction> fresh = new ArrayList<>();
+        int[] freshIndex = new int[transactions.size()];
+        Arrays.fill(freshIndex, -1);
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            String entry = transaction.getDedupKey() == null ? null
+                    : entry(transaction.getLedger(), transaction.getDedupKey());
+            if (entry == null || (!existing.containsKey(entry) && first.get(entry) == i)) {
+                freshIndex[i] = fresh.size();
+                fresh.add(transaction);
+            }
+        }
+        List<Transaction> saved = fresh.isEmpty() ? List.of() : transactionService.getObject().addTransactions(fresh);
+
+        List<IngestResult> results = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            if (freshIndex[i] >= 0) {
+                results.add(new IngestResult(saved.get(freshIndex[i]), false));
+                continue;
+            }
+            Transaction transaction = transactions.get(i);
+            String entry = entry(transaction.getLedger(), transaction.getDedupKey());
+            Transaction original = existing.get(entry);
+            results.add(new IngestResult(original != null ? original : saved.get(freshIndex[first.get(entry)]), true));
+            duplicates.increment();
+        }
+        return results;
+    }
+
+    // Righe già salvate con le chiavi candidate, per "ledger:chiave": prima nella tabella, poi fra quelle archiviate
+    private Map<String, Transaction> lookup(Map<String, Set<String>> candidates, boolean checkAll) {
+        Map<String, Transaction> existing = new HashMap<>();
+        ArchiveService archived = archive.getIfAvailable();
+        candidates.forEach((ledger, keys) -> {
+            List<String> list = List.copyOf(keys);
+            for (int from = 0; from < list.size(); from += LOOKUP_BATCH) {
+                List<String> chunk = list.subList(from, Math.min(list.size(), from + LOOKUP_BATCH));
+                lookups.add(chunk.size());
+                for (Transaction transaction : transactionRepository.findByLedgerAndDedupKeyIn(ledger, chunk)) {
+                    existing.put(entry(ledger, transaction.getDedupKey()), transaction);
+                }
+            }
+            if (archived != null) {
+                List<String> missing = list.stream().filter(key -> !existing.containsKey(entry(ledger, key))).toList();
+                archived.findByDedupKeys(ledger, missing)
+                        .forEach((key, transaction) -> existing.put(entry(ledger, key), transaction));
+            }
+            if (!checkAll) {
+                falsePositives.add(keys.stream().filter(key -> !existing.containsKey(entry(ledger, key))).count());
+            }
+        });
+        return existing;
+    }
+
+    // I ledger non contengono ':' (vedi Ledgers): ledger e chiave non si confondono
+    private static String entry(String ledger, String key) {
+        return ledger + ":" + key;
+    }
+}
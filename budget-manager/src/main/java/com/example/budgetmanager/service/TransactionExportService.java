@@ -0,0 +1,160 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Money;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/* ------------------------------------------------------------------
+Export delle transazioni in CSV, NDJSON o CBOR (un oggetto CBOR per
+transazione, uno dopo l'altro: più compatto e più veloce da scrivere
+e da leggere dell'NDJSON).
+Le righe arrivano da un cursore forward-only sul database e vengono
+scritte subito sullo stream di uscita, staccandole dal contesto di
+persistenza: la memoria usata non dipende dal numero di righe.
+------------------------------------------------------------------ */
+
+@Service
+@ConditionalOnProperty(name = "budget.storage", havingValue = "jpa", matchIfMissing = true)
+public class TransactionExportService {
+
+    // Ogni quante righe forzare il flush verso il client
+    private static final int FLUSH_EVERY = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter cborWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TransactionExportService(TransactionRepository transactionRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        // Un oggetto JSON per riga: il separatore tra valori radice è l'a capo
+        this.jsonWriter = objectMapper.writerFor(Transaction.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Stessa configurazione dell'ObjectMapper dell'applicazione (date ISO, campi esclusi)
+        this.cborWriter = objectMapper.copyWith(new CBORFactory()).writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Export del ledger predefinito
+    public long export(TransactionFormat format, TransactionFilter filter, OutputStream out) throws IOException {
+        return export(Ledgers.DEFAULT, format, filter, out);
+    }
+
+    // Scrive le transazioni di un ledger che soddisfano il filtro e restituisce il numero di righe esportate
+    public long export(String ledger, TransactionFormat format, TransactionFilter filter, OutputStream out)
+            throws IOException {
+        String scope = Ledgers.of(ledger);
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                try (Stream<Transaction> transactions = transactionRepository.streamFiltered(
+                        scope, filter.from(), filter.to(), filter.category())) {
+                    return switch (format) {
+                        case CSV -> writeCsv(transactions.iterator(), out);
+                        case NDJSON -> writeNdjson(transactions.iterator(), out);
+                        case CBOR -> writeSequence(cborWriter, transactions.iterator(), out);
+                    };
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            // Tipicamente il client ha chiuso la connessione
+            throw e.getCause();
+        }
+    }
+
+    private long writeCsv(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(TransactionCsv.HEADER);
+        writer.write('\n');
+
+        StringBuilder line = new StringBuilder(128);
+        long rows = 0;
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            line.setLength(0);
+            if (transaction.getDate() != null) {
+                line.append(transaction.getDate());
+            }
+            line.append(',');
+            Money.append(line, transaction.getAmountCents());
+            line.append(',');
+            TransactionCsv.appendField(line, transaction.getCategory());
+            line.append(',');
+            TransactionCsv.appendField(line, transaction.getDescription());
+            line.append(',');
+            if (transaction.getType() != null) {
+                line.append(transaction.getType().name());
+            }
+            line.append('\n');
+            writer.append(line);
+            entityManager.detach(transaction);
+
+            if (++rows % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        long rows = writeSequence(jsonWriter, transactions, out);
+        if (rows > 0) {
+            out.write('\n');
+        }
+        return rows;
+    }
+
+    // Valori radice uno dopo l'altro (in JSON separati dall'a capo del writer)
+    private long writeSequence(ObjectWriter writer, Iterator<Transaction> transactions, OutputStream out)
+            throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            // Lo stream di uscita viene chiuso dal chiamante
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (transactions.hasNext()) {
+                Transaction transaction = transactions.next();
+                writer.writeValue(generator, transaction);
+                entityManager.detach(transaction);
+
+                if (++rows % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return rows;
+    }
+}
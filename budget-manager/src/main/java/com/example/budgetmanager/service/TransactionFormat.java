@@ -0,0 +1,44 @@
+package com.example.budgetmanager.service;
+
+import org.springframework.http.MediaType;
+
+/* ------------------------------------------------------------------
+Formati supportati per import ed export delle transazioni.
+CBOR (una sequenza di oggetti CBOR, RFC 8742) è solo per l'export.
+------------------------------------------------------------------ */
+
+public enum TransactionFormat {
+
+    CSV(new MediaType("text", "csv")),
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CBOR(new MediaType("application", "cbor-seq"));
+
+    private final MediaType mediaType;
+
+    TransactionFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    // Formato a partire dal nome (parametro "format") o, in mancanza, dal Content-Type
+    public static TransactionFormat resolve(String name, MediaType contentType) {
+        if (name != null && !name.isBlank()) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported format: " + name);
+            }
+        }
+        if (contentType != null) {
+            for (TransactionFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(contentType)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format, use text/csv or application/x-ndjson");
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.dedup.DedupKeys;
+import com.example.budgetmanager.model.ImportReport;
+import com.example.budgetmanager.model.IngestResult;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Money;
+import com.example.budgetmanager.model.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/* ------------------------------------------------------------------
+Import massivo di transazioni da CSV o NDJSON.
+Il corpo della richiesta viene letto riga per riga (senza caricare il
+file in memoria), ogni riga è validata con i validatori di Transaction
+e le righe valide vengono salvate a blocchi di budget.import.batch-size,
+ognuno in una transazione con INSERT raggruppati in batch JDBC.
+Le righe con una chiave di idempotenza (colonna idempotency_key o
+campo idempotencyKey) o, con dedup, con lo stesso contenuto di una
+riga già salvata vengono contate come duplicati e non salvate: il
+file di un estratto conto si può ricaricare senza raddoppiarlo.
+------------------------------------------------------------------ */
+
+@Service
+public class TransactionImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionImportService.class);
+
+    private final TransactionService transactionService;
+    // Null con l'archivio journal: le righe con chiave vengono scartate
+    private final TransactionDeduplicator deduplicator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @Autowired
+    public TransactionImportService(TransactionService transactionService,
+                                    ObjectProvider<TransactionDeduplicator> deduplicator,
+                                    ObjectMapper objectMapper,
+                                    @Value("${budget.import.batch-size:500}") int batchSize) {
+        this(transactionService, deduplicator.getIfAvailable(), objectMapper, batchSize);
+    }
+
+    public TransactionImportService(TransactionService transactionService,
+                                    TransactionDeduplicator deduplicator,
+                                    ObjectMapper objectMapper,
+                                    int batchSize) {
+        this.transactionService = transactionService;
+        this.deduplicator = deduplicator;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Importa nel ledger predefinito
+    public ImportReport importTransactions(InputStream input, TransactionFormat format) throws IOException {
+        return importTransactions(Ledgers.DEFAULT, input, format);
+    }
+
+    // Importa nel ledger indicato le transazioni lette dallo stream nel formato indicato
+    public ImportReport importTransactions(String ledger, InputStream input, TransactionFormat format)
+            throws IOException {
+        return importTransactions(ledger, input, format, false);
+    }
+
+    // Con dedup le righe senza chiave di idempotenza sono deduplicate per contenuto
+    public ImportReport importTransactions(String ledger, InputStream input, TransactionFormat format, boolean dedup)
+            throws IOException {
+        if (format == TransactionFormat.CBOR) {
+            throw new IllegalArgumentException("Unsupported import format, use text/csv or application/x-ndjson");
+        }
+        if (dedup && deduplicator == null) {
+            throw new IllegalArgumentException("Deduplication is not available with the journal storage.");
+        }
+        String scope = Ledgers.of(ledger);
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        List<Transaction> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = null;
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == TransactionFormat.CSV && columns == null) {
+                // La prima riga del CSV è l'intestazione (se non è valida l'import viene rifiutato)
+                columns = parseHeader(line);
+                continue;
+            }
+            try {
+                Row row = format == TransactionFormat.CSV ? parseCsv(line, columns) : parseJson(line);
+                Transaction transaction = row.toTransaction();
+                transaction.setLedger(scope);
+                transaction.setDedupKey(DedupKeys.of(transaction, row.idempotencyKey(), dedup));
+                if (transaction.getDedupKey() != null && deduplicator == null) {
+                    throw new IllegalArgumentException("Idempotency keys are not available with the journal storage.");
+                }
+                batch.add(transaction);
+            } catch (IllegalArgumentException e) {
+                progress.reject(lineNumber, e.getMessage());
+                continue;
+            }
+
+            if (batch.size() == batchSize) {
+                flush(batch, progress);
+            }
+        }
+        flush(batch, progress);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = elapsedMillis == 0 ? progress.imported : progress.imported * 1000.0 / elapsedMillis;
+        log.info("Imported {} transactions ({} rejected, {} duplicates) in {} ms ({} rows/s)",
+                progress.imported, progress.rejected, progress.duplicates, elapsedMillis, Math.round(rowsPerSecond));
+        return new ImportReport(progress.imported, progress.rejected, progress.duplicates, progress.errors,
+                progress.rejected > progress.errors.size(), elapsedMillis, rowsPerSecond);
+    }
+
+    // Salva il blocco corrente in un'unica transazione
+    private void flush(List<Transaction> batch, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (deduplicator != null) {
+            for (IngestResult result : deduplicator.addAll(batch)) {
+                if (result.duplicate()) {
+                    progress.duplicates++;
+                } else {
+                    progress.imported++;
+                }
+            }
+        } else {
+            transactionService.addTransactions(batch);
+            progress.imported += batch.size();
+        }
+        batch.clear();
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = TransactionCsv.parseLine(line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("date", "amount", "category", "type")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing CSV column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private Row parseCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = TransactionCsv.parseLine(line);
+        try {
+            String amount = field(fields, columns, "amount");
+            String date = field(fields, columns, "date");
+            String type = field(fields, columns, "type");
+            return new Row(
+                    date == null ? null : LocalDate.parse(date),
+                    null,
+                    amount == null ? null : Money.parseCents(amount),
+                    field(fields, columns, "category"),
+                    field(fields, columns, "description"),
+                    type == null ? null : Transaction.TransactionType.valueOf(type.toUpperCase(Locale.ROOT)),
+                    field(fields, columns, "idempotency_key"));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + e.getParsedString());
+        }
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Row parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, Row.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // Riga letta dal file, prima della validazione.
+    // L'importo arriva come decimale (amount, letto senza passare da double) oppure in centesimi (amountCents)
+    record Row(LocalDate date, BigDecimal amount, Long amountCents, String category, String description,
+               Transaction.TransactionType type, String idempotencyKey) {
+
+        // Crea la transazione con il costruttore che applica la validazione
+        Transaction toTransaction() {
+            if (type == null) {
+                throw new IllegalArgumentException("The type must be defined.");
+            }
+            long cents = amountCents != null ? amountCents : Money.toCents(amount);
+            return new Transaction(cents, category, description, date, type);
+        }
+    }
+
+    // Contatori dell'import in corso
+    private static final class Progress {
+        long imported;
+        long rejected;
+        long duplicates;
+        final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < ImportReport.MAX_ERRORS) {
+                errors.add(new ImportReport.RowError(line, message));
+            }
+        }
+    }
+}
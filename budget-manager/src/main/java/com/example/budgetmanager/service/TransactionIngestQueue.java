@@ -0,0 +1,234 @@
+package com.example.budgetmanager.service;
+
+import com.example.budgetmanager.model.IngestResult;
+import com.example.budgetmanager.model.Transaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/* ------------------------------------------------------------------
+Ingestione asincrona (write-behind) delle nuove transazioni.
+Le transazioni accettate finiscono in una coda limitata; un unico
+thread le preleva a gruppi (fino a batch-size, aspettando al massimo
+linger dopo la prima) e le salva con addTransactions: un solo commit
+per gruppo invece di uno per richiesta.
+Con la coda piena submit rifiuta la transazione (429). Il future
+restituito si completa dopo il commit: chi vuole la conferma di
+persistenza lo attende con awaitDurable.
+Le transazioni con una chiave di deduplicazione passano per
+TransactionDeduplicator: un duplicato completa il future con la riga
+già salvata. Senza attesa del commit la risposta a una richiesta
+ripetuta resta 202, come per la prima.
+------------------------------------------------------------------ */
+
+@Service
+@ConditionalOnProperty(name = "budget.ingest.async.enabled", havingValue = "true")
+public class TransactionIngestQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIngestQueue.class);
+
+    // Ogni quanto il writer inattivo controlla se deve fermarsi
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private record Pending(Transaction transaction, CompletableFuture<IngestResult> saved) {
+    }
+
+    private final TransactionService transactionService;
+    // Null con l'archivio journal: le transazioni vengono salvate tutte
+    private final TransactionDeduplicator deduplicator;
+    private final BlockingQueue<Pending> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Duration ackTimeout;
+    private final DistributionSummary batchSizes;
+    private final Thread writer;
+
+    private volatile boolean stopped;
+
+    @Autowired
+    public TransactionIngestQueue(TransactionService transactionService,
+                                  @Value("${budget.ingest.queue-capacity:10000}") int capacity,
+                                  @Value("${budget.ingest.batch-size:500}") int batchSize,
+                                  @Value("${budget.ingest.linger:5ms}") Duration linger,
+                                  @Value("${budget.ingest.ack-timeout:30s}") Duration ackTimeout,
+                                  ObjectProvider<MeterRegistry> meterRegistry,
+                                  ObjectProvider<TransactionDeduplicator> deduplicator) {
+        this(transactionService, capacity, batchSize, linger, ackTimeout, meterRegistry.getIfAvailable(),
+                deduplicator.getIfAvailable());
+    }
+
+    public TransactionIngestQueue(TransactionService transactionService, int capacity, int batchSize,
+                                  Duration linger, Duration ackTimeout, MeterRegistry meterRegistry) {
+        this(transactionService, capacity, batchSize, linger, ackTimeout, meterRegistry, null);
+    }
+
+    public TransactionIngestQueue(TransactionService transactionService, int capacity, int batchSize,
+                                  Duration linger, Duration ackTimeout, MeterRegistry meterRegistry,
+                                  TransactionDeduplicator deduplicator) {
+        if (capacity < 1 || batchSize < 1 || linger.isNegative()) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive, linger not negative");
+        }
+        this.transactionService = transactionService;
+        this.deduplicator = deduplicator;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.ackTimeout = ackTimeout;
+        this.writer = new Thread(this::drain, "transaction-ingest-writer");
+        if (meterRegistry != null) {
+            Gauge.builder("budget.ingest.queue", queue, BlockingQueue::size)
+                    .description("Transactions waiting in the ingestion queue")
+                    .register(meterRegistry);
+            this.batchSizes = DistributionSummary.builder("budget.ingest.batch")
+                    .description("Transactions saved per group commit")
+                    .baseUnit("transactions")
+                    .register(meterRegistry);
+        } else {
+            this.batchSizes = null;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    // Allo spegnimento il writer svuota la coda prima di terminare
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        writer.join();
+    }
+
+    // Accoda una transazione già validata; il future si completa con la transazione salvata (con id)
+    public CompletableFuture<Transaction> submit(Transaction transaction) {
+        return enqueue(transaction).thenApply(IngestResult::transaction);
+    }
+
+    // Come submit, con l'indicazione dei duplicati (la transazione è quella già salvata)
+    public CompletableFuture<IngestResult> enqueue(Transaction transaction) {
+        if (transaction.getDedupKey() != null && deduplicator == null) {
+            throw new IllegalArgumentException("Deduplication is not available with the journal storage.");
+        }
+        Pending pending = new Pending(transaction, new CompletableFuture<>());
+        if (stopped || !queue.offer(pending)) {
+            throw new IngestQueueFullException(capacity);
+        }
+        return pending.saved();
+    }
+
+    // Attende il commit fino ad ack-timeout: null se la transazione è ancora in coda allo scadere
+    public <T> T awaitDurable(CompletableFuture<T> saved) {
+        try {
+            return saved.get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Nessuna interruzione prevista: si termina dopo aver salvato quanto già prelevato
+                stopped = true;
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Completa il gruppo con le transazioni in coda, aspettando al massimo linger dopo la prima
+    private void fill(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // Un commit per l'intero gruppo; se fallisce le transazioni vengono salvate una alla volta,
+    // così l'errore riguarda solo quelle non valide
+    private void write(List<Pending> batch) {
+        if (batchSizes != null) {
+            batchSizes.record(batch.size());
+        }
+        try {
+            List<IngestResult> saved = save(batch.stream().map(Pending::transaction).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).saved().complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} transactions failed, saving them one by one: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                try {
+                    // Gli id assegnati prima del rollback non esistono nel database
+                    pending.transaction().setId(null);
+                    pending.saved().complete(save(List.of(pending.transaction())).get(0));
+                } catch (RuntimeException single) {
+                    pending.saved().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private List<IngestResult> save(List<Transaction> transactions) {
+        if (deduplicator != null) {
+            return deduplicator.addAll(transactions);
+        }
+        return transactionService.addTransactions(transactions).stream()
+                .map(transaction -> new IngestResult(transaction, false))
+                .toList();
+    }
+}
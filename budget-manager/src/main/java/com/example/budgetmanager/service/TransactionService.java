@@ -1,80 +1,309 @@
 package com.example.budgetmanager.service;
 
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Ledgers;
 import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.Transaction.TransactionType;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.model.TransactionPage;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.repository.JpaLedgerStore;
+import com.example.budgetmanager.repository.LedgerStore;
 import com.example.budgetmanager.repository.TransactionRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+// Tempi di ogni metodo pubblico (budget.service, tag class e method).
+// Letture ed eliminazioni riguardano un solo ledger: i metodi senza ledger usano quello predefinito,
+// le nuove transazioni finiscono nel ledger indicato in Transaction.getLedger.
+// Totali e riepiloghi comprendono gli anni archiviati (ArchiveService), liste e ricerche solo le righe non archiviate
 @Service
+@Timed(value = "budget.service", histogram = true)
 public class TransactionService {
 
-    private final TransactionRepository transactionRepository;
+    // Dimensioni delle pagine per la paginazione keyset
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
 
-    // Constructor injection
-    @Autowired
-    public TransactionService(TransactionRepository transactionRepository) {
-        this.transactionRepository = transactionRepository;
+    // Voci della cache delle aggregazioni, con il tipo di transazioni da cui dipendono (calcolate per ledger)
+    static final AggregateCache.Key LEDGER_SUMMARY = new AggregateCache.Key("ledger-summary", null, null);
+    static final AggregateCache.Key TOTAL_REVENUE = new AggregateCache.Key("total-revenue", TransactionType.INCOME, null);
+    static final AggregateCache.Key TOTAL_EXPENSES = new AggregateCache.Key("total-expenses", TransactionType.EXPENSE, null);
+    static final AggregateCache.Key EXPENSE_CATEGORY_SUMMARY =
+            new AggregateCache.Key("expense-category-summary", TransactionType.EXPENSE, null);
+
+    // Archivio delle transazioni: database (predefinito) oppure journal (budget.storage=journal)
+    private final LedgerStore ledgerStore;
+
+    // Totali incrementali (null: i totali vengono calcolati con le query di aggregazione)
+    private final LedgerTotalsService ledgerTotalsService;
+
+    // Cache dei risultati delle query di aggregazione (null: ogni lettura interroga il database).
+    // Per essere invalidata deve comparire anche tra i writeListeners
+    private final AggregateCache aggregateCache;
+
+    // Segmenti d'archivio degli anni vecchi (null: tutte le transazioni stanno nel LedgerStore)
+    private final ArchiveService archive;
+
+    // Componenti aggiornati a ogni scrittura (totali, rollup, ...)
+    private final List<LedgerWriteListener> writeListeners;
+
+    // Constructor injection: i componenti facoltativi sono null quando non sono configurati, e senza un
+    // LedgerStore configurato le transazioni stanno nel database. I writeListeners arrivano nell'ordine di @Order
+    public TransactionService(TransactionRepository transactionRepository,
+                              @Nullable LedgerStore ledgerStore,
+                              @Nullable LedgerTotalsService ledgerTotalsService,
+                              @Nullable AggregateCache aggregateCache,
+                              @Nullable ArchiveService archive,
+                              List<LedgerWriteListener> writeListeners) {
+        this.ledgerStore = ledgerStore != null ? ledgerStore : new JpaLedgerStore(transactionRepository);
+        this.ledgerTotalsService = ledgerTotalsService;
+        this.aggregateCache = aggregateCache;
+        this.archive = archive;
+        this.writeListeners = List.copyOf(writeListeners);
     }
 
-    // Aggiunge una transazione
+    // Aggiunge una transazione (e aggiorna i dati derivati nella stessa transazione).
+    // L'id ricevuto viene scartato: i writeListeners contano ogni riga in onAdded come nuova, e un save con l'id
+    // di una riga esistente la modificherebbe senza toglierne i valori vecchi dai totali
+    @Transactional
     public Transaction addTransaction(Transaction transaction) {
-        return transactionRepository.save(transaction);
+        transaction.setId(null);
+        Transaction saved = ledgerStore.save(transaction);
+        List<Transaction> added = List.of(saved);
+        writeListeners.forEach(listener -> listener.onAdded(added));
+        return saved;
+    }
+
+    // Aggiunge un blocco di transazioni in un'unica transazione (INSERT raggruppati in batch JDBC)
+    @Transactional
+    public List<Transaction> addTransactions(List<Transaction> transactions) {
+        transactions.forEach(transaction -> transaction.setId(null)); // sempre INSERT, come in addTransaction
+        List<Transaction> saved = ledgerStore.saveAll(transactions);
+        writeListeners.forEach(listener -> listener.onAdded(saved));
+        return saved;
     }
 
-    // Recupera una transazione per ID
+    // Recupera una transazione del ledger predefinito per ID
     public Optional<Transaction> getTransactionById(Long id) {
+        return getTransactionById(Ledgers.DEFAULT, id);
+    }
+
+    // Recupera una transazione per ID (vuoto se appartiene a un altro ledger)
+    public Optional<Transaction> getTransactionById(String ledger, Long id) {
         if (id == null) {
             return Optional.empty();
         }
-        return transactionRepository.findById(id);
+        String scope = Ledgers.of(ledger);
+        return ledgerStore.findById(id).filter(transaction -> transaction.getLedger().equals(scope));
     }
 
-    // Recupera tutte le transazioni
+    // Recupera le transazioni con gli id indicati, nello stesso ordine (gli id non più presenti vengono saltati).
+    // Gli id sono unici fra tutti i ledger: il chiamante li ha già ottenuti da un ledger preciso
+    public List<Transaction> getTransactionsById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Transaction> found = ledgerStore.findAllById(ids).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    // Ledger con almeno una transazione (anche solo archiviata), in ordine alfabetico
+    public List<String> getLedgers() {
+        if (archive == null || archive.isEmpty()) {
+            return ledgerStore.findLedgers();
+        }
+        TreeSet<String> ledgers = new TreeSet<>(ledgerStore.findLedgers());
+        ledgers.addAll(archive.getLedgers());
+        return List.copyOf(ledgers);
+    }
+
+    // Recupera tutte le transazioni del ledger predefinito
     public List<Transaction> getAllTransactions() {
-        List<Transaction> transactions = transactionRepository.findAll();
+        return getAllTransactions(Ledgers.DEFAULT);
+    }
+
+    // Recupera tutte le transazioni di un ledger (ordinate per data decrescente direttamente dall'archivio).
+    // Carica l'intero ledger in memoria: per le liste usare getTransactionsPage
+    public List<Transaction> getAllTransactions(String ledger) {
+        return ledgerStore.findAllOrdered(Ledgers.of(ledger));
+    }
+
+    // Pagina di transazioni del ledger predefinito
+    public TransactionPage getTransactionsPage(String cursor, int size) {
+        return getTransactionsPage(Ledgers.DEFAULT, cursor, size);
+    }
+
+    // Recupera una pagina di transazioni di un ledger a partire dal cursore (null per la prima pagina).
+    // Il costo dipende solo dalla dimensione della pagina, non da quella del ledger
+    public TransactionPage getTransactionsPage(String ledger, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+
+        // Si chiede un elemento in più per sapere se esiste una pagina successiva
+        List<Transaction> items = ledgerStore.findPage(Ledgers.of(ledger), after, limit + 1);
+        if (items.size() <= limit) {
+            return new TransactionPage(items, null);
+        }
+        List<Transaction> page = items.subList(0, limit);
+        return new TransactionPage(page, TransactionCursor.after(page.get(limit - 1)).encode());
+    }
+
+    // Ricerca filtrata nel ledger predefinito
+    public TransactionSearchResult search(TransactionFilter filter, String cursor, int size) {
+        return search(Ledgers.DEFAULT, filter, cursor, size);
+    }
 
-        // Ordina le transazioni per data decrescente
-        transactions.sort((t1, t2) -> t2.getDate().compareTo(t1.getDate()));
-        
-        return transactions;
+    // Ricerca filtrata in un ledger con paginazione keyset (stesso ordinamento e cursore di getTransactionsPage).
+    // Gli aggregati di tutte le transazioni che soddisfano il filtro vengono calcolati con la prima pagina
+    public TransactionSearchResult search(String ledger, TransactionFilter filter, String cursor, int size) {
+        String scope = Ledgers.of(ledger);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        List<Transaction> items = ledgerStore.search(scope, filter, after, limit + 1);
+        FilteredTotals totals = after == null ? ledgerStore.getFilteredTotals(scope, filter) : null;
+        if (items.size() <= limit) {
+            return new TransactionSearchResult(items, null, totals);
+        }
+        List<Transaction> page = items.subList(0, limit);
+        return new TransactionSearchResult(page, TransactionCursor.after(page.get(limit - 1)).encode(), totals);
+    }
+
+    // Ultime n transazioni del ledger predefinito
+    public List<Transaction> getLatestTransactions(int n) {
+        return getLatestTransactions(Ledgers.DEFAULT, n);
+    }
+
+    // Recupera le ultime n transazioni di un ledger (prima pagina dell'indice per data)
+    public List<Transaction> getLatestTransactions(String ledger, int n) {
+        int limit = Math.max(1, Math.min(n, MAX_PAGE_SIZE));
+        return ledgerStore.findPage(Ledgers.of(ledger), null, limit);
+    }
+
+    // Entrate, spese e saldo del ledger predefinito
+    public LedgerSummary getLedgerSummary() {
+        return getLedgerSummary(Ledgers.DEFAULT);
     }
 
-    // Calcola il balance totale
-    public double getBalance() {
-        return getTotalRevenue() - getTotalExpenses();
+    // Calcola entrate, spese e saldo di un ledger (O(1) con i totali incrementali, altrimenti con una sola query)
+    public LedgerSummary getLedgerSummary(String ledger) {
+        String scope = Ledgers.of(ledger);
+        if (ledgerTotalsService != null) {
+            return ledgerTotalsService.current(scope);
+        }
+        return cached(LEDGER_SUMMARY.forLedger(scope), () -> {
+            LedgerSummary totals = ledgerStore.getTotals(scope);
+            ArchiveService.Summary archived = archived(scope);
+            return new LedgerSummary(totals.totalRevenueCents() + archived.revenueCents(),
+                    totals.totalExpensesCents() + archived.expensesCents());
+        });
+    }
+
+    // Calcola il balance totale del ledger predefinito (in centesimi)
+    public long getBalanceCents() {
+        return getBalanceCents(Ledgers.DEFAULT);
     }
 
-    // Elimina una transazione per ID
+    // Calcola il balance totale di un ledger (in centesimi)
+    public long getBalanceCents(String ledger) {
+        return getLedgerSummary(ledger).balanceCents();
+    }
+
+    // Elimina una transazione del ledger predefinito
+    @Transactional
     public boolean deleteTransaction(Long id) {
-        if (transactionRepository.existsById(id)) {
-            transactionRepository.deleteById(id);
-            return true;
+        return deleteTransaction(Ledgers.DEFAULT, id);
+    }
+
+    // Elimina una transazione di un ledger per ID (e aggiorna i dati derivati nella stessa transazione).
+    // Una transazione di un altro ledger non viene toccata: per il chiamante non esiste
+    @Transactional
+    public boolean deleteTransaction(String ledger, Long id) {
+        Optional<Transaction> existing = getTransactionById(ledger, id);
+        if (existing.isEmpty()) {
+            return false;
         }
-        return false;
+        ledgerStore.delete(existing.get());
+        writeListeners.forEach(listener -> listener.onDeleted(existing.get()));
+        return true;
     }
 
-    // Ottieni un riepilogo per categoria delle spese
-    public Map<String, Double> getExpenseCategorySummary() {
-        return transactionRepository.getExpenseCategorySummary().stream()
-                .collect(Collectors.toMap(
-                        obj -> (String) obj[0], // categoria della transazione
-                        obj -> (Double) obj[1] // somma delle spese per categoria
-                ));
+    // Riepilogo per categoria delle spese del ledger predefinito
+    public Map<String, Long> getExpenseCategorySummary() {
+        return getExpenseCategorySummary(Ledgers.DEFAULT);
     }
 
-    // Calcola il totale delle entrate
-    public double getTotalRevenue() {
-        return Optional.ofNullable(transactionRepository.getTotalRevenue()).orElse(0.0);
+    // Ottieni un riepilogo per categoria delle spese di un ledger (in centesimi), anni archiviati compresi
+    public Map<String, Long> getExpenseCategorySummary(String ledger) {
+        String scope = Ledgers.of(ledger);
+        return cached(EXPENSE_CATEGORY_SUMMARY.forLedger(scope), () -> {
+            Map<String, Long> summary = ledgerStore.getExpenseCategorySummary(scope)
+                    .stream()
+                    .collect(Collectors.toMap(
+                            CategoryTotal::category, // categoria della transazione
+                            CategoryTotal::totalCents, // somma delle spese per categoria
+                            Long::sum,
+                            HashMap::new));
+            archived(scope).expensesByCategory()
+                    .forEach((category, cents) -> summary.merge(category, cents, Long::sum));
+            return Collections.unmodifiableMap(summary); // condivisa tra le richieste finché resta in cache
+        });
     }
 
-    // Calcola il totale delle spese
-    public double getTotalExpenses() {
-        return Optional.ofNullable(transactionRepository.getTotalExpenses()).orElse(0.0);
+    // Totale delle entrate del ledger predefinito
+    public long getTotalRevenueCents() {
+        return getTotalRevenueCents(Ledgers.DEFAULT);
     }
-    
+
+    // Calcola il totale delle entrate di un ledger (in centesimi)
+    public long getTotalRevenueCents(String ledger) {
+        String scope = Ledgers.of(ledger);
+        if (ledgerTotalsService != null) {
+            return ledgerTotalsService.current(scope).totalRevenueCents();
+        }
+        return cached(TOTAL_REVENUE.forLedger(scope),
+                () -> ledgerStore.getTotalRevenueCents(scope) + archived(scope).revenueCents());
+    }
+
+    // Totale delle spese del ledger predefinito
+    public long getTotalExpensesCents() {
+        return getTotalExpensesCents(Ledgers.DEFAULT);
+    }
+
+    // Calcola il totale delle spese di un ledger (in centesimi)
+    public long getTotalExpensesCents(String ledger) {
+        String scope = Ledgers.of(ledger);
+        if (ledgerTotalsService != null) {
+            return ledgerTotalsService.current(scope).totalExpensesCents();
+        }
+        return cached(TOTAL_EXPENSES.forLedger(scope),
+                () -> ledgerStore.getTotalExpensesCents(scope) + archived(scope).expensesCents());
+    }
+
+    // Aggregati precalcolati degli anni archiviati del ledger
+    private ArchiveService.Summary archived(String ledger) {
+        return archive != null ? archive.summary(ledger) : ArchiveService.Summary.EMPTY;
+    }
+
+    private <T> T cached(AggregateCache.Key key, Supplier<T> query) {
+        return aggregateCache != null ? aggregateCache.get(key, query) : query.get();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.AggregateCache;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AggregateCacheTest {
+
+    private long now;
+    private AggregateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        now = 0L;
+        cache = new AggregateCache(2, Duration.ofMinutes(5), () -> now);
+    }
+
+    @Test
+    void testReadThroughCountsHitsAndMisses() {
+        AggregateCache.Key key = new AggregateCache.Key("food", Transaction.TransactionType.EXPENSE, "Food");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(100L, (long) cache.get(key, () -> { loads.incrementAndGet(); return 100L; }));
+        assertEquals(100L, (long) cache.get(key, () -> { loads.incrementAndGet(); return 200L; }));
+
+        assertEquals(1, loads.get());
+        AggregateCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        AggregateCache.Key key = new AggregateCache.Key("all", null, null);
+        cache.get(key, () -> 1L);
+
+        now += Duration.ofMinutes(5).toNanos();
+
+        assertEquals(2L, (long) cache.get(key, () -> 2L));
+        assertEquals(1, cache.stats().expirations());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        AggregateCache.Key a = new AggregateCache.Key("a", null, null);
+        AggregateCache.Key b = new AggregateCache.Key("b", null, null);
+        AggregateCache.Key c = new AggregateCache.Key("c", null, null);
+        cache.get(a, () -> 1L);
+        cache.get(b, () -> 2L);
+        cache.get(a, () -> 1L); // "b" diventa la voce meno usata
+
+        cache.get(c, () -> 3L);
+
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(1L, (long) cache.get(a, () -> -1L));
+        assertEquals(-1L, (long) cache.get(b, () -> -1L));
+    }
+
+    @Test
+    void testWriteInvalidatesOnlyMatchingEntries() {
+        AggregateCache cache = new AggregateCache(10, Duration.ofMinutes(5), () -> now);
+        AggregateCache.Key food = new AggregateCache.Key("food", Transaction.TransactionType.EXPENSE, "Food");
+        AggregateCache.Key expenses = new AggregateCache.Key("expenses", Transaction.TransactionType.EXPENSE, null);
+        AggregateCache.Key revenue = new AggregateCache.Key("revenue", Transaction.TransactionType.INCOME, null);
+        cache.get(food, () -> 1L);
+        cache.get(expenses, () -> 1L);
+        cache.get(revenue, () -> 1L);
+
+        // Fuori da una transazione l'invalidazione è immediata
+        cache.onAdded(List.of(new Transaction(500, "Transport", "Bus", LocalDate.of(2024, 1, 1),
+                Transaction.TransactionType.EXPENSE)));
+
+        assertEquals(1L, (long) cache.get(food, () -> 2L));
+        assertEquals(2L, (long) cache.get(expenses, () -> 2L));
+        assertEquals(1L, (long) cache.get(revenue, () -> 2L));
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    void testValueLoadedDuringInvalidationIsNotStored() {
+        AggregateCache.Key key = new AggregateCache.Key("expenses", Transaction.TransactionType.EXPENSE, null);
+        Transaction written = new Transaction(500, "Food", "Lunch", LocalDate.of(2024, 1, 1),
+                Transaction.TransactionType.EXPENSE);
+
+        // La scrittura viene confermata mentre il valore vecchio è in fase di lettura
+        cache.get(key, () -> { cache.onAdded(List.of(written)); return 0L; });
+
+        assertEquals(500L, (long) cache.get(key, () -> 500L));
+    }
+
+    @Test
+    void testServiceQueriesDatabaseOncePerWrite() {
+        TransactionRepository repository = mock(TransactionRepository.class);
+        AggregateCache cache = new AggregateCache(10, Duration.ofMinutes(5), () -> now);
+        TransactionService service = new TransactionService(repository, null, null, cache, null, List.of(cache));
+        when(repository.getExpenseCategorySummary(Ledgers.DEFAULT))
+                .thenReturn(List.of(new CategoryTotal("Food", Transaction.TransactionType.EXPENSE, 1000L, 1L)));
+        Transaction transaction = new Transaction(250, "Food", "Snack", LocalDate.of(2024, 1, 2),
+                Transaction.TransactionType.EXPENSE);
+        when(repository.save(transaction)).thenReturn(transaction);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Map.of("Food", 1000L), service.getExpenseCategorySummary());
+        }
+        service.addTransaction(transaction);
+        for (int i = 0; i < 5; i++) {
+            service.getExpenseCategorySummary();
+        }
+
+        verify(repository, times(2)).getExpenseCategorySummary(Ledgers.DEFAULT);
+        assertEquals(8, cache.stats().hits());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.config.AmountCentsMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountCentsMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Schema come lo creava la versione con gli importi in virgola mobile
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE transaction (id BIGINT PRIMARY KEY, amount DOUBLE, category VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE ledger_totals (id BIGINT PRIMARY KEY, total_revenue DOUBLE NOT NULL, "
+                + "total_expenses DOUBLE NOT NULL, transaction_count BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO transaction VALUES (1, 12.34, 'Food'), (2, 0.1, 'Food'), (3, 1500, 'Salary'), "
+                + "(4, 19.99, 'Food')");
+        jdbcTemplate.update("INSERT INTO ledger_totals VALUES (1, 1500, 32.43, 4)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void testMigratesAmountsToCents() {
+        new AmountCentsMigration(jdbcTemplate).migrate();
+
+        List<Long> cents = jdbcTemplate.queryForList("SELECT amount_cents FROM transaction ORDER BY id", Long.class);
+        assertEquals(List.of(1234L, 10L, 150000L, 1999L), cents);
+
+        // La colonna in virgola mobile e la tabella dei totali derivati non esistono più
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'TRANSACTION' AND COLUMN_NAME = 'AMOUNT'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_NAME = 'LEDGER_TOTALS'", Integer.class));
+    }
+
+    @Test
+    void testMigrationIsRepeatable() {
+        AmountCentsMigration migration = new AmountCentsMigration(jdbcTemplate);
+        migration.migrate();
+        migration.migrate();
+
+        assertEquals(153243L, jdbcTemplate.queryForObject("SELECT SUM(amount_cents) FROM transaction", Long.class));
+    }
+
+    @Test
+    void testSubCentAmountsStopTheMigration() {
+        jdbcTemplate.update("INSERT INTO transaction VALUES (5, 1.005, 'Food')");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new AmountCentsMigration(jdbcTemplate).migrate());
+        assertTrue(e.getMessage().contains("5=1.005"));
+
+        // Schema e importi restano quelli di prima
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'TRANSACTION' AND COLUMN_NAME = 'AMOUNT_CENTS'", Integer.class));
+        assertEquals(1.005, jdbcTemplate.queryForObject("SELECT amount FROM transaction WHERE id = 5", Double.class));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.dedup.DedupKeys;
+import com.example.budgetmanager.model.ArchiveSegment;
+import com.example.budgetmanager.model.IngestResult;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.ArchiveService;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.TransactionDeduplicator;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Senza transazione di test: i riepiloghi dell'archivio si aggiornano dopo il commit.
+// Ogni test usa un proprio ledger, i segmenti degli altri test non contano
+@DataJpaTest
+@Import({TransactionService.class, LedgerTotalsService.class, ArchiveService.class, TransactionDeduplicator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ArchiveServiceTest {
+
+    // Con keep-years=2 l'anno scorso resta nella tabella, quelli prima vengono archiviati
+    private static final int OLD = LocalDate.now().getYear() - 5;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerTotalsService ledgerTotalsService;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private TransactionDeduplicator deduplicator;
+
+    @Test
+    void testOldYearsMoveToSegmentsAndTotalsAreUnchanged() {
+        String ledger = "history";
+        transactionService.addTransactions(List.of(
+                expense(ledger, 1000, "Food", "Lunch", LocalDate.of(OLD, 3, 1)),
+                expense(ledger, 2500, "Rent", "July", LocalDate.of(OLD, 7, 1)),
+                income(ledger, 90000, LocalDate.of(OLD + 1, 1, 15)),
+                expense(ledger, 400, "Food", "Coffee", LocalDate.of(LocalDate.now().getYear() - 1, 12, 31)),
+                expense(ledger, 700, "Food", "Snack", LocalDate.now())));
+        LedgerSummary before = transactionService.getLedgerSummary(ledger);
+        Map<String, Long> categoriesBefore = transactionService.getExpenseCategorySummary(ledger);
+
+        archiveService.archive();
+
+        assertEquals(List.of(OLD + 1, OLD), archiveService.getSegments(ledger).stream()
+                .map(ArchiveSegment::getYear).toList());
+        assertEquals(2, transactionRepository.countByLedger(ledger));
+        assertEquals(List.of("Snack", "Coffee"), transactionService.getTransactionsPage(ledger, null, 10).items()
+                .stream().map(Transaction::getDescription).toList());
+
+        // Totali e riepilogo per categoria sommano tabella e segmenti, anche senza totali incrementali
+        assertEquals(before, transactionService.getLedgerSummary(ledger));
+        assertEquals(categoriesBefore, transactionService.getExpenseCategorySummary(ledger));
+        TransactionService withoutTotals = new TransactionService(transactionRepository, null, null, null,
+                archiveService, List.of());
+        assertEquals(before, withoutTotals.getLedgerSummary(ledger));
+        assertEquals(categoriesBefore, withoutTotals.getExpenseCategorySummary(ledger));
+        assertTrue(ledgerTotalsService.check(ledger).consistent());
+
+        // Una seconda archiviazione non trova niente da spostare
+        archiveService.archive();
+        assertEquals(2, archiveService.getSegments(ledger).size());
+        assertEquals(before, withoutTotals.getLedgerSummary(ledger));
+    }
+
+    @Test
+    void testArchivedRowsAreReadableAndBackdatedRowsJoinTheSegment() {
+        String ledger = "backdated";
+        Transaction lunch = transactionService.addTransaction(
+                expense(ledger, 1000, "Food", "Lunch", LocalDate.of(OLD, 5, 10)));
+        transactionService.addTransaction(expense(ledger, 2000, "Food", "Dinner", LocalDate.of(OLD, 5, 11)));
+
+        archiveService.archive();
+
+        // Le righe archiviate non si leggono più per id ma dal segmento del loro anno
+        assertTrue(transactionService.getTransactionById(ledger, lunch.getId()).isEmpty());
+        List<Transaction> archived = archiveService.getTransactions(ledger, OLD, 0, 10).orElseThrow();
+        assertEquals(List.of("Dinner", "Lunch"), archived.stream().map(Transaction::getDescription).toList());
+        assertEquals(lunch.getId(), archived.get(1).getId());
+        assertEquals(ledger, archived.get(1).getLedger());
+        assertEquals(List.of("Lunch"), archiveService.getTransactions(ledger, OLD, 1, 1).orElseThrow().stream()
+                .map(Transaction::getDescription).toList());
+        assertTrue(archiveService.getTransactions(ledger, OLD + 1, 0, 10).isEmpty());
+
+        // Il ledger resta visibile anche senza righe nella tabella
+        assertTrue(transactionService.getLedgers().contains(ledger));
+
+        // Una transazione retrodatata resta nella tabella fino alla prossima archiviazione, che riscrive il segmento
+        transactionService.addTransaction(expense(ledger, 300, "Travel", "Train", LocalDate.of(OLD, 12, 31)));
+        assertEquals(1, transactionRepository.countByLedger(ledger));
+        archiveService.archive();
+
+        ArchiveSegment segment = archiveService.getSegments(ledger).get(0);
+        assertEquals(3, segment.getTransactionCount());
+        assertEquals(Map.of("Food", 3000L, "Travel", 300L), segment.getExpensesByCategory());
+        assertEquals(0, transactionRepository.countByLedger(ledger));
+        assertEquals(3300, transactionService.getTotalExpensesCents(ledger));
+        assertTrue(ledgerTotalsService.check(ledger).consistent());
+    }
+
+    @Test
+    void testReingestingAnArchivedYearFindsTheArchivedRows() {
+        String ledger = "statements";
+        Transaction rent = keyed(expense(ledger, 80000, "Rent", "March", LocalDate.of(OLD, 3, 1)));
+        Long rentId = deduplicator.add(rent).transaction().getId();
+
+        archiveService.archive();
+
+        // Stesso estratto conto dopo l'archiviazione: la riga è un duplicato di quella nel segmento
+        IngestResult repeated = deduplicator.add(
+                keyed(expense(ledger, 80000, "Rent", "March", LocalDate.of(OLD, 3, 1))));
+        assertTrue(repeated.duplicate());
+        assertEquals(rentId, repeated.transaction().getId());
+        assertEquals(0, transactionRepository.countByLedger(ledger));
+
+        // Una riga retrodatata riscrive il segmento: le chiavi delle righe già archiviate restano valide
+        Transaction fees = keyed(expense(ledger, 300, "Bank", "Fees", LocalDate.of(OLD, 3, 2)));
+        assertFalse(deduplicator.add(fees).duplicate());
+        archiveService.archive();
+        List<IngestResult> again = deduplicator.addAll(List.of(
+                keyed(expense(ledger, 80000, "Rent", "March", LocalDate.of(OLD, 3, 1))),
+                keyed(expense(ledger, 300, "Bank", "Fees", LocalDate.of(OLD, 3, 2)))));
+        assertEquals(List.of(true, true), again.stream().map(IngestResult::duplicate).toList());
+        assertEquals(0, transactionRepository.countByLedger(ledger));
+        assertEquals(80300, transactionService.getTotalExpensesCents(ledger));
+        assertTrue(ledgerTotalsService.check(ledger).consistent());
+    }
+
+    private static Transaction keyed(Transaction transaction) {
+        transaction.setDedupKey(DedupKeys.contentKey(transaction));
+        return transaction;
+    }
+
+    private static Transaction expense(String ledger, long cents, String category, String description,
+                                       LocalDate date) {
+        Transaction transaction = new Transaction(cents, category, description, date,
+                Transaction.TransactionType.EXPENSE);
+        transaction.setLedger(ledger);
+        return transaction;
+    }
+
+    private static Transaction income(String ledger, long cents, LocalDate date) {
+        Transaction transaction = new Transaction(cents, "Salary", "Salary", date, Transaction.TransactionType.INCOME);
+        transaction.setLedger(ledger);
+        return transaction;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.service.AsyncTransactionService;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncTransactionServiceTest {
+
+    private ExecutorService executor;
+    private TransactionService transactionService;
+    private AsyncTransactionService asyncTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        transactionService = mock(TransactionService.class);
+        asyncTransactionService = new AsyncTransactionService(transactionService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testReadsRunConcurrently() {
+        // Ogni lettura attende le altre due: completano solo se sono in esecuzione insieme
+        CountDownLatch allStarted = new CountDownLatch(3);
+        when(transactionService.getLedgerSummary()).thenAnswer(invocation -> {
+            arriveAndWait(allStarted);
+            return new LedgerSummary(5000L, 2000L);
+        });
+        when(transactionService.getLatestTransactions(10)).thenAnswer(invocation -> {
+            arriveAndWait(allStarted);
+            return List.of();
+        });
+        when(transactionService.getExpenseCategorySummary()).thenAnswer(invocation -> {
+            arriveAndWait(allStarted);
+            return Map.of("Food", 2000L);
+        });
+
+        CompletableFuture<LedgerSummary> summary = asyncTransactionService.getLedgerSummary();
+        CompletableFuture<List<Transaction>> latest =
+                asyncTransactionService.getLatestTransactions(10);
+        CompletableFuture<Map<String, Long>> categories = asyncTransactionService.getExpenseCategorySummary();
+
+        assertEquals(3000L, AsyncTransactionService.await(summary).balanceCents());
+        assertTrue(AsyncTransactionService.await(latest).isEmpty());
+        assertEquals(Map.of("Food", 2000L), AsyncTransactionService.await(categories));
+    }
+
+    @Test
+    void testAwaitRethrowsServiceException() {
+        when(transactionService.getTransactionsPage("bad", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        CompletableFuture<?> page = asyncTransactionService.getTransactionsPage("bad", 10);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> AsyncTransactionService.await(page));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    private static void arriveAndWait(CountDownLatch latch) throws InterruptedException {
+        latch.countDown();
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Reads did not run concurrently");
+        }
+    }
+}
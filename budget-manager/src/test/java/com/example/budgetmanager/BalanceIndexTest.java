@@ -0,0 +1,120 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.balance.BalanceIndex;
+import com.example.budgetmanager.model.BalancePoint;
+import com.example.budgetmanager.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final BalanceIndex index = new BalanceIndex();
+
+    @Test
+    void testBalanceAtSumsDatedTransactionsUpToTheDay() {
+        index.addAll(List.of(income(150000, START.plusDays(26)), expense(80000, START),
+                expense(1000, START.plusDays(9)), undated(700)));
+
+        assertEquals(0, index.balanceAt(START.minusDays(1)));
+        assertEquals(-80000, index.balanceAt(START));
+        assertEquals(-81000, index.balanceAt(START.plusDays(25)));
+        assertEquals(69000, index.balanceAt(START.plusDays(26)));
+        // Oltre l'ultimo giorno indicizzato il saldo è il totale
+        assertEquals(69000, index.balanceAt(START.plusYears(50)));
+        assertEquals(3, index.stats().transactions());
+    }
+
+    @Test
+    void testBackDatedAndFarFutureEntriesGrowTheRange() {
+        index.addAll(List.of(expense(1000, START)));
+        // Molto prima e molto dopo la capacità iniziale: l'albero si estende in entrambe le direzioni
+        index.addAll(List.of(income(5000, START.minusYears(20)), income(300, START.plusYears(30))));
+
+        assertEquals(0, index.balanceAt(START.minusYears(20).minusDays(1)));
+        assertEquals(5000, index.balanceAt(START.minusYears(20)));
+        assertEquals(4000, index.balanceAt(START));
+        assertEquals(4300, index.balanceAt(START.plusYears(30)));
+        BalanceIndex.Stats stats = index.stats();
+        assertEquals(START.minusYears(20), stats.firstDate());
+        assertEquals(START.plusYears(30), stats.lastDate());
+        assertEquals(0, stats.skipped());
+    }
+
+    @Test
+    void testDeletesRestorePreviousBalances() {
+        Transaction rent = expense(80000, START.plusDays(3));
+        index.addAll(List.of(income(100000, START), rent));
+        index.remove(rent);
+
+        assertEquals(100000, index.balanceAt(START.plusDays(3)));
+        assertEquals(1, index.stats().transactions());
+    }
+
+    @Test
+    void testMatchesNaiveSumsUnderRandomWrites() {
+        Random random = new Random(42);
+        List<Transaction> live = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                index.remove(live.remove(random.nextInt(live.size())));
+                continue;
+            }
+            LocalDate date = START.plusDays(random.nextInt(20_000) - 10_000);
+            Transaction transaction = random.nextBoolean() ? income(1 + random.nextInt(100_000), date)
+                    : expense(1 + random.nextInt(100_000), date);
+            index.addAll(List.of(transaction));
+            live.add(transaction);
+        }
+        for (int i = 0; i < 500; i++) {
+            LocalDate date = START.plusDays(random.nextInt(22_000) - 11_000);
+            long expected = live.stream().filter(t -> !t.getDate().isAfter(date)).mapToLong(BalanceIndexTest::signed)
+                    .sum();
+            assertEquals(expected, index.balanceAt(date), "Balance at " + date);
+        }
+    }
+
+    @Test
+    void testSeriesIsDownsampledAndEndsOnTheLastDay() {
+        index.addAll(List.of(income(1000, START), expense(100, START.plusDays(10)), income(50, START.plusDays(99))));
+
+        List<BalancePoint> series = index.series(START, START.plusDays(99), 10);
+
+        assertEquals(10, series.size());
+        assertEquals(new BalancePoint(START, 1000), series.get(0));
+        assertEquals(new BalancePoint(START.plusDays(11), 900), series.get(1));
+        assertEquals(new BalancePoint(START.plusDays(99), 950), series.get(9));
+        // Intervalli brevi: un punto per giorno
+        assertEquals(3, index.series(START, START.plusDays(2), 10).size());
+        assertThrows(IllegalArgumentException.class, () -> index.series(START, START.minusDays(1), 10));
+    }
+
+    private static long signed(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.INCOME ? transaction.getAmountCents()
+                : -transaction.getAmountCents();
+    }
+
+    private static Transaction income(long cents, LocalDate date) {
+        return new Transaction(cents, "Salary", null, date, Transaction.TransactionType.INCOME);
+    }
+
+    private static Transaction expense(long cents, LocalDate date) {
+        return new Transaction(cents, "Food", null, date, Transaction.TransactionType.EXPENSE);
+    }
+
+    // Il costruttore richiede la data: le transazioni senza data si creano con i setter
+    private static Transaction undated(long cents) {
+        Transaction transaction = new Transaction();
+        transaction.setAmountCents(cents);
+        transaction.setCategory("Food");
+        transaction.setType(Transaction.TransactionType.EXPENSE);
+        return transaction;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.dedup.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void testAddedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("default:key-" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(filter.mightContain("default:key-" + i));
+        }
+        // Le chiavi già date per presenti (falsi positivi compresi) non occupano altro spazio
+        long keys = filter.stats().keys();
+        assertTrue(keys > 980 && keys <= 1_000, "Unexpected key count: " + keys);
+        assertEquals(1, filter.stats().layers());
+
+        filter.add("default:key-0");
+        assertEquals(keys, filter.stats().keys());
+    }
+
+    @Test
+    void testFalsePositiveRateStaysBoundedWhenTheFilterGrows() {
+        // Dieci volte le chiavi previste: si aggiungono strati invece di saturare il primo
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("home:sha256:" + i);
+        }
+        assertTrue(filter.stats().layers() > 1);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("home:sha256:missing-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "Too many false positives: " + falsePositives);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("home:sha256:" + i));
+        }
+    }
+
+    @Test
+    void testInvalidSizingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.Budget;
+import com.example.budgetmanager.model.BudgetAlert;
+import com.example.budgetmanager.model.BudgetPeriod;
+import com.example.budgetmanager.model.BudgetStatus;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.repository.BudgetRepository;
+import com.example.budgetmanager.service.BudgetService;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Senza transazione attiva le scritture vengono applicate subito ai contatori
+public class BudgetServiceTest {
+
+    // Mercoledì 13 marzo 2024: la settimana corrente inizia lunedì 11
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 13);
+
+    private BudgetRepository budgetRepository;
+    private TransactionService transactionService;
+    private BudgetService budgetService;
+
+    @BeforeEach
+    void setUp() {
+        budgetRepository = mock(BudgetRepository.class);
+        transactionService = mock(TransactionService.class);
+        when(budgetRepository.findAll()).thenReturn(List.of(
+                budget(1L, "Food", BudgetPeriod.MONTH, 10000, 80),
+                budget(2L, "Food", BudgetPeriod.WEEK, 3000, 50)));
+        // Spese dall'inizio dell'anno: una della settimana scorsa e una di questa settimana
+        when(transactionService.getLedgers()).thenReturn(List.of(Ledgers.DEFAULT));
+        when(transactionService.search(eq(Ledgers.DEFAULT), any(), any(), anyInt())).thenReturn(new TransactionSearchResult(
+                List.of(expense(5000, "Food", TODAY.minusDays(8)), expense(1000, "Food", TODAY.minusDays(1))),
+                null, null));
+
+        budgetService = new BudgetService(budgetRepository, () -> transactionService,
+                Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        budgetService.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void testCountersAreRebuiltFromExpenses() {
+        BudgetStatus week = status(BudgetPeriod.WEEK);
+        assertEquals(LocalDate.of(2024, 3, 11), week.periodStart());
+        assertEquals(LocalDate.of(2024, 3, 17), week.periodEnd());
+        assertEquals(1000, week.spentCents());
+        assertEquals(BudgetStatus.Level.OK, week.level());
+
+        BudgetStatus month = status(BudgetPeriod.MONTH);
+        assertEquals(6000, month.spentCents());
+        assertEquals(4000, month.remainingCents());
+        assertEquals(60, month.percentUsed());
+        assertEquals(BudgetStatus.Level.OK, month.level());
+    }
+
+    @Test
+    void testWritesRaiseAlertsWhenThresholdsAreCrossed() {
+        budgetService.onAdded(List.of(expense(600, "Food", TODAY)));
+        assertEquals(BudgetStatus.Level.WARNING, status(BudgetPeriod.WEEK).level());
+        assertEquals(1, budgetService.getRecentAlerts().size());
+
+        // Soglia del mese (80%) raggiunta e limite della settimana superato con la stessa scrittura
+        Transaction dinner = expense(1500, "Food", TODAY);
+        budgetService.onAdded(List.of(dinner));
+        assertEquals(BudgetStatus.Level.EXCEEDED, status(BudgetPeriod.WEEK).level());
+        assertEquals(BudgetStatus.Level.WARNING, status(BudgetPeriod.MONTH).level());
+        List<BudgetAlert> alerts = budgetService.getRecentAlerts();
+        assertEquals(3, alerts.size());
+        assertEquals(8100, alerts.stream().filter(alert -> alert.period() == BudgetPeriod.MONTH)
+                .findFirst().orElseThrow().spentCents());
+
+        // Tornare sotto la soglia non genera allerte
+        budgetService.onDeleted(dinner);
+        assertEquals(1600, status(BudgetPeriod.WEEK).spentCents());
+        assertEquals(BudgetStatus.Level.WARNING, status(BudgetPeriod.WEEK).level());
+        assertEquals(3, budgetService.getRecentAlerts().size());
+    }
+
+    @Test
+    void testIncomeOtherCategoriesAndOldExpensesAreIgnored() {
+        Transaction salary = expense(50000, "Food", TODAY);
+        salary.setType(Transaction.TransactionType.INCOME);
+        budgetService.onAdded(List.of(salary, expense(50000, "Rent", TODAY),
+                expense(50000, "Food", LocalDate.of(2023, 6, 1))));
+
+        assertEquals(6000, status(BudgetPeriod.MONTH).spentCents());
+        assertTrue(budgetService.getRecentAlerts().isEmpty());
+    }
+
+    @Test
+    void testSaveUpdatesExistingBudgetForCategoryAndPeriod() {
+        Budget existing = budget(1L, "Food", BudgetPeriod.MONTH, 10000, 80);
+        when(budgetRepository.findByLedgerAndCategoryAndPeriod(Ledgers.DEFAULT, "Food",
+                BudgetPeriod.MONTH)).thenReturn(Optional.of(existing));
+        when(budgetRepository.save(any(Budget.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BudgetStatus status = budgetService.saveBudget(new Budget("Food", BudgetPeriod.MONTH, 5000, 100));
+
+        assertEquals(1L, status.budgetId());
+        assertEquals(5000, existing.getLimitCents());
+        assertEquals(BudgetStatus.Level.EXCEEDED, status.level());
+        assertEquals(2, budgetService.getStatuses().size());
+    }
+
+    @Test
+    void testDeletedBudgetIsNoLongerReported() {
+        when(budgetRepository.existsById(2L)).thenReturn(true);
+
+        assertTrue(budgetService.deleteBudget(2L));
+        assertFalse(budgetService.deleteBudget(3L));
+
+        verify(budgetRepository).deleteById(2L);
+        assertEquals(List.of(BudgetPeriod.MONTH),
+                budgetService.getStatuses().stream().map(BudgetStatus::period).toList());
+    }
+
+    @Test
+    void testBudgetValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new Budget("Food", BudgetPeriod.MONTH, 0, 80));
+        assertThrows(IllegalArgumentException.class, () -> new Budget("Food", BudgetPeriod.MONTH, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Budget(" ", BudgetPeriod.MONTH, 100, 80));
+    }
+
+    private BudgetStatus status(BudgetPeriod period) {
+        return budgetService.getStatuses().stream().filter(status -> status.period() == period)
+                .findFirst().orElseThrow();
+    }
+
+    private static Budget budget(long id, String category, BudgetPeriod period, long limitCents, int alertPercent) {
+        Budget budget = new Budget(category, period, limitCents, alertPercent);
+        budget.setId(id);
+        return budget;
+    }
+
+    private static Transaction expense(long cents, String category, LocalDate date) {
+        return new Transaction(cents, category, "Expense", date, Transaction.TransactionType.EXPENSE);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.controller.ChartDataController;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.service.LedgerVersion;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ChartDataController.class)
+@Import(LedgerVersion.class)
+public class ChartDataControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LedgerVersion ledgerVersion;
+
+    @SuppressWarnings("removal")
+    @MockBean
+    private TransactionService transactionService;
+
+    @Test
+    void testExpensesByCategoryLargestFirst() throws Exception {
+        when(transactionService.getExpenseCategorySummary(Ledgers.DEFAULT))
+                .thenReturn(Map.of("Food", 8200L, "Rent", 80000L, "Transport", 500L));
+
+        mockMvc.perform(get("/api/charts/expenses-by-category"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ledgerVersion.etag()))
+                .andExpect(jsonPath("$.categories[0]").value("Rent"))
+                .andExpect(jsonPath("$.categories[2]").value("Transport"))
+                .andExpect(jsonPath("$.amountsCents[1]").value(8200));
+    }
+
+    @Test
+    void testUnchangedLedgerIsRevalidatedWithoutQuery() throws Exception {
+        mockMvc.perform(get("/api/charts/expenses-by-category").header(HttpHeaders.IF_NONE_MATCH, ledgerVersion.etag()))
+                .andExpect(status().isNotModified());
+
+        verify(transactionService, never()).getExpenseCategorySummary(Ledgers.DEFAULT);
+    }
+}
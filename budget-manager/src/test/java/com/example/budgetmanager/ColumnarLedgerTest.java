@@ -0,0 +1,150 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.analytics.AnalyticsFilter;
+import com.example.budgetmanager.analytics.ColumnarLedger;
+import com.example.budgetmanager.analytics.GroupBy;
+import com.example.budgetmanager.analytics.GroupResult;
+import com.example.budgetmanager.analytics.RankedTransaction;
+import com.example.budgetmanager.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarLedgerTest {
+
+    private ColumnarLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new ColumnarLedger();
+        ledger.addAll(List.of(
+                transaction(1L, 1000, "Food", LocalDate.of(2024, 1, 30), Transaction.TransactionType.EXPENSE),
+                transaction(2L, 2050, "Food", LocalDate.of(2024, 2, 5), Transaction.TransactionType.EXPENSE),
+                transaction(3L, 500, "Transport", LocalDate.of(2024, 2, 20), Transaction.TransactionType.EXPENSE),
+                transaction(4L, 100000, "Salary", LocalDate.of(2024, 2, 27), Transaction.TransactionType.INCOME),
+                transaction(5L, 300, "Food", null, Transaction.TransactionType.EXPENSE)));
+    }
+
+    @Test
+    void testGroupByCategoryAndType() {
+        List<GroupResult> groups = ledger.groupBy(EnumSet.of(GroupBy.CATEGORY, GroupBy.TYPE), AnalyticsFilter.NONE);
+
+        assertEquals(3, groups.size());
+        GroupResult food = find(groups, "Food", null);
+        assertEquals(Transaction.TransactionType.EXPENSE, food.type());
+        assertEquals(3350, food.totalCents());
+        assertEquals(3, food.count());
+        assertEquals(100000, find(groups, "Salary", null).totalCents());
+    }
+
+    @Test
+    void testGroupByMonthWithDateFilterSkipsUndated() {
+        List<GroupResult> groups = ledger.groupBy(EnumSet.of(GroupBy.MONTH),
+                new AnalyticsFilter(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29),
+                        Transaction.TransactionType.EXPENSE, null));
+
+        assertEquals(2, groups.size());
+        assertEquals(1000, find(groups, null, YearMonth.of(2024, 1)).totalCents());
+        assertEquals(2550, find(groups, null, YearMonth.of(2024, 2)).totalCents());
+    }
+
+    @Test
+    void testPercentilesAndTop() {
+        AnalyticsFilter expenses = new AnalyticsFilter(null, null, Transaction.TransactionType.EXPENSE, null);
+
+        // Spese ordinate: 300, 500, 1000, 2050
+        assertArrayEquals(new long[]{300, 500, 2050}, ledger.percentiles(new double[]{0, 50, 100}, expenses));
+
+        List<RankedTransaction> top = ledger.top(2, expenses);
+        assertEquals(List.of(2L, 1L), top.stream().map(RankedTransaction::id).toList());
+        assertEquals(2050, top.get(0).amountCents());
+    }
+
+    @Test
+    void testUnknownCategoryMatchesNothing() {
+        AnalyticsFilter filter = new AnalyticsFilter(null, null, null, "Travel");
+
+        assertTrue(ledger.groupBy(EnumSet.of(GroupBy.TYPE), filter).isEmpty());
+        assertEquals(0, ledger.percentiles(new double[]{50}, filter).length);
+        assertTrue(ledger.top(5, filter).isEmpty());
+    }
+
+    @Test
+    void testRemoveAndCompaction() {
+        assertTrue(ledger.remove(2L));
+        assertFalse(ledger.remove(2L));
+        assertTrue(ledger.remove(3L));
+
+        // Due righe eliminate su cinque: il ledger si è compattato
+        ColumnarLedger.Stats stats = ledger.stats();
+        assertEquals(3, stats.rows());
+        assertEquals(0, stats.deletedRows());
+
+        List<GroupResult> groups = ledger.groupBy(EnumSet.of(GroupBy.CATEGORY), AnalyticsFilter.NONE);
+        assertEquals(1300, find(groups, "Food", null).totalCents());
+        assertNull(groups.stream().filter(g -> "Transport".equals(g.category())).findFirst().orElse(null));
+
+        // Le righe spostate restano raggiungibili per id
+        assertTrue(ledger.remove(5L));
+        assertEquals(1000, find(ledger.groupBy(EnumSet.of(GroupBy.CATEGORY), AnalyticsFilter.NONE), "Food", null)
+                .totalCents());
+    }
+
+    @Test
+    void testParallelAggregationMatchesSequentialSum() {
+        // Abbastanza righe da dividere la scansione in più foglie
+        ColumnarLedger large = new ColumnarLedger();
+        Random random = new Random(42);
+        List<Transaction> batch = new ArrayList<>();
+        long expectedCents = 0;
+        long expectedCount = 0;
+        for (long id = 1; id <= 300_000; id++) {
+            long cents = 1 + random.nextInt(100_000);
+            boolean expense = random.nextBoolean();
+            batch.add(transaction(id, cents, "C" + (id % 7), LocalDate.of(2020, 1, 1).plusDays(id % 1500),
+                    expense ? Transaction.TransactionType.EXPENSE : Transaction.TransactionType.INCOME));
+            if (expense) {
+                expectedCents += cents;
+                expectedCount++;
+            }
+        }
+        large.addAll(batch);
+
+        List<GroupResult> groups = large.groupBy(EnumSet.of(GroupBy.CATEGORY, GroupBy.MONTH),
+                new AnalyticsFilter(null, null, Transaction.TransactionType.EXPENSE, null));
+
+        assertEquals(expectedCents, groups.stream().mapToLong(GroupResult::totalCents).sum());
+        assertEquals(expectedCount, groups.stream().mapToLong(GroupResult::count).sum());
+    }
+
+    private static GroupResult find(List<GroupResult> groups, String category, YearMonth month) {
+        return groups.stream()
+                .filter(g -> category == null || category.equals(g.category()))
+                .filter(g -> month == null || month.equals(g.month()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Transaction transaction(long id, long amountCents, String category, LocalDate date,
+                                           Transaction.TransactionType type) {
+        // Costruttore e setter richiedono la data: le transazioni senza data la lasciano null
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmountCents(amountCents);
+        transaction.setCategory(category);
+        transaction.setDescription(category);
+        if (date != null) {
+            transaction.setDate(date);
+        }
+        transaction.setType(type);
+        return transaction;
+    }
+}
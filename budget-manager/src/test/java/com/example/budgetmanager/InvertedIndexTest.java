@@ -0,0 +1,113 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.search.InvertedIndex;
+import com.example.budgetmanager.search.Tokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.addAll(List.of(
+                transaction(1L, "Shopping", "Amazon order #123"),
+                transaction(2L, "Food", "Caffè Amazonia"),
+                transaction(3L, "Amazon", "Prime subscription"),
+                transaction(4L, "Food", "Lunch at Mario's"),
+                transaction(5L, "Transport", null)));
+    }
+
+    @Test
+    void testTokenizerNormalizesCaseAndAccents() {
+        assertEquals(Set.of("caffe", "amazonia"), Tokenizer.tokenize("  CAFFÈ, amazonia!"));
+        assertTrue(Tokenizer.tokenize(" -- ").isEmpty());
+    }
+
+    @Test
+    void testPrefixMatchingRanksCategoryAndExactTermsFirst() {
+        InvertedIndex.Result result = index.search("amaz", 0, 10);
+
+        // Categoria "Amazon" prima della descrizione; a parità di punteggio la più recente
+        assertEquals(3, result.total());
+        assertEquals(List.of(3L, 2L, 1L), result.ids());
+
+        // "amazon" è esatto per 1 e 3, solo prefisso di "amazonia"
+        assertEquals(List.of(3L, 1L, 2L), index.search("amazon", 0, 10).ids());
+    }
+
+    @Test
+    void testAllWordsMustMatch() {
+        assertEquals(List.of(2L), index.search("food amaz", 0, 10).ids());
+        assertEquals(List.of(4L), index.search("mario lunch", 0, 10).ids());
+        assertEquals(0, index.search("food pizza", 0, 10).total());
+    }
+
+    @Test
+    void testPagesAndTotal() {
+        InvertedIndex.Result first = index.search("a", 0, 2);
+        InvertedIndex.Result second = index.search("a", 2, 2);
+
+        assertEquals(first.total(), second.total());
+        assertEquals(2, first.ids().size());
+        assertTrue(second.ids().stream().noneMatch(first.ids()::contains));
+        assertTrue(index.search("a", 100, 2).ids().isEmpty());
+    }
+
+    @Test
+    void testIncrementalUpdatesAreIdempotent() {
+        Transaction lunch = transaction(4L, "Food", "Lunch at Mario's");
+        index.addAll(List.of(lunch));
+        assertEquals(5, index.stats().documents());
+
+        index.remove(lunch);
+        index.remove(lunch);
+
+        assertEquals(0, index.search("lunch", 0, 10).total());
+        assertEquals(List.of(2L), index.search("food", 0, 10).ids());
+        assertEquals(4, index.stats().documents());
+    }
+
+    @Test
+    void testLongPrefixExpansionKeepsShortestTermsAndIsReported() {
+        // 200 termini lunghi che in ordine alfabetico precedono "zeta", il più corto
+        List<Transaction> many = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String term = "z" + (char) ('a' + i / 26) + (char) ('a' + i % 26) + "xxxxx";
+            many.add(transaction(100L + i, "Misc", term));
+        }
+        many.add(transaction(99L, "Misc", "zeta"));
+        index.addAll(many);
+
+        // Solo 128 termini: "zeta" c'è, gli ultimi termini lunghi no, e il risultato lo dice
+        InvertedIndex.Result result = index.search("z", 0, 500);
+        assertTrue(result.truncated());
+        assertEquals(128, result.total());
+        assertTrue(result.ids().contains(99L));
+        assertFalse(result.ids().contains(299L));
+
+        assertFalse(index.search("amaz", 0, 10).truncated());
+    }
+
+    @Test
+    void testQueryWithoutWordsIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(" ?! ", 0, 10));
+    }
+
+    private static Transaction transaction(long id, String category, String description) {
+        Transaction transaction = new Transaction(1000, category, description, LocalDate.of(2024, 1, 1),
+                Transaction.TransactionType.EXPENSE);
+        transaction.setId(id);
+        return transaction;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.journal.JournalLedgerStore;
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Recupero dopo un crash: ogni test chiude il journal, ne altera i file come farebbe un crash e lo riapre
+public class JournalLedgerStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private JournalLedgerStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testReopenReplaysAddsAndDeletes() {
+        store = open(0);
+        store.saveAll(List.of(expense(1000, "Food", "Lunch", 10), expense(2500, "Rent", "January", 1),
+                income(90000, "Salary", "January", 27)));
+        Transaction snack = store.save(expense(300, "Food", "Snack", 12));
+        store.delete(snack);
+
+        store = reopen(0);
+
+        assertEquals(List.of("January", "Lunch", "January"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+        assertEquals(new LedgerSummary(90000, 3500), store.getTotals(Ledgers.DEFAULT));
+        assertTrue(store.findById(snack.getId()).isEmpty());
+        // Gli id non vengono riutilizzati dopo la riapertura
+        assertTrue(store.save(expense(100, "Food", "Coffee", 13)).getId() > snack.getId());
+    }
+
+    @Test
+    void testTornRecordIsDiscardedAndJournalStaysWritable() throws IOException {
+        store = open(0);
+        store.save(expense(1000, "Food", "Lunch", 10));
+        store.saveAll(List.of(expense(2000, "Food", "Dinner", 11), expense(3000, "Food", "Groceries", 12)));
+        store.close();
+
+        // Crash a metà della scrittura del blocco: la seconda metà del record non è mai arrivata su disco
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        int[] last = lastRecord(bytes);
+        for (int i = last[0] + (last[1] - last[0]) / 2; i < last[1]; i++) {
+            bytes[i] = 0;
+        }
+        Files.write(segment, bytes);
+
+        store = reopen(0);
+        // Il blocco viene scartato per intero
+        assertEquals(List.of("Lunch"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+
+        store.save(expense(500, "Transport", "Bus", 13));
+        store = reopen(0);
+        assertEquals(List.of("Bus", "Lunch"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+    }
+
+    @Test
+    void testCorruptRecordTruncatesJournal() throws IOException {
+        store = open(0);
+        store.save(expense(1000, "Food", "Lunch", 10));
+        store.save(expense(2000, "Food", "Dinner", 11));
+        store.save(expense(3000, "Food", "Groceries", 12));
+        store.close();
+
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        int[] last = lastRecord(bytes);
+        bytes[last[1] - 1] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        store = reopen(0);
+
+        assertEquals(List.of("Dinner", "Lunch"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+        assertEquals(Map.of("Food", 3000L), expenseSummary());
+    }
+
+    @Test
+    void testSnapshotCompactsSegmentsAndTailIsReplayed() throws IOException {
+        // Segmenti piccoli: ogni record ne apre uno nuovo
+        store = new JournalLedgerStore(dir, 128, 0, false);
+        for (int day = 1; day <= 10; day++) {
+            store.save(expense(100L * day, "Food", "Day " + day, day));
+        }
+        assertTrue(files(".log").size() > 1);
+
+        store.snapshot();
+        assertEquals(1, files(".snap").size());
+        assertEquals(1, files(".log").size());
+
+        Transaction salary = store.save(income(90000, "Salary", "January", 27));
+        store.delete(store.findAllOrdered(Ledgers.DEFAULT).get(1)); // "Day 10"
+        store.close();
+        store = new JournalLedgerStore(dir, 128, 0, false);
+
+        assertEquals(10, store.findAllOrdered(Ledgers.DEFAULT).size());
+        assertEquals(salary.getId(), store.findAllOrdered(Ledgers.DEFAULT).get(0).getId());
+        assertEquals(new LedgerSummary(90000, 4500), store.getTotals(Ledgers.DEFAULT));
+    }
+
+    @Test
+    void testSnapshotsAreTakenPeriodically() throws IOException {
+        store = open(5);
+        for (int day = 1; day <= 12; day++) {
+            store.save(expense(100, "Food", "Day " + day, day));
+        }
+        store.close(); // attende lo snapshot in corso
+
+        assertEquals(1, files(".snap").size());
+        store = reopen(5);
+        assertEquals(12, store.findAllOrdered(Ledgers.DEFAULT).size());
+        assertEquals(Map.of("Food", 1200L), expenseSummary());
+    }
+
+    @Test
+    void testInterruptedOrUnreadableSnapshotsAreIgnored() throws IOException {
+        store = open(0);
+        store.save(expense(1000, "Food", "Lunch", 10));
+        store.snapshot();
+        store.save(expense(2000, "Food", "Dinner", 11));
+        store.close();
+
+        // Crash durante la scrittura di uno snapshot successivo
+        Files.write(dir.resolve("snapshot-00000000000000000002.snap.tmp"), new byte[]{1, 2, 3});
+
+        store = reopen(0);
+
+        assertEquals(List.of("Dinner", "Lunch"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+        assertTrue(files(".tmp").isEmpty());
+    }
+
+    @Test
+    void testServiceReadsMatchDatabaseStorage() {
+        store = open(0);
+        TransactionService service = new TransactionService(null, store, null, null, null, List.of());
+        service.addTransactions(List.of(
+                expense(1000, "Food", "Lunch", 10),
+                expense(2500, "Food", "Dinner", 45),
+                expense(4000, "Food", "Groceries", 62),
+                expense(80000, "Rent", "March", 61),
+                income(150000, "Salary", "March", 87),
+                undated(700, "Food", "Snack")));
+
+        TransactionSearchResult result = service.search(new TransactionFilter(null, null, "Food", null, null, null),
+                null, 2);
+        assertEquals(List.of("Groceries", "Dinner"), descriptions(result.items()));
+        assertEquals(new FilteredTotals(4, 0, 8200), result.totals());
+        result = service.search(new TransactionFilter(null, null, "Food", null, null, null), result.nextCursor(), 2);
+        assertEquals(List.of("Lunch", "Snack"), descriptions(result.items()));
+        assertNull(result.nextCursor());
+
+        assertEquals(List.of("Salary", "Groceries", "March"),
+                service.getLatestTransactions(3).stream().map(this::label).toList());
+        assertEquals(Map.of("Food", 8200L, "Rent", 80000L), service.getExpenseCategorySummary());
+        assertEquals(150000 - 88200, service.getBalanceCents());
+    }
+
+    @Test
+    void testLedgersAreIsolatedAndSurviveReopen() {
+        store = open(0);
+        Transaction lunch = store.save(expense(1000, "Food", "Lunch", 10));
+        Transaction rent = store.save(inLedger("home", expense(80000, "Rent", "January", 1)));
+        store.saveAll(List.of(inLedger("home", income(150000, "Salary", "January", 27)),
+                inLedger("work", expense(2500, "Food", "Team lunch", 10))));
+        store.snapshot();
+        store.save(inLedger("home", expense(4000, "Food", "Groceries", 12)));
+
+        store = reopen(0);
+
+        assertEquals(List.of("default", "home", "work"), store.findLedgers());
+        assertEquals(List.of("Lunch"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+        assertEquals(List.of("January", "Groceries", "January"), descriptions(store.findAllOrdered("home")));
+        assertEquals(new LedgerSummary(150000, 84000), store.getTotals("home"));
+        assertEquals(new LedgerSummary(0, 2500), store.getTotals("work"));
+        assertEquals(Map.of("Food", 4000L, "Rent", 80000L), store.getExpenseCategorySummary("home").stream()
+                .collect(Collectors.toMap(CategoryTotal::category, CategoryTotal::totalCents)));
+        assertEquals("home", store.findById(rent.getId()).orElseThrow().getLedger());
+
+        // Lo stesso id salvato in un altro ledger non sostituisce la transazione esistente
+        Transaction moved = inLedger("work", expense(1, "Food", "Moved", 11));
+        moved.setId(lunch.getId());
+        store.save(moved);
+        assertEquals(List.of("Lunch"), descriptions(store.findAllOrdered(Ledgers.DEFAULT)));
+        assertNotEquals(lunch.getId(), store.findAllOrdered("work").get(0).getId());
+    }
+
+    private JournalLedgerStore open(int snapshotEvery) {
+        return new JournalLedgerStore(dir, 64 * 1024, snapshotEvery, false);
+    }
+
+    private JournalLedgerStore reopen(int snapshotEvery) {
+        store.close();
+        return open(snapshotEvery);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = files(".log");
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    // Inizio e fine dell'ultimo record: [lunghezza int][CRC int][payload], fino alla prima lunghezza zero
+    private static int[] lastRecord(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int start = -1;
+        int position = 0;
+        while (position + 8 <= bytes.length && buffer.getInt(position) > 0) {
+            start = position;
+            position += 8 + buffer.getInt(position);
+        }
+        assertTrue(start >= 0, "No records in segment");
+        return new int[]{start, position};
+    }
+
+    private Map<String, Long> expenseSummary() {
+        return new TransactionService(null, store, null, null, null, List.of()).getExpenseCategorySummary();
+    }
+
+    private String label(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.INCOME ? transaction.getCategory()
+                : transaction.getDescription();
+    }
+
+    private static List<String> descriptions(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getDescription).toList();
+    }
+
+    private static Transaction expense(long cents, String category, String description, int dayOfYear) {
+        return new Transaction(cents, category, description, LocalDate.ofYearDay(2024, dayOfYear),
+                Transaction.TransactionType.EXPENSE);
+    }
+
+    private static Transaction income(long cents, String category, String description, int dayOfYear) {
+        return new Transaction(cents, category, description, LocalDate.ofYearDay(2024, dayOfYear),
+                Transaction.TransactionType.INCOME);
+    }
+
+    private static Transaction inLedger(String ledger, Transaction transaction) {
+        transaction.setLedger(ledger);
+        return transaction;
+    }
+
+    // Il costruttore richiede la data: le transazioni senza data si creano con i setter
+    private static Transaction undated(long cents, String category, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setAmountCents(cents);
+        transaction.setCategory(category);
+        transaction.setDescription(description);
+        transaction.setType(Transaction.TransactionType.EXPENSE);
+        return transaction;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.config.LedgerKeyMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerKeyMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Schema come lo creava la versione con un solo ledger
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:single;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE transaction (id BIGINT PRIMARY KEY, amount_cents BIGINT, "
+                + "category VARCHAR(255))");
+        jdbcTemplate.execute("CREATE INDEX idx_transaction_amount ON transaction (amount_cents)");
+        jdbcTemplate.execute("CREATE TABLE ledger_totals (id BIGINT PRIMARY KEY, total_revenue_cents BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE budget (id BIGINT PRIMARY KEY, category VARCHAR(255), period VARCHAR(8), "
+                + "CONSTRAINT uk_budget_category_period UNIQUE (category, period))");
+        jdbcTemplate.update("INSERT INTO transaction VALUES (1, 1234, 'Food'), (2, 150000, 'Salary')");
+        jdbcTemplate.update("INSERT INTO budget VALUES (1, 'Food', 'MONTH')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void testExistingRowsMoveToDefaultLedger() {
+        new LedgerKeyMigration(jdbcTemplate).migrate();
+
+        assertEquals(List.of("default", "default"),
+                jdbcTemplate.queryForList("SELECT ledger FROM transaction ORDER BY id", String.class));
+        assertEquals("default", jdbcTemplate.queryForObject("SELECT ledger FROM budget", String.class));
+
+        // Lo stesso budget in un altro ledger non viola più il vincolo sulla coppia (categoria, periodo)
+        jdbcTemplate.update("INSERT INTO budget (id, category, period, ledger) VALUES (2, 'Food', 'MONTH', 'home')");
+
+        // Indici senza ledger e totali del ledger unico non esistono più
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME = 'IDX_TRANSACTION_AMOUNT'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_NAME = 'LEDGER_TOTALS'", Integer.class));
+    }
+
+    @Test
+    void testMigrationIsRepeatable() {
+        LedgerKeyMigration migration = new LedgerKeyMigration(jdbcTemplate);
+        migration.migrate();
+        migration.migrate();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction WHERE ledger = 'default'",
+                Integer.class));
+    }
+}
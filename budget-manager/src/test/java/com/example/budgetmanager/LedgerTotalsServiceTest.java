@@ -0,0 +1,168 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.LedgerSummary;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.LedgerTotalsRepository;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Senza transazione di test: ogni chiamata al servizio fa commit e aggiorna i totali in memoria
+@DataJpaTest
+@Import(LedgerTotalsService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LedgerTotalsServiceTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerTotalsRepository ledgerTotalsRepository;
+
+    @Autowired
+    private LedgerTotalsService ledgerTotalsService;
+
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = new TransactionService(transactionRepository, null, ledgerTotalsService, null, null,
+                List.of(ledgerTotalsService));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        ledgerTotalsService.rebuild();
+        // Anche i ledger creati dai singoli test ripartono da zero
+        ledgerTotalsRepository.findAll().forEach(row -> ledgerTotalsService.rebuild(row.getLedger()));
+    }
+
+    @Test
+    void testTotalsFollowWrites() {
+        // Inserimenti tramite il servizio
+        Transaction income = transactionService.addTransaction(
+                new Transaction(10000, "Salary", "Monthly salary", LocalDate.now(), Transaction.TransactionType.INCOME));
+        transactionService.addTransaction(
+                new Transaction(3000, "Food", "Groceries", LocalDate.now(), Transaction.TransactionType.EXPENSE));
+
+        // Totali aggiornati senza ricalcolo
+        LedgerSummary summary = transactionService.getLedgerSummary();
+        assertEquals(10000, summary.totalRevenueCents());
+        assertEquals(3000, summary.totalExpensesCents());
+        assertEquals(7000, transactionService.getBalanceCents());
+
+        // Eliminazione
+        assertTrue(transactionService.deleteTransaction(income.getId()));
+        assertEquals(0, transactionService.getTotalRevenueCents());
+        assertEquals(-3000, transactionService.getBalanceCents());
+
+        // Memoria, riga persistita e ricalcolo coincidono
+        assertTrue(ledgerTotalsService.check().consistent());
+        assertEquals(1L, ledgerTotalsRepository.findById(Ledgers.DEFAULT).orElseThrow().getTransactionCount());
+    }
+
+    @Test
+    void testCheckDetectsDriftAndRebuildRecovers() {
+        // Scrittura che aggira il servizio: i totali incrementali non la vedono
+        transactionRepository.save(
+                new Transaction(5000, "Food", "Dinner", LocalDate.now(), Transaction.TransactionType.EXPENSE));
+        assertFalse(ledgerTotalsService.check().consistent());
+
+        // La ricostruzione riallinea memoria e riga persistita
+        LedgerSummary rebuilt = ledgerTotalsService.rebuild();
+        assertEquals(5000, rebuilt.totalExpensesCents());
+        assertEquals(5000, ledgerTotalsService.current().totalExpensesCents());
+        assertTrue(ledgerTotalsService.check().consistent());
+    }
+
+    @Test
+    void testMissingRowIsRecreated() {
+        ledgerTotalsRepository.deleteAll();
+
+        // La prima scrittura ricrea la riga di riepilogo a partire dalla tabella
+        transactionService.addTransaction(
+                new Transaction(1000, "Salary", "Bonus", LocalDate.now(), Transaction.TransactionType.INCOME));
+
+        assertEquals(1000, transactionService.getTotalRevenueCents());
+        assertTrue(ledgerTotalsService.check().consistent());
+    }
+
+    @Test
+    void testRepostedIdInsertsNewRow() {
+        Transaction original = new Transaction(4000, "Food", "Lunch", LocalDate.now(), Transaction.TransactionType.EXPENSE);
+        original.setLedger("work");
+        Long id = transactionService.addTransaction(original).getId();
+
+        // Stesso id in un'altra transazione: diventa una riga nuova, quella esistente non cambia
+        Transaction reposted = new Transaction(2500, "Salary", "Refund", LocalDate.now(), Transaction.TransactionType.INCOME);
+        reposted.setId(id);
+        reposted.setLedger("home");
+        Transaction saved = transactionService.addTransaction(reposted);
+
+        assertNotEquals(id, saved.getId());
+        Transaction untouched = transactionRepository.findById(id).orElseThrow();
+        assertEquals("work", untouched.getLedger());
+        assertEquals(4000, untouched.getAmountCents());
+        assertEquals(2, transactionRepository.count());
+
+        // Totali di entrambi i ledger senza doppi conteggi
+        assertEquals(4000, ledgerTotalsService.current("work").totalExpensesCents());
+        assertEquals(2500, ledgerTotalsService.current("home").totalRevenueCents());
+        assertTrue(ledgerTotalsService.check("work").consistent());
+        assertTrue(ledgerTotalsService.check("home").consistent());
+    }
+
+    @Test
+    void testConcurrentFirstWritesCreateOneRow() throws Exception {
+        int writers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            // Più ledger nuovi per dare alla corsa sulla creazione della riga più occasioni di verificarsi
+            for (int round = 0; round < 10; round++) {
+                String ledger = "fresh-" + round;
+                CyclicBarrier start = new CyclicBarrier(writers);
+                List<Future<?>> writes = new ArrayList<>();
+                for (int i = 0; i < writers; i++) {
+                    long cents = 100L * (i + 1);
+                    writes.add(executor.submit(() -> {
+                        Transaction transaction = new Transaction(cents, "Food", "First", LocalDate.now(),
+                                Transaction.TransactionType.EXPENSE);
+                        transaction.setLedger(ledger);
+                        start.await();
+                        return transactionService.addTransaction(transaction);
+                    }));
+                }
+                for (Future<?> write : writes) {
+                    write.get();
+                }
+
+                // Nessuna scrittura persa o contata due volte: memoria, riga e ricalcolo coincidono
+                assertEquals(1000, ledgerTotalsService.current(ledger).totalExpensesCents());
+                assertEquals(writers, ledgerTotalsRepository.findById(ledger).orElseThrow().getTransactionCount());
+                assertTrue(ledgerTotalsService.check(ledger).consistent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
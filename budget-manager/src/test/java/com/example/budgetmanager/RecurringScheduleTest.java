@@ -0,0 +1,69 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.recurring.DueQueue;
+import com.example.budgetmanager.recurring.Schedule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurringScheduleTest {
+
+    @Test
+    void testScheduleUsesOnlyDateFields() {
+        Schedule monthly = Schedule.parse("27 * *");
+        assertEquals(LocalDate.of(2024, 1, 27), monthly.firstOnOrAfter(LocalDate.of(2024, 1, 27)));
+        assertEquals(LocalDate.of(2024, 2, 27), monthly.nextAfter(LocalDate.of(2024, 1, 27)));
+
+        assertEquals(LocalDate.of(2024, 2, 29), Schedule.parse("L * *").firstOnOrAfter(LocalDate.of(2024, 2, 10)));
+        assertEquals(LocalDate.of(2024, 1, 8), Schedule.parse("* * MON").nextAfter(LocalDate.of(2024, 1, 1)));
+        assertEquals(LocalDate.of(2025, 1, 1), Schedule.parse("@yearly").nextAfter(LocalDate.of(2024, 1, 1)));
+    }
+
+    @Test
+    void testInvalidSchedulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("0 0 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("32 * *"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("@hourly"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse(" "));
+    }
+
+    @Test
+    void testDueQueueReturnsOnlyDueEntriesInDateOrder() {
+        DueQueue queue = new DueQueue();
+        queue.add(7, LocalDate.of(2024, 3, 1));
+        queue.add(3, LocalDate.of(2024, 1, 15));
+        queue.add(9, LocalDate.of(2024, 1, 15));
+        queue.add(1, LocalDate.of(2024, 2, 1));
+
+        LocalDate today = LocalDate.of(2024, 2, 10);
+        assertEquals(3, queue.pollDue(today));
+        assertEquals(9, queue.pollDue(today));
+        assertEquals(1, queue.pollDue(today));
+        assertEquals(-1, queue.pollDue(today));
+        assertEquals(LocalDate.of(2024, 3, 1), queue.peekDate());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void testDueQueueAcceptsDatesBefore1970() {
+        DueQueue queue = new DueQueue();
+        queue.add(2, LocalDate.of(1970, 1, 1));
+        queue.add(5, LocalDate.of(1969, 12, 31));
+        queue.add(4, LocalDate.of(1901, 6, 1));
+
+        assertEquals(LocalDate.of(1901, 6, 1), queue.peekDate());
+        LocalDate today = LocalDate.of(1969, 12, 31);
+        assertEquals(4, queue.pollDue(today));
+        assertEquals(5, queue.pollDue(today));
+        assertEquals(-1, queue.pollDue(today));
+        assertEquals(2, queue.pollDue(LocalDate.of(2024, 1, 1)));
+
+        // Fuori dall'intervallo della coda
+        assertTrue(DueQueue.accepts(DueQueue.MIN_DATE) && DueQueue.accepts(DueQueue.MAX_DATE));
+        assertFalse(DueQueue.accepts(DueQueue.MIN_DATE.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> queue.add(1, LocalDate.MIN));
+        assertThrows(IllegalArgumentException.class, () -> queue.add(1, DueQueue.MAX_DATE.plusDays(1)));
+    }
+}
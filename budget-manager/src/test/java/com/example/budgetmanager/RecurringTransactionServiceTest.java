@@ -0,0 +1,137 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.RecurringTransaction;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.RecurringTransactionRepository;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.RecurringTransactionService;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(TransactionService.class)
+public class RecurringTransactionServiceTest {
+
+    @Autowired
+    private RecurringTransactionRepository recurringRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testCatchUpGeneratesEachMissedOccurrenceOnce() {
+        RecurringTransactionService service = serviceOn(LocalDate.of(2024, 4, 10));
+        RecurringTransaction salary = service.create(template(300000, "Salary", Transaction.TransactionType.INCOME,
+                "27 * *", LocalDate.of(2024, 1, 1)));
+
+        assertEquals(3, service.materializeDue());
+        assertEquals(0, service.materializeDue());
+
+        assertEquals(List.of(LocalDate.of(2024, 3, 27), LocalDate.of(2024, 2, 27), LocalDate.of(2024, 1, 27)),
+                dates());
+        assertEquals(LocalDate.of(2024, 4, 27), recurringRepository.findById(salary.getId()).orElseThrow().getNextDate());
+    }
+
+    @Test
+    void testRestartResumesFromFirstMissingDate() {
+        serviceOn(LocalDate.of(2024, 4, 10)).create(template(90000, "Rent", Transaction.TransactionType.EXPENSE,
+                "1 * *", LocalDate.of(2024, 1, 1)));
+        RecurringTransactionService first = serviceOn(LocalDate.of(2024, 4, 10));
+        first.afterSingletonsInstantiated();
+        assertEquals(4, first.materializeDue());
+
+        // Nuovo avvio tre mesi dopo: la coda viene riletta dal database
+        RecurringTransactionService restarted = serviceOn(LocalDate.of(2024, 7, 10));
+        restarted.afterSingletonsInstantiated();
+        assertEquals(3, restarted.materializeDue());
+        assertEquals(7, transactionRepository.count());
+        assertEquals(7, dates().stream().distinct().count());
+    }
+
+    @Test
+    void testEndDateStopsTheSchedule() {
+        RecurringTransactionService service = serviceOn(LocalDate.of(2024, 3, 1));
+        RecurringTransaction gym = template(2500, "Sport", Transaction.TransactionType.EXPENSE, "* * MON",
+                LocalDate.of(2024, 1, 1));
+        gym.setEndDate(LocalDate.of(2024, 1, 20));
+        gym = service.create(gym);
+
+        assertEquals(3, service.materializeDue());
+        assertNull(recurringRepository.findById(gym.getId()).orElseThrow().getNextDate());
+        assertEquals(0, service.pendingCount());
+    }
+
+    @Test
+    void testDeletedTemplateIsNotGenerated() {
+        RecurringTransactionService service = serviceOn(LocalDate.of(2024, 3, 1));
+        RecurringTransaction netflix = service.create(template(1299, "Subscriptions",
+                Transaction.TransactionType.EXPENSE, "15 * *", LocalDate.of(2024, 1, 1)));
+
+        assertTrue(service.delete(netflix.getId()));
+        assertEquals(0, service.materializeDue());
+        assertEquals(0, transactionRepository.count());
+    }
+
+    @Test
+    void testInvalidScheduleIsRejected() {
+        RecurringTransactionService service = serviceOn(LocalDate.of(2024, 3, 1));
+        assertThrows(IllegalArgumentException.class, () -> service.create(template(1000, "Food",
+                Transaction.TransactionType.EXPENSE, "every monday", LocalDate.of(2024, 1, 1))));
+        assertEquals(0, recurringRepository.count());
+    }
+
+    @Test
+    void testOldStartDatesAreScheduledAndOutOfRangeOnesAreNotSaved() {
+        RecurringTransactionService service = serviceOn(LocalDate.of(1969, 3, 10));
+        service.create(template(5000, "Rent", Transaction.TransactionType.EXPENSE, "1 * *",
+                LocalDate.of(1968, 12, 15)));
+        assertEquals(3, service.materializeDue());
+        assertEquals(LocalDate.of(1969, 1, 1), dates().get(2));
+
+        // Data fuori dalla coda: 400 senza una riga che farebbe fallire il prossimo avvio
+        assertThrows(IllegalArgumentException.class, () -> service.create(template(1000, "Food",
+                Transaction.TransactionType.EXPENSE, "1 * *", LocalDate.of(-20000, 1, 1))));
+        assertEquals(1, recurringRepository.count());
+
+        // Un modello fuori intervallo già salvato viene saltato all'avvio
+        RecurringTransaction legacy = template(1000, "Food", Transaction.TransactionType.EXPENSE, "1 * *",
+                LocalDate.of(-20000, 1, 1));
+        legacy.setNextDate(LocalDate.of(-20000, 1, 1));
+        recurringRepository.saveAndFlush(legacy);
+        RecurringTransactionService restarted = serviceOn(LocalDate.of(1969, 3, 10));
+        restarted.afterSingletonsInstantiated();
+        assertEquals(1, restarted.pendingCount());
+    }
+
+    private RecurringTransactionService serviceOn(LocalDate today) {
+        return new RecurringTransactionService(recurringRepository, transactionService, transactionManager,
+                Clock.fixed(today.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private List<LocalDate> dates() {
+        return transactionRepository.findAllOrdered(Ledgers.DEFAULT).stream().map(Transaction::getDate).toList();
+    }
+
+    private static RecurringTransaction template(long cents, String category, Transaction.TransactionType type,
+                                                 String schedule, LocalDate start) {
+        return new RecurringTransaction(cents, category, category, type, schedule, start);
+    }
+}
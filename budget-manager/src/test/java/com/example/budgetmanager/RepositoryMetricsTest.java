@@ -0,0 +1,104 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.config.RepositoryMetricsAspect;
+import com.example.budgetmanager.config.StatementCounter;
+import com.example.budgetmanager.model.Ledgers;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(RepositoryMetricsTest.MetricsTestConfig.class)
+public class RepositoryMetricsTest {
+
+    @TestConfiguration
+    @EnableAspectJAutoProxy
+    static class MetricsTestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        RepositoryMetricsAspect repositoryMetricsAspect(MeterRegistry meterRegistry) {
+            return new RepositoryMetricsAspect(meterRegistry);
+        }
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.saveAllAndFlush(List.of(
+                new Transaction(1000, "Food", "Lunch", LocalDate.of(2024, 1, 10), Transaction.TransactionType.EXPENSE),
+                new Transaction(2500, "Rent", "January", LocalDate.of(2024, 1, 1), Transaction.TransactionType.EXPENSE),
+                new Transaction(90000, "Salary", "January", LocalDate.of(2024, 1, 27), Transaction.TransactionType.INCOME)));
+    }
+
+    @Test
+    void testCallsAndRowsAreRecordedPerMethod() {
+        transactionRepository.findAllOrdered(Ledgers.DEFAULT);
+        transactionRepository.findAllOrdered(Ledgers.DEFAULT);
+
+        assertEquals(2, meterRegistry.get("budget.repository.calls")
+                .tags("repository", "TransactionRepository", "method", "findAllOrdered", "outcome", "success")
+                .timer().count());
+        assertEquals(6.0, meterRegistry.get("budget.repository.rows")
+                .tags("repository", "TransactionRepository", "method", "findAllOrdered")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void testStreamRowsAreRecordedOnClose() {
+        try (Stream<Transaction> transactions = transactionRepository.streamFiltered(Ledgers.DEFAULT, null, null, null)) {
+            assertEquals(3, transactions.count());
+        }
+
+        assertEquals(3.0, meterRegistry.get("budget.repository.rows")
+                .tags("repository", "TransactionRepository", "method", "streamFiltered")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void testStatementsAreCountedOnlyWhileActive() {
+        transactionRepository.getTotals(Ledgers.DEFAULT);
+
+        StatementCounter.start();
+        transactionRepository.getTotals(Ledgers.DEFAULT);
+        transactionRepository.findAllOrdered(Ledgers.DEFAULT);
+        long statements = StatementCounter.stop();
+
+        assertEquals(2, statements);
+        assertEquals(0, StatementCounter.stop());
+    }
+
+    @Test
+    void testStatementsOfPropagatedTasksAreCounted() throws InterruptedException {
+        StatementCounter.start();
+        Thread worker = new Thread(StatementCounter.propagate(() -> transactionRepository.getTotals(Ledgers.DEFAULT)));
+        worker.start();
+        worker.join();
+
+        assertEquals(1, StatementCounter.stop());
+    }
+}
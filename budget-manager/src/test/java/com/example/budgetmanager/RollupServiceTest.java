@@ -0,0 +1,136 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.CategoryTotal;
+import com.example.budgetmanager.model.RollupGranularity;
+import com.example.budgetmanager.model.RollupPoint;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.ArchiveService;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.RollupService;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({TransactionService.class, LedgerTotalsService.class, ArchiveService.class, RollupService.class})
+public class RollupServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RollupService rollupService;
+
+    private Transaction lateJanuaryFood;
+
+    @BeforeEach
+    void setUp() {
+        // Spese a cavallo di tre mesi e un'entrata
+        lateJanuaryFood = transactionService.addTransaction(expense(1000, "Food", LocalDate.of(2024, 1, 30)));
+        transactionService.addTransactions(List.of(
+                expense(2000, "Food", LocalDate.of(2024, 2, 5)),
+                expense(500, "Transport", LocalDate.of(2024, 2, 20)),
+                expense(700, "Food", LocalDate.of(2024, 3, 2)),
+                new Transaction(100000, "Salary", "Salary", LocalDate.of(2024, 2, 27), Transaction.TransactionType.INCOME)));
+    }
+
+    @Test
+    void testSummarizeCombinesDaysAndMonths() {
+        // 30 gennaio - 2 marzo: due giorni di gennaio, febbraio intero, due giorni di marzo
+        List<CategoryTotal> totals = rollupService.summarize(
+                LocalDate.of(2024, 1, 30), LocalDate.of(2024, 3, 2), Transaction.TransactionType.EXPENSE);
+
+        assertEquals(3700, total(totals, "Food"));
+        assertEquals(500, total(totals, "Transport"));
+        assertEquals(3, totals.stream().filter(t -> t.category().equals("Food")).mapToLong(CategoryTotal::count).sum());
+    }
+
+    @Test
+    void testSummarizePartialRange() {
+        // Solo febbraio fino al 20 (compreso): nessun mese intero
+        List<CategoryTotal> totals = rollupService.summarize(
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 20), null);
+
+        assertEquals(2000, total(totals, "Food"));
+        assertEquals(500, total(totals, "Transport"));
+        assertEquals(0, total(totals, "Salary"));
+    }
+
+    @Test
+    void testWeeklySeriesByType() {
+        List<RollupPoint> series = rollupService.series(RollupGranularity.WEEK,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), null, null, false);
+
+        // La settimana del 26 febbraio (lunedì) contiene lo stipendio
+        RollupPoint salaryWeek = series.stream()
+                .filter(p -> p.bucketStart().equals(LocalDate.of(2024, 2, 26)))
+                .filter(p -> p.type() == Transaction.TransactionType.INCOME)
+                .findFirst().orElseThrow();
+        assertEquals(100000, salaryWeek.totalCents());
+        assertNull(salaryWeek.category());
+    }
+
+    @Test
+    void testDeleteAndRebuild() {
+        transactionService.deleteTransaction(lateJanuaryFood.getId());
+        List<CategoryTotal> afterDelete = rollupService.summarize(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), Transaction.TransactionType.EXPENSE);
+        assertEquals(2700, total(afterDelete, "Food"));
+
+        // Scrittura che aggira il servizio: visibile solo dopo la ricostruzione
+        transactionRepository.save(expense(300, "Food", LocalDate.of(2024, 3, 15)));
+        rollupService.rebuild();
+
+        List<CategoryTotal> rebuilt = rollupService.summarize(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), Transaction.TransactionType.EXPENSE);
+        assertEquals(3000, total(rebuilt, "Food"));
+        assertEquals(500, total(rebuilt, "Transport"));
+    }
+
+    @Test
+    void testRebuildCoversEveryLedger() {
+        Transaction rent = expense(80000, "Rent", LocalDate.of(2024, 2, 1));
+        rent.setLedger("work");
+        Transaction deleted = transactionService.addTransaction(rent);
+        Transaction taxi = expense(1500, "Transport", LocalDate.of(2024, 2, 3));
+        taxi.setLedger("trips");
+        transactionService.addTransaction(taxi);
+
+        // Un ledger rimasto senza transazioni perde i suoi bucket, gli altri vengono ricalcolati
+        transactionRepository.delete(deleted);
+        rollupService.rebuild();
+
+        assertTrue(rollupService.summarize("work", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null)
+                .isEmpty());
+        assertEquals(1500, total(rollupService.summarize("trips", LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 12, 31), null), "Transport"));
+        assertEquals(3700, total(rollupService.summarize(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31),
+                Transaction.TransactionType.EXPENSE), "Food"));
+    }
+
+    @Test
+    void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> rollupService.summarize(
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null));
+    }
+
+    private static long total(List<CategoryTotal> totals, String category) {
+        return totals.stream().filter(t -> t.category().equals(category)).mapToLong(CategoryTotal::totalCents).sum();
+    }
+
+    private static Transaction expense(long amountCents, String category, LocalDate date) {
+        return new Transaction(amountCents, category, category, date, Transaction.TransactionType.EXPENSE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.archive.SegmentCodec;
+import com.example.budgetmanager.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentCodecTest {
+
+    @Test
+    void testRoundTripKeepsEveryFieldInDateOrder() {
+        Transaction rent = transaction(90L, 80000, "Rent", "Affitto di marzo", LocalDate.of(2019, 3, 1),
+                Transaction.TransactionType.EXPENSE);
+        Transaction salary = transaction(7L, 150000, "Salary", null, LocalDate.of(2019, 3, 27),
+                Transaction.TransactionType.INCOME);
+        Transaction coffee = transaction(1_000_000L, 120, "Food", "Caffè ☕", LocalDate.of(2019, 1, 2), null);
+        coffee.setDedupKey("req-42");
+        Transaction untitled = new Transaction();
+        untitled.setId(8L);
+        untitled.setAmountCents(500);
+        untitled.setDate(LocalDate.of(2019, 3, 1));
+        untitled.setType(Transaction.TransactionType.EXPENSE);
+
+        List<Transaction> decoded = SegmentCodec.decode(SegmentCodec.encode(List.of(rent, salary, coffee, untitled)),
+                "home");
+
+        // Ordine (data, id): gli id possono decrescere da una riga all'altra
+        assertEquals(List.of(1_000_000L, 8L, 90L, 7L), decoded.stream().map(Transaction::getId).toList());
+        assertEquals(List.of(coffee, untitled, rent, salary).stream().map(SegmentCodecTest::fields).toList(),
+                decoded.stream().map(SegmentCodecTest::fields).toList());
+        assertTrue(decoded.stream().allMatch(transaction -> transaction.getLedger().equals("home")));
+    }
+
+    @Test
+    void testSimilarRowsCompressWell() {
+        List<Transaction> year = new ArrayList<>();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 10_000; i++) {
+            year.add(transaction(1000L + i * 3L, 100 + (i % 50) * 10, i % 3 == 0 ? "Food" : "Transport",
+                    i % 3 == 0 ? "Lunch" : "Bus ticket", start.plusDays(i * 366L / 10_000),
+                    Transaction.TransactionType.EXPENSE));
+        }
+
+        byte[] encoded = SegmentCodec.encode(year);
+
+        // Decine di byte per riga in tabella, pochi byte nel segmento
+        assertTrue(encoded.length < 2 * year.size(), "Segment too large: " + encoded.length + " bytes");
+        assertEquals(year.size(), SegmentCodec.decode(encoded, "default").size());
+    }
+
+    @Test
+    void testUnknownVersionOrTruncatedDataIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(new byte[]{9, 0, 0});
+        }
+        assertThrows(IllegalStateException.class, () -> SegmentCodec.decode(bytes.toByteArray(), "default"));
+
+        byte[] encoded = SegmentCodec.encode(List.of(transaction(1L, 100, "Food", "Lunch", LocalDate.of(2020, 1, 1),
+                Transaction.TransactionType.EXPENSE)));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+        assertThrows(UncheckedIOException.class, () -> SegmentCodec.decode(truncated, "default"));
+    }
+
+    private static List<Object> fields(Transaction transaction) {
+        return Arrays.asList(transaction.getId(), transaction.getAmountCents(), transaction.getCategory(),
+                transaction.getDescription(), transaction.getDate(), transaction.getType(), transaction.getDedupKey());
+    }
+
+    private static Transaction transaction(long id, long cents, String category, String description, LocalDate date,
+                                           Transaction.TransactionType type) {
+        Transaction transaction = new Transaction(cents, category, description, date, Transaction.TransactionType.EXPENSE);
+        transaction.setId(id);
+        transaction.setType(type);
+        return transaction;
+    }
+}
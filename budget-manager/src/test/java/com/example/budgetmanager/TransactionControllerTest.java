@@ -1,28 +1,48 @@
 package com.example.budgetmanager;
 
+import com.example.budgetmanager.config.ResponseFormatConfig;
+import com.example.budgetmanager.config.TransactionTableHttpMessageConverter;
 import com.example.budgetmanager.controller.TransactionController;
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.Ledgers;
 import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.model.TransactionPage;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.service.LedgerVersion;
 import com.example.budgetmanager.service.TransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @WebMvcTest(TransactionController.class)
+@Import({LedgerVersion.class, ResponseFormatConfig.class})
 public class TransactionControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private LedgerVersion ledgerVersion;
+
     @SuppressWarnings("removal")
     @MockBean
     private TransactionService transactionService;
@@ -33,7 +53,7 @@ public class TransactionControllerTest {
         Transaction transaction = new Transaction();
         transaction.setId(1L);
         transaction.setType(Transaction.TransactionType.INCOME);
-        transaction.setAmount(100.0);
+        transaction.setAmountCents(10000);
         transaction.setCategory("Salary");
         transaction.setDescription("Monthly salary");
 
@@ -63,37 +83,59 @@ public class TransactionControllerTest {
         Transaction t1 = new Transaction();
         t1.setId(1L);
         t1.setType(Transaction.TransactionType.INCOME);
-        t1.setAmount(100.0);
+        t1.setAmountCents(10000);
         t1.setCategory("Salary");
         t1.setDescription("Monthly salary");
 
         Transaction t2 = new Transaction();
         t2.setId(2L);
         t2.setType(Transaction.TransactionType.EXPENSE);
-        t2.setAmount(50.0);
+        t2.setAmountCents(5000);
         t2.setCategory("Food");
         t2.setDescription("Groceries");
 
-        when(transactionService.getAllTransactions()).thenReturn(List.of(t1, t2));
+        when(transactionService.getTransactionsPage(Ledgers.DEFAULT, null, TransactionService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new TransactionPage(List.of(t1, t2), null));
 
         // Richiesta GET per ottenere tutte le transazioni
         mockMvc.perform(get("/api/transactions"))
                 .andExpect(status().isOk()) // Aspettati un codice di stato 200
+                .andExpect(header().doesNotExist("X-Next-Cursor")) // Nessuna pagina successiva
                 .andExpect(jsonPath("$[0].id").value(1L)) // Aspettati un ID di transazione
                 .andExpect(jsonPath("$[1].id").value(2L)); // Aspettati un ID di transazione
     }
 
+    @Test
+    void testGetTransactionsNextPage() throws Exception {
+        Transaction t1 = new Transaction();
+        t1.setId(1L);
+        t1.setType(Transaction.TransactionType.INCOME);
+        t1.setAmountCents(10000);
+        t1.setCategory("Salary");
+
+        when(transactionService.getTransactionsPage(Ledgers.DEFAULT, "abc", 1))
+                .thenReturn(new TransactionPage(List.of(t1), "def"));
+
+        // Richiesta GET di una pagina intermedia
+        mockMvc.perform(get("/api/transactions").param("cursor", "abc").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def")) // Cursore della pagina successiva
+                .andExpect(header().string("Link", org.hamcrest.Matchers.containsString("cursor=def")))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
     @Test
     void testGetTransactionById() throws Exception {
         // Mock di una transazione
         Transaction transaction = new Transaction();
         transaction.setId(1L);
         transaction.setType(Transaction.TransactionType.INCOME);
-        transaction.setAmount(100.0);
+        transaction.setAmountCents(10000);
         transaction.setCategory("Salary");
         transaction.setDescription("Monthly salary");
 
-        when(transactionService.getTransactionById(1L)).thenReturn(java.util.Optional.of(transaction));
+        when(transactionService.getTransactionById(Ledgers.DEFAULT, 1L))
+                .thenReturn(java.util.Optional.of(transaction));
 
         // Richiesta GET per ottenere una transazione per ID
         mockMvc.perform(get("/api/transactions/1"))
@@ -107,11 +149,11 @@ public class TransactionControllerTest {
         Transaction transaction = new Transaction();
         transaction.setId(1L);
         transaction.setType(Transaction.TransactionType.INCOME);
-        transaction.setAmount(100.0);
+        transaction.setAmountCents(10000);
         transaction.setCategory("Salary");
         transaction.setDescription("Monthly salary");
 
-        when(transactionService.deleteTransaction(1L)).thenReturn(true);
+        when(transactionService.deleteTransaction(Ledgers.DEFAULT, 1L)).thenReturn(true);
 
         // Richiesta DELETE per eliminare una transazione per ID
         mockMvc.perform(delete("/api/transactions/1"))
@@ -120,11 +162,150 @@ public class TransactionControllerTest {
 
     @Test
     void testDeleteTransactionNotFound() throws Exception {
-        when(transactionService.deleteTransaction(1L)).thenReturn(false);
+        when(transactionService.deleteTransaction(Ledgers.DEFAULT, 1L)).thenReturn(false);
 
         // Richiesta DELETE per eliminare una transazione per ID
         mockMvc.perform(delete("/api/transactions/1"))
                 .andExpect(status().isNotFound()); // Aspettati un codice di stato 404
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void testLedgerInPathScopesReadsAndWrites() throws Exception {
+        Transaction transaction = new Transaction();
+        transaction.setId(3L);
+        when(transactionService.addTransaction(Mockito.any(Transaction.class))).thenReturn(transaction);
+
+        // Il ledger del percorso prevale su quello del corpo
+        mockMvc.perform(post("/api/ledgers/home/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 12.5, \"type\": \"EXPENSE\", \"category\": \"Food\", "
+                                + "\"ledger\": \"work\"}"))
+                .andExpect(status().isCreated());
+        verify(transactionService).addTransaction(Mockito.argThat(added -> "home".equals(added.getLedger())));
+
+        // Una transazione di un altro ledger non è visibile
+        mockMvc.perform(get("/api/ledgers/home/transactions/1"))
+                .andExpect(status().isNotFound());
+        verify(transactionService).getTransactionById("home", 1L);
+
+        mockMvc.perform(get("/api/ledgers/-bad/transactions"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAddTransactionIgnoresClientId() throws Exception {
+        Transaction transaction = new Transaction();
+        transaction.setId(9L);
+        when(transactionService.addTransaction(Mockito.any(Transaction.class))).thenReturn(transaction);
+
+        // L'id 1 appartiene a una riga di un altro ledger: la POST deve creare una riga nuova, non sovrascriverla
+        mockMvc.perform(post("/api/ledgers/home/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 1, \"amount\": 12.5, \"type\": \"EXPENSE\", \"category\": \"Food\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(9L));
+        verify(transactionService).addTransaction(Mockito.argThat(added -> added.getId() == null
+                && "home".equals(added.getLedger())));
+    }
+
+    @Test
+    void testGetAllTransactionsNotModified() throws Exception {
+        String etag = ledgerVersion.etag();
+
+        // Stessa versione del ledger: 304 senza interrogare il servizio
+        mockMvc.perform(get("/api/transactions").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verify(transactionService, never()).getTransactionsPage(Ledgers.DEFAULT, null,
+                TransactionService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Test
+    void testGetAllTransactionsModifiedAfterWrite() throws Exception {
+        String etag = ledgerVersion.etag();
+        when(transactionService.getTransactionsPage(Ledgers.DEFAULT, null, TransactionService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new TransactionPage(List.of(), null));
+
+        // Una scrittura (fuori da una transazione la versione cambia subito) invalida l'ETag del client
+        ledgerVersion.onDeleted(new Transaction());
+
+        mockMvc.perform(get("/api/transactions").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, ledgerVersion.etag()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    void testQueryTransactions() throws Exception {
+        Transaction t1 = new Transaction();
+        t1.setId(7L);
+        t1.setType(Transaction.TransactionType.EXPENSE);
+        t1.setAmountCents(2500);
+        t1.setCategory("Food");
+
+        TransactionFilter filter = new TransactionFilter(null, null, "Food", Transaction.TransactionType.EXPENSE,
+                1000L, 5000L);
+        when(transactionService.search(Ledgers.DEFAULT, filter, null, TransactionService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new TransactionSearchResult(List.of(t1), null, new FilteredTotals(1, 0, 2500)));
+
+        // Filtri come parametri della query, importi decimali convertiti in centesimi
+        mockMvc.perform(get("/api/transactions/query")
+                        .param("category", "Food")
+                        .param("type", "EXPENSE")
+                        .param("minAmount", "10")
+                        .param("maxAmount", "50.00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7L))
+                .andExpect(jsonPath("$.totals.count").value(1))
+                .andExpect(jsonPath("$.totals.totalExpensesCents").value(2500));
+    }
+
+    @Test
+    void testQueryTransactionsWithInvalidRange() throws Exception {
+        // Importo minimo maggiore del massimo
+        mockMvc.perform(get("/api/transactions/query").param("minAmount", "50").param("maxAmount", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testListFormatsFollowTheAcceptHeader() throws Exception {
+        Transaction lunch = new Transaction(1250, "Food", "Lunch", LocalDate.of(2024, 3, 1),
+                Transaction.TransactionType.EXPENSE);
+        lunch.setId(1L);
+        Transaction salary = new Transaction(300000, "Salary", null, LocalDate.of(2024, 3, 2),
+                Transaction.TransactionType.INCOME);
+        salary.setId(2L);
+        when(transactionService.getTransactionsPage(Ledgers.DEFAULT, null, TransactionService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new TransactionPage(List.of(lunch, salary), null));
+
+        // Senza Accept esplicito resta il JSON con un oggetto per riga
+        mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$[0].amountCents").value(1250))
+                .andExpect(jsonPath("$[0].amount").value(12.5));
+
+        // Layout a colonne
+        mockMvc.perform(get("/api/transactions").accept(TransactionTableHttpMessageConverter.TABLE_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(TransactionTableHttpMessageConverter.TABLE_JSON_VALUE))
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.id[1]").value(2))
+                .andExpect(jsonPath("$.date[0]").value("2024-03-01"))
+                .andExpect(jsonPath("$.amountCents[1]").value(300000))
+                .andExpect(jsonPath("$.description[1]").doesNotExist())
+                .andExpect(jsonPath("$.type[0]").value("EXPENSE"));
+
+        // CBOR con gli stessi campi del JSON (date ISO)
+        byte[] cbor = mockMvc.perform(get("/api/transactions").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode rows = new CBORMapper().readTree(cbor);
+        assertEquals(2, rows.size());
+        assertEquals("2024-03-02", rows.get(1).get("date").asText());
+        assertEquals(300000, rows.get(1).get("amountCents").asLong());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.dedup.DedupKeys;
+import com.example.budgetmanager.model.IngestResult;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.TransactionDeduplicator;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Senza transazione di test: il filtro si aggiorna dopo il commit. Ogni test usa un proprio ledger
+@DataJpaTest
+@Import({TransactionService.class, LedgerTotalsService.class, TransactionDeduplicator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TransactionDeduplicatorTest {
+
+    @Autowired
+    private TransactionDeduplicator deduplicator;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void testRepeatedIdempotencyKeyReturnsTheSavedRow() {
+        String ledger = "retries";
+        IngestResult first = deduplicator.add(keyed(ledger, 1200, "Lunch", "req-1"));
+        IngestResult retry = deduplicator.add(keyed(ledger, 1200, "Lunch", "req-1"));
+        // Stessa chiave in un altro ledger: è un'altra transazione
+        IngestResult other = deduplicator.add(keyed("retries-other", 1200, "Lunch", "req-1"));
+
+        assertFalse(first.duplicate());
+        assertTrue(retry.duplicate());
+        assertEquals(first.transaction().getId(), retry.transaction().getId());
+        assertFalse(other.duplicate());
+        assertEquals(1, transactionRepository.countByLedger(ledger));
+        assertEquals(1200, transactionService.getTotalExpensesCents(ledger));
+        assertTrue(deduplicator.stats().duplicates() >= 1);
+    }
+
+    @Test
+    void testBatchSkipsStoredRowsAndRepeatsInsideTheBatch() {
+        String ledger = "statement";
+        deduplicator.addAll(List.of(byContent(ledger, 500, "Coffee"), byContent(ledger, 900, "Cinema")));
+
+        List<IngestResult> results = deduplicator.addAll(List.of(
+                byContent(ledger, 500, "Coffee"),
+                byContent(ledger, 3000, "Dinner"),
+                byContent(ledger, 3000, "Dinner"),
+                plain(ledger, 500, "Coffee")));
+
+        assertEquals(List.of(true, false, true, false), results.stream().map(IngestResult::duplicate).toList());
+        assertEquals(results.get(1).transaction().getId(), results.get(2).transaction().getId());
+        // La riga senza chiave viene salvata anche se uguale a una già presente
+        assertEquals(4, transactionRepository.countByLedger(ledger));
+        assertEquals(4900, transactionService.getTotalExpensesCents(ledger));
+    }
+
+    @Test
+    void testKeysAreValidatedAndContentHashCoversEveryField() {
+        assertThrows(IllegalArgumentException.class, () -> DedupKeys.validate("has space"));
+        assertThrows(IllegalArgumentException.class, () -> DedupKeys.validate("x".repeat(101)));
+
+        Transaction coffee = plain("default", 500, "Coffee");
+        Transaction tea = plain("default", 500, "Tea");
+        Transaction nullDescription = plain("default", 500, null);
+        Transaction emptyDescription = plain("default", 500, "");
+        assertEquals(DedupKeys.contentKey(coffee), DedupKeys.contentKey(plain("other", 500, "Coffee")));
+        assertNotEquals(DedupKeys.contentKey(coffee), DedupKeys.contentKey(tea));
+        assertNotEquals(DedupKeys.contentKey(nullDescription), DedupKeys.contentKey(emptyDescription));
+        assertTrue(DedupKeys.contentKey(coffee).length() <= Transaction.DEDUP_KEY_LENGTH);
+        assertEquals("key:abc", DedupKeys.of(coffee, "abc", true));
+        assertNull(DedupKeys.of(coffee, null, false));
+    }
+
+    private static Transaction plain(String ledger, long cents, String description) {
+        Transaction transaction = new Transaction(cents, "Food", description, LocalDate.of(2024, 3, 1),
+                Transaction.TransactionType.EXPENSE);
+        transaction.setLedger(ledger);
+        return transaction;
+    }
+
+    private static Transaction byContent(String ledger, long cents, String description) {
+        Transaction transaction = plain(ledger, cents, description);
+        transaction.setDedupKey(DedupKeys.contentKey(transaction));
+        return transaction;
+    }
+
+    private static Transaction keyed(String ledger, long cents, String description, String key) {
+        Transaction transaction = plain(ledger, cents, description);
+        transaction.setDedupKey(DedupKeys.of(transaction, key, false));
+        return transaction;
+    }
+}
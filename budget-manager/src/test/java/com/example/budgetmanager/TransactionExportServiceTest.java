@@ -0,0 +1,78 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.TransactionExportService;
+import com.example.budgetmanager.service.TransactionFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(TransactionExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class TransactionExportServiceTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.saveAll(List.of(
+                new Transaction(150000, "Salary", "Salary, January", LocalDate.of(2024, 1, 27), Transaction.TransactionType.INCOME),
+                new Transaction(4250, "Food", "Groceries", LocalDate.of(2024, 2, 3), Transaction.TransactionType.EXPENSE),
+                new Transaction(1200, "Transport", "Bus \"pass\"", LocalDate.of(2024, 3, 1), Transaction.TransactionType.EXPENSE)));
+    }
+
+    @Test
+    void testExportCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = transactionExportService.export(TransactionFormat.CSV, TransactionFilter.NONE, out);
+
+        // Intestazione più una riga per transazione, con i campi tra virgolette quando serve
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, rows);
+        assertEquals(4, lines.size());
+        assertEquals("date,amount,category,description,type", lines.get(0));
+        assertEquals("2024-01-27,1500.00,Salary,\"Salary, January\",INCOME", lines.get(1));
+        assertEquals("2024-03-01,12.00,Transport,\"Bus \"\"pass\"\"\",EXPENSE", lines.get(3));
+    }
+
+    @Test
+    void testExportNdjsonWithFilters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionFilter filter = new TransactionFilter(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 31), "Food");
+
+        long rows = transactionExportService.export(TransactionFormat.NDJSON, filter, out);
+
+        // Solo la spesa alimentare di febbraio, un oggetto JSON per riga
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, rows);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"description\":\"Groceries\""));
+        assertTrue(lines.get(0).contains("\"amountCents\":4250"));
+    }
+
+    @Test
+    void testInvalidDateRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionFilter(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null));
+    }
+}
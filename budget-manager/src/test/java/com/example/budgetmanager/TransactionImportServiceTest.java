@@ -0,0 +1,135 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.ImportReport;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.LedgerTotalsService;
+import com.example.budgetmanager.service.TransactionDeduplicator;
+import com.example.budgetmanager.service.TransactionFormat;
+import com.example.budgetmanager.service.TransactionImportService;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({TransactionService.class, LedgerTotalsService.class, TransactionImportService.class,
+        TransactionDeduplicator.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = "budget.import.batch-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TransactionImportServiceTest {
+
+    @Autowired
+    private TransactionImportService transactionImportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerTotalsService ledgerTotalsService;
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        ledgerTotalsService.rebuild();
+    }
+
+    @Test
+    void testImportCsv() throws IOException {
+        // Tre righe valide (due blocchi) e due righe non valide
+        String csv = """
+                date,amount,category,description,type
+                2024-01-10,100.50,Salary,"Salary, January",INCOME
+                2024-01-11,0,Food,Zero amount,EXPENSE
+                2024-01-12,20,Food,Groceries,EXPENSE
+                not-a-date,5,Food,Bad date,EXPENSE
+                2024-01-13,7.25,Transport,Bus,expense
+                """;
+
+        ImportReport report = transactionImportService.importTransactions(stream(csv), TransactionFormat.CSV);
+
+        // Asserzioni sul resoconto
+        assertEquals(3, report.imported());
+        assertEquals(2, report.rejected());
+        assertEquals(3, report.errors().get(0).line());
+        assertEquals(5, report.errors().get(1).line());
+        assertFalse(report.errorsTruncated());
+
+        // Dati salvati e totali aggiornati
+        assertEquals(3, transactionRepository.count());
+        assertEquals(10050, transactionService.getTotalRevenueCents());
+        assertEquals(2725, transactionService.getTotalExpensesCents());
+        assertTrue(transactionRepository.findAll().stream()
+                .anyMatch(t -> "Salary, January".equals(t.getDescription())));
+    }
+
+    @Test
+    void testImportNdjson() throws IOException {
+        String ndjson = """
+                {"date":"2024-02-01","amount":12.5,"category":"Food","description":"Lunch","type":"EXPENSE"}
+                {"date":"2024-02-02","amount":30,"category":"Food","description":"No type"}
+                {"date":"2024-02-03","amountCents":999,"category":"Food","description":"Snack","type":"EXPENSE"}
+                {"date":"2024-02-04","amount":1.005,"category":"Food","description":"Sub-cent","type":"EXPENSE"}
+                {"date":"2024-02-05","amount":
+                """;
+
+        ImportReport report = transactionImportService.importTransactions(stream(ndjson), TransactionFormat.NDJSON);
+
+        // Importi decimali e in centesimi; i decimali oltre il centesimo vengono rifiutati, non arrotondati
+        assertEquals(2, report.imported());
+        assertEquals(3, report.rejected());
+        assertEquals(2, transactionRepository.count());
+        assertEquals(2249, transactionService.getTotalExpensesCents());
+    }
+
+    @Test
+    void testReimportSkipsDuplicates() throws IOException {
+        // La seconda riga ripete la prima nello stesso file; le chiavi valgono anche con contenuto diverso
+        String csv = """
+                date,amount,category,description,type,idempotency_key
+                2024-03-01,10,Food,Lunch,EXPENSE,
+                2024-03-01,10,Food,Lunch,EXPENSE,
+                2024-03-02,5,Food,Coffee,EXPENSE,bank-42
+                2024-03-02,5,Food,Coffee,EXPENSE,bank-43
+                """;
+
+        ImportReport first = transactionImportService.importTransactions("default", stream(csv),
+                TransactionFormat.CSV, true);
+        ImportReport second = transactionImportService.importTransactions("default", stream(csv),
+                TransactionFormat.CSV, true);
+
+        assertEquals(3, first.imported());
+        assertEquals(1, first.duplicates());
+        assertEquals(0, second.imported());
+        assertEquals(4, second.duplicates());
+        assertEquals(3, transactionRepository.count());
+        assertEquals(2000, transactionService.getTotalExpensesCents());
+    }
+
+    @Test
+    void testImportCsvMissingColumn() {
+        assertThrows(IllegalArgumentException.class, () -> transactionImportService.importTransactions(
+                stream("date,amount,category\n2024-01-10,1,Food\n"), TransactionFormat.CSV));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
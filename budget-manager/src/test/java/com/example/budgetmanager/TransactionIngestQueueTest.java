@@ -0,0 +1,117 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.service.IngestQueueFullException;
+import com.example.budgetmanager.service.TransactionIngestQueue;
+import com.example.budgetmanager.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TransactionIngestQueueTest {
+
+    private TransactionService transactionService;
+    private TransactionIngestQueue ingestQueue;
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Integer> commits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        // Ogni gruppo è un commit: assegna gli id e registra la dimensione del gruppo
+        when(transactionService.addTransactions(anyList())).thenAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            synchronized (commits) {
+                commits.add(batch.size());
+            }
+            batch.forEach(transaction -> transaction.setId(ids.incrementAndGet()));
+            return batch;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ingestQueue != null) {
+            ingestQueue.stop();
+        }
+    }
+
+    @Test
+    void testTransactionsAreSavedInGroups() {
+        ingestQueue = new TransactionIngestQueue(transactionService, 100, 4, Duration.ofMillis(200),
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+        // Accodate prima di avviare il writer: vengono prelevate a gruppi di batch-size
+        List<CompletableFuture<Transaction>> saved = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            saved.add(ingestQueue.submit(transaction(100 + i)));
+        }
+        ingestQueue.start();
+
+        for (CompletableFuture<Transaction> future : saved) {
+            assertNotNull(ingestQueue.awaitDurable(future).getId());
+        }
+        assertEquals(List.of(4, 4, 2), commits);
+    }
+
+    @Test
+    void testFullQueueIsRejected() {
+        ingestQueue = new TransactionIngestQueue(transactionService, 2, 10, Duration.ZERO, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        ingestQueue.start();
+        // Con il writer fermo sul primo commit la coda si riempie
+        CompletableFuture<Void> blocked = new CompletableFuture<>();
+        when(transactionService.addTransactions(anyList())).thenAnswer(invocation -> {
+            blocked.join();
+            return invocation.getArgument(0);
+        });
+
+        try {
+            ingestQueue.submit(transaction(100));
+            assertThrows(IngestQueueFullException.class, () -> {
+                for (int i = 0; i < 10; i++) {
+                    ingestQueue.submit(transaction(200 + i));
+                }
+            });
+        } finally {
+            blocked.complete(null);
+        }
+    }
+
+    @Test
+    void testFailedGroupFallsBackToSingleSaves() {
+        Transaction invalid = transaction(300);
+        when(transactionService.addTransactions(anyList())).thenThrow(new IllegalStateException("constraint violation"));
+        when(transactionService.addTransaction(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            if (transaction == invalid) {
+                throw new IllegalStateException("constraint violation");
+            }
+            transaction.setId(ids.incrementAndGet());
+            return transaction;
+        });
+        ingestQueue = new TransactionIngestQueue(transactionService, 10, 10, Duration.ofMillis(200),
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+        CompletableFuture<Transaction> valid = ingestQueue.submit(transaction(100));
+        CompletableFuture<Transaction> failed = ingestQueue.submit(invalid);
+        ingestQueue.start();
+
+        assertNotNull(ingestQueue.awaitDurable(valid).getId());
+        assertThrows(IllegalStateException.class, () -> ingestQueue.awaitDurable(failed));
+    }
+
+    private static Transaction transaction(long amountCents) {
+        return new Transaction(amountCents, "Food", "Queued", LocalDate.of(2024, 5, 1), Transaction.TransactionType.EXPENSE);
+    }
+}
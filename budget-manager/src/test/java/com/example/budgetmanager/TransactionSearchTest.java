@@ -0,0 +1,140 @@
+package com.example.budgetmanager;
+
+import com.example.budgetmanager.model.FilteredTotals;
+import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionFilter;
+import com.example.budgetmanager.model.TransactionSearchResult;
+import com.example.budgetmanager.repository.TransactionRepository;
+import com.example.budgetmanager.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class TransactionSearchTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = new TransactionService(transactionRepository, null, null, null, null, List.of());
+        transactionRepository.saveAllAndFlush(List.of(
+                new Transaction(1000, "Food", "Lunch", LocalDate.of(2024, 1, 10), Transaction.TransactionType.EXPENSE),
+                new Transaction(2500, "Food", "Dinner", LocalDate.of(2024, 2, 14), Transaction.TransactionType.EXPENSE),
+                new Transaction(4000, "Food", "Groceries", LocalDate.of(2024, 3, 2), Transaction.TransactionType.EXPENSE),
+                new Transaction(80000, "Rent", "March", LocalDate.of(2024, 3, 1), Transaction.TransactionType.EXPENSE),
+                new Transaction(150000, "Salary", "March", LocalDate.of(2024, 3, 27), Transaction.TransactionType.INCOME),
+                undated(700, "Food", "Snack")));
+    }
+
+    @Test
+    void testSearchByCategoryTypeAndDateRange() {
+        TransactionFilter filter = new TransactionFilter(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 31), "Food",
+                Transaction.TransactionType.EXPENSE, null, null);
+
+        TransactionSearchResult result = transactionService.search(filter, null, 10);
+
+        assertEquals(List.of("Groceries", "Dinner"), result.items().stream().map(Transaction::getDescription).toList());
+        assertNull(result.nextCursor());
+        assertEquals(new FilteredTotals(2, 0, 6500), result.totals());
+    }
+
+    @Test
+    void testSearchByAmountRangeIncludesUndated() {
+        TransactionFilter filter = new TransactionFilter(null, null, null, null, 500L, 2500L);
+
+        TransactionSearchResult result = transactionService.search(filter, null, 10);
+
+        // Transazioni senza data in fondo, come nel resto del ledger
+        assertEquals(List.of("Dinner", "Lunch", "Snack"), result.items().stream().map(Transaction::getDescription).toList());
+        assertEquals(new FilteredTotals(3, 0, 4200), result.totals());
+    }
+
+    @Test
+    void testSearchPagesWithCursor() {
+        TransactionFilter filter = new TransactionFilter(null, null, "Food", null, null, null);
+
+        List<String> descriptions = new ArrayList<>();
+        TransactionSearchResult page = transactionService.search(filter, null, 2);
+        assertEquals(4, page.totals().count());
+        descriptions.addAll(page.items().stream().map(Transaction::getDescription).toList());
+        while (page.nextCursor() != null) {
+            page = transactionService.search(filter, page.nextCursor(), 2);
+            // Gli aggregati accompagnano solo la prima pagina
+            assertNull(page.totals());
+            descriptions.addAll(page.items().stream().map(Transaction::getDescription).toList());
+        }
+
+        assertEquals(List.of("Groceries", "Dinner", "Lunch", "Snack"), descriptions);
+    }
+
+    @Test
+    void testInvalidAmountRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionFilter(null, null, null, null, 5000L, 1000L));
+    }
+
+    @Test
+    void testSearchIsScopedToLedger() {
+        Transaction team = new Transaction(3000, "Food", "Team lunch", LocalDate.of(2024, 3, 5),
+                Transaction.TransactionType.EXPENSE);
+        team.setLedger("work");
+        transactionService.addTransaction(team);
+        TransactionFilter food = new TransactionFilter(null, null, "Food", null, null, null);
+
+        assertEquals(4, transactionService.search(food, null, 10).totals().count());
+        TransactionSearchResult work = transactionService.search("work", food, null, 10);
+        assertEquals(List.of("Team lunch"), work.items().stream().map(Transaction::getDescription).toList());
+        assertEquals(new FilteredTotals(1, 0, 3000), work.totals());
+        assertEquals(List.of("default", "work"), transactionService.getLedgers());
+
+        // Una transazione non si legge né si elimina attraverso un altro ledger
+        Long lunchId = transactionService.search(food, null, 10).items().get(2).getId();
+        assertTrue(transactionService.getTransactionById("work", lunchId).isEmpty());
+        assertFalse(transactionService.deleteTransaction("work", lunchId));
+        assertTrue(transactionService.getTransactionById(lunchId).isPresent());
+    }
+
+    @Test
+    void testFilteredQueriesUseCompositeIndexes() {
+        assertPlanUses("IDX_TRANSACTION_LEDGER_TYPE_DATE",
+                "SELECT id FROM transaction WHERE ledger = 'default' AND type = 'EXPENSE' "
+                        + "AND date >= DATE '2024-01-01' AND date <= DATE '2024-03-31'");
+        assertPlanUses("IDX_TRANSACTION_LEDGER_CATEGORY_DATE",
+                "SELECT id FROM transaction WHERE ledger = 'default' AND category = 'Food' "
+                        + "AND date >= DATE '2024-01-01' AND date <= DATE '2024-03-31'");
+        assertPlanUses("IDX_TRANSACTION_LEDGER_AMOUNT",
+                "SELECT id FROM transaction WHERE ledger = 'default' AND amount_cents >= 1000 "
+                        + "AND amount_cents <= 5000");
+    }
+
+    private void assertPlanUses(String index, String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains(index), "Expected " + index + " in plan: " + plan);
+    }
+
+    // Il costruttore richiede la data: le transazioni senza data si creano con i setter
+    private static Transaction undated(long cents, String category, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setAmountCents(cents);
+        transaction.setCategory(category);
+        transaction.setDescription(description);
+        transaction.setType(Transaction.TransactionType.EXPENSE);
+        return transaction;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.budgetmanager;
 
+import com.example.budgetmanager.model.LedgerSummary;
 import com.example.budgetmanager.model.Transaction;
+import com.example.budgetmanager.model.TransactionCursor;
+import com.example.budgetmanager.model.TransactionPage;
 import com.example.budgetmanager.repository.TransactionRepository;
 import com.example.budgetmanager.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,7 +27,7 @@ public class TransactionServiceTest {
     @BeforeEach
     void setUp() {
         // Inizializza il servizio con il repository autowired
-        transactionService = new TransactionService(transactionRepository);
+        transactionService = new TransactionService(transactionRepository, null, null, null, null, List.of());
     }
 
     @Test
@@ -32,20 +35,20 @@ public class TransactionServiceTest {
         // Dati di esempio per una transazione
         Transaction transaction = new Transaction();
         transaction.setType(Transaction.TransactionType.INCOME);
-        transaction.setAmount(100.0);
+        transaction.setAmountCents(10000);
         
         // Test del servizio che salva su H2
         Transaction savedTransaction = transactionService.addTransaction(transaction);
         
         // Asserzioni
         assertNotNull(savedTransaction);
-        assertEquals(100.0, savedTransaction.getAmount());
+        assertEquals(10000, savedTransaction.getAmountCents());
         assertEquals(Transaction.TransactionType.INCOME, savedTransaction.getType());
 
         // Verifica che la transazione sia effettivamente nel database
         Transaction foundTransaction = transactionRepository.findById(savedTransaction.getId()).orElse(null);
         assertNotNull(foundTransaction);
-        assertEquals(transaction.getAmount(), foundTransaction.getAmount());
+        assertEquals(transaction.getAmountCents(), foundTransaction.getAmountCents());
     }
 
     @Test
@@ -53,7 +56,7 @@ public class TransactionServiceTest {
         // Dati di esempio per una transazione
         Transaction transaction = new Transaction();
         transaction.setType(Transaction.TransactionType.INCOME);
-        transaction.setAmount(100.0);
+        transaction.setAmountCents(10000);
 
         // Salvataggio nel database H2
         Transaction savedTransaction = transactionRepository.save(transaction);
@@ -63,7 +66,7 @@ public class TransactionServiceTest {
 
         // Asserzioni
         assertTrue(result.isPresent());
-        assertEquals(100.0, result.get().getAmount());
+        assertEquals(10000, result.get().getAmountCents());
         assertEquals(Transaction.TransactionType.INCOME, result.get().getType());
     }
 
@@ -90,14 +93,14 @@ public class TransactionServiceTest {
         // Dati di esempio per le transazioni
         Transaction t1 = new Transaction();
         t1.setType(Transaction.TransactionType.INCOME);
-        t1.setAmount(100.0);
+        t1.setAmountCents(10000);
         t1.setCategory("Salary");
         t1.setDate(LocalDate.now());
         t1.setDescription("test");
         
         Transaction t2 = new Transaction();
         t2.setType(Transaction.TransactionType.EXPENSE);
-        t2.setAmount(50.0);
+        t2.setAmountCents(5000);
         t2.setCategory("Food");
         t2.setDate(LocalDate.now());
         t2.setDescription("test");
@@ -111,32 +114,112 @@ public class TransactionServiceTest {
         
         // Asserzioni
         assertEquals(2, result.size());
-        assertEquals(100.0, result.get(0).getAmount());
+        assertEquals(10000, result.get(0).getAmountCents());
         assertEquals(Transaction.TransactionType.INCOME, result.get(0).getType());
-        assertEquals(50.0, result.get(1).getAmount());
+        assertEquals(5000, result.get(1).getAmountCents());
         assertEquals(Transaction.TransactionType.EXPENSE, result.get(1).getType());
     }
 
+    @Test
+    void testGetTransactionsPage() {
+        // Transazioni con date diverse, una con data uguale e una senza data
+        Transaction oldest = newExpense(1000, LocalDate.of(2024, 1, 10));
+        Transaction newest = newExpense(2000, LocalDate.of(2024, 3, 10));
+        Transaction sameDay = newExpense(3000, LocalDate.of(2024, 3, 10));
+        Transaction undated = new Transaction();
+        undated.setType(Transaction.TransactionType.EXPENSE);
+        undated.setAmountCents(4000);
+        transactionRepository.saveAll(List.of(oldest, newest, sameDay, undated));
+
+        // Prima pagina: data decrescente, a parità di data id crescente
+        TransactionPage first = transactionService.getTransactionsPage(null, 2);
+        assertEquals(List.of(newest.getId(), sameDay.getId()), first.items().stream().map(Transaction::getId).toList());
+        assertTrue(first.hasNext());
+
+        // Seconda (e ultima) pagina: la transazione più vecchia e poi quella senza data
+        TransactionPage second = transactionService.getTransactionsPage(first.nextCursor(), 2);
+        assertEquals(List.of(oldest.getId(), undated.getId()), second.items().stream().map(Transaction::getId).toList());
+        assertFalse(second.hasNext());
+
+        // Un cursore che punta a una transazione senza data prosegue solo tra quelle senza data
+        TransactionPage afterUndated = transactionService.getTransactionsPage(
+                TransactionCursor.after(undated).encode(), 2);
+        assertTrue(afterUndated.items().isEmpty());
+    }
+
+    @Test
+    void testGetTransactionsPageInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionsPage("%%%", 10));
+    }
+
+    private Transaction newExpense(long amountCents, LocalDate date) {
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TransactionType.EXPENSE);
+        transaction.setAmountCents(amountCents);
+        transaction.setCategory("Food");
+        transaction.setDate(date);
+        return transaction;
+    }
+
     @Test
     void testGetBalance() {
         // Dati di esempio per le transazioni
         Transaction t1 = new Transaction();
         t1.setType(Transaction.TransactionType.INCOME);
-        t1.setAmount(100.0);
+        t1.setAmountCents(10000);
 
         Transaction t2 = new Transaction();
         t2.setType(Transaction.TransactionType.EXPENSE);
-        t2.setAmount(50.0);
+        t2.setAmountCents(5000);
 
         // Salvataggio delle transazioni nel database H2
         transactionRepository.save(t1);
         transactionRepository.save(t2);
 
         // Test del servizio
-        double balance = transactionService.getBalance();
+        long balance = transactionService.getBalanceCents();
+
+        // Asserzioni
+        assertEquals(5000, balance);
+    }
+
+    @Test
+    void testGetLedgerSummary() {
+        // Una entrata e due spese
+        Transaction income = new Transaction();
+        income.setType(Transaction.TransactionType.INCOME);
+        income.setAmountCents(20000);
+        transactionRepository.saveAll(List.of(income,
+                newExpense(5000, LocalDate.of(2024, 1, 1)),
+                newExpense(2500, LocalDate.of(2024, 1, 2))));
+
+        // Test del servizio
+        LedgerSummary summary = transactionService.getLedgerSummary();
 
         // Asserzioni
-        assertEquals(50.0, balance);
+        assertEquals(20000, summary.totalRevenueCents());
+        assertEquals(7500, summary.totalExpensesCents());
+        assertEquals(12500, summary.balanceCents());
+    }
+
+    @Test
+    void testGetLedgerSummaryEmpty() {
+        LedgerSummary summary = transactionService.getLedgerSummary();
+        assertEquals(0, summary.totalRevenueCents());
+        assertEquals(0, summary.totalExpensesCents());
+    }
+
+    @Test
+    void testGetLatestTransactions() {
+        Transaction older = newExpense(1000, LocalDate.of(2024, 1, 1));
+        Transaction newer = newExpense(2000, LocalDate.of(2024, 2, 1));
+        transactionRepository.saveAll(List.of(older, newer));
+
+        // Le più recenti per prime, al massimo n
+        assertEquals(List.of(newer.getId()),
+                transactionService.getLatestTransactions(1).stream().map(Transaction::getId).toList());
+        assertEquals(List.of(newer.getId(), older.getId()),
+                transactionService.getLatestTransactions(10).stream().map(Transaction::getId).toList());
     }
 
     @Test
@@ -144,7 +227,7 @@ public class TransactionServiceTest {
         // Dati di esempio per una transazione
         Transaction transaction = new Transaction();
         transaction.setType(Transaction.TransactionType.INCOME);
-        transaction.setAmount(100.0);
+        transaction.setAmountCents(10000);
         
         // Salvataggio nel database H2
         Transaction savedTransaction = transactionRepository.save(transaction);
@@ -162,21 +245,21 @@ public class TransactionServiceTest {
         // Dati di esempio per le transazioni
         Transaction t1 = new Transaction();
         t1.setType(Transaction.TransactionType.INCOME);
-        t1.setAmount(100.0);
+        t1.setAmountCents(10000);
 
         Transaction t2 = new Transaction();
         t2.setType(Transaction.TransactionType.INCOME);
-        t2.setAmount(50.0);
+        t2.setAmountCents(5000);
 
         // Salvataggio delle transazioni nel database H2
         transactionRepository.save(t1);
         transactionRepository.save(t2);
 
         // Test del servizio
-        double totalRevenue = transactionService.getTotalRevenue();
+        long totalRevenue = transactionService.getTotalRevenueCents();
 
         // Asserzioni
-        assertEquals(150.0, totalRevenue);
+        assertEquals(15000, totalRevenue);
     }
 
     @Test
@@ -184,21 +267,21 @@ public class TransactionServiceTest {
         // Dati di esempio per le transazioni
         Transaction t1 = new Transaction();
         t1.setType(Transaction.TransactionType.EXPENSE);
-        t1.setAmount(100.0);
+        t1.setAmountCents(10000);
 
         Transaction t2 = new Transaction();
         t2.setType(Transaction.TransactionType.EXPENSE);
-        t2.setAmount(50.0);
+        t2.setAmountCents(5000);
 
         // Salvataggio delle transazioni nel database H2
         transactionRepository.save(t1);
         transactionRepository.save(t2);
 
         // Test del servizio
-        double totalExpenses = transactionService.getTotalExpenses();
+        long totalExpenses = transactionService.getTotalExpensesCents();
 
         // Asserzioni
-        assertEquals(150.0, totalExpenses);
+        assertEquals(15000, totalExpenses);
     }
 
     @Test
@@ -206,12 +289,12 @@ public class TransactionServiceTest {
         // Dati
         Transaction t1 = new Transaction();
         t1.setType(Transaction.TransactionType.EXPENSE);
-        t1.setAmount(100.0);
+        t1.setAmountCents(10000);
         t1.setCategory("Food");
 
         Transaction t2 = new Transaction();
         t2.setType(Transaction.TransactionType.EXPENSE);
-        t2.setAmount(50.0);
+        t2.setAmountCents(5000);
         t2.setCategory("Transport");
 
         // Salvataggio delle transazioni nel database H2
@@ -223,8 +306,8 @@ public class TransactionServiceTest {
 
         // Asserzioni
         assertEquals(2, result.size());
-        assertEquals(100.0, result.get("Food"));
-        assertEquals(50.0, result.get("Transport"));
+        assertEquals(10000L, result.get("Food"));
+        assertEquals(5000L, result.get("Transport"));
 
     }   
 